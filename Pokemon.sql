@@ -26,6 +26,7 @@ CREATE TABLE IF NOT EXISTS `batalla` (
   `jugador` TINYINT(1) NOT NULL COMMENT '1 = Jugador, 0 = Rival',
   `nombre_pokemon` VARCHAR(50) NOT NULL,
   `vida` DOUBLE NOT NULL DEFAULT 1.0,
+  `condicion` INT NOT NULL DEFAULT 0 COMMENT 'Condiciones de estado empaquetadas (ver modelo.Condicion)',
   PRIMARY KEY (`id`),
   INDEX `fk_batalla_partida_idx` (`partida_id` ASC),
   CONSTRAINT `fk_batalla_partida`
@@ -35,6 +36,9 @@ CREATE TABLE IF NOT EXISTS `batalla` (
     ON UPDATE CASCADE
 ) ENGINE = InnoDB;
 
+-- Bases de datos creadas antes de las condiciones de estado:
+-- ALTER TABLE `batalla` ADD COLUMN `condicion` INT NOT NULL DEFAULT 0 AFTER `vida`;
+
 -- -----------------------------------------------------
 -- Tabla `movimientos_pokemon`
 -- -----------------------------------------------------
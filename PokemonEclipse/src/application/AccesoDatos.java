@@ -1,186 +1,302 @@
-package application;
-
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.sql.Statement;
-import java.util.ArrayList;
-import java.util.List;
-
-import modelo.Movimiento;
-import modelo.Pokemon;
-
-/**
- * Clase para manejar la conexión a la base de datos y operaciones
- * relacionadas con guardar y cargar partidas de Pokémon.
- */
-public class AccesoDatos {
-
-    /** Conexión con la base de datos MySQL */
-    private Connection conexion;
-
-    /**
-     * Constructor que establece la conexión con la base de datos MySQL.
-     * @throws SQLException Si ocurre un error en la conexión
-     */
-    public AccesoDatos() throws SQLException {
-        // Datos de conexión
-        String url = "jdbc:mysql://localhost:3306/Pokemon";
-        String usuario = "root";
-        String contraseña = "4c4e6l7t8A.";
-
-        // Establecer conexión
-        this.conexion = DriverManager.getConnection(url, usuario, contraseña);
-    }
-
-    /**
-     * Guarda una partida en la base de datos con el nombre, turno actual y
-     * estado de los Pokémon (Charizard y Lucario).
-     * @param nombreGuardado Nombre identificador de la partida
-     * @param turnoCharizard Indica si es turno de Charizard
-     * @param charizard Objeto Pokemon del jugador
-     * @param lucario Objeto Pokemon del rival
-     * @throws SQLException Si ocurre un error durante la operación SQL
-     */
-    public void guardarPartida(String nombreGuardado, boolean turnoCharizard, Pokemon charizard, Pokemon lucario) throws SQLException {
-        try {
-            conexion.setAutoCommit(false);
-
-            // Insertar registro de partida guardada y obtener su ID generado
-            String insertPartida = "INSERT INTO partidas_guardadas (nombre_guardado, turno) VALUES (?, ?)";
-            PreparedStatement psPartida = conexion.prepareStatement(insertPartida, Statement.RETURN_GENERATED_KEYS);
-            psPartida.setString(1, nombreGuardado);
-            psPartida.setBoolean(2, turnoCharizard);
-            psPartida.executeUpdate();
-
-            ResultSet rs = psPartida.getGeneratedKeys();
-            if (!rs.next()) throw new SQLException("No se pudo obtener el ID de la partida");
-            int partidaId = rs.getInt(1);
-
-            // Insertar Pokémon del jugador y rival en la tabla batalla
-            insertarPokemon(partidaId, true, charizard);
-            insertarPokemon(partidaId, false, lucario);
-
-            conexion.commit();
-            System.out.println("¡Partida guardada exitosamente!");
-        } catch (SQLException e) {
-            conexion.rollback();
-            throw e;
-        }
-    }
-
-    /**
-     * Inserta un Pokémon y sus movimientos en la base de datos.
-     * @param partidaId ID de la partida a la que pertenece el Pokémon
-     * @param esJugador Indica si el Pokémon es del jugador (true) o rival (false)
-     * @param p Objeto Pokemon a insertar
-     * @return ID generado del Pokémon insertado
-     * @throws SQLException Si ocurre un error SQL
-     */
-    private int insertarPokemon(int partidaId, boolean esJugador, Pokemon p) throws SQLException {
-        String insertPokemon = "INSERT INTO batalla (partida_id, jugador, nombre_pokemon, vida) VALUES (?, ?, ?, ?)";
-        PreparedStatement ps = conexion.prepareStatement(insertPokemon, Statement.RETURN_GENERATED_KEYS);
-        ps.setInt(1, partidaId);
-        ps.setBoolean(2, esJugador);
-        ps.setString(3, p.nombre);
-        ps.setDouble(4, p.getVida());
-        ps.executeUpdate();
-
-        ResultSet rs = ps.getGeneratedKeys();
-        if (!rs.next()) throw new SQLException("No se pudo obtener el ID del Pokémon");
-        int pokemonId = rs.getInt(1);
-
-        // Insertar movimientos asociados al Pokémon
-        for (Movimiento m : p.movimientos) {
-            String insertMov = "INSERT INTO movimientos_pokemon (pokemon_id, nombre_movimiento, pp_actual, pp_maximo) VALUES (?, ?, ?, ?)";
-            PreparedStatement psMov = conexion.prepareStatement(insertMov);
-            psMov.setInt(1, pokemonId);
-            psMov.setString(2, m.nombre);
-            psMov.setInt(3, m.pp);
-            psMov.setInt(4, m.ppMax);
-            psMov.executeUpdate();
-        }
-
-        return pokemonId;
-    }
-
-    /**
-     * Clase interna para representar una partida guardada con su estado.
-     */
-    public class PartidaGuardada {
-        public boolean turnoCharizard;
-        public Pokemon charizard;
-        public Pokemon lucario;
-
-        public PartidaGuardada(boolean turnoCharizard, Pokemon charizard, Pokemon lucario) {
-            this.turnoCharizard = turnoCharizard;
-            this.charizard = charizard;
-            this.lucario = lucario;
-        }
-    }
-
-    /**
-     * Carga la última partida guardada de la base de datos,
-     * recuperando el estado de los Pokémon y el turno actual.
-     * @return Objeto PartidaGuardada con los datos cargados
-     * @throws SQLException Si no se encuentra ninguna partida o error SQL
-     */
-    public PartidaGuardada cargarUltimaPartida() throws SQLException {
-        String query = "SELECT * FROM partidas_guardadas ORDER BY fecha DESC LIMIT 1";
-        PreparedStatement ps = conexion.prepareStatement(query);
-        ResultSet rs = ps.executeQuery();
-
-        if (!rs.next()) throw new SQLException("No se encontró ninguna partida guardada");
-
-        int partidaId = rs.getInt("id");
-        boolean turno = rs.getBoolean("turno");
-
-        Pokemon charizard = null;
-        Pokemon lucario = null;
-
-        // Consultar los Pokémon relacionados a la partida
-        String sqlPokemon = "SELECT * FROM batalla WHERE partida_id = ?";
-        PreparedStatement psPoke = conexion.prepareStatement(sqlPokemon);
-        psPoke.setInt(1, partidaId);
-        ResultSet rsPoke = psPoke.executeQuery();
-
-        while (rsPoke.next()) {
-            int pokeId = rsPoke.getInt("id");
-            String nombre = rsPoke.getString("nombre_pokemon");
-            double vida = rsPoke.getDouble("vida");
-            boolean esJugador = rsPoke.getBoolean("jugador");
-
-            // Cargar movimientos asociados al Pokémon
-            List<Movimiento> listaMovimientos = new ArrayList<>();
-            String sqlMov = "SELECT * FROM movimientos_pokemon WHERE pokemon_id = ?";
-            PreparedStatement psMov = conexion.prepareStatement(sqlMov);
-            psMov.setInt(1, pokeId);
-            ResultSet rsMov = psMov.executeQuery();
-
-            while (rsMov.next()) {
-                String nombreMov = rsMov.getString("nombre_movimiento");
-                int pp = rsMov.getInt("pp_actual");
-                int ppMax = rsMov.getInt("pp_maximo");
-                double dano = rsMov.getDouble("dano"); // Asegúrate que la tabla movimientos_pokemon tenga esta columna
-
-                Movimiento m = new Movimiento(nombreMov, dano, ppMax);
-                m.setPp(pp);
-                listaMovimientos.add(m);
-            }
-
-            Movimiento[] movimientosArray = listaMovimientos.toArray(new Movimiento[0]);
-            Pokemon p = new Pokemon(nombre, movimientosArray);
-            p.setVida(vida);
-
-            if (esJugador) {
-                charizard = p;
-            } else {
-                lucario = p;
-            }
-        }
-
-        return new PartidaGuardada(turno, charizard, lucario);
-    }
-}
+package application;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import metricas.Contador;
+import metricas.EventosJfr;
+import metricas.Histograma;
+import metricas.Metricas;
+import modelo.Catalogo;
+import modelo.EstadoBatalla;
+import modelo.Movimiento;
+import modelo.Pokemon;
+import registro.Registro;
+
+/**
+ * Clase para manejar la conexión a la base de datos y operaciones
+ * relacionadas con guardar y cargar partidas de Pokémon.
+ */
+public class AccesoDatos {
+
+    /** Conexión con la base de datos MySQL */
+    private Connection conexion;
+
+    private static final Registro REGISTRO = Registro.de("bd");
+
+    // Duración de cada operación con la base de datos y operaciones que fallaron
+    private static final Histograma TIEMPO_CONEXION = Metricas.histograma("bd.conectar");
+    private static final Histograma TIEMPO_GUARDAR = Metricas.histograma("bd.guardar");
+    private static final Histograma TIEMPO_CARGAR = Metricas.histograma("bd.cargar");
+    private static final Contador ERRORES = Metricas.contador("bd.errores");
+
+    // Sentencias ejecutadas y filas escritas o leídas en la operación en curso (para los eventos JFR)
+    private int sentencias;
+    private int filas;
+
+    /**
+     * Constructor que establece la conexión con la base de datos MySQL.
+     * @throws SQLException Si ocurre un error en la conexión
+     */
+    public AccesoDatos() throws SQLException {
+        // Datos de conexión
+        String url = "jdbc:mysql://localhost:3306/Pokemon";
+        String usuario = "root";
+        String contraseña = "4c4e6l7t8A.";
+
+        // Establecer conexión
+        long inicio = System.nanoTime();
+        EventosJfr.BaseDatos evento = iniciarEvento();
+        boolean correcta = false;
+        try {
+            this.conexion = DriverManager.getConnection(url, usuario, contraseña);
+            correcta = true;
+        } catch (SQLException e) {
+            ERRORES.incrementar();
+            throw e;
+        } finally {
+            TIEMPO_CONEXION.registrarDesde(inicio);
+            terminarEvento(evento, "conectar", correcta);
+        }
+    }
+
+    /**
+     * Guarda una partida en la base de datos con el nombre, turno actual y
+     * estado de los Pokémon (Charizard y Lucario).
+     * @param nombreGuardado Nombre identificador de la partida
+     * @param turnoCharizard Indica si es turno de Charizard
+     * @param charizard Objeto Pokemon del jugador
+     * @param lucario Objeto Pokemon del rival
+     * @throws SQLException Si ocurre un error durante la operación SQL
+     */
+    public void guardarPartida(String nombreGuardado, boolean turnoCharizard, Pokemon charizard, Pokemon lucario) throws SQLException {
+        long inicio = System.nanoTime();
+        EventosJfr.BaseDatos evento = iniciarEvento();
+        boolean correcta = false;
+        try {
+            conexion.setAutoCommit(false);
+
+            // Insertar registro de partida guardada y obtener su ID generado
+            String insertPartida = "INSERT INTO partidas_guardadas (nombre_guardado, turno) VALUES (?, ?)";
+            PreparedStatement psPartida = conexion.prepareStatement(insertPartida, Statement.RETURN_GENERATED_KEYS);
+            psPartida.setString(1, nombreGuardado);
+            psPartida.setBoolean(2, turnoCharizard);
+            actualizar(psPartida);
+
+            ResultSet rs = psPartida.getGeneratedKeys();
+            if (!rs.next()) throw new SQLException("No se pudo obtener el ID de la partida");
+            int partidaId = rs.getInt(1);
+
+            // Insertar Pokémon del jugador y rival en la tabla batalla
+            insertarPokemon(partidaId, true, charizard);
+            insertarPokemon(partidaId, false, lucario);
+
+            conexion.commit();
+            correcta = true;
+            REGISTRO.info("¡Partida guardada exitosamente! ({} sentencias, {} filas)", sentencias, filas);
+        } catch (SQLException e) {
+            ERRORES.incrementar();
+            conexion.rollback();
+            throw e;
+        } finally {
+            TIEMPO_GUARDAR.registrarDesde(inicio);
+            terminarEvento(evento, "guardar", correcta);
+        }
+    }
+
+    private EventosJfr.BaseDatos iniciarEvento() {
+        sentencias = 0;
+        filas = 0;
+        EventosJfr.BaseDatos evento = new EventosJfr.BaseDatos();
+        evento.begin();
+        return evento;
+    }
+
+    private void terminarEvento(EventosJfr.BaseDatos evento, String operacion, boolean correcta) {
+        evento.end();
+        if (!evento.shouldCommit()) return;
+        evento.operacion = operacion;
+        evento.sentencias = sentencias;
+        evento.filas = filas;
+        evento.correcta = correcta;
+        evento.commit();
+    }
+
+    /**
+     * Ejecuta una sentencia de escritura contando la sentencia y las filas afectadas.
+     */
+    private void actualizar(PreparedStatement ps) throws SQLException {
+        sentencias++;
+        filas += ps.executeUpdate();
+    }
+
+    /**
+     * Ejecuta una consulta contando la sentencia (las filas se cuentan al recorrerla).
+     */
+    private ResultSet consultar(PreparedStatement ps) throws SQLException {
+        sentencias++;
+        return ps.executeQuery();
+    }
+
+    /**
+     * Inserta un Pokémon (con sus condiciones de estado empaquetadas) y sus movimientos en la base de datos.
+     * @param partidaId ID de la partida a la que pertenece el Pokémon
+     * @param esJugador Indica si el Pokémon es del jugador (true) o rival (false)
+     * @param p Objeto Pokemon a insertar
+     * @return ID generado del Pokémon insertado
+     * @throws SQLException Si ocurre un error SQL
+     */
+    private int insertarPokemon(int partidaId, boolean esJugador, Pokemon p) throws SQLException {
+        String insertPokemon = "INSERT INTO batalla (partida_id, jugador, nombre_pokemon, vida, condicion) VALUES (?, ?, ?, ?, ?)";
+        PreparedStatement ps = conexion.prepareStatement(insertPokemon, Statement.RETURN_GENERATED_KEYS);
+        ps.setInt(1, partidaId);
+        ps.setBoolean(2, esJugador);
+        ps.setString(3, p.nombre);
+        ps.setDouble(4, p.getVida());
+        ps.setInt(5, p.getCondicion());
+        actualizar(ps);
+
+        ResultSet rs = ps.getGeneratedKeys();
+        if (!rs.next()) throw new SQLException("No se pudo obtener el ID del Pokémon");
+        int pokemonId = rs.getInt(1);
+
+        // Insertar movimientos asociados al Pokémon
+        for (Movimiento m : p.movimientos) {
+            String insertMov = "INSERT INTO movimientos_pokemon (pokemon_id, nombre_movimiento, pp_actual, pp_maximo) VALUES (?, ?, ?, ?)";
+            PreparedStatement psMov = conexion.prepareStatement(insertMov);
+            psMov.setInt(1, pokemonId);
+            psMov.setString(2, m.nombre);
+            psMov.setInt(3, m.pp);
+            psMov.setInt(4, m.ppMax);
+            actualizar(psMov);
+        }
+
+        return pokemonId;
+    }
+
+    /**
+     * Clase interna para representar una partida guardada con su estado.
+     */
+    public class PartidaGuardada {
+        public boolean turnoCharizard;
+        public Pokemon charizard;
+        public Pokemon lucario;
+
+        public PartidaGuardada(boolean turnoCharizard, Pokemon charizard, Pokemon lucario) {
+            this.turnoCharizard = turnoCharizard;
+            this.charizard = charizard;
+            this.lucario = lucario;
+        }
+    }
+
+    /**
+     * Carga la última partida guardada de la base de datos,
+     * recuperando el estado de los Pokémon y el turno actual.
+     * @return Objeto PartidaGuardada con los datos cargados
+     * @throws SQLException Si no se encuentra ninguna partida o error SQL
+     */
+    public PartidaGuardada cargarUltimaPartida() throws SQLException {
+        long inicio = System.nanoTime();
+        EventosJfr.BaseDatos evento = iniciarEvento();
+        boolean correcta = false;
+        try {
+            PartidaGuardada partida = leerUltimaPartida();
+            correcta = true;
+            return partida;
+        } catch (SQLException e) {
+            ERRORES.incrementar();
+            throw e;
+        } finally {
+            TIEMPO_CARGAR.registrarDesde(inicio);
+            terminarEvento(evento, "cargar", correcta);
+        }
+    }
+
+    private PartidaGuardada leerUltimaPartida() throws SQLException {
+        String query = "SELECT * FROM partidas_guardadas ORDER BY fecha DESC LIMIT 1";
+        PreparedStatement ps = conexion.prepareStatement(query);
+        ResultSet rs = consultar(ps);
+
+        if (!rs.next()) throw new SQLException("No se encontró ninguna partida guardada");
+        filas++;
+
+        int partidaId = rs.getInt("id");
+        boolean turno = rs.getBoolean("turno");
+
+        Pokemon charizard = null;
+        Pokemon lucario = null;
+
+        // Los tipos, estadísticas y parámetros de los movimientos no se guardan: se toman del catálogo
+        Catalogo catalogo = Catalogo.activo();
+
+        // Consultar los Pokémon relacionados a la partida
+        String sqlPokemon = "SELECT * FROM batalla WHERE partida_id = ?";
+        PreparedStatement psPoke = conexion.prepareStatement(sqlPokemon);
+        psPoke.setInt(1, partidaId);
+        ResultSet rsPoke = consultar(psPoke);
+
+        while (rsPoke.next()) {
+            filas++;
+            int pokeId = rsPoke.getInt("id");
+            String nombre = rsPoke.getString("nombre_pokemon");
+            double vida = rsPoke.getDouble("vida");
+            int condicion = rsPoke.getInt("condicion");
+            boolean esJugador = rsPoke.getBoolean("jugador");
+            int lado = esJugador ? EstadoBatalla.CHARIZARD : EstadoBatalla.LUCARIO;
+
+            // Cargar movimientos asociados al Pokémon
+            List<Movimiento> listaMovimientos = new ArrayList<>();
+            String sqlMov = "SELECT * FROM movimientos_pokemon WHERE pokemon_id = ?";
+            PreparedStatement psMov = conexion.prepareStatement(sqlMov);
+            psMov.setInt(1, pokeId);
+            ResultSet rsMov = consultar(psMov);
+
+            while (rsMov.next()) {
+                filas++;
+                String nombreMov = rsMov.getString("nombre_movimiento");
+                int pp = rsMov.getInt("pp_actual");
+                int ppMax = rsMov.getInt("pp_maximo");
+
+                Movimiento m = catalogo.movimiento(lado, nombreMov);
+                if (m == null) {
+                    // El esquema no guarda el daño; solo las bases de datos antiguas tienen la columna
+                    if (!tieneColumna(rsMov, "dano")) {
+                        REGISTRO.aviso("El movimiento {} de {} no está en el catálogo; se ignora", nombreMov, nombre);
+                        continue;
+                    }
+                    m = new Movimiento(nombreMov, rsMov.getDouble("dano"), ppMax);
+                }
+                m.setPp(pp);
+                listaMovimientos.add(m);
+            }
+
+            Movimiento[] movimientosArray = listaMovimientos.toArray(new Movimiento[0]);
+            Pokemon p = new Pokemon(nombre, catalogo.especie(lado), movimientosArray);
+            p.setVida(vida);
+            p.setCondicion(condicion);
+
+            if (esJugador) {
+                charizard = p;
+            } else {
+                lucario = p;
+            }
+        }
+
+        return new PartidaGuardada(turno, charizard, lucario);
+    }
+
+    private static boolean tieneColumna(ResultSet rs, String columna) throws SQLException {
+        ResultSetMetaData columnas = rs.getMetaData();
+        for (int i = 1; i <= columnas.getColumnCount(); i++) {
+            if (columnas.getColumnLabel(i).equalsIgnoreCase(columna)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,262 @@
+package application;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import comun.Opciones;
+
+/**
+ * Banco de pruebas del arranque en frío.
+ *
+ * Lanza JuegoPokemon varias veces, cada una en una JVM nueva, con
+ * -Dpokemon.arranque.medir=true (ver MedidorArranque), y recoge de cada una el tiempo
+ * desde que empieza la JVM hasta el primer fotograma del menú y hasta que la pantalla de
+ * batalla se puede jugar. Si hay un archivo CDS de la aplicación (el que deja Empaquetador
+ * en la imagen, u otro), alterna ejecuciones con y sin él para compararlas. Muestra
+ * mínimo, mediana y máximo y, si se dan límites, falla cuando la mediana se pasa, para
+ * vigilar el arranque en integración continua.
+ *
+ * Sin imagen se usa la misma JVM que ejecuta el banco, con su module path o su classpath,
+ * que tienen que incluir JavaFX. Sin ventana hace falta Monocle, como en PruebaCargaInterfaz.
+ *
+ * Uso: java application.BancoArranque [opcion=valor...]
+ *
+ *     repeticiones=5       Ejecuciones medidas de cada configuración
+ *     calentamiento=1      Ejecuciones previas que no cuentan (la primera paga la caché de disco)
+ *     imagen=carpeta       Imagen generada por Empaquetador
+ *     archivo=ruta.jsa     Archivo CDS de la aplicación (por defecto el de la imagen, si hay)
+ *     cds=ambos            ambos, si o no: con qué configuraciones se mide
+ *     ventana=false
+ *     menu=0               Límite en ms de la mediana hasta el primer fotograma del menú (0 = sin límite)
+ *     batalla=0            Límite en ms de la mediana hasta poder jugar la batalla (0 = sin límite)
+ *     espera=120           Segundos que se espera a cada ejecución
+ *
+ * Códigos de salida: 0 límites cumplidos, 1 alguno superado o una ejecución falló, 2 opciones no válidas.
+ */
+public class BancoArranque {
+
+    private static final String USO = "Uso: java application.BancoArranque [repeticiones=N] [calentamiento=N] "
+            + "[imagen=carpeta] [archivo=ruta.jsa] [cds=ambos|si|no] [ventana=true|false] [menu=ms] [batalla=ms] "
+            + "[espera=s]";
+
+    /** Módulo y clase principal de la aplicación */
+    static final String PRINCIPAL = "PokemonEclipse/application.JuegoPokemon";
+
+    /** Nombre del archivo CDS de la aplicación dentro de la carpeta lib de una imagen */
+    static final String ARCHIVO_CDS = "pokemon.jsa";
+
+    public static void main(String[] args) {
+        int codigo;
+        try {
+            codigo = medir(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USO);
+            codigo = 2;
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            codigo = 1;
+        }
+        System.exit(codigo);
+    }
+
+    private static int medir(String[] args) throws IOException {
+        Map<String, String> opciones = Opciones.leer(args, "repeticiones", "calentamiento", "imagen", "archivo",
+                "cds", "ventana", "menu", "batalla", "espera");
+        int repeticiones = Integer.parseInt(opciones.getOrDefault("repeticiones", "5"));
+        int calentamiento = Integer.parseInt(opciones.getOrDefault("calentamiento", "1"));
+        Path imagen = opciones.containsKey("imagen") ? Paths.get(opciones.get("imagen")) : null;
+        boolean ventana = Boolean.parseBoolean(opciones.getOrDefault("ventana", "false"));
+        long limiteMenu = Long.parseLong(opciones.getOrDefault("menu", "0"));
+        long limiteBatalla = Long.parseLong(opciones.getOrDefault("batalla", "0"));
+        long espera = Long.parseLong(opciones.getOrDefault("espera", "120"));
+        if (repeticiones < 1 || calentamiento < 0) throw new IllegalArgumentException("Hace falta al menos una repetición");
+
+        Path archivo = opciones.containsKey("archivo") ? Paths.get(opciones.get("archivo"))
+                : imagen != null ? imagen.resolve("lib").resolve(ARCHIVO_CDS) : null;
+        boolean hayArchivo = archivo != null && Files.isRegularFile(archivo);
+        String cds = opciones.getOrDefault("cds", hayArchivo ? "ambos" : "no");
+        List<Boolean> configuraciones = new ArrayList<>();
+        switch (cds) {
+            case "ambos":
+                configuraciones.add(false);
+                configuraciones.add(true);
+                break;
+            case "si":
+                configuraciones.add(true);
+                break;
+            case "no":
+                configuraciones.add(false);
+                break;
+            default:
+                throw new IllegalArgumentException("cds tiene que ser ambos, si o no");
+        }
+        if (configuraciones.contains(true) && !hayArchivo) {
+            throw new IllegalArgumentException("No existe el archivo CDS " + archivo);
+        }
+
+        List<String> base = comandoBase(imagen);
+        List<String> jvm = new ArrayList<>();
+        jvm.add("-Dpokemon.arranque.medir=true");
+        if (!ventana) jvm.addAll(opcionesSinVentana());
+
+        // [configuración][0 = menú, 1 = batalla][repetición]
+        long[][][] tiempos = new long[configuraciones.size()][2][repeticiones];
+        for (int r = -calentamiento; r < repeticiones; r++) {
+            // Se alternan las configuraciones para que las afecte igual lo que cambie la máquina
+            for (int c = 0; c < configuraciones.size(); c++) {
+                List<String> comando = new ArrayList<>(base.subList(0, 1));
+                if (configuraciones.get(c)) {
+                    comando.add("-XX:SharedArchiveFile=" + archivo);
+                    comando.add("-Xshare:auto");
+                }
+                comando.addAll(jvm);
+                comando.addAll(base.subList(1, base.size()));
+                long[] t = ejecutar(comando, espera);
+                if (t == null) return 1;
+                if (r < 0) continue;
+                tiempos[c][0][r] = t[0];
+                tiempos[c][1][r] = t[1];
+                System.out.printf("%-8s %d/%d: menú %d ms, batalla %d ms%n", nombre(configuraciones.get(c)),
+                        r + 1, repeticiones, t[0], t[1]);
+            }
+        }
+
+        boolean cumple = true;
+        System.out.println();
+        System.out.printf("%-8s %-10s %8s %8s %8s%n", "", "", "mín", "mediana", "máx");
+        for (int c = 0; c < configuraciones.size(); c++) {
+            for (int m = 0; m < 2; m++) {
+                long[] t = tiempos[c][m];
+                Arrays.sort(t);
+                long mediana = t[t.length / 2];
+                long limite = m == 0 ? limiteMenu : limiteBatalla;
+                boolean ok = limite <= 0 || mediana <= limite;
+                cumple &= ok;
+                System.out.printf(Locale.ROOT, "%-8s %-10s %5d ms %5d ms %5d ms%s%n", nombre(configuraciones.get(c)),
+                        m == 0 ? "menú" : "batalla", t[0], mediana, t[t.length - 1],
+                        limite <= 0 ? "" : ok ? "  (límite " + limite + ")" : "  FALLO (límite " + limite + ")");
+            }
+        }
+        return cumple ? 0 : 1;
+    }
+
+    private static String nombre(boolean cds) {
+        return cds ? "con CDS" : "sin CDS";
+    }
+
+    /**
+     * Comando que lanza la aplicación: el ejecutable java primero, después lo que va tras
+     * las opciones de la JVM.
+     */
+    private static List<String> comandoBase(Path imagen) throws IOException {
+        List<String> comando = new ArrayList<>();
+        if (imagen != null) {
+            Path java = ejecutableJava(imagen);
+            if (!Files.isExecutable(java)) throw new IOException("No existe " + java);
+            comando.add(java.toString());
+            comando.add("-m");
+            comando.add(PRINCIPAL);
+            return comando;
+        }
+        comando.add(ejecutableJava(Paths.get(System.getProperty("java.home"))).toString());
+        String modulos = System.getProperty("jdk.module.path");
+        if (modulos != null) {
+            comando.add("--module-path");
+            comando.add(modulos);
+            comando.add("-m");
+            comando.add(PRINCIPAL);
+        } else {
+            comando.add("-cp");
+            comando.add(System.getProperty("java.class.path"));
+            comando.add(PRINCIPAL.substring(PRINCIPAL.indexOf('/') + 1));
+        }
+        return comando;
+    }
+
+    /**
+     * @param raiz Carpeta de un JDK o de una imagen
+     * @return Ruta de su ejecutable java
+     */
+    static Path ejecutableJava(Path raiz) {
+        boolean windows = System.getProperty("os.name").toLowerCase(Locale.ROOT).startsWith("windows");
+        return raiz.resolve("bin").resolve(windows ? "java.exe" : "java");
+    }
+
+    /**
+     * @return Opciones de la JVM para usar JavaFX sin pantalla (Monocle con dibujado por software)
+     */
+    static List<String> opcionesSinVentana() {
+        return Arrays.asList("-Dglass.platform=Monocle", "-Dmonocle.platform=Headless", "-Dprism.order=sw");
+    }
+
+    /**
+     * Lanza una ejecución y lee su línea de arranque.
+     *
+     * @return Milisegundos hasta el menú y hasta la batalla, o null si la ejecución falló
+     */
+    static long[] ejecutar(List<String> comando, long esperaSegundos) throws IOException {
+        Process proceso = new ProcessBuilder(comando).redirectErrorStream(true).start();
+        List<String> salida = new ArrayList<>();
+        long[] tiempos = null;
+        Thread lector = new Thread(() -> {
+            try (BufferedReader r = new BufferedReader(new InputStreamReader(proceso.getInputStream(),
+                    Charset.defaultCharset()))) {
+                String linea;
+                while ((linea = r.readLine()) != null) {
+                    synchronized (salida) {
+                        salida.add(linea);
+                    }
+                }
+            } catch (IOException e) {
+                // El proceso se ha cerrado
+            }
+        }, "banco-arranque-salida");
+        lector.setDaemon(true);
+        lector.start();
+        try {
+            if (!proceso.waitFor(esperaSegundos, TimeUnit.SECONDS)) {
+                proceso.destroyForcibly();
+                System.out.println("La ejecución no terminó en " + esperaSegundos + " s: " + comando);
+                return null;
+            }
+            lector.join(1000);
+        } catch (InterruptedException e) {
+            proceso.destroyForcibly();
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        synchronized (salida) {
+            for (String linea : salida) {
+                if (linea.startsWith(MedidorArranque.PREFIJO + " ")) tiempos = leerTiempos(linea);
+            }
+            if (tiempos == null) {
+                System.out.println("La ejecución no dio tiempos de arranque (código " + proceso.exitValue() + "): " + comando);
+                for (String linea : salida.subList(Math.max(0, salida.size() - 20), salida.size())) {
+                    System.out.println("  | " + linea);
+                }
+            }
+        }
+        return tiempos;
+    }
+
+    private static long[] leerTiempos(String linea) {
+        long[] t = {-1, -1};
+        for (String parte : linea.split(" ")) {
+            if (parte.startsWith("menu=")) t[0] = Long.parseLong(parte.substring(5));
+            else if (parte.startsWith("batalla=")) t[1] = Long.parseLong(parte.substring(8));
+        }
+        return t[0] < 0 || t[1] < 0 ? null : t;
+    }
+}
@@ -0,0 +1,415 @@
+package application;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import comun.Opciones;
+import controlador.BatallaController;
+import controlador.VistaBatalla;
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
+import javafx.stage.Stage;
+import metricas.Contador;
+import metricas.Histograma;
+import metricas.Metricas;
+import modelo.Batalla;
+
+/**
+ * Prueba de carga de la pantalla de batalla sin ventana.
+ *
+ * Crea la vista de batalla con su BatallaController y una Batalla de verdad, igual que
+ * JuegoPokemon, la pone en un Stage de la plataforma Monocle sin pantalla y pulsa sus
+ * botones desde otro hilo al ritmo pedido: movimientos al azar (o según un guion),
+ * deshacer, rehacer y, si se pide, recargas de la vista como hace el menú al cargar
+ * partida. Cada clic se ejecuta con Platform.runLater y se espera a que termine.
+ *
+ * Tras un calentamiento mide la latencia de cada clic (desde que se pide hasta que
+ * termina el manejador), los pulsos de JavaFX (VigilanteFx), los bytes reservados por
+ * el hilo de JavaFX en cada clic y por todo el proceso, el crecimiento del heap después
+ * de un GC, las llamadas a actualizarUI por clic y las vistas construidas. Si algo se
+ * pasa de su presupuesto termina con código 1, así que se puede usar en integración
+ * continua para encontrar, por ejemplo, un actualizarUI de más o una escena que se
+ * recarga en cada clic.
+ *
+ * Hace falta el jar de Monocle (openjfx-monocle) en el module path o en el classpath;
+ * con ventana=true se usa la plataforma normal y se ve la ventana.
+ *
+ * Uso: java application.PruebaCargaInterfaz [opcion=valor...]
+ *
+ *     clics=20000          Clics medidos
+ *     calentamiento=2000   Clics previos que no se miden
+ *     ritmo=500            Clics por segundo; 0 = cada clic en cuanto termina el anterior
+ *     guion=ruta           Fichero con una acción por línea, que se repite: mov (movimiento
+ *                          al azar), 0-3, deshacer, rehacer, nueva, recargar; # comenta
+ *     recargas=0           Con guion aleatorio, recarga la vista cada tantos clics (0 = nunca)
+ *     pronostico=false     Activa el pronóstico de la batalla
+ *     semilla=1
+ *     ventana=false
+ *
+ *   Presupuestos:
+ *
+ *     clic.p99=50          Latencia de clic, percentil 99 (ms)
+ *     pulso.p99=25         Tiempo de pulso, percentil 99 (ms)
+ *     asignacion=512       KB reservados por el hilo de JavaFX por clic
+ *     heap=32              MB de crecimiento del heap tras GC
+ *     actualizaciones=3    Llamadas a actualizarUI por clic de movimiento (hoy son 3: dos desde Batalla.atacar y una del controlador);
+ *                          solo cuentan las de esos clics, no las de deshacer, rehacer o empezar partida nueva
+ *     errores=0            Clics que lanzaron una excepción
+ *
+ * Códigos de salida: 0 presupuestos cumplidos, 1 alguno superado, 2 opciones no válidas.
+ */
+public class PruebaCargaInterfaz {
+
+    private static final String USO = "Uso: java application.PruebaCargaInterfaz [clics=N] [calentamiento=N] "
+            + "[ritmo=clics/s] [guion=ruta] [recargas=N] [pronostico=true|false] [semilla=N] [ventana=true|false] "
+            + "[clic.p99=ms] [pulso.p99=ms] [asignacion=KB] [heap=MB] [actualizaciones=N] [errores=N]";
+
+    /** Lo que puede tardar un clic antes de dar la interfaz por colgada */
+    private static final long ESPERA_CLIC_S = 30;
+
+    private static final Histograma CLIC = Metricas.histograma("carga.clic");
+    private static final Contador ACTUALIZACIONES = Metricas.contador("ui.actualizar");
+    private static final Contador CARGAS_VISTA = Metricas.contador("escena.cargas");
+
+    private final SplittableRandom rand;
+    private final List<String> guion;
+    private final int recargas;
+
+    // Solo se usan en el hilo de JavaFX
+    private Stage stage;
+    private Scene escena;
+    private BatallaController controlador;
+    private Batalla batalla;
+    private int movimientos;
+    // Llamadas a actualizarUI hechas durante los clics de movimiento
+    private long actualizacionesMovimientos;
+    private int recargasHechas;
+    private int errores;
+    private Throwable primerError;
+
+    private PruebaCargaInterfaz(long semilla, List<String> guion, int recargas) {
+        this.rand = new SplittableRandom(semilla);
+        this.guion = guion;
+        this.recargas = recargas;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int codigo;
+        try {
+            codigo = probar(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USO);
+            codigo = 2;
+        }
+        System.exit(codigo);
+    }
+
+    private static int probar(String[] args) throws Exception {
+        Map<String, String> opciones = Opciones.leer(args, "clics", "calentamiento", "ritmo", "guion", "recargas",
+                "pronostico", "semilla", "ventana", "clic.p99", "pulso.p99", "asignacion", "heap", "actualizaciones",
+                "errores");
+        int clics = Integer.parseInt(opciones.getOrDefault("clics", "20000"));
+        int calentamiento = Integer.parseInt(opciones.getOrDefault("calentamiento", "2000"));
+        double ritmo = Double.parseDouble(opciones.getOrDefault("ritmo", "500"));
+        int recargas = Integer.parseInt(opciones.getOrDefault("recargas", "0"));
+        boolean pronostico = Boolean.parseBoolean(opciones.getOrDefault("pronostico", "false"));
+        long semilla = Long.parseLong(opciones.getOrDefault("semilla", "1"));
+        boolean ventana = Boolean.parseBoolean(opciones.getOrDefault("ventana", "false"));
+        double maxClicMs = Double.parseDouble(opciones.getOrDefault("clic.p99", "50"));
+        double maxPulsoMs = Double.parseDouble(opciones.getOrDefault("pulso.p99", "25"));
+        double maxAsignacionKb = Double.parseDouble(opciones.getOrDefault("asignacion", "512"));
+        double maxHeapMb = Double.parseDouble(opciones.getOrDefault("heap", "32"));
+        double maxActualizaciones = Double.parseDouble(opciones.getOrDefault("actualizaciones", "3"));
+        int maxErrores = Integer.parseInt(opciones.getOrDefault("errores", "0"));
+        if (clics <= 0 || calentamiento < 0 || ritmo < 0 || recargas < 0) {
+            throw new IllegalArgumentException("Los clics, el calentamiento, el ritmo y las recargas no pueden ser negativos");
+        }
+        List<String> guion = opciones.containsKey("guion") ? leerGuion(opciones.get("guion")) : null;
+
+        if (!ventana) {
+            // Plataforma sin pantalla: Monocle con dibujado por software
+            System.setProperty("glass.platform", "Monocle");
+            System.setProperty("monocle.platform", "Headless");
+            System.setProperty("prism.order", "sw");
+        }
+        PruebaCargaInterfaz prueba = new PruebaCargaInterfaz(semilla, guion, recargas);
+        long[] hiloFx = new long[1];
+        enFx(() -> {
+            hiloFx[0] = Thread.currentThread().getId();
+            prueba.abrir(pronostico);
+        });
+
+        // Calentamiento: carga las clases y deja que el JIT compile los manejadores
+        prueba.pulsar(calentamiento, ritmo);
+        enFx(() -> {
+            prueba.movimientos = 0;
+            prueba.actualizacionesMovimientos = 0;
+        });
+        Metricas.reiniciar();
+        long heapInicial = heapTrasGc();
+        com.sun.management.ThreadMXBean hilos = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long bytesFxInicial = hilos.getThreadAllocatedBytes(hiloFx[0]);
+        long bytesTotalInicial = bytesProceso(hilos);
+        int cargasEsperadas = prueba.recargasHechas;
+
+        long inicio = System.nanoTime();
+        prueba.pulsar(clics, ritmo);
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+
+        double kbPorClic = (hilos.getThreadAllocatedBytes(hiloFx[0]) - bytesFxInicial) / 1024.0 / clics;
+        double mbPorSegundo = (bytesProceso(hilos) - bytesTotalInicial) / 1048576.0 / segundos;
+        double heapMb = (heapTrasGc() - heapInicial) / 1048576.0;
+        int[] movimientos = new int[1];
+        long[] actualizacionesMovimientos = new long[1];
+        enFx(() -> {
+            movimientos[0] = prueba.movimientos;
+            actualizacionesMovimientos[0] = prueba.actualizacionesMovimientos;
+        });
+        cargasEsperadas = prueba.recargasHechas - cargasEsperadas;
+        Map<String, Number> m = Metricas.leer();
+        double actualizaciones = movimientos[0] == 0 ? 0 : (double) actualizacionesMovimientos[0] / movimientos[0];
+
+        System.out.printf(Locale.ROOT, "Clics: %d en %.1f s (%.0f clics/s), %d movimientos, %d errores%n",
+                clics, segundos, clics / segundos, movimientos[0], prueba.errores);
+        System.out.printf(Locale.ROOT, "Latencia de clic: p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, máx %.2f ms%n",
+                ms(m, "carga.clic.p50"), ms(m, "carga.clic.p90"), ms(m, "carga.clic.p99"), ms(m, "carga.clic.max"));
+        System.out.printf(Locale.ROOT, "Pulsos: %d, tiempo p99 %.2f ms, intervalo p99 %.2f ms, %d bloqueos%n",
+                m.getOrDefault("fx.pulso.duracion.cuenta", 0).longValue(), ms(m, "fx.pulso.duracion.p99"),
+                ms(m, "fx.pulso.intervalo.p99"), m.getOrDefault("fx.bloqueos", 0).longValue());
+        System.out.printf(Locale.ROOT, "Asignación: %.1f KB por clic en el hilo de JavaFX, %.1f MB/s en el proceso%n",
+                kbPorClic, mbPorSegundo);
+        System.out.printf(Locale.ROOT, "Heap tras GC: %+.1f MB%n", heapMb);
+        System.out.printf(Locale.ROOT, "actualizarUI: %.2f por movimiento; vistas cargadas: %d (esperadas %d)%n",
+                actualizaciones, CARGAS_VISTA.valor(), cargasEsperadas);
+        if (prueba.primerError != null) {
+            System.out.println("Primer error:");
+            prueba.primerError.printStackTrace(System.out);
+        }
+
+        List<String> fallos = new ArrayList<>();
+        comprobar(fallos, "latencia de clic p99 (ms)", ms(m, "carga.clic.p99"), maxClicMs);
+        comprobar(fallos, "tiempo de pulso p99 (ms)", ms(m, "fx.pulso.duracion.p99"), maxPulsoMs);
+        comprobar(fallos, "KB por clic en el hilo de JavaFX", kbPorClic, maxAsignacionKb);
+        comprobar(fallos, "crecimiento del heap (MB)", heapMb, maxHeapMb);
+        comprobar(fallos, "actualizarUI por movimiento", actualizaciones, maxActualizaciones);
+        comprobar(fallos, "vistas cargadas", CARGAS_VISTA.valor(), cargasEsperadas);
+        comprobar(fallos, "errores", prueba.errores, maxErrores);
+
+        enFx(() -> prueba.stage.hide());
+        Platform.exit();
+        if (fallos.isEmpty()) {
+            System.out.println("Presupuestos cumplidos");
+            return 0;
+        }
+        for (String f : fallos) System.out.println("FALLO: " + f);
+        return 1;
+    }
+
+    /**
+     * Carga la vista de batalla y la muestra. Se llama en el hilo de JavaFX.
+     */
+    private void abrir(boolean pronostico) {
+        stage = new Stage();
+        stage.setTitle("Pokémon Eclipse - prueba de carga");
+        VigilanteFx.iniciar();
+        cargarVista();
+        stage.show();
+        if (pronostico) {
+            CheckBox casilla = (CheckBox) escena.lookup("#mostrarPronostico");
+            // fire() cambia la selección y luego avisa al manejador, como un clic de verdad
+            if (!casilla.isSelected()) casilla.fire();
+        }
+    }
+
+    /**
+     * Crea la vista de batalla con un controlador y una batalla nuevos y cambia la escena, como
+     * JuegoPokemon al arrancar y el menú al cargar partida.
+     */
+    private void cargarVista() {
+        BatallaController nuevo = new BatallaController();
+        Parent raiz = JuegoPokemon.cargarVista(() -> VistaBatalla.crear(nuevo), "Batalla");
+        if (controlador != null) controlador.cerrar();
+        controlador = nuevo;
+        batalla = new Batalla();
+        controlador.setBatalla(batalla);
+        batalla.setController(controlador);
+        escena = new Scene(raiz);
+        VigilanteFx.instalar(escena);
+        JuegoPokemon.mostrarEscena(stage, escena, "batalla");
+    }
+
+    /**
+     * Pulsa botones desde el hilo actual, esperando a que termine cada clic.
+     *
+     * @param clics Clics a hacer
+     * @param ritmo Clics por segundo, o 0 para no esperar entre clics
+     */
+    private void pulsar(int clics, double ritmo) throws InterruptedException {
+        Semaphore hecho = new Semaphore(0);
+        long periodo = ritmo > 0 ? (long) (1e9 / ritmo) : 0;
+        long siguiente = System.nanoTime();
+        for (int i = 0; i < clics; i++) {
+            if (periodo > 0) {
+                long espera = siguiente - System.nanoTime();
+                if (espera > 0) LockSupport.parkNanos(espera);
+                siguiente += periodo;
+            }
+            String accion = siguienteAccion(i);
+            long inicio = System.nanoTime();
+            Platform.runLater(() -> {
+                try {
+                    ejecutar(accion);
+                } catch (RuntimeException e) {
+                    errores++;
+                    if (primerError == null) primerError = e;
+                } finally {
+                    CLIC.registrarDesde(inicio);
+                    hecho.release();
+                }
+            });
+            if (!hecho.tryAcquire(ESPERA_CLIC_S, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("La interfaz no respondió a un clic en " + ESPERA_CLIC_S + " s");
+            }
+        }
+    }
+
+    private String siguienteAccion(int i) {
+        if (guion != null) return guion.get(i % guion.size());
+        if (recargas > 0 && i % recargas == recargas - 1) return "recargar";
+        double r = rand.nextDouble();
+        return r < 0.1 ? "deshacer" : r < 0.2 ? "rehacer" : "mov";
+    }
+
+    /**
+     * Ejecuta una acción del guion en el hilo de JavaFX pulsando el botón correspondiente.
+     * Si la batalla ha terminado, cualquier movimiento empieza una partida nueva.
+     */
+    private void ejecutar(String accion) {
+        switch (accion) {
+            case "deshacer":
+            case "rehacer":
+                Node boton = escena.lookup("#boton" + Character.toUpperCase(accion.charAt(0)) + accion.substring(1));
+                if (boton instanceof Button && !boton.isDisable()) ((Button) boton).fire();
+                return;
+            case "nueva":
+                batalla.iniciarPartidaNueva();
+                return;
+            case "recargar":
+                recargasHechas++;
+                cargarVista();
+                return;
+            default:
+                if (batalla.getCharizard().getVida() <= 0 || batalla.getLucario().getVida() <= 0) {
+                    batalla.iniciarPartidaNueva();
+                    return;
+                }
+                Button[] botones = controlador.getBotonesCharizard();
+                int mov = "mov".equals(accion) ? movimientoAlAzar(botones) : Integer.parseInt(accion);
+                if (mov >= 0 && !botones[mov].isDisable()) {
+                    movimientos++;
+                    long antes = ACTUALIZACIONES.valor();
+                    botones[mov].fire();
+                    actualizacionesMovimientos += ACTUALIZACIONES.valor() - antes;
+                }
+        }
+    }
+
+    /**
+     * @return Índice de un botón de movimiento activo elegido al azar, o -1 si no hay ninguno
+     */
+    private int movimientoAlAzar(Button[] botones) {
+        int activos = 0;
+        for (Button b : botones) if (!b.isDisable()) activos++;
+        if (activos == 0) return -1;
+        int k = rand.nextInt(activos);
+        for (int i = 0; i < botones.length; i++) {
+            if (!botones[i].isDisable() && k-- == 0) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Ejecuta código en el hilo de JavaFX y espera a que termine; la primera vez arranca la plataforma.
+     */
+    private static void enFx(Runnable codigo) throws InterruptedException {
+        CountDownLatch hecho = new CountDownLatch(1);
+        Throwable[] error = new Throwable[1];
+        Runnable tarea = () -> {
+            try {
+                codigo.run();
+            } catch (Throwable t) {
+                error[0] = t;
+            } finally {
+                hecho.countDown();
+            }
+        };
+        try {
+            Platform.runLater(tarea);
+        } catch (IllegalStateException e) {
+            // La plataforma aún no está arrancada
+            Platform.setImplicitExit(false);
+            Platform.startup(tarea);
+        }
+        if (!hecho.await(ESPERA_CLIC_S, TimeUnit.SECONDS)) throw new IllegalStateException("El hilo de JavaFX no responde");
+        if (error[0] != null) throw new IllegalStateException("Fallo en el hilo de JavaFX", error[0]);
+    }
+
+    private static long heapTrasGc() {
+        for (int i = 0; i < 3; i++) System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * @return Bytes reservados desde que empezaron por todos los hilos vivos
+     */
+    private static long bytesProceso(com.sun.management.ThreadMXBean hilos) {
+        long total = 0;
+        for (long b : hilos.getThreadAllocatedBytes(hilos.getAllThreadIds())) total += Math.max(0, b);
+        return total;
+    }
+
+    private static double ms(Map<String, Number> metricas, String nombre) {
+        return metricas.getOrDefault(nombre, 0).doubleValue() / 1e6;
+    }
+
+    private static void comprobar(List<String> fallos, String medida, double valor, double maximo) {
+        if (valor > maximo) {
+            fallos.add(String.format(Locale.ROOT, "%s = %.2f, presupuesto %.2f", medida, valor, maximo));
+        }
+    }
+
+    private static List<String> leerGuion(String ruta) {
+        List<String> acciones = new ArrayList<>();
+        List<String> validas = Arrays.asList("mov", "0", "1", "2", "3", "deshacer", "rehacer", "nueva", "recargar");
+        try {
+            for (String linea : Files.readAllLines(Paths.get(ruta), StandardCharsets.UTF_8)) {
+                linea = linea.trim();
+                if (linea.isEmpty() || linea.startsWith("#")) continue;
+                if (!validas.contains(linea)) throw new IllegalArgumentException("Acción no válida en el guion: " + linea);
+                acciones.add(linea);
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("No se pudo leer el guion " + ruta + ": " + e.getMessage(), e);
+        }
+        if (acciones.isEmpty()) throw new IllegalArgumentException("El guion " + ruta + " no tiene acciones");
+        return acciones;
+    }
+}
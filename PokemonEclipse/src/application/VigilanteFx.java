@@ -0,0 +1,236 @@
+package application;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.Scene;
+import metricas.Contador;
+import metricas.EventosJfr;
+import metricas.Histograma;
+import metricas.Metricas;
+import registro.Registro;
+
+/**
+ * Vigila el hilo de JavaFX: mide los pulsos (cada fotograma que JavaFX procesa) y avisa
+ * cuando el hilo se queda bloqueado, por ejemplo esperando a la base de datos dentro de
+ * un manejador de botón.
+ *
+ * Un AnimationTimer anota el comienzo de cada pulso y un oyente de la escena, el final de
+ * la disposición (CSS y layout); con eso se calculan los fotogramas por segundo, el
+ * intervalo entre pulsos y el tiempo que el hilo pasa en cada uno. Un hilo aparte
+ * comprueba que los pulsos sigan llegando; si pasa más del umbral sin ninguno, toma
+ * muestras de la pila del hilo de JavaFX cada pocos milisegundos hasta que se recupera,
+ * y entonces escribe en el registro cuánto duró el bloqueo, qué tarea de
+ * EventosJfr.tareaFx estaba en marcha y la pila que más se repitió.
+ *
+ * Métricas: fx.pulso.intervalo, fx.pulso.duracion, fx.bloqueo (duración de cada bloqueo)
+ * y fx.bloqueos. El umbral se cambia con -Dpokemon.vigilante.ms (100 por defecto);
+ * con 0 no se arranca el hilo vigilante, aunque los pulsos se siguen midiendo.
+ */
+public final class VigilanteFx {
+
+    private static final Registro REGISTRO = Registro.de("fx");
+
+    private static final Histograma INTERVALO = Metricas.histograma("fx.pulso.intervalo");
+    private static final Histograma DURACION = Metricas.histograma("fx.pulso.duracion");
+    private static final Histograma BLOQUEO = Metricas.histograma("fx.bloqueo");
+    private static final Contador BLOQUEOS = Metricas.contador("fx.bloqueos");
+
+    private static final long UMBRAL_NS = Long.getLong("pokemon.vigilante.ms", 100) * 1_000_000;
+
+    /** Separación entre muestras de la pila mientras el hilo está bloqueado */
+    private static final long MUESTREO_NS = 10_000_000;
+
+    /** Un bloqueo más largo se anuncia sin esperar a que termine, por si no termina nunca */
+    private static final long BLOQUEO_LARGO_NS = 5_000_000_000L;
+
+    /** Marcos de pila que se comparan y se escriben de cada muestra */
+    private static final int MARCOS = 12;
+
+    /** Pilas distintas que se guardan por bloqueo */
+    private static final int MAX_PILAS = 64;
+
+    // Escritos en el hilo de JavaFX y leídos desde el vigilante y el panel de rendimiento
+    private static volatile Thread hiloFx;
+    private static volatile long ultimoPulsoNs;
+    private static volatile double fps;
+    private static volatile double pulsoMs;
+
+    // Solo los usa el hilo de JavaFX
+    private static AnimationTimer temporizador;
+    private static long inicioPulsoNs;
+    private static long inicioVentanaNs;
+    private static int pulsosVentana;
+    private static long siguientePanelNs;
+
+    private VigilanteFx() {
+    }
+
+    /**
+     * Empieza a medir los pulsos y arranca el hilo vigilante. Se llama una vez desde el
+     * hilo de JavaFX, normalmente en Application.start.
+     */
+    public static void iniciar() {
+        if (temporizador != null) return;
+        temporizador = new AnimationTimer() {
+            @Override
+            public void handle(long ahora) {
+                pulso();
+            }
+        };
+        temporizador.start();
+        if (UMBRAL_NS <= 0) return;
+        Thread vigilante = new Thread(VigilanteFx::vigilar, "vigilante-fx");
+        vigilante.setDaemon(true);
+        vigilante.start();
+    }
+
+    /**
+     * Mide el tiempo de pulso de una escena y le añade el panel de rendimiento (F3).
+     * Hay que llamarlo con cada escena nueva, antes de mostrarla.
+     *
+     * @param escena Escena a vigilar
+     */
+    public static void instalar(Scene escena) {
+        escena.addPostLayoutPulseListener(VigilanteFx::finDisposicion);
+        PanelRendimiento.anadir(escena);
+    }
+
+    /**
+     * @return Fotogramas por segundo del último segundo, o 0 si aún no se sabe
+     */
+    public static double getFps() {
+        return fps;
+    }
+
+    /**
+     * @return Media reciente del tiempo del hilo de JavaFX en cada pulso (animaciones, CSS y layout), en ms
+     */
+    public static double getPulsoMs() {
+        return pulsoMs;
+    }
+
+    /**
+     * Comienzo de un pulso: anota el intervalo con el anterior y cuenta el fotograma.
+     */
+    private static void pulso() {
+        long ahora = System.nanoTime();
+        if (hiloFx == null) {
+            hiloFx = Thread.currentThread();
+            inicioVentanaNs = ahora;
+        } else {
+            INTERVALO.registrar(ahora - ultimoPulsoNs);
+        }
+        ultimoPulsoNs = ahora;
+        inicioPulsoNs = ahora;
+
+        pulsosVentana++;
+        if (ahora - inicioVentanaNs >= 1_000_000_000L) {
+            fps = pulsosVentana * 1e9 / (ahora - inicioVentanaNs);
+            pulsosVentana = 0;
+            inicioVentanaNs = ahora;
+        }
+        // El panel se refresca cuatro veces por segundo: más a menudo no se puede leer
+        if (ahora - siguientePanelNs >= 0) {
+            siguientePanelNs = ahora + 250_000_000L;
+            PanelRendimiento.actualizar();
+        }
+    }
+
+    /**
+     * Final del CSS y el layout de la escena en este pulso. El dibujado se hace después en
+     * el hilo de render, así que no cuenta.
+     */
+    private static void finDisposicion() {
+        if (inicioPulsoNs == 0) return;
+        long duracion = System.nanoTime() - inicioPulsoNs;
+        inicioPulsoNs = 0;
+        DURACION.registrar(duracion);
+        pulsoMs += (duracion / 1e6 - pulsoMs) * 0.1;
+    }
+
+    /**
+     * Bucle del hilo vigilante. Mientras los pulsos llegan a tiempo comprueba cuatro veces
+     * por umbral; cuando dejan de llegar, toma muestras de la pila hasta que vuelven.
+     */
+    private static void vigilar() {
+        Map<String, Integer> pilas = new HashMap<>();
+        long inicioBloqueo = 0;
+        int muestras = 0;
+        String tarea = null;
+        boolean anunciado = false;
+        while (true) {
+            Thread hilo = hiloFx;
+            long ultimo = ultimoPulsoNs;
+            long ahora = System.nanoTime();
+            if (hilo == null || ahora - ultimo < UMBRAL_NS) {
+                if (inicioBloqueo != 0) {
+                    informar(ultimo - inicioBloqueo, tarea, pilas, muestras, false);
+                    inicioBloqueo = 0;
+                }
+                LockSupport.parkNanos(UMBRAL_NS / 4);
+                continue;
+            }
+
+            if (inicioBloqueo != ultimo) {
+                // Empieza un bloqueo nuevo (o el anterior se recuperó entre dos comprobaciones)
+                if (inicioBloqueo != 0) informar(ultimo - inicioBloqueo, tarea, pilas, muestras, false);
+                inicioBloqueo = ultimo;
+                pilas.clear();
+                muestras = 0;
+                tarea = EventosJfr.getTareaFxEnCurso();
+                anunciado = false;
+            }
+            String pila = pila(hilo.getStackTrace());
+            if (pilas.size() < MAX_PILAS || pilas.containsKey(pila)) pilas.merge(pila, 1, Integer::sum);
+            muestras++;
+            if (!anunciado && ahora - inicioBloqueo > BLOQUEO_LARGO_NS) {
+                informar(ahora - inicioBloqueo, tarea, pilas, muestras, true);
+                anunciado = true;
+            }
+            LockSupport.parkNanos(MUESTREO_NS);
+        }
+    }
+
+    /**
+     * Escribe un bloqueo en el registro con la pila que más veces salió en las muestras.
+     *
+     * @param duracionNs Tiempo sin pulsos
+     * @param tarea Tarea de tareaFx en marcha al empezar el bloqueo, o null
+     * @param pilas Veces que salió cada pila
+     * @param muestras Muestras tomadas
+     * @param enCurso true si el bloqueo aún no ha terminado
+     */
+    private static void informar(long duracionNs, String tarea, Map<String, Integer> pilas, int muestras,
+                                 boolean enCurso) {
+        String frecuente = "";
+        int veces = 0;
+        for (Map.Entry<String, Integer> e : pilas.entrySet()) {
+            if (e.getValue() > veces) {
+                frecuente = e.getKey();
+                veces = e.getValue();
+            }
+        }
+        if (!enCurso) {
+            BLOQUEO.registrar(duracionNs);
+            BLOQUEOS.incrementar();
+        }
+        REGISTRO.aviso("Hilo de JavaFX {} {} ms (tarea: {}). Pila más repetida ({} de {} muestras):{}",
+                enCurso ? "bloqueado desde hace" : "bloqueado", duracionNs / 1_000_000,
+                tarea == null ? "ninguna" : tarea, veces, muestras, frecuente);
+    }
+
+    /**
+     * @return Los primeros marcos de la pila, uno por línea
+     */
+    private static String pila(StackTraceElement[] marcos) {
+        StringBuilder texto = new StringBuilder();
+        for (int i = 0; i < marcos.length && i < MARCOS; i++) {
+            texto.append(System.lineSeparator()).append("\tat ").append(marcos[i]);
+        }
+        if (marcos.length > MARCOS) texto.append(System.lineSeparator()).append("\t...");
+        return texto.toString();
+    }
+}
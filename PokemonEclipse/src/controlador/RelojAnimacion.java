@@ -0,0 +1,182 @@
+package controlador;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.control.ProgressBar;
+
+/**
+ * Reloj único de animación de la interfaz: un solo AnimationTimer mueve todas las barras
+ * que están cambiando (vida y PP) y da el pulso a las tareas que lo piden, como el modo turbo.
+ *
+ * Cada barra que se anima ocupa una posición en unos arrays que se reutilizan, y la curva
+ * de suavizado está precalculada en una tabla, así que un fotograma no crea objetos. La
+ * posición de cada barra se calcula con el tiempo transcurrido y no con el número de
+ * fotogramas: si JavaFX se salta fotogramas, la barra simplemente aparece más avanzada.
+ * Cuando ninguna barra se mueve y no hay tareas, el temporizador se detiene.
+ *
+ * La duración de una transición se configura con -Dpokemon.animacion.ms (por defecto 400;
+ * 0 pone los valores sin animar). Solo se usa desde el hilo de JavaFX.
+ */
+public final class RelojAnimacion {
+
+    private static final long DURACION_NS = Long.getLong("pokemon.animacion.ms", 400) * 1_000_000L;
+
+    /** Tamaño de la tabla de suavizado */
+    private static final int PASOS = 256;
+
+    /** Curva de salida cúbica, 1 - (1 - t)^3, muestreada en PASOS + 1 puntos */
+    private static final double[] SUAVIZADO = new double[PASOS + 1];
+
+    static {
+        for (int i = 0; i <= PASOS; i++) {
+            double resto = 1 - (double) i / PASOS;
+            SUAVIZADO[i] = 1 - resto * resto * resto;
+        }
+    }
+
+    /** Marca de una transición pedida que empieza en el próximo fotograma */
+    private static final long SIN_EMPEZAR = Long.MIN_VALUE;
+
+    // Transiciones en curso: posiciones 0..activas-1 de los arrays
+    private static ProgressBar[] barras = new ProgressBar[8];
+    private static double[] desde = new double[8];
+    private static double[] hasta = new double[8];
+    private static long[] inicio = new long[8];
+    private static int activas;
+
+    private static final List<LongConsumer> TAREAS = new ArrayList<>();
+
+    private static final AnimationTimer TEMPORIZADOR = new AnimationTimer() {
+        @Override
+        public void handle(long ahora) {
+            pulso(ahora);
+        }
+    };
+
+    private static boolean enMarcha;
+
+    private RelojAnimacion() {
+    }
+
+    /**
+     * Lleva la barra hasta el valor dado con una transición suave. Si ya se estaba
+     * moviendo, la nueva transición parte de donde está ahora.
+     *
+     * @param barra Barra que se anima
+     * @param destino Valor final (0.0 - 1.0)
+     */
+    public static void animar(ProgressBar barra, double destino) {
+        int i = buscar(barra);
+        if (i < 0) {
+            if (barra.getProgress() == destino) return;
+            if (DURACION_NS <= 0) {
+                barra.setProgress(destino);
+                return;
+            }
+            if (activas == barras.length) crecer();
+            i = activas++;
+            barras[i] = barra;
+        } else if (hasta[i] == destino) {
+            return;
+        }
+        desde[i] = barra.getProgress();
+        hasta[i] = destino;
+        inicio[i] = SIN_EMPEZAR;
+        arrancar();
+    }
+
+    /**
+     * Pone la barra en el valor dado sin animar, cancelando su transición si tenía una.
+     *
+     * @param barra Barra
+     * @param valor Valor (0.0 - 1.0)
+     */
+    public static void fijar(ProgressBar barra, double valor) {
+        int i = buscar(barra);
+        if (i >= 0) quitar(i);
+        barra.setProgress(valor);
+    }
+
+    /**
+     * Añade una tarea que se ejecuta al principio de cada fotograma, antes de mover las barras.
+     *
+     * @param tarea Recibe el instante del fotograma en nanosegundos
+     */
+    public static void cadaPulso(LongConsumer tarea) {
+        TAREAS.add(tarea);
+        arrancar();
+    }
+
+    /**
+     * @param tarea Tarea añadida con cadaPulso
+     */
+    public static void quitarTarea(LongConsumer tarea) {
+        TAREAS.remove(tarea);
+    }
+
+    /**
+     * @return Número de barras que se están moviendo
+     */
+    public static int getActivas() {
+        return activas;
+    }
+
+    private static void pulso(long ahora) {
+        for (int t = 0; t < TAREAS.size(); t++) TAREAS.get(t).accept(ahora);
+
+        for (int i = 0; i < activas; ) {
+            if (inicio[i] == SIN_EMPEZAR) inicio[i] = ahora;
+            long transcurrido = ahora - inicio[i];
+            if (transcurrido >= DURACION_NS) {
+                barras[i].setProgress(hasta[i]);
+                quitar(i);
+                continue;
+            }
+            double f = SUAVIZADO[(int) (transcurrido * PASOS / DURACION_NS)];
+            barras[i].setProgress(desde[i] + (hasta[i] - desde[i]) * f);
+            i++;
+        }
+
+        if (activas == 0 && TAREAS.isEmpty()) {
+            TEMPORIZADOR.stop();
+            enMarcha = false;
+        }
+    }
+
+    private static void arrancar() {
+        if (enMarcha) return;
+        enMarcha = true;
+        TEMPORIZADOR.start();
+    }
+
+    private static int buscar(ProgressBar barra) {
+        for (int i = 0; i < activas; i++) {
+            if (barras[i] == barra) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Quita la transición i pasando la última a su sitio.
+     */
+    private static void quitar(int i) {
+        int ultima = --activas;
+        barras[i] = barras[ultima];
+        desde[i] = desde[ultima];
+        hasta[i] = hasta[ultima];
+        inicio[i] = inicio[ultima];
+        barras[ultima] = null;
+    }
+
+    private static void crecer() {
+        int n = barras.length * 2;
+        barras = Arrays.copyOf(barras, n);
+        desde = Arrays.copyOf(desde, n);
+        hasta = Arrays.copyOf(hasta, n);
+        inicio = Arrays.copyOf(inicio, n);
+    }
+}
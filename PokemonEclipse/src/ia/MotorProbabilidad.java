@@ -0,0 +1,271 @@
+package ia;
+
+import modelo.DistribucionDano;
+import modelo.EstadoBatalla;
+
+/**
+ * Calcula probabilidades exactas de victoria sin simular partidas.
+ *
+ * Cuando cada lado elige sus movimientos sin mirar al rival (al azar como Lucario en el
+ * juego, o siempre el de más daño), los ataques de un lado no dependen de los del otro.
+ * Entonces basta con conocer, para cada lado, la distribución del número de ataques
+ * propios que necesita para derrotar al rival: Charizard gana si necesita menos ataques
+ * que Lucario (o los mismos, si le toca mover primero).
+ *
+ * Esa distribución se obtiene por programación dinámica memorizada sobre (PP propios,
+ * vida del rival), convolucionando en cada paso la distribución de daño del movimiento
+ * (precisión, crítico y tirada). Tras precalentar la caché desde el estado inicial,
+ * consultar un estado son dos accesos a la tabla y un bucle de unas 50 iteraciones.
+ *
+ * Las condiciones de estado (quemadura, parálisis, niveles...) hacen que los ataques de
+ * un lado sí dependan de los del otro, así que el motor las ignora: el resultado es exacto
+ * con movimientos sin efectos secundarios y una aproximación con ellos.
+ *
+ * Los métodos son synchronized porque la caché se rellena de forma perezosa.
+ */
+public class MotorProbabilidad {
+
+    /**
+     * Forma de elegir movimiento que se supone para cada lado.
+     */
+    public enum ModeloJugador {
+        /** Movimiento al azar entre los que tienen PP (como ataqueAleatorioLucario) */
+        ALEATORIO,
+        /** Siempre el movimiento con PP de mayor daño nominal (como PoliticaVoraz) */
+        VORAZ
+    }
+
+    /**
+     * Resultado del análisis de un estado, desde el punto de vista de Charizard.
+     */
+    public static final class Probabilidades {
+        public final double victoriaCharizard;
+        public final double victoriaLucario;
+        public final double empate;
+
+        Probabilidades(double victoriaCharizard, double victoriaLucario, double empate) {
+            this.victoriaCharizard = victoriaCharizard;
+            this.victoriaLucario = victoriaLucario;
+            this.empate = empate;
+        }
+
+        /**
+         * @param lado CHARIZARD o LUCARIO
+         * @return Probabilidad de que gane ese lado
+         */
+        public double victoria(int lado) {
+            return lado == EstadoBatalla.CHARIZARD ? victoriaCharizard : victoriaLucario;
+        }
+    }
+
+    private final Lado[] lados;
+
+    /**
+     * @param referencia Cualquier estado de la batalla (se toman sus movimientos)
+     * @param charizard Modelo de juego de Charizard
+     * @param lucario Modelo de juego de Lucario
+     */
+    public MotorProbabilidad(EstadoBatalla referencia, ModeloJugador charizard, ModeloJugador lucario) {
+        lados = new Lado[]{
+                new Lado(referencia, EstadoBatalla.CHARIZARD, charizard),
+                new Lado(referencia, EstadoBatalla.LUCARIO, lucario)
+        };
+    }
+
+    /**
+     * Rellena la caché con todos los estados alcanzables desde el indicado.
+     * @param inicial Normalmente el estado de una partida nueva
+     */
+    public synchronized void precalentar(EstadoBatalla inicial) {
+        analizar(inicial);
+    }
+
+    /**
+     * Probabilidades exactas de victoria y empate de un estado.
+     *
+     * @param estado Estado de la batalla
+     * @return Probabilidades de victoria de cada lado y de empate
+     */
+    public synchronized Probabilidades analizar(EstadoBatalla estado) {
+        if (estado.terminada()) {
+            int ganador = estado.ganador();
+            return new Probabilidades(ganador == EstadoBatalla.CHARIZARD ? 1 : 0,
+                    ganador == EstadoBatalla.LUCARIO ? 1 : 0, ganador < 0 ? 1 : 0);
+        }
+        double[] c = lados[0].distribucion(estado, estado.getVida(EstadoBatalla.LUCARIO));
+        double[] l = lados[1].distribucion(estado, estado.getVida(EstadoBatalla.CHARIZARD));
+        boolean empiezaCharizard = estado.getTurno() == EstadoBatalla.CHARIZARD;
+
+        // Charizard gana en su ataque t si Lucario aún no ha ganado: le faltan al menos t
+        // ataques (si empieza Charizard) o más de t (si empieza Lucario)
+        double victoriaC = 0;
+        double acumuladaL = 0;
+        for (int t = 1; t < c.length; t++) {
+            if (empiezaCharizard) {
+                victoriaC += c[t] * (1 - acumuladaL);
+                if (t < l.length) acumuladaL += l[t];
+            } else {
+                if (t < l.length) acumuladaL += l[t];
+                victoriaC += c[t] * (1 - acumuladaL);
+            }
+        }
+
+        double victoriaL = 0;
+        double acumuladaC = 0;
+        for (int u = 1; u < l.length; u++) {
+            if (empiezaCharizard) {
+                if (u < c.length) acumuladaC += c[u];
+                victoriaL += l[u] * (1 - acumuladaC);
+            } else {
+                victoriaL += l[u] * (1 - acumuladaC);
+                if (u < c.length) acumuladaC += c[u];
+            }
+        }
+        return new Probabilidades(victoriaC, victoriaL, Math.max(0, 1 - victoriaC - victoriaL));
+    }
+
+    /**
+     * Probabilidad de que gane el lado al que le toca si usa cada movimiento ahora
+     * y después sigue su modelo de juego.
+     *
+     * @param estado Estado de una batalla no terminada
+     * @return Probabilidad de victoria por movimiento (NaN si el movimiento no tiene PP)
+     */
+    public synchronized double[] probabilidadesPorMovimiento(EstadoBatalla estado) {
+        int lado = estado.getTurno();
+        double[] resultado = new double[estado.getNumMovimientos(lado)];
+        EstadoBatalla siguiente = estado.copia();
+        for (int m = 0; m < resultado.length; m++) {
+            if (!estado.puedeUsar(lado, m)) {
+                resultado[m] = Double.NaN;
+                continue;
+            }
+            DistribucionDano d = estado.getDistribucion(lado, m);
+            double p = 0;
+            for (int i = 0; i < d.tamano(); i++) {
+                siguiente.copiarDe(estado);
+                siguiente.aplicarConDano(m, d.dano(i));
+                p += d.probabilidad(i) * analizar(siguiente).victoria(lado);
+            }
+            resultado[m] = p;
+        }
+        return resultado;
+    }
+
+    /**
+     * Movimiento que maximiza la probabilidad de victoria del lado al que le toca,
+     * suponiendo que después ambos siguen su modelo de juego.
+     *
+     * @param estado Estado de una batalla no terminada
+     * @return Índice del movimiento, o -1 si no tiene ninguno con PP
+     */
+    public synchronized int mejorMovimiento(EstadoBatalla estado) {
+        double[] p = probabilidadesPorMovimiento(estado);
+        int mejor = -1;
+        for (int m = 0; m < p.length; m++) {
+            if (!Double.isNaN(p[m]) && (mejor < 0 || p[m] > p[mejor])) mejor = m;
+        }
+        return mejor;
+    }
+
+    /**
+     * @return Número de entradas calculadas en la caché de ambos lados
+     */
+    public synchronized int getEntradasCache() {
+        return lados[0].entradas + lados[1].entradas;
+    }
+
+    /**
+     * Tabla de un lado: para cada combinación de PP propios y vida del rival, la
+     * distribución del número de ataques que faltan para derrotarlo.
+     */
+    private static final class Lado {
+        private static final double[] NUNCA = new double[1];
+
+        final int lado;
+        final ModeloJugador modelo;
+        final DistribucionDano[] distribuciones;
+        final int[] dano;
+        final int[] base;
+        final int[] pp;
+        final double[][] memo;
+        int entradas;
+
+        Lado(EstadoBatalla referencia, int lado, ModeloJugador modelo) {
+            this.lado = lado;
+            this.modelo = modelo;
+            int n = referencia.getNumMovimientos(lado);
+            distribuciones = new DistribucionDano[n];
+            dano = new int[n];
+            base = new int[n];
+            pp = new int[n];
+            int combinaciones = 1;
+            for (int i = 0; i < n; i++) {
+                distribuciones[i] = referencia.getDistribucion(lado, i);
+                dano[i] = referencia.getDano(lado, i);
+                base[i] = combinaciones;
+                combinaciones *= referencia.getPpMax(lado, i) + 1;
+            }
+            memo = new double[combinaciones * (EstadoBatalla.VIDA_MAX + 1)][];
+        }
+
+        /**
+         * Distribución de ataques necesarios con los PP del estado contra un rival con la vida indicada.
+         * El elemento t es la probabilidad de derrotarlo exactamente en el ataque t (el 0 no se usa);
+         * lo que falta hasta 1 es la probabilidad de no derrotarlo nunca.
+         */
+        double[] distribucion(EstadoBatalla estado, int vidaRival) {
+            int indice = 0;
+            for (int i = 0; i < pp.length; i++) {
+                pp[i] = estado.getPp(lado, i);
+                indice += pp[i] * base[i];
+            }
+            return calcular(indice, vidaRival);
+        }
+
+        private double[] calcular(int indicePp, int vida) {
+            int clave = indicePp * (EstadoBatalla.VIDA_MAX + 1) + vida;
+            double[] resultado = memo[clave];
+            if (resultado != null) return resultado;
+
+            int restantes = 0;
+            int disponibles = 0;
+            int voraz = -1;
+            for (int i = 0; i < pp.length; i++) {
+                restantes += pp[i];
+                if (pp[i] > 0) {
+                    disponibles++;
+                    if (voraz < 0 || dano[i] > dano[voraz]) voraz = i;
+                }
+            }
+
+            if (disponibles == 0) {
+                resultado = NUNCA;
+            } else {
+                resultado = new double[restantes + 1];
+                for (int m = 0; m < pp.length; m++) {
+                    if (pp[m] == 0) continue;
+                    double pm = modelo == ModeloJugador.ALEATORIO ? 1.0 / disponibles : (m == voraz ? 1 : 0);
+                    if (pm == 0) continue;
+
+                    DistribucionDano d = distribuciones[m];
+                    pp[m]--;
+                    for (int i = 0; i < d.tamano(); i++) {
+                        double q = pm * d.probabilidad(i);
+                        int danoHecho = d.dano(i);
+                        if (danoHecho >= vida) {
+                            resultado[1] += q;
+                        } else {
+                            double[] resto = calcular(indicePp - base[m], vida - danoHecho);
+                            for (int t = 1; t < resto.length; t++) resultado[t + 1] += q * resto[t];
+                        }
+                    }
+                    pp[m]++;
+                }
+            }
+            memo[clave] = resultado;
+            entradas++;
+            return resultado;
+        }
+    }
+}
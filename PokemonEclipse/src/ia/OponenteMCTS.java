@@ -0,0 +1,446 @@
+package ia;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import metricas.Contador;
+import metricas.Metricas;
+import modelo.EstadoBatalla;
+
+/**
+ * Rival basado en Monte Carlo Tree Search (MCTS) con paralelización de raíz.
+ *
+ * Cada hilo del ForkJoinPool hace crecer su propio árbol independiente (sin bloqueos);
+ * al agotar el tiempo se suman las visitas de los hijos de la raíz de todos los árboles
+ * y se elige el movimiento más visitado.
+ *
+ * Los árboles son "open-loop": cada nodo representa una secuencia de movimientos y el
+ * estado se vuelve a simular desde la raíz en cada iteración. Así los subárboles se
+ * pueden reutilizar entre turnos con solo bajar un nivel por cada movimiento jugado.
+ *
+ * Todas las operaciones sobre los árboles se encadenan en una cola de CompletableFuture,
+ * de modo que ningún método público bloquea al hilo que llama (el hilo de JavaFX).
+ * Los métodos públicos deben llamarse siempre desde el mismo hilo.
+ */
+public class OponenteMCTS implements Politica {
+
+    /** Constante de exploración de UCT */
+    private static final double EXPLORACION = Math.sqrt(2);
+
+    /** Límite de nodos por árbol para acotar la memoria */
+    private static final int MAX_NODOS_POR_ARBOL = 400_000;
+
+    /** Tiempo máximo que se piensa durante el turno del jugador */
+    private static final long MAX_PONDERACION_NANOS = 30_000_000_000L;
+
+    /** Playouts de todas las búsquedas, sumados al terminar cada una */
+    private static final Contador PLAYOUTS = Metricas.contador("ia.mcts.playouts");
+
+    private final ForkJoinPool pool;
+    private final Arbol[] arboles;
+    private final long presupuestoNanos;
+    private final long maxPlayoutsPorArbol;
+
+    // Cola de operaciones sobre los árboles: cada operación empieza cuando termina la anterior
+    private CompletableFuture<?> cola = CompletableFuture.completedFuture(null);
+
+    // Búsqueda en curso, para poder cancelarla
+    private volatile Busqueda actual;
+
+    private volatile Estadisticas ultimasEstadisticas;
+
+    /**
+     * Crea un rival MCTS con un árbol por núcleo disponible.
+     *
+     * @param presupuestoMs Tiempo máximo de búsqueda por movimiento, en milisegundos
+     */
+    public OponenteMCTS(long presupuestoMs) {
+        this(Runtime.getRuntime().availableProcessors(), presupuestoMs, Long.MAX_VALUE, System.nanoTime());
+    }
+
+    /**
+     * Crea un rival MCTS.
+     *
+     * @param numArboles Número de árboles (y de hilos) que se exploran en paralelo
+     * @param presupuestoMs Tiempo máximo de búsqueda por movimiento, en milisegundos
+     * @param maxPlayoutsPorArbol Número máximo de playouts por árbol y movimiento
+     * @param semilla Semilla de los generadores aleatorios de los árboles
+     */
+    public OponenteMCTS(int numArboles, long presupuestoMs, long maxPlayoutsPorArbol, long semilla) {
+        if (numArboles < 1) throw new IllegalArgumentException("Se necesita al menos un árbol");
+        this.pool = new ForkJoinPool(numArboles);
+        this.presupuestoNanos = presupuestoMs >= Long.MAX_VALUE / 1_000_000L ? Long.MAX_VALUE : presupuestoMs * 1_000_000L;
+        this.maxPlayoutsPorArbol = maxPlayoutsPorArbol;
+        this.arboles = new Arbol[numArboles];
+        SplittableRandom semillas = new SplittableRandom(semilla);
+        for (int i = 0; i < numArboles; i++) {
+            arboles[i] = new Arbol(semillas.split());
+        }
+    }
+
+    /**
+     * Lanza en segundo plano la búsqueda del mejor movimiento para el lado al que le toca.
+     * Cancela antes cualquier búsqueda o ponderación en curso.
+     *
+     * @param estado Estado actual de la batalla (se copia, puede seguir usándose)
+     * @return Futuro con el índice del movimiento, o -1 si no hay movimientos disponibles
+     */
+    public synchronized CompletableFuture<Integer> elegirMovimientoAsync(EstadoBatalla estado) {
+        cancelar();
+        EstadoBatalla copia = estado.copia();
+        Busqueda busqueda = new Busqueda();
+        actual = busqueda;
+        CompletableFuture<Integer> resultado = cola.handleAsync((r, e) -> buscar(copia, busqueda, presupuestoNanos), pool);
+        cola = resultado;
+        return resultado;
+    }
+
+    /**
+     * Sigue haciendo crecer los árboles mientras el jugador piensa su movimiento.
+     * La ponderación se cancela en cuanto se llama a cualquier otro método.
+     *
+     * @param estado Estado actual de la batalla, con el turno del jugador
+     */
+    public synchronized void ponderar(EstadoBatalla estado) {
+        cancelar();
+        if (estado.terminada()) return;
+        EstadoBatalla copia = estado.copia();
+        Busqueda busqueda = new Busqueda();
+        actual = busqueda;
+        cola = cola.handleAsync((r, e) -> buscar(copia, busqueda, MAX_PONDERACION_NANOS), pool);
+    }
+
+    /**
+     * Informa de un movimiento jugado en la partida real (de cualquiera de los dos lados)
+     * para reutilizar el subárbol correspondiente en la siguiente búsqueda.
+     *
+     * @param movimiento Índice del movimiento jugado
+     */
+    public synchronized void avanzar(int movimiento) {
+        cancelar();
+        cola = cola.handleAsync((r, e) -> {
+            for (Arbol arbol : arboles) arbol.avanzar(movimiento);
+            return null;
+        }, pool);
+    }
+
+    /**
+     * Descarta los árboles, por ejemplo al empezar una partida nueva o cargar otra.
+     */
+    public synchronized void reiniciar() {
+        cancelar();
+        cola = cola.handleAsync((r, e) -> {
+            for (Arbol arbol : arboles) arbol.reiniciar();
+            return null;
+        }, pool);
+    }
+
+    /**
+     * Pide a la búsqueda en curso que termine cuanto antes. No espera a que termine.
+     */
+    public void cancelar() {
+        Busqueda b = actual;
+        if (b != null) b.cancelada = true;
+    }
+
+    /**
+     * Cancela cualquier búsqueda y libera los hilos del rival.
+     */
+    public void cerrar() {
+        cancelar();
+        pool.shutdownNow();
+    }
+
+    /**
+     * Búsqueda síncrona con un único árbol nuevo, para usar el MCTS como una política más
+     * (torneos, simulaciones). No usa ni modifica los árboles compartidos del rival.
+     */
+    @Override
+    public int elegirMovimiento(EstadoBatalla estado, SplittableRandom rand) {
+        Arbol arbol = new Arbol(rand.split());
+        arbol.prepararRaiz(estado.copia());
+        long limite = limite(System.nanoTime(), presupuestoNanos);
+        arbol.iterar(limite, new Busqueda(), maxPlayoutsPorArbol);
+        int[] visitas = new int[estado.getNumMovimientos(estado.getTurno())];
+        arbol.sumarVisitas(visitas);
+        return mejorMovimiento(estado, visitas, rand);
+    }
+
+    /**
+     * Devuelve las estadísticas de la última búsqueda completada.
+     * @return Estadísticas, o null si aún no se ha buscado
+     */
+    public Estadisticas getUltimasEstadisticas() {
+        return ultimasEstadisticas;
+    }
+
+    /**
+     * Ejecuta la búsqueda paralela en todos los árboles hasta agotar el tiempo o ser cancelada.
+     * Se ejecuta dentro del pool, por lo que invokeAll reparte los árboles entre sus hilos.
+     */
+    private int buscar(EstadoBatalla estado, Busqueda busqueda, long tiempoNanos) {
+        if (busqueda.cancelada) return -1;
+
+        long inicio = System.nanoTime();
+        long limite = limite(inicio, tiempoNanos);
+        long reutilizados = 0;
+        for (Arbol arbol : arboles) {
+            arbol.prepararRaiz(estado);
+            reutilizados += arbol.nodos;
+        }
+        if (estado.terminada()) return -1;
+
+        List<ForkJoinTask<?>> tareas = new ArrayList<>(arboles.length);
+        for (Arbol arbol : arboles) {
+            tareas.add(ForkJoinTask.adapt(() -> arbol.iterar(limite, busqueda, maxPlayoutsPorArbol)));
+        }
+        ForkJoinTask.invokeAll(tareas);
+
+        long playouts = 0;
+        long nodos = 0;
+        int[] visitas = new int[estado.getNumMovimientos(estado.getTurno())];
+        for (Arbol arbol : arboles) {
+            playouts += arbol.playoutsUltimaBusqueda;
+            nodos += arbol.nodos;
+            arbol.sumarVisitas(visitas);
+        }
+        ultimasEstadisticas = new Estadisticas(arboles.length, playouts, System.nanoTime() - inicio, nodos, reutilizados);
+        PLAYOUTS.sumar(playouts);
+        return mejorMovimiento(estado, visitas, arboles[0].rand);
+    }
+
+    /**
+     * Suma el tiempo al instante de inicio sin desbordar.
+     */
+    private static long limite(long inicio, long nanos) {
+        return nanos > Long.MAX_VALUE - inicio ? Long.MAX_VALUE : inicio + nanos;
+    }
+
+    /**
+     * Elige el movimiento con más visitas; si no hay ninguna, uno al azar con PP.
+     */
+    private static int mejorMovimiento(EstadoBatalla estado, int[] visitas, SplittableRandom rand) {
+        int lado = estado.getTurno();
+        int mejor = -1;
+        for (int i = 0; i < visitas.length; i++) {
+            if (estado.puedeUsar(lado, i) && (mejor < 0 || visitas[i] > visitas[mejor])) mejor = i;
+        }
+        if (mejor < 0 || visitas[mejor] == 0) {
+            return PoliticaAleatoria.movimientoAleatorio(estado, rand);
+        }
+        return mejor;
+    }
+
+    /**
+     * Marca de cancelación de una búsqueda.
+     */
+    private static final class Busqueda {
+        volatile boolean cancelada;
+    }
+
+    /**
+     * Nodo del árbol: representa el movimiento que hizo el lado "lado" para llegar aquí.
+     * Las victorias se cuentan desde el punto de vista de ese lado.
+     */
+    private static final class Nodo {
+        final int movimiento;
+        final int lado;
+        Nodo[] hijos;
+        int visitas;
+        double victorias;
+
+        Nodo(int movimiento, int lado) {
+            this.movimiento = movimiento;
+            this.lado = lado;
+        }
+    }
+
+    /**
+     * Árbol de búsqueda de un único hilo. Solo se toca desde una tarea a la vez.
+     */
+    private static final class Arbol {
+        final SplittableRandom rand;
+        Nodo raiz;
+        EstadoBatalla estadoRaiz;
+        EstadoBatalla trabajo;
+        Nodo[] camino = new Nodo[64];
+        int nodos;
+        long playoutsUltimaBusqueda;
+
+        Arbol(SplittableRandom rand) {
+            this.rand = rand;
+        }
+
+        /**
+         * Coloca el estado real en la raíz. Si la raíz reutilizada no corresponde
+         * al lado que mueve (se saltó algún movimiento), se empieza un árbol nuevo.
+         */
+        void prepararRaiz(EstadoBatalla estado) {
+            int ladoRaiz = 1 - estado.getTurno();
+            if (raiz == null || raiz.lado != ladoRaiz) {
+                raiz = new Nodo(-1, ladoRaiz);
+                nodos = 1;
+            }
+            estadoRaiz = estado;
+            trabajo = estado.copia();
+            playoutsUltimaBusqueda = 0;
+        }
+
+        void avanzar(int movimiento) {
+            Nodo siguiente = null;
+            if (raiz != null && raiz.hijos != null && movimiento >= 0 && movimiento < raiz.hijos.length) {
+                siguiente = raiz.hijos[movimiento];
+            }
+            raiz = siguiente;
+            nodos = siguiente == null ? 0 : contar(siguiente);
+        }
+
+        void reiniciar() {
+            raiz = null;
+            nodos = 0;
+        }
+
+        void iterar(long limite, Busqueda busqueda, long maxPlayouts) {
+            long hechos = 0;
+            while (!busqueda.cancelada && hechos < maxPlayouts) {
+                // Consultar el reloj cada pocas iteraciones para no penalizar los playouts
+                if ((hechos & 15) == 0 && System.nanoTime() >= limite) break;
+                iteracion();
+                hechos++;
+            }
+            playoutsUltimaBusqueda += hechos;
+        }
+
+        /**
+         * Una iteración de MCTS: selección por UCT, expansión de un nodo,
+         * simulación aleatoria hasta el final y retropropagación del resultado.
+         */
+        private void iteracion() {
+            EstadoBatalla estado = trabajo;
+            estado.copiarDe(estadoRaiz);
+            Nodo nodo = raiz;
+            int profundidad = 0;
+            camino[profundidad++] = nodo;
+
+            while (!estado.terminada()) {
+                Nodo hijo = seleccionarOExpandir(nodo, estado);
+                if (hijo == null) break;
+                estado.aplicar(hijo.movimiento, rand);
+                if (profundidad == camino.length) {
+                    camino = Arrays.copyOf(camino, profundidad * 2);
+                }
+                camino[profundidad++] = hijo;
+                nodo = hijo;
+                if (hijo.visitas == 0) break;
+            }
+
+            // Simulación aleatoria hasta el final de la batalla
+            while (!estado.terminada()) {
+                estado.aplicar(PoliticaAleatoria.movimientoAleatorio(estado, rand), rand);
+            }
+
+            int ganador = estado.ganador();
+            for (int i = 0; i < profundidad; i++) {
+                Nodo n = camino[i];
+                n.visitas++;
+                if (ganador < 0) {
+                    n.victorias += 0.5;
+                } else if (ganador == n.lado) {
+                    n.victorias += 1;
+                }
+            }
+        }
+
+        /**
+         * Devuelve el primer movimiento sin explorar del lado que mueve o,
+         * si ya están todos expandidos, el hijo con mejor valor UCT.
+         */
+        private Nodo seleccionarOExpandir(Nodo nodo, EstadoBatalla estado) {
+            int lado = estado.getTurno();
+            int n = estado.getNumMovimientos(lado);
+            if (nodo.hijos == null || nodo.hijos.length < n) {
+                nodo.hijos = nodo.hijos == null ? new Nodo[n] : Arrays.copyOf(nodo.hijos, n);
+            }
+
+            Nodo mejor = null;
+            double mejorValor = Double.NEGATIVE_INFINITY;
+            double logPadre = Math.log(Math.max(1, nodo.visitas));
+            for (int i = 0; i < n; i++) {
+                if (!estado.puedeUsar(lado, i)) continue;
+                Nodo hijo = nodo.hijos[i];
+                // Con aleatoriedad o pases de turno un mismo nodo puede alcanzarse con distinto lado al mover
+                if (hijo != null && hijo.lado != lado) {
+                    hijo = null;
+                }
+                if (hijo == null) {
+                    if (nodos >= MAX_NODOS_POR_ARBOL) continue;
+                    hijo = new Nodo(i, lado);
+                    nodo.hijos[i] = hijo;
+                    nodos++;
+                    return hijo;
+                }
+                double valor = hijo.victorias / hijo.visitas + EXPLORACION * Math.sqrt(logPadre / hijo.visitas);
+                if (valor > mejorValor) {
+                    mejorValor = valor;
+                    mejor = hijo;
+                }
+            }
+            return mejor;
+        }
+
+        void sumarVisitas(int[] visitas) {
+            if (raiz == null || raiz.hijos == null) return;
+            for (int i = 0; i < visitas.length && i < raiz.hijos.length; i++) {
+                Nodo hijo = raiz.hijos[i];
+                if (hijo != null && hijo.lado != raiz.lado) visitas[i] += hijo.visitas;
+            }
+        }
+
+        private static int contar(Nodo nodo) {
+            int total = 1;
+            if (nodo.hijos != null) {
+                for (Nodo hijo : nodo.hijos) {
+                    if (hijo != null) total += contar(hijo);
+                }
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Resumen de una búsqueda: playouts, tiempo y tamaño de los árboles.
+     */
+    public static final class Estadisticas {
+        public final int arboles;
+        public final long playouts;
+        public final long nanos;
+        public final long nodos;
+        public final long nodosReutilizados;
+
+        Estadisticas(int arboles, long playouts, long nanos, long nodos, long nodosReutilizados) {
+            this.arboles = arboles;
+            this.playouts = playouts;
+            this.nanos = nanos;
+            this.nodos = nodos;
+            this.nodosReutilizados = nodosReutilizados;
+        }
+
+        /**
+         * @return Playouts por segundo sumando todos los árboles
+         */
+        public double playoutsPorSegundo() {
+            return nanos == 0 ? 0 : playouts * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("MCTS: %d playouts en %d ms (%.0f playouts/s, %d árboles), %d nodos (%d reutilizados)",
+                    playouts, nanos / 1_000_000, playoutsPorSegundo(), arboles, nodos, nodosReutilizados);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package ia;
+
+import java.util.SplittableRandom;
+
+import modelo.EstadoBatalla;
+
+/**
+ * Estrategia que decide qué movimiento usa un Pokémon en su turno.
+ *
+ * Las políticas trabajan sobre EstadoBatalla, de modo que pueden usarse tanto
+ * en la partida real como en simulaciones sin interfaz gráfica.
+ */
+public interface Politica {
+
+    /**
+     * Elige el movimiento del lado al que le toca mover.
+     *
+     * @param estado Estado actual de la batalla (no se modifica)
+     * @param rand Generador aleatorio del hilo que llama
+     * @return Índice del movimiento elegido, o -1 si no hay ninguno disponible
+     */
+    int elegirMovimiento(EstadoBatalla estado, SplittableRandom rand);
+}
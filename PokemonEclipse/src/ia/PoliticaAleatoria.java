@@ -0,0 +1,41 @@
+package ia;
+
+import java.util.SplittableRandom;
+
+import modelo.EstadoBatalla;
+
+/**
+ * Política que elige al azar entre los movimientos que aún tienen PP,
+ * igual que Batalla.ataqueAleatorioLucario.
+ */
+public class PoliticaAleatoria implements Politica {
+
+    @Override
+    public int elegirMovimiento(EstadoBatalla estado, SplittableRandom rand) {
+        return movimientoAleatorio(estado, rand);
+    }
+
+    /**
+     * Elige de forma uniforme un movimiento con PP del lado al que le toca mover.
+     * No crea objetos, por lo que se puede usar en los playouts de la IA.
+     *
+     * @param estado Estado de la batalla
+     * @param rand Generador aleatorio
+     * @return Índice del movimiento, o -1 si no queda ninguno con PP
+     */
+    public static int movimientoAleatorio(EstadoBatalla estado, SplittableRandom rand) {
+        int lado = estado.getTurno();
+        int n = estado.getNumMovimientos(lado);
+        int disponibles = 0;
+        for (int i = 0; i < n; i++) {
+            if (estado.puedeUsar(lado, i)) disponibles++;
+        }
+        if (disponibles == 0) return -1;
+
+        int elegido = rand.nextInt(disponibles);
+        for (int i = 0; i < n; i++) {
+            if (estado.puedeUsar(lado, i) && elegido-- == 0) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,24 @@
+package ia;
+
+import java.util.SplittableRandom;
+
+import modelo.EstadoBatalla;
+
+/**
+ * Política que usa siempre el movimiento con PP que más daño hace.
+ * En caso de empate se queda con el primero.
+ */
+public class PoliticaVoraz implements Politica {
+
+    @Override
+    public int elegirMovimiento(EstadoBatalla estado, SplittableRandom rand) {
+        int lado = estado.getTurno();
+        int mejor = -1;
+        for (int i = 0; i < estado.getNumMovimientos(lado); i++) {
+            if (estado.puedeUsar(lado, i) && (mejor < 0 || estado.getDano(lado, i) > estado.getDano(lado, mejor))) {
+                mejor = i;
+            }
+        }
+        return mejor;
+    }
+}
@@ -0,0 +1,37 @@
+package metricas;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contador que se puede incrementar desde muchos hilos a la vez.
+ *
+ * Usa un LongAdder: cada hilo suma en su propia celda cuando hay contención, así que
+ * incrementar no bloquea ni compite por la misma línea de caché. Leer el valor suma
+ * las celdas y solo se hace al exportar.
+ */
+public final class Contador {
+
+    private final LongAdder valor = new LongAdder();
+
+    Contador() {
+    }
+
+    public void incrementar() {
+        valor.increment();
+    }
+
+    /**
+     * @param n Cantidad a sumar
+     */
+    public void sumar(long n) {
+        valor.add(n);
+    }
+
+    public long valor() {
+        return valor.sum();
+    }
+
+    void reiniciar() {
+        valor.reset();
+    }
+}
@@ -0,0 +1,148 @@
+package modelo;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Distribución exacta del daño (en puntos de vida) que hace un movimiento.
+ *
+ * Combina la precisión (un fallo hace 0 de daño), el golpe crítico y la tirada de daño:
+ * como en los juegos originales, el daño se multiplica por un porcentaje entero elegido
+ * al azar entre la variación mínima y el 100%, y se redondea hacia abajo (mínimo 1).
+ *
+ * Los resultados iguales se agrupan, así que normalmente hay menos de 30 valores distintos.
+ * Se usa tanto para tirar el daño en la partida como para calcular probabilidades exactas.
+ */
+public final class DistribucionDano {
+
+    /** Daños posibles, de menor a mayor */
+    final int[] danos;
+
+    /** Probabilidad de cada daño */
+    final double[] probabilidades;
+
+    /** Probabilidades acumuladas, para muestrear */
+    private final double[] acumuladas;
+
+    private DistribucionDano(int[] danos, double[] probabilidades) {
+        this.danos = danos;
+        this.probabilidades = probabilidades;
+        this.acumuladas = new double[danos.length];
+        double suma = 0;
+        for (int i = 0; i < danos.length; i++) {
+            suma += probabilidades[i];
+            acumuladas[i] = suma;
+        }
+    }
+
+    /**
+     * Calcula la distribución de daño base de un movimiento.
+     *
+     * @param m Movimiento
+     * @return Distribución con todos los daños posibles y su probabilidad
+     */
+    public static DistribucionDano de(Movimiento m) {
+        return de(m, 1.0);
+    }
+
+    /**
+     * Calcula la distribución de daño de un movimiento con el multiplicador de tipos
+     * y estadísticas de un enfrentamiento concreto (ver Especie.multiplicador).
+     *
+     * @param m Movimiento
+     * @param multiplicador Multiplicador del daño base (0 = el defensor es inmune)
+     * @return Distribución con todos los daños posibles y su probabilidad
+     */
+    public static DistribucionDano de(Movimiento m, double multiplicador) {
+        double base = m.dano * multiplicador;
+        if (Math.round(base) <= 0) return new DistribucionDano(new int[]{0}, new double[]{1.0});
+
+        int tiradaMin = (int) Math.round(Math.min(1.0, Math.max(0.0, m.variacion)) * 100);
+        int numTiradas = 100 - tiradaMin + 1;
+        double[] porDano = new double[(int) Math.ceil(base * Movimiento.MULTIPLICADOR_CRITICO) + 1];
+
+        porDano[0] += 1 - m.precision;
+        for (int critico = 0; critico < 2; critico++) {
+            double pCritico = critico == 1 ? m.probCritico : 1 - m.probCritico;
+            if (pCritico == 0) continue;
+            double multCritico = critico == 1 ? Movimiento.MULTIPLICADOR_CRITICO : 1.0;
+            for (int tirada = tiradaMin; tirada <= 100; tirada++) {
+                int dano = Math.max(1, (int) Math.floor(base * multCritico * tirada / 100.0 + 1e-9));
+                porDano[dano] += m.precision * pCritico / numTiradas;
+            }
+        }
+
+        int distintos = 0;
+        for (double p : porDano) if (p > 0) distintos++;
+        int[] danos = new int[distintos];
+        double[] probs = new double[distintos];
+        int k = 0;
+        for (int d = 0; d < porDano.length; d++) {
+            if (porDano[d] > 0) {
+                danos[k] = d;
+                probs[k++] = porDano[d];
+            }
+        }
+        return new DistribucionDano(danos, probs);
+    }
+
+    /**
+     * Tira un daño al azar según la distribución. No crea objetos.
+     *
+     * @param rand Generador aleatorio
+     * @return Daño en puntos de vida (0 si el movimiento falla)
+     */
+    public int tirar(RandomGenerator rand) {
+        if (danos.length == 1) return danos[0];
+        double u = rand.nextDouble() * acumuladas[acumuladas.length - 1];
+        for (int i = 0; i < acumuladas.length - 1; i++) {
+            if (u < acumuladas[i]) return danos[i];
+        }
+        return danos[danos.length - 1];
+    }
+
+    /** @return Número de daños distintos */
+    public int tamano() {
+        return danos.length;
+    }
+
+    /**
+     * @param i Índice entre 0 y tamano() - 1
+     * @return Daño del resultado i
+     */
+    public int dano(int i) {
+        return danos[i];
+    }
+
+    /**
+     * @param i Índice entre 0 y tamano() - 1
+     * @return Probabilidad del resultado i
+     */
+    public double probabilidad(int i) {
+        return probabilidades[i];
+    }
+
+    /** @return Daño esperado */
+    public double esperado() {
+        double e = 0;
+        for (int i = 0; i < danos.length; i++) e += danos[i] * probabilidades[i];
+        return e;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof DistribucionDano)) return false;
+        DistribucionDano otra = (DistribucionDano) o;
+        return Arrays.equals(danos, otra.danos) && Arrays.equals(probabilidades, otra.probabilidades);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(danos) + Arrays.hashCode(probabilidades);
+    }
+
+    @Override
+    public String toString() {
+        return "DistribucionDano" + Arrays.toString(danos);
+    }
+}
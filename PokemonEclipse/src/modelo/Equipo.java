@@ -0,0 +1,145 @@
+package modelo;
+
+import java.util.Arrays;
+
+/**
+ * Equipo de hasta EstadoEquipos.MAX_MIEMBROS Pokémon para los combates por equipos:
+ * la especie y los movimientos de cada miembro, en orden (el primero sale al combate).
+ *
+ * Es inmutable; los movimientos se copian al leerlos.
+ */
+public final class Equipo {
+
+    final String nombre;
+    final Especie[] especies;
+    final Movimiento[][] movimientos;
+
+    /**
+     * @param nombre Nombre del equipo
+     * @param especies Especie de cada miembro
+     * @param movimientos Movimientos de cada miembro (como máximo EstadoEquipos.MAX_MOVIMIENTOS)
+     */
+    public Equipo(String nombre, Especie[] especies, Movimiento[][] movimientos) {
+        if (especies.length == 0 || especies.length > EstadoEquipos.MAX_MIEMBROS || especies.length != movimientos.length) {
+            throw new IllegalArgumentException("Un equipo debe tener entre 1 y " + EstadoEquipos.MAX_MIEMBROS
+                    + " miembros con sus movimientos");
+        }
+        for (Movimiento[] movs : movimientos) {
+            if (movs.length == 0 || movs.length > EstadoEquipos.MAX_MOVIMIENTOS) {
+                throw new IllegalArgumentException("Cada miembro debe tener entre 1 y "
+                        + EstadoEquipos.MAX_MOVIMIENTOS + " movimientos");
+            }
+        }
+        this.nombre = nombre;
+        this.especies = especies.clone();
+        this.movimientos = new Movimiento[movimientos.length][];
+        for (int i = 0; i < movimientos.length; i++) this.movimientos[i] = copiar(movimientos[i]);
+    }
+
+    /**
+     * Equipos de ejemplo: el de Charizard (lado 0) y el de Lucario (lado 1), de seis
+     * Pokémon cada uno. El primero de cada equipo es el de la batalla normal. Varios
+     * movimientos pueden quemar, paralizar, envenenar, dormir o bajar estadísticas.
+     *
+     * @param lado EstadoBatalla.CHARIZARD o EstadoBatalla.LUCARIO
+     * @return Equipo de ese lado
+     */
+    public static Equipo porDefecto(int lado) {
+        if (lado == EstadoBatalla.CHARIZARD) {
+            return new Equipo("Equipo de Charizard", new Especie[]{
+                    Batalla.especieCharizard(),
+                    new Especie("Blastoise", new Tipo[]{Tipo.AGUA}, 90, 120, 78),
+                    new Especie("Venusaur", new Tipo[]{Tipo.PLANTA, Tipo.VENENO}, 95, 105, 80),
+                    new Especie("Pikachu", new Tipo[]{Tipo.ELECTRICO}, 85, 60, 120),
+                    new Especie("Gengar", new Tipo[]{Tipo.FANTASMA, Tipo.VENENO}, 115, 70, 110),
+                    new Especie("Snorlax", new Tipo[]{Tipo.NORMAL}, 110, 110, 30)
+            }, new Movimiento[][]{
+                    Batalla.movimientosCharizard(),
+                    {mov("Hidrobomba", Tipo.AGUA, 22, 3, 0.8, 0), mov("Surf", Tipo.AGUA, 15, 8, 1.0, 0),
+                            mov("Rayo Hielo", Tipo.HIELO, 14, 6, 1.0, 0), mov("Acua Jet", Tipo.AGUA, 6, 10, 1.0, 1)},
+                    {mov("Rayo Solar", Tipo.PLANTA, 20, 3, 0.9, 0),
+                            mov("Bomba Lodo", Tipo.VENENO, 14, 6, 1.0, 0, Condicion.EFECTO_ENVENENAR, 0.3),
+                            mov("Gigadrenado", Tipo.PLANTA, 12, 8, 1.0, 0), mov("Terremoto", Tipo.TIERRA, 15, 5, 1.0, 0)},
+                    {mov("Rayo", Tipo.ELECTRICO, 15, 6, 1.0, 0, Condicion.EFECTO_PARALIZAR, 0.1),
+                            mov("Trueno", Tipo.ELECTRICO, 20, 3, 0.7, 0, Condicion.EFECTO_PARALIZAR, 0.3),
+                            mov("Ataque Rápido", Tipo.NORMAL, 7, 12, 1.0, 1),
+                            mov("Cola Férrea", Tipo.ACERO, 15, 5, 0.75, 0, Condicion.EFECTO_BAJAR_DEFENSA, 0.3)},
+                    {mov("Bola Sombra", Tipo.FANTASMA, 15, 6, 1.0, 0),
+                            mov("Bomba Lodo", Tipo.VENENO, 14, 6, 1.0, 0, Condicion.EFECTO_ENVENENAR, 0.3),
+                            mov("Hipnosis", Tipo.PSIQUICO, 0, 5, 0.6, 0, Condicion.EFECTO_DORMIR, 1.0),
+                            mov("Sombra Vil", Tipo.FANTASMA, 6, 10, 1.0, 1)},
+                    {mov("Golpe Cuerpo", Tipo.NORMAL, 15, 8, 1.0, 0, Condicion.EFECTO_PARALIZAR, 0.3),
+                            mov("Terremoto", Tipo.TIERRA, 15, 5, 1.0, 0),
+                            mov("Gigaimpacto", Tipo.NORMAL, 25, 2, 0.9, 0), mov("Puño Hielo", Tipo.HIELO, 12, 8, 1.0, 0)}
+            });
+        }
+        return new Equipo("Equipo de Lucario", new Especie[]{
+                Batalla.especieLucario(),
+                new Especie("Garchomp", new Tipo[]{Tipo.DRAGON, Tipo.TIERRA}, 120, 95, 102),
+                new Especie("Gardevoir", new Tipo[]{Tipo.PSIQUICO, Tipo.HADA}, 105, 80, 80),
+                new Especie("Tyranitar", new Tipo[]{Tipo.ROCA, Tipo.SINIESTRO}, 125, 115, 61),
+                new Especie("Gyarados", new Tipo[]{Tipo.AGUA, Tipo.VOLADOR}, 115, 85, 81),
+                new Especie("Scizor", new Tipo[]{Tipo.BICHO, Tipo.ACERO}, 120, 100, 65)
+        }, new Movimiento[][]{
+                Batalla.movimientosLucario(),
+                {mov("Enfado", Tipo.DRAGON, 20, 4, 1.0, 0), mov("Terremoto", Tipo.TIERRA, 16, 5, 1.0, 0),
+                        mov("Roca Afilada", Tipo.ROCA, 16, 4, 0.8, 0),
+                        mov("Colmillo Ígneo", Tipo.FUEGO, 10, 8, 1.0, 0, Condicion.EFECTO_QUEMAR, 0.1)},
+                {mov("Psíquico", Tipo.PSIQUICO, 15, 6, 1.0, 0, Condicion.EFECTO_BAJAR_DEFENSA, 0.1),
+                        mov("Fuerza Lunar", Tipo.HADA, 16, 6, 1.0, 0, Condicion.EFECTO_BAJAR_ATAQUE, 0.3),
+                        mov("Bola Sombra", Tipo.FANTASMA, 13, 6, 1.0, 0),
+                        mov("Rayo", Tipo.ELECTRICO, 13, 6, 1.0, 0, Condicion.EFECTO_PARALIZAR, 0.1)},
+                {mov("Roca Afilada", Tipo.ROCA, 17, 4, 0.8, 0),
+                        mov("Triturar", Tipo.SINIESTRO, 14, 8, 1.0, 0, Condicion.EFECTO_BAJAR_DEFENSA, 0.2),
+                        mov("Terremoto", Tipo.TIERRA, 16, 5, 1.0, 0), mov("Puño Hielo", Tipo.HIELO, 12, 8, 1.0, 0)},
+                {mov("Cascada", Tipo.AGUA, 14, 8, 1.0, 0), mov("Bote", Tipo.VOLADOR, 15, 6, 0.95, 0),
+                        mov("Colmillo Hielo", Tipo.HIELO, 10, 8, 0.95, 0), mov("Terremoto", Tipo.TIERRA, 15, 5, 1.0, 0)},
+                {mov("Puño Bala", Tipo.ACERO, 7, 10, 1.0, 1), mov("Tijera X", Tipo.BICHO, 14, 8, 1.0, 0),
+                        mov("Ida y Vuelta", Tipo.BICHO, 12, 8, 1.0, 0), mov("Golpe Aéreo", Tipo.VOLADOR, 10, 8, 1.0, 0)}
+        });
+    }
+
+    private static Movimiento mov(String nombre, Tipo tipo, double dano, int ppMax, double precision, int prioridad) {
+        return new Movimiento(nombre, tipo, dano, ppMax, precision, Batalla.PROB_CRITICO, Batalla.VARIACION, prioridad);
+    }
+
+    private static Movimiento mov(String nombre, Tipo tipo, double dano, int ppMax, double precision, int prioridad,
+                                  int efecto, double probEfecto) {
+        return mov(nombre, tipo, dano, ppMax, precision, prioridad).setEfecto(efecto, probEfecto);
+    }
+
+    private static Movimiento[] copiar(Movimiento[] movs) {
+        Movimiento[] copia = new Movimiento[movs.length];
+        for (int i = 0; i < movs.length; i++) copia[i] = movs[i].copia();
+        return copia;
+    }
+
+    /**
+     * Equipo con solo los primeros miembros de este.
+     * @param n Número de miembros (1 - getTamano())
+     * @return Equipo nuevo
+     */
+    public Equipo primeros(int n) {
+        return new Equipo(nombre, Arrays.copyOf(especies, n), Arrays.copyOf(movimientos, n));
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public int getTamano() {
+        return especies.length;
+    }
+
+    public Especie getEspecie(int miembro) {
+        return especies[miembro];
+    }
+
+    /**
+     * @param miembro Índice del miembro
+     * @return Copia de sus movimientos con los PP al máximo
+     */
+    public Movimiento[] getMovimientos(int miembro) {
+        return copiar(movimientos[miembro]);
+    }
+}
@@ -0,0 +1,423 @@
+package modelo;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Estado compacto de una batalla, sin ninguna referencia a la interfaz gráfica.
+ *
+ * Guarda la vida (en puntos, 100 = vida completa), los PP y las condiciones de estado
+ * (empaquetadas en un int, ver Condicion) de cada lado en arrays primitivos, de forma que la IA pueda simular miles de partidas por segundo
+ * sin tocar los objetos Pokemon ni los controles de JavaFX.
+ *
+ * Las tablas de daño y PP máximos son inmutables y se comparten entre copias;
+ * solo la vida, los PP actuales, las condiciones y el turno se copian.
+ *
+ * equals y hashCode comparan solo la posición (vida, PP, condiciones y turno), para poder usar
+ * copias como clave de una caché. Un estado usado como clave no debe modificarse.
+ */
+public final class EstadoBatalla {
+
+    /** Índice del lado de Charizard (jugador) */
+    public static final int CHARIZARD = 0;
+
+    /** Índice del lado de Lucario (rival) */
+    public static final int LUCARIO = 1;
+
+    /** Vida completa expresada en puntos */
+    public static final int VIDA_MAX = 100;
+
+    /** Daño nominal de cada movimiento con tipos y estadísticas, por lado (compartido entre copias) */
+    final int[][] dano;
+
+    /** Distribución del daño real de cada movimiento, por lado (compartida entre copias) */
+    final DistribucionDano[][] distribuciones;
+
+    /** PP máximos de cada movimiento, por lado (compartido entre copias) */
+    final int[][] ppMax;
+
+    /** Efecto secundario de cada movimiento, por lado (compartido entre copias) */
+    final int[][] efecto;
+
+    /** Probabilidad de que cada movimiento cause su efecto al usarlo, por lado (compartido entre copias) */
+    final double[][] probEfecto;
+
+    /** Estados a los que es inmune cada lado por sus tipos (compartido entre copias) */
+    final int[] inmunidades;
+
+    /** Vida actual de cada lado en puntos (0 - VIDA_MAX) */
+    final int[] vida = new int[2];
+
+    /** PP actuales de cada movimiento, por lado */
+    final int[][] pp;
+
+    /** Condiciones de estado de cada lado (ver Condicion) */
+    final int[] condicion = new int[2];
+
+    /** Lado al que le toca mover (CHARIZARD o LUCARIO) */
+    int turno;
+
+    /**
+     * Crea el estado a partir de los Pokémon de una batalla.
+     *
+     * @param charizard Pokémon del jugador
+     * @param lucario Pokémon del rival
+     * @param turnoCharizard true si le toca mover a Charizard
+     */
+    public EstadoBatalla(Pokemon charizard, Pokemon lucario, boolean turnoCharizard) {
+        this(charizard.especie, charizard.movimientos, charizard.vida,
+                lucario.especie, lucario.movimientos, lucario.vida, turnoCharizard);
+        condicion[CHARIZARD] = charizard.condicion;
+        condicion[LUCARIO] = lucario.condicion;
+    }
+
+    /**
+     * Crea el estado a partir de los movimientos y la vida de cada lado,
+     * sin necesidad de crear objetos Pokemon (útil en herramientas sin interfaz).
+     *
+     * @param movsCharizard Movimientos de Charizard
+     * @param vidaCharizard Vida de Charizard (0.0 - 1.0)
+     * @param movsLucario Movimientos de Lucario
+     * @param vidaLucario Vida de Lucario (0.0 - 1.0)
+     * @param turnoCharizard true si le toca mover a Charizard
+     */
+    public EstadoBatalla(Movimiento[] movsCharizard, double vidaCharizard,
+                         Movimiento[] movsLucario, double vidaLucario, boolean turnoCharizard) {
+        this(Especie.NEUTRA, movsCharizard, vidaCharizard, Especie.NEUTRA, movsLucario, vidaLucario, turnoCharizard);
+    }
+
+    /**
+     * Crea el estado a partir de la especie, los movimientos y la vida de cada lado.
+     * El daño de cada movimiento se resuelve aquí con los tipos y estadísticas del
+     * enfrentamiento, así que durante la simulación no se vuelve a calcular.
+     *
+     * @param especieCharizard Tipos y estadísticas de Charizard
+     * @param movsCharizard Movimientos de Charizard
+     * @param vidaCharizard Vida de Charizard (0.0 - 1.0)
+     * @param especieLucario Tipos y estadísticas de Lucario
+     * @param movsLucario Movimientos de Lucario
+     * @param vidaLucario Vida de Lucario (0.0 - 1.0)
+     * @param turnoCharizard true si le toca mover a Charizard
+     */
+    public EstadoBatalla(Especie especieCharizard, Movimiento[] movsCharizard, double vidaCharizard,
+                         Especie especieLucario, Movimiento[] movsLucario, double vidaLucario, boolean turnoCharizard) {
+        Movimiento[][] lados = {movsCharizard, movsLucario};
+        Especie[] especies = {especieCharizard, especieLucario};
+        double[] vidas = {vidaCharizard, vidaLucario};
+        dano = new int[2][];
+        distribuciones = new DistribucionDano[2][];
+        ppMax = new int[2][];
+        efecto = new int[2][];
+        probEfecto = new double[2][];
+        inmunidades = new int[2];
+        pp = new int[2][];
+        for (int lado = 0; lado < 2; lado++) {
+            Movimiento[] movs = lados[lado];
+            dano[lado] = new int[movs.length];
+            distribuciones[lado] = new DistribucionDano[movs.length];
+            ppMax[lado] = new int[movs.length];
+            efecto[lado] = new int[movs.length];
+            probEfecto[lado] = new double[movs.length];
+            pp[lado] = new int[movs.length];
+            for (int i = 0; i < movs.length; i++) {
+                double multiplicador = especies[lado].multiplicador(movs[i].tipo, especies[1 - lado]);
+                dano[lado][i] = (int) Math.round(movs[i].dano * multiplicador);
+                distribuciones[lado][i] = movs[i].getDistribucion(multiplicador);
+                ppMax[lado][i] = movs[i].ppMax;
+                efecto[lado][i] = movs[i].efecto;
+                // Contra un rival inmune al tipo el movimiento no le afecta
+                probEfecto[lado][i] = movs[i].dano > 0 && multiplicador == 0 ? 0 : movs[i].probEfectoAlUsar();
+                pp[lado][i] = movs[i].pp;
+            }
+            vida[lado] = (int) Math.round(vidas[lado] * VIDA_MAX);
+            inmunidades[lado] = Condicion.inmunidades(especies[lado]);
+        }
+        turno = turnoCharizard ? CHARIZARD : LUCARIO;
+        normalizarTurno();
+    }
+
+    /**
+     * Constructor de copia: comparte las tablas inmutables y duplica el estado mutable.
+     */
+    private EstadoBatalla(EstadoBatalla otro) {
+        dano = otro.dano;
+        distribuciones = otro.distribuciones;
+        ppMax = otro.ppMax;
+        efecto = otro.efecto;
+        probEfecto = otro.probEfecto;
+        inmunidades = otro.inmunidades;
+        pp = new int[][]{otro.pp[0].clone(), otro.pp[1].clone()};
+        vida[0] = otro.vida[0];
+        vida[1] = otro.vida[1];
+        condicion[0] = otro.condicion[0];
+        condicion[1] = otro.condicion[1];
+        turno = otro.turno;
+    }
+
+    /**
+     * Devuelve una copia independiente de este estado.
+     * @return Nuevo estado con los mismos valores
+     */
+    public EstadoBatalla copia() {
+        return new EstadoBatalla(this);
+    }
+
+    /**
+     * Sobrescribe este estado con los valores de otro sin crear objetos nuevos.
+     * Ambos estados deben proceder de la misma batalla (mismas tablas de movimientos).
+     *
+     * @param otro Estado de origen
+     */
+    public void copiarDe(EstadoBatalla otro) {
+        System.arraycopy(otro.pp[0], 0, pp[0], 0, pp[0].length);
+        System.arraycopy(otro.pp[1], 0, pp[1], 0, pp[1].length);
+        vida[0] = otro.vida[0];
+        vida[1] = otro.vida[1];
+        condicion[0] = otro.condicion[0];
+        condicion[1] = otro.condicion[1];
+        turno = otro.turno;
+    }
+
+    /**
+     * Sobrescribe la vida, los PP, las condiciones y el turno con los de los Pokémon de una
+     * batalla sin crear objetos nuevos. Los Pokémon deben tener los mismos movimientos con
+     * los que se creó este estado.
+     *
+     * @param charizard Pokémon del jugador
+     * @param lucario Pokémon del rival
+     * @param turnoCharizard true si le toca mover a Charizard
+     */
+    void cargarDe(Pokemon charizard, Pokemon lucario, boolean turnoCharizard) {
+        cargarLado(CHARIZARD, charizard);
+        cargarLado(LUCARIO, lucario);
+        turno = turnoCharizard ? CHARIZARD : LUCARIO;
+        normalizarTurno();
+    }
+
+    private void cargarLado(int lado, Pokemon p) {
+        for (int i = 0; i < pp[lado].length; i++) pp[lado][i] = p.movimientos[i].pp;
+        vida[lado] = (int) Math.round(p.vida * VIDA_MAX);
+        condicion[lado] = p.condicion;
+    }
+
+    /**
+     * Aplica el movimiento indicado del lado al que le toca mover, tirando el daño
+     * según su precisión, crítico y variación.
+     *
+     * Igual que Batalla.atacar: si está dormido o paralizado puede perder el turno; si no,
+     * gasta un PP, resta el daño (escalado por los niveles y la quemadura) al defensor,
+     * tira el efecto secundario y termina el turno (ver aplicarConDano).
+     * Si el defensor se ha quedado sin PP en todos sus movimientos, el turno vuelve
+     * al atacante (el rival no puede responder).
+     *
+     * @param mov Índice del movimiento
+     * @param rand Generador aleatorio para la tirada de daño
+     * @return true si el movimiento se pudo usar, false si no tenía PP
+     */
+    public boolean aplicar(int mov, RandomGenerator rand) {
+        int atacante = turno;
+        if (!puedeUsar(atacante, mov)) return false;
+        if (condicion[atacante] != 0 && !intentarMover(atacante, rand)) return true;
+
+        int danoHecho = distribuciones[atacante][mov].tirar(rand);
+        int c = condicion[atacante] | condicion[1 - atacante];
+        if (c != 0) danoHecho = Condicion.escalarDano(danoHecho, condicion[atacante], condicion[1 - atacante]);
+        if (efecto[atacante][mov] != Condicion.EFECTO_NINGUNO) tirarEfecto(atacante, mov, danoHecho, rand);
+        return aplicarConDano(mov, danoHecho);
+    }
+
+    /**
+     * Comprueba si el atacante dormido o paralizado se mueve; si no, termina su turno.
+     * Está fuera de aplicar para que el camino sin condiciones sea corto.
+     * @return true si se mueve
+     */
+    private boolean intentarMover(int atacante, RandomGenerator rand) {
+        int c = Condicion.intentarMover(condicion[atacante], rand);
+        condicion[atacante] = c & ~Condicion.PIERDE_TURNO;
+        if ((c & Condicion.PIERDE_TURNO) == 0) return true;
+        terminarTurno(atacante);
+        return false;
+    }
+
+    /**
+     * Tira el efecto secundario de un movimiento: solo si el golpe acierta (los movimientos
+     * sin daño ya llevan la precisión en su probabilidad).
+     */
+    private void tirarEfecto(int atacante, int mov, int danoHecho, RandomGenerator rand) {
+        if ((danoHecho > 0 || dano[atacante][mov] == 0) && rand.nextDouble() < probEfecto[atacante][mov]) {
+            int ef = efecto[atacante][mov];
+            int objetivo = Condicion.esPropio(ef) ? atacante : 1 - atacante;
+            condicion[objetivo] = Condicion.aplicarEfecto(condicion[objetivo], ef, inmunidades[objetivo], rand);
+        }
+    }
+
+    /**
+     * Aplica el movimiento indicado con un daño concreto, sin azar. Sirve para recorrer
+     * todos los resultados posibles de un movimiento o para reproducir una partida.
+     * No cambia las condiciones, pero sí aplica el daño de fin de turno del atacante.
+     *
+     * @param mov Índice del movimiento
+     * @param danoHecho Daño que se resta al defensor, en puntos de vida
+     * @return true si el movimiento se pudo usar, false si no tenía PP
+     */
+    public boolean aplicarConDano(int mov, int danoHecho) {
+        int atacante = turno;
+        int defensor = 1 - turno;
+        if (!puedeUsar(atacante, mov)) return false;
+
+        pp[atacante][mov]--;
+        vida[defensor] -= danoHecho;
+        if (vida[defensor] < 0) vida[defensor] = 0;
+
+        if (vida[defensor] > 0) terminarTurno(atacante);
+        return true;
+    }
+
+    /**
+     * Fin del turno del atacante: resta el daño por quemadura o veneno y pasa el turno.
+     * @param atacante Lado que acaba de mover
+     */
+    private void terminarTurno(int atacante) {
+        int residual = condicion[atacante] == 0 ? 0 : Condicion.danoResidual(condicion[atacante]);
+        if (residual > 0) {
+            vida[atacante] -= residual;
+            if (vida[atacante] <= 0) {
+                vida[atacante] = 0;
+                return;
+            }
+        }
+        turno = 1 - atacante;
+        normalizarTurno();
+    }
+
+    /**
+     * Si el lado al que le toca no tiene movimientos disponibles, cede el turno al otro.
+     */
+    private void normalizarTurno() {
+        if (!tieneMovimientos(turno) && tieneMovimientos(1 - turno)) {
+            turno = 1 - turno;
+        }
+    }
+
+    /**
+     * Indica si la batalla ha terminado: un Pokémon sin vida o ambos sin PP.
+     * @return true si no quedan jugadas posibles
+     */
+    public boolean terminada() {
+        return vida[0] <= 0 || vida[1] <= 0 || (!tieneMovimientos(0) && !tieneMovimientos(1));
+    }
+
+    /**
+     * Devuelve el lado ganador de una batalla terminada.
+     * @return CHARIZARD, LUCARIO o -1 si no hay ganador (empate o batalla en curso)
+     */
+    public int ganador() {
+        if (vida[LUCARIO] <= 0) return CHARIZARD;
+        if (vida[CHARIZARD] <= 0) return LUCARIO;
+        return -1;
+    }
+
+    /**
+     * Indica si un lado puede usar un movimiento (le quedan PP).
+     * @param lado CHARIZARD o LUCARIO
+     * @param mov Índice del movimiento
+     * @return true si el movimiento tiene PP
+     */
+    public boolean puedeUsar(int lado, int mov) {
+        return mov >= 0 && mov < pp[lado].length && pp[lado][mov] > 0;
+    }
+
+    /**
+     * Indica si a un lado le queda algún movimiento con PP.
+     * @param lado CHARIZARD o LUCARIO
+     * @return true si puede atacar
+     */
+    public boolean tieneMovimientos(int lado) {
+        for (int p : pp[lado]) {
+            if (p > 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Indica si otro estado usa los mismos movimientos (daño, PP máximos, distribución y efectos),
+     * es decir, si sus posiciones se pueden comparar con las de este.
+     *
+     * @param otro Estado a comparar
+     * @return true si ambos estados siguen las mismas reglas
+     */
+    public boolean mismasReglas(EstadoBatalla otro) {
+        return dano == otro.dano
+                || (Arrays.deepEquals(dano, otro.dano) && Arrays.deepEquals(ppMax, otro.ppMax)
+                && Arrays.deepEquals(distribuciones, otro.distribuciones)
+                && Arrays.deepEquals(efecto, otro.efecto) && Arrays.deepEquals(probEfecto, otro.probEfecto)
+                && Arrays.equals(inmunidades, otro.inmunidades));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof EstadoBatalla)) return false;
+        EstadoBatalla otro = (EstadoBatalla) o;
+        return turno == otro.turno && vida[0] == otro.vida[0] && vida[1] == otro.vida[1]
+                && condicion[0] == otro.condicion[0] && condicion[1] == otro.condicion[1]
+                && Arrays.equals(pp[0], otro.pp[0]) && Arrays.equals(pp[1], otro.pp[1]);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = turno;
+        h = 31 * h + vida[0];
+        h = 31 * h + vida[1];
+        h = 31 * h + condicion[0];
+        h = 31 * h + condicion[1];
+        h = 31 * h + Arrays.hashCode(pp[0]);
+        return 31 * h + Arrays.hashCode(pp[1]);
+    }
+
+    // Getters
+
+    public int getTurno() {
+        return turno;
+    }
+
+    public int getVida(int lado) {
+        return vida[lado];
+    }
+
+    public int getCondicion(int lado) {
+        return condicion[lado];
+    }
+
+    /**
+     * Cambia las condiciones de un lado (para preparar posiciones en herramientas).
+     * @param lado CHARIZARD o LUCARIO
+     * @param c Condición empaquetada (ver Condicion)
+     */
+    public void setCondicion(int lado, int c) {
+        condicion[lado] = c;
+    }
+
+    public int getEfecto(int lado, int mov) {
+        return efecto[lado][mov];
+    }
+
+    public int getPp(int lado, int mov) {
+        return pp[lado][mov];
+    }
+
+    public int getDano(int lado, int mov) {
+        return dano[lado][mov];
+    }
+
+    public DistribucionDano getDistribucion(int lado, int mov) {
+        return distribuciones[lado][mov];
+    }
+
+    public int getPpMax(int lado, int mov) {
+        return ppMax[lado][mov];
+    }
+
+    public int getNumMovimientos(int lado) {
+        return pp[lado].length;
+    }
+}
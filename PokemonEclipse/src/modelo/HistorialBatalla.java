@@ -0,0 +1,72 @@
+package modelo;
+
+import java.util.ArrayDeque;
+
+/**
+ * Pilas de deshacer y rehacer de una batalla.
+ *
+ * Guarda instantáneas inmutables, así que apilar una posición no copia nada más que la
+ * referencia y deshacer o rehacer es O(1). Registrar una jugada nueva borra lo que se
+ * pudiera rehacer. Si se supera la capacidad se olvidan las posiciones más antiguas.
+ */
+public final class HistorialBatalla {
+
+    private final ArrayDeque<Instantanea> deshacer = new ArrayDeque<>();
+    private final ArrayDeque<Instantanea> rehacer = new ArrayDeque<>();
+    private final int capacidad;
+
+    /**
+     * @param capacidad Número máximo de posiciones que se pueden deshacer
+     */
+    public HistorialBatalla(int capacidad) {
+        this.capacidad = capacidad;
+    }
+
+    /**
+     * Registra la posición anterior a una jugada.
+     * @param antes Posición antes de la jugada
+     */
+    public void registrar(Instantanea antes) {
+        deshacer.push(antes);
+        if (deshacer.size() > capacidad) deshacer.removeLast();
+        rehacer.clear();
+    }
+
+    /**
+     * Vuelve a la posición anterior.
+     * @param actual Posición actual, que pasa a poder rehacerse
+     * @return Posición anterior, o null si no hay nada que deshacer
+     */
+    public Instantanea deshacer(Instantanea actual) {
+        if (deshacer.isEmpty()) return null;
+        rehacer.push(actual);
+        return deshacer.pop();
+    }
+
+    /**
+     * Vuelve a la posición que se deshizo.
+     * @param actual Posición actual, que pasa a poder deshacerse
+     * @return Posición siguiente, o null si no hay nada que rehacer
+     */
+    public Instantanea rehacer(Instantanea actual) {
+        if (rehacer.isEmpty()) return null;
+        deshacer.push(actual);
+        return rehacer.pop();
+    }
+
+    public boolean puedeDeshacer() {
+        return !deshacer.isEmpty();
+    }
+
+    public boolean puedeRehacer() {
+        return !rehacer.isEmpty();
+    }
+
+    /**
+     * Olvida todas las posiciones, por ejemplo al empezar o cargar una partida.
+     */
+    public void limpiar() {
+        deshacer.clear();
+        rehacer.clear();
+    }
+}
@@ -0,0 +1,99 @@
+package modelo;
+
+import java.util.Arrays;
+
+/**
+ * Tipos elementales de Pokémon y movimientos, con la tabla de efectividades
+ * de los juegos originales (sexta generación en adelante).
+ *
+ * La tabla es un array plano de NUM_TIPOS x NUM_TIPOS indexado por los ordinales,
+ * calculado una sola vez al cargar la clase.
+ */
+public enum Tipo {
+    NORMAL, FUEGO, AGUA, ELECTRICO, PLANTA, HIELO, LUCHA, VENENO, TIERRA,
+    VOLADOR, PSIQUICO, BICHO, ROCA, FANTASMA, DRAGON, SINIESTRO, ACERO, HADA;
+
+    /** Número de tipos */
+    public static final int NUM_TIPOS = values().length;
+
+    /** Multiplicador de un ataque del mismo tipo que el atacante (STAB) */
+    public static final double MULTIPLICADOR_STAB = 1.5;
+
+    /** EFECTIVIDAD[ataque * NUM_TIPOS + defensa] */
+    private static final double[] EFECTIVIDAD = new double[NUM_TIPOS * NUM_TIPOS];
+
+    static {
+        Arrays.fill(EFECTIVIDAD, 1.0);
+        fila(NORMAL, "", "ROCA ACERO", "FANTASMA");
+        fila(FUEGO, "PLANTA HIELO BICHO ACERO", "FUEGO AGUA ROCA DRAGON", "");
+        fila(AGUA, "FUEGO TIERRA ROCA", "AGUA PLANTA DRAGON", "");
+        fila(ELECTRICO, "AGUA VOLADOR", "ELECTRICO PLANTA DRAGON", "TIERRA");
+        fila(PLANTA, "AGUA TIERRA ROCA", "FUEGO PLANTA VENENO VOLADOR BICHO DRAGON ACERO", "");
+        fila(HIELO, "PLANTA TIERRA VOLADOR DRAGON", "FUEGO AGUA HIELO ACERO", "");
+        fila(LUCHA, "NORMAL HIELO ROCA SINIESTRO ACERO", "VENENO VOLADOR PSIQUICO BICHO HADA", "FANTASMA");
+        fila(VENENO, "PLANTA HADA", "VENENO TIERRA ROCA FANTASMA", "ACERO");
+        fila(TIERRA, "FUEGO ELECTRICO VENENO ROCA ACERO", "PLANTA BICHO", "VOLADOR");
+        fila(VOLADOR, "PLANTA LUCHA BICHO", "ELECTRICO ROCA ACERO", "");
+        fila(PSIQUICO, "LUCHA VENENO", "PSIQUICO ACERO", "SINIESTRO");
+        fila(BICHO, "PLANTA PSIQUICO SINIESTRO", "FUEGO LUCHA VENENO VOLADOR FANTASMA ACERO HADA", "");
+        fila(ROCA, "FUEGO HIELO VOLADOR BICHO", "LUCHA TIERRA ACERO", "");
+        fila(FANTASMA, "PSIQUICO FANTASMA", "SINIESTRO", "NORMAL");
+        fila(DRAGON, "DRAGON", "ACERO", "HADA");
+        fila(SINIESTRO, "PSIQUICO FANTASMA", "LUCHA SINIESTRO HADA", "");
+        fila(ACERO, "HIELO ROCA HADA", "FUEGO AGUA ELECTRICO ACERO", "");
+        fila(HADA, "LUCHA DRAGON SINIESTRO", "FUEGO VENENO ACERO", "");
+    }
+
+    private static void fila(Tipo ataque, String superEficaz, String pocoEficaz, String inmune) {
+        marcar(ataque, superEficaz, 2.0);
+        marcar(ataque, pocoEficaz, 0.5);
+        marcar(ataque, inmune, 0.0);
+    }
+
+    private static void marcar(Tipo ataque, String defensas, double valor) {
+        if (defensas.isEmpty()) return;
+        for (String d : defensas.split(" ")) {
+            EFECTIVIDAD[ataque.ordinal() * NUM_TIPOS + valueOf(d).ordinal()] = valor;
+        }
+    }
+
+    /**
+     * Efectividad de un ataque de este tipo contra un Pokémon de un solo tipo.
+     *
+     * @param defensa Tipo del defensor
+     * @return 0, 0.5, 1 o 2
+     */
+    public double efectividadContra(Tipo defensa) {
+        return EFECTIVIDAD[ordinal() * NUM_TIPOS + defensa.ordinal()];
+    }
+
+    /**
+     * Efectividad de cada tipo de ataque contra un Pokémon con los tipos indicados
+     * (el producto de las efectividades contra cada uno de sus tipos).
+     *
+     * @param tiposDefensor Tipos del defensor (puede estar vacío)
+     * @return Array indexado por el ordinal del tipo del ataque
+     */
+    public static double[] efectividadRecibida(Tipo[] tiposDefensor) {
+        double[] resultado = new double[NUM_TIPOS];
+        for (int a = 0; a < NUM_TIPOS; a++) {
+            double e = 1.0;
+            for (Tipo d : tiposDefensor) e *= EFECTIVIDAD[a * NUM_TIPOS + d.ordinal()];
+            resultado[a] = e;
+        }
+        return resultado;
+    }
+
+    /**
+     * Multiplicador STAB de cada tipo de ataque para un Pokémon con los tipos indicados.
+     *
+     * @param tiposAtacante Tipos del atacante (puede estar vacío)
+     * @return Array indexado por el ordinal del tipo del ataque (MULTIPLICADOR_STAB o 1)
+     */
+    public static double[] stab(Tipo[] tiposAtacante) {
+        double[] resultado = new double[NUM_TIPOS];
+        Arrays.fill(resultado, 1.0);
+        for (Tipo t : tiposAtacante) resultado[t.ordinal()] = MULTIPLICADOR_STAB;
+        return resultado;
+    }
+}
@@ -0,0 +1,302 @@
+package recursos;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import metricas.Contador;
+import metricas.Metricas;
+import registro.Registro;
+
+/**
+ * Archivo único con todas las imágenes y el atlas de la interfaz, leído con FileChannel.map.
+ *
+ * El archivo se proyecta en memoria una sola vez y nada se lee hasta que se pide: al
+ * abrirlo solo se comprueban la cabecera y el índice, al buscar un recurso se hace una búsqueda binaria
+ * en el índice (ordenado por el hash del nombre) y el recurso se entrega como un
+ * InputStream sobre su trozo de la proyección, así que el decodificador lee directamente
+ * de las páginas del fichero sin copiarlo antes en un array. Cada recurso empieza en un
+ * múltiplo de la alineación (por defecto 4096, una página), de modo que leer uno no toca
+ * las páginas de los demás. Lo genera GeneradorArchivo.
+ *
+ * Formato (enteros big-endian):
+ *
+ *     Cabecera, 32 bytes
+ *         0  int    MAGIA
+ *         4  int    VERSION
+ *         8  int    Número de recursos
+ *         12 int    Alineación de los datos
+ *         16 long   Longitud total del archivo
+ *         24 long   Reservado (0)
+ *     Índice, 32 bytes por recurso, ordenado por hash
+ *         0  long   Hash FNV-1a de 64 bits del nombre en UTF-8
+ *         8  long   Posición de los datos
+ *         16 int    Longitud de los datos
+ *         20 int    Posición del nombre
+ *         24 short  Longitud del nombre
+ *         26        Relleno (6 bytes)
+ *     Nombres en UTF-8, seguidos
+ *     Datos, cada recurso alineado
+ *
+ * Los nombres son rutas relativas a la carpeta Vista de los recursos ("img/FondoMenu.png",
+ * "atlas/sprites.idx"...). Sin archivo (por defecto recursos.pak en la carpeta de trabajo,
+ * o el de -Dpokemon.recursos), los recursos se leen sueltos del classpath como antes.
+ *
+ * Para medir el arranque se anota qué recursos se leen, cuántos bytes y cuándo; la traza
+ * se escribe en el registro con registrarTraza.
+ */
+public final class ArchivoRecursos {
+
+    static final int MAGIA = 0x504B4543; // "PKEC"
+    static final int VERSION = 1;
+    static final int CABECERA = 32;
+    static final int ENTRADA = 32;
+
+    private static final String CARPETA_CLASSPATH = "/application/resources/Vista/";
+
+    private static final Registro REGISTRO = Registro.de("recursos");
+    private static final Contador BYTES_LEIDOS = Metricas.contador("recursos.bytes");
+
+    private static ArchivoRecursos comun;
+
+    /** Proyección del archivo, o null si los recursos se leen del classpath */
+    private final MappedByteBuffer datos;
+    private final Path ruta;
+    private final int numero;
+    private final long inicioNs = System.nanoTime();
+
+    // Traza de lecturas: cada recurso se anota la primera vez que se abre
+    private final Set<String> leidos = new HashSet<>();
+    private final List<String> traza = new ArrayList<>();
+    private long bytesTocados;
+
+    private ArchivoRecursos(Path ruta, MappedByteBuffer datos) {
+        this.ruta = ruta;
+        this.datos = datos;
+        this.numero = datos == null ? 0 : datos.getInt(8);
+        if (datos != null) bytesTocados = CABECERA + (long) numero * ENTRADA;
+    }
+
+    /**
+     * @return Recursos de la aplicación; el archivo se abre la primera vez que se piden
+     */
+    public static synchronized ArchivoRecursos comun() {
+        if (comun == null) {
+            Path ruta = Paths.get(System.getProperty("pokemon.recursos", "recursos.pak"));
+            if (!Files.isRegularFile(ruta)) {
+                REGISTRO.info("No hay archivo de recursos {}; se leen del classpath (ver recursos.GeneradorArchivo)", ruta);
+                comun = new ArchivoRecursos(ruta, null);
+            } else {
+                try {
+                    comun = abrir(ruta);
+                } catch (IOException e) {
+                    REGISTRO.aviso("No se pudo abrir el archivo de recursos {}; se leen del classpath: {}", ruta, e.toString());
+                    comun = new ArchivoRecursos(ruta, null);
+                }
+            }
+        }
+        return comun;
+    }
+
+    /**
+     * Proyecta un archivo de recursos y comprueba su cabecera y su índice: que esté ordenado
+     * por hash y que los datos y el nombre de cada entrada queden dentro del archivo, para
+     * que un archivo dañado se rechace aquí y no al leer un recurso.
+     *
+     * @param ruta Fichero generado por GeneradorArchivo
+     * @return Archivo abierto
+     * @throws IOException Si no se puede leer o no es un archivo de recursos válido
+     */
+    public static ArchivoRecursos abrir(Path ruta) throws IOException {
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.READ)) {
+            long tamano = canal.size();
+            if (tamano < CABECERA || tamano > Integer.MAX_VALUE) throw new IOException("Tamaño no válido: " + tamano);
+            // La proyección sigue siendo válida después de cerrar el canal
+            MappedByteBuffer datos = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamano);
+            if (datos.getInt(0) != MAGIA) throw new IOException("No es un archivo de recursos");
+            if (datos.getInt(4) != VERSION) throw new IOException("Versión no soportada: " + datos.getInt(4));
+            if (datos.getLong(16) != tamano) throw new IOException("Archivo incompleto");
+            long indice = CABECERA + (long) datos.getInt(8) * ENTRADA;
+            if (datos.getInt(8) < 0 || indice > tamano) throw new IOException("Índice no válido");
+            comprobarIndice(datos, datos.getInt(8), indice);
+            return new ArchivoRecursos(ruta, datos);
+        }
+    }
+
+    /**
+     * @param fin Primera posición después del índice, donde empiezan los nombres
+     * @throws IOException Si alguna entrada está fuera de orden o se sale del archivo
+     */
+    private static void comprobarIndice(ByteBuffer datos, int numero, long fin) throws IOException {
+        long capacidad = datos.capacity();
+        for (int i = 0; i < numero; i++) {
+            int base = CABECERA + i * ENTRADA;
+            if (i > 0 && datos.getLong(base) < datos.getLong(base - ENTRADA)) {
+                throw new IOException("Índice desordenado en la entrada " + i);
+            }
+            long posicion = datos.getLong(base + 8);
+            int longitud = datos.getInt(base + 16);
+            if (posicion < fin || longitud < 0 || posicion + longitud > capacidad) {
+                throw new IOException("Datos fuera del archivo en la entrada " + i);
+            }
+            int posicionNombre = datos.getInt(base + 20);
+            int longitudNombre = datos.getShort(base + 24);
+            if (posicionNombre < fin || longitudNombre < 0 || posicionNombre + (long) longitudNombre > capacidad) {
+                throw new IOException("Nombre fuera del archivo en la entrada " + i);
+            }
+        }
+    }
+
+    /**
+     * Abre un recurso sin copiarlo: el flujo lee directamente de la proyección del archivo.
+     *
+     * @param nombre Ruta relativa a la carpeta Vista ("img/Aura.png")
+     * @return Flujo con el contenido, o null si no existe
+     */
+    public synchronized InputStream abrir(String nombre) {
+        if (datos == null) {
+            InputStream entrada = ArchivoRecursos.class.getResourceAsStream(CARPETA_CLASSPATH + nombre);
+            if (entrada != null) anotar(nombre, -1);
+            return entrada;
+        }
+        int i = buscar(nombre);
+        if (i < 0) return null;
+        int base = CABECERA + i * ENTRADA;
+        int posicion = (int) datos.getLong(base + 8);
+        int longitud = datos.getInt(base + 16);
+        ByteBuffer trozo = datos.duplicate();
+        trozo.position(posicion).limit(posicion + longitud);
+        anotar(nombre, longitud);
+        return new Flujo(trozo.slice());
+    }
+
+    /**
+     * @param nombre Ruta relativa a la carpeta Vista
+     * @return true si el recurso existe
+     */
+    public synchronized boolean existe(String nombre) {
+        if (datos == null) return ArchivoRecursos.class.getResource(CARPETA_CLASSPATH + nombre) != null;
+        return buscar(nombre) >= 0;
+    }
+
+    /**
+     * Escribe en el registro qué recursos se han leído desde que se abrió el archivo, en
+     * orden, con su tamaño y el momento de la primera lectura, y el total de bytes tocados.
+     */
+    public synchronized void registrarTraza() {
+        for (String linea : traza) REGISTRO.info(linea);
+        if (datos == null) {
+            REGISTRO.info("Recursos: {} leídos del classpath", leidos.size());
+        } else {
+            REGISTRO.info("Recursos: {} de {} leídos, {} KB tocados de {} KB en {}", leidos.size(), numero,
+                    bytesTocados / 1024, datos.capacity() / 1024, ruta);
+        }
+    }
+
+    /**
+     * Posición en el índice del recurso, por búsqueda binaria del hash; si varios nombres
+     * comparten hash, se comparan los nombres.
+     */
+    private int buscar(String nombre) {
+        byte[] bytes = nombre.getBytes(StandardCharsets.UTF_8);
+        long hash = hash(bytes);
+        int bajo = 0, alto = numero - 1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            long h = datos.getLong(CABECERA + medio * ENTRADA);
+            if (h < hash) bajo = medio + 1;
+            else if (h > hash) alto = medio - 1;
+            else {
+                // Se retrocede al primero con ese hash y se prueban todos
+                int i = medio;
+                while (i > 0 && datos.getLong(CABECERA + (i - 1) * ENTRADA) == hash) i--;
+                for (; i < numero && datos.getLong(CABECERA + i * ENTRADA) == hash; i++) {
+                    if (mismoNombre(i, bytes)) return i;
+                }
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private boolean mismoNombre(int i, byte[] nombre) {
+        int base = CABECERA + i * ENTRADA;
+        int posicion = datos.getInt(base + 20);
+        int longitud = datos.getShort(base + 24);
+        if (longitud != nombre.length) return false;
+        for (int j = 0; j < longitud; j++) {
+            if (datos.get(posicion + j) != nombre[j]) return false;
+        }
+        return true;
+    }
+
+    private void anotar(String nombre, int bytes) {
+        if (!leidos.add(nombre)) return;
+        long ms = (System.nanoTime() - inicioNs) / 1_000_000;
+        if (bytes < 0) {
+            traza.add(String.format("%6d ms  %s (classpath)", ms, nombre));
+            return;
+        }
+        bytesTocados += bytes;
+        BYTES_LEIDOS.sumar(bytes);
+        traza.add(String.format("%6d ms  %-24s %8d KB", ms, nombre, (bytes + 1023) / 1024));
+    }
+
+    /**
+     * Hash FNV-1a de 64 bits.
+     */
+    static long hash(byte[] bytes) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /** InputStream sobre un trozo de la proyección */
+    private static final class Flujo extends InputStream {
+        private final ByteBuffer trozo;
+
+        Flujo(ByteBuffer trozo) {
+            this.trozo = trozo;
+        }
+
+        @Override
+        public int read() {
+            return trozo.hasRemaining() ? trozo.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] destino, int desde, int longitud) {
+            if (longitud == 0) return 0;
+            if (!trozo.hasRemaining()) return -1;
+            int n = Math.min(longitud, trozo.remaining());
+            trozo.get(destino, desde, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            int saltados = (int) Math.max(0, Math.min(n, trozo.remaining()));
+            trozo.position(trozo.position() + saltados);
+            return saltados;
+        }
+
+        @Override
+        public int available() {
+            return trozo.remaining();
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package recursos;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+import controlador.RelojAnimacion;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import registro.Registro;
+
+/**
+ * Sprites de la interfaz sacados del atlas que genera GeneradorAtlas.
+ *
+ * Cada página del atlas se carga una sola vez, la primera vez que se pide uno de sus
+ * sprites, y se comparte entre todas las vistas: un sprite es un recorte de la página
+ * (ImageView.setViewport). Los sprites animados tienen sus fotogramas ya decodificados en
+ * la página y se animan cambiando el recorte al ritmo de RelojAnimacion, sin crear
+ * objetos por fotograma. Las vistas animadas se guardan con referencias débiles, así que
+ * una pantalla que se descarta no queda retenida por la animación.
+ *
+ * Si no se ha generado el atlas, o un nombre no está en él (los fondos, que no se
+ * empaquetan), se carga la imagen suelta de la carpeta de imágenes como antes, y los GIF
+ * los anima el propio JavaFX. Todo se lee a través de ArchivoRecursos. Solo se usa desde
+ * el hilo de JavaFX.
+ */
+public final class AtlasSprites {
+
+    /** Fichero del índice dentro de la carpeta del atlas */
+    static final String INDICE = "sprites.idx";
+
+    // Carpetas dentro de los recursos (ver ArchivoRecursos)
+    private static final String CARPETA_ATLAS = "atlas/";
+    private static final String CARPETA_IMAGENES = "img/";
+
+    private static final Registro REGISTRO = Registro.de("recursos");
+
+    private static AtlasSprites comun;
+
+    /** Un sprite del atlas: su página y el recorte de cada fotograma */
+    private static final class Sprite {
+        final int pagina;
+        final Rectangle2D[] marcos;
+        /** Instante en que termina cada fotograma, contado desde el principio de la animación */
+        final long[] finNs;
+
+        Sprite(int pagina, Rectangle2D[] marcos, long[] finNs) {
+            this.pagina = pagina;
+            this.marcos = marcos;
+            this.finNs = finNs;
+        }
+    }
+
+    /** Una vista que está mostrando un sprite animado */
+    private static final class Animacion {
+        final WeakReference<ImageView> vista;
+        Sprite sprite;
+        int marco;
+        long inicio = -1;
+
+        Animacion(ImageView vista, Sprite sprite) {
+            this.vista = new WeakReference<>(vista);
+            this.sprite = sprite;
+        }
+    }
+
+    private final Map<String, Sprite> sprites;
+    private final String[] ficherosPagina;
+    private final Image[] paginas;
+    private final Map<String, Image> sueltas = new HashMap<>();
+    private final List<Animacion> animaciones = new ArrayList<>();
+    private final LongConsumer tarea = this::pulso;
+    private boolean enReloj;
+
+    private AtlasSprites(Map<String, Sprite> sprites, String[] ficherosPagina) {
+        this.sprites = sprites;
+        this.ficherosPagina = ficherosPagina;
+        this.paginas = new Image[ficherosPagina.length];
+    }
+
+    /**
+     * @return Atlas de la aplicación, que se lee la primera vez que se pide
+     */
+    public static AtlasSprites comun() {
+        if (comun == null) comun = cargar();
+        return comun;
+    }
+
+    /**
+     * @param n Número de página
+     * @return Nombre del fichero de la página
+     */
+    static String pagina(int n) {
+        return "sprites" + n + ".png";
+    }
+
+    /**
+     * Pone en la vista la imagen con ese nombre (el del fichero original sin extensión,
+     * "Charizard", "botonFuego"...) y, si es animada, la anima.
+     *
+     * @param vista Vista donde se muestra
+     * @param nombre Nombre de la imagen
+     */
+    public void mostrar(ImageView vista, String nombre) {
+        Sprite sprite = sprites.get(nombre);
+        Animacion animacion = buscar(vista);
+        if (sprite == null) {
+            if (animacion != null) animaciones.remove(animacion);
+            vista.setViewport(null);
+            vista.setImage(suelta(nombre));
+            return;
+        }
+        vista.setImage(imagenPagina(sprite.pagina));
+        vista.setViewport(sprite.marcos[0]);
+        if (sprite.marcos.length == 1) {
+            if (animacion != null) animaciones.remove(animacion);
+            return;
+        }
+        if (animacion == null) {
+            animaciones.add(new Animacion(vista, sprite));
+        } else {
+            animacion.sprite = sprite;
+            animacion.marco = 0;
+            animacion.inicio = -1;
+        }
+        if (!enReloj) {
+            enReloj = true;
+            RelojAnimacion.cadaPulso(tarea);
+        }
+    }
+
+    /**
+     * @param nombre Nombre de la imagen, como en mostrar
+     * @return true si la imagen está en el atlas o como imagen suelta
+     */
+    public boolean contiene(String nombre) {
+        if (sprites.containsKey(nombre) || sueltas.get(nombre) != null) return true;
+        ArchivoRecursos recursos = ArchivoRecursos.comun();
+        return recursos.existe(CARPETA_IMAGENES + nombre + ".png") || recursos.existe(CARPETA_IMAGENES + nombre + ".gif");
+    }
+
+    /**
+     * Cambia el recorte de las vistas animadas cuyo fotograma ha cambiado.
+     */
+    private void pulso(long ahora) {
+        for (int i = 0; i < animaciones.size(); ) {
+            Animacion a = animaciones.get(i);
+            ImageView vista = a.vista.get();
+            if (vista == null) {
+                animaciones.remove(i);
+                continue;
+            }
+            i++;
+            if (vista.getScene() == null) continue;
+            if (a.inicio < 0) a.inicio = ahora;
+            long[] fin = a.sprite.finNs;
+            long t = (ahora - a.inicio) % fin[fin.length - 1];
+            // El fotograma i va desde fin[i - 1] (incluido) hasta fin[i] (sin incluir)
+            int marco = Arrays.binarySearch(fin, t);
+            marco = marco < 0 ? -marco - 1 : marco + 1;
+            if (marco != a.marco) {
+                a.marco = marco;
+                vista.setViewport(a.sprite.marcos[marco]);
+            }
+        }
+        if (animaciones.isEmpty() && enReloj) {
+            enReloj = false;
+            RelojAnimacion.quitarTarea(tarea);
+        }
+    }
+
+    private Animacion buscar(ImageView vista) {
+        for (Animacion a : animaciones) {
+            if (a.vista.get() == vista) return a;
+        }
+        return null;
+    }
+
+    private Image imagenPagina(int n) {
+        if (paginas[n] == null) paginas[n] = leerImagen(CARPETA_ATLAS + ficherosPagina[n]);
+        return paginas[n];
+    }
+
+    private Image suelta(String nombre) {
+        return sueltas.computeIfAbsent(nombre, n -> {
+            for (String extension : new String[] {".png", ".gif"}) {
+                Image imagen = leerImagen(CARPETA_IMAGENES + n + extension);
+                if (imagen != null) return imagen;
+            }
+            REGISTRO.aviso("No existe la imagen {}", n);
+            return null;
+        });
+    }
+
+    /**
+     * @return Imagen decodificada del recurso, o null si no existe o no se puede leer
+     */
+    private static Image leerImagen(String recurso) {
+        try (InputStream entrada = ArchivoRecursos.comun().abrir(recurso)) {
+            return entrada == null ? null : new Image(entrada);
+        } catch (IOException e) {
+            REGISTRO.aviso("No se pudo leer {}: {}", recurso, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Lee el índice del atlas. Sin índice, o si está dañado, se usan las imágenes sueltas.
+     */
+    private static AtlasSprites cargar() {
+        InputStream entrada = ArchivoRecursos.comun().abrir(CARPETA_ATLAS + INDICE);
+        if (entrada == null) {
+            REGISTRO.info("No hay atlas de sprites; se cargan las imágenes sueltas (ver recursos.GeneradorAtlas)");
+            return new AtlasSprites(new HashMap<>(), new String[0]);
+        }
+        try (BufferedReader lector = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8))) {
+            List<String> ficheros = new ArrayList<>();
+            long bytesPaginas = 0, bytesAntes = 0, texturasAntes = 0;
+            // Fotogramas de cada sprite en orden, hasta tenerlos todos
+            Map<String, List<String[]>> regiones = new HashMap<>();
+            List<String> orden = new ArrayList<>();
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                if (linea.isEmpty() || linea.startsWith("#")) continue;
+                String[] p = linea.split(" ");
+                switch (p[0]) {
+                    case "antes":
+                        bytesAntes = Long.parseLong(p[1]);
+                        texturasAntes = Long.parseLong(p[2]);
+                        break;
+                    case "pagina":
+                        ficheros.add(Integer.parseInt(p[1]), p[2]);
+                        bytesPaginas += 4L * Integer.parseInt(p[3]) * Integer.parseInt(p[4]);
+                        break;
+                    case "region":
+                        if (!regiones.containsKey(p[1])) orden.add(p[1]);
+                        regiones.computeIfAbsent(p[1], n -> new ArrayList<>()).add(p);
+                        break;
+                    default:
+                        throw new IOException("Línea desconocida: " + linea);
+                }
+            }
+
+            Map<String, Sprite> sprites = new HashMap<>();
+            for (String nombre : orden) {
+                List<String[]> marcos = regiones.get(nombre);
+                Rectangle2D[] recortes = new Rectangle2D[marcos.size()];
+                long[] fin = new long[marcos.size()];
+                long t = 0;
+                for (int i = 0; i < recortes.length; i++) {
+                    String[] p = marcos.get(i);
+                    recortes[i] = new Rectangle2D(Integer.parseInt(p[3]), Integer.parseInt(p[4]),
+                            Integer.parseInt(p[5]), Integer.parseInt(p[6]));
+                    t += Math.max(1, Integer.parseInt(p[7])) * 1_000_000L;
+                    fin[i] = t;
+                }
+                sprites.put(nombre, new Sprite(Integer.parseInt(marcos.get(0)[2]), recortes, fin));
+            }
+            REGISTRO.info("Atlas de sprites: {} imágenes en {} página(s), {} KB de textura (sin atlas, {} KB en {} texturas)",
+                    sprites.size(), ficheros.size(), bytesPaginas / 1024, bytesAntes / 1024, texturasAntes);
+            return new AtlasSprites(sprites, ficheros.toArray(new String[0]));
+        } catch (IOException | RuntimeException e) {
+            REGISTRO.aviso("No se pudo leer el atlas de sprites; se cargan las imágenes sueltas: {}", e.toString());
+            return new AtlasSprites(new HashMap<>(), new String[0]);
+        }
+    }
+}
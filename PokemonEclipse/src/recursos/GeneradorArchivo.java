@@ -0,0 +1,152 @@
+package recursos;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import comun.Opciones;
+
+/**
+ * Paso de construcción que junta las imágenes y el atlas de la interfaz en un único
+ * archivo indexado para ArchivoRecursos (el formato está descrito allí).
+ *
+ * Recorre la carpeta Vista de los recursos (img y, si se ha generado, atlas) y guarda cada
+ * fichero con su ruta relativa como nombre. Conviene ejecutarlo después de GeneradorAtlas.
+ *
+ * Uso: java recursos.GeneradorArchivo [opcion=valor...]
+ *
+ *     origen=src/application/resources/Vista     Carpeta de los recursos
+ *     destino=recursos.pak                       Archivo que se genera
+ *     alineacion=4096                            Múltiplo en el que empieza cada recurso (potencia de 2)
+ *
+ * Códigos de salida: 0 archivo generado, 1 error de lectura o escritura, 2 opciones no válidas.
+ */
+public class GeneradorArchivo {
+
+    private static final String USO = "Uso: java recursos.GeneradorArchivo [origen=carpeta] [destino=fichero] "
+            + "[alineacion=bytes]";
+
+    /** Un recurso que se va a guardar */
+    private static final class Recurso {
+        final String nombre;
+        final byte[] bytesNombre;
+        final long hash;
+        final Path fichero;
+        long posicion;
+        int longitud;
+        int posicionNombre;
+
+        Recurso(String nombre, Path fichero) {
+            this.nombre = nombre;
+            this.bytesNombre = nombre.getBytes(StandardCharsets.UTF_8);
+            this.hash = ArchivoRecursos.hash(bytesNombre);
+            this.fichero = fichero;
+        }
+    }
+
+    public static void main(String[] args) {
+        int codigo;
+        try {
+            codigo = generar(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USO);
+            codigo = 2;
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            codigo = 1;
+        }
+        System.exit(codigo);
+    }
+
+    private static int generar(String[] args) throws IOException {
+        Map<String, String> opciones = Opciones.leer(args, "origen", "destino", "alineacion");
+        Path origen = Paths.get(opciones.getOrDefault("origen", "src/application/resources/Vista"));
+        Path destino = Paths.get(opciones.getOrDefault("destino", "recursos.pak"));
+        int alineacion = Integer.parseInt(opciones.getOrDefault("alineacion", "4096"));
+        if (alineacion < 1 || Integer.bitCount(alineacion) != 1) {
+            throw new IllegalArgumentException("La alineación tiene que ser una potencia de 2");
+        }
+        if (!Files.isDirectory(origen)) throw new IOException("No existe la carpeta " + origen);
+
+        List<Recurso> recursos;
+        try (Stream<Path> ficheros = Files.walk(origen)) {
+            recursos = ficheros.filter(Files::isRegularFile)
+                    .map(f -> new Recurso(origen.relativize(f).toString().replace('\\', '/'), f))
+                    .sorted(Comparator.comparingLong((Recurso r) -> r.hash).thenComparing(r -> r.nombre))
+                    .collect(Collectors.toList());
+        }
+        if (recursos.isEmpty()) throw new IOException("No hay recursos en " + origen);
+        for (Recurso r : recursos) {
+            if (r.bytesNombre.length > Short.MAX_VALUE) throw new IOException("Nombre demasiado largo: " + r.nombre);
+        }
+
+        // Posiciones: cabecera, índice, nombres y datos alineados
+        long posicion = ArchivoRecursos.CABECERA + (long) recursos.size() * ArchivoRecursos.ENTRADA;
+        for (Recurso r : recursos) {
+            r.posicionNombre = (int) posicion;
+            posicion += r.bytesNombre.length;
+        }
+        for (Recurso r : recursos) {
+            long tamano = Files.size(r.fichero);
+            if (tamano > Integer.MAX_VALUE) throw new IOException("Recurso demasiado grande: " + r.nombre);
+            posicion = alinear(posicion, alineacion);
+            r.posicion = posicion;
+            r.longitud = (int) tamano;
+            posicion += tamano;
+        }
+        long total = posicion;
+        if (total > Integer.MAX_VALUE) throw new IOException("El archivo pasaría de 2 GB");
+
+        ByteBuffer cabecera = ByteBuffer.allocate((int) (ArchivoRecursos.CABECERA
+                + (long) recursos.size() * ArchivoRecursos.ENTRADA));
+        cabecera.putInt(ArchivoRecursos.MAGIA).putInt(ArchivoRecursos.VERSION).putInt(recursos.size())
+                .putInt(alineacion).putLong(total).putLong(0);
+        for (Recurso r : recursos) {
+            cabecera.putLong(r.hash).putLong(r.posicion).putInt(r.longitud).putInt(r.posicionNombre)
+                    .putShort((short) r.bytesNombre.length).put(new byte[6]);
+        }
+        cabecera.flip();
+
+        Path temporal = destino.resolveSibling(destino.getFileName() + ".tmp");
+        try (FileChannel salida = FileChannel.open(temporal, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            escribir(salida, cabecera);
+            for (Recurso r : recursos) escribir(salida, ByteBuffer.wrap(r.bytesNombre));
+            for (Recurso r : recursos) {
+                salida.position(r.posicion);
+                escribir(salida, ByteBuffer.wrap(Files.readAllBytes(r.fichero)));
+            }
+        }
+        Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING);
+
+        long datos = 0;
+        for (Recurso r : recursos) {
+            datos += r.longitud;
+            System.out.printf(Locale.ROOT, "%-28s %8d KB  @%d%n", r.nombre, (r.longitud + 1023) / 1024, r.posicion);
+        }
+        System.out.printf(Locale.ROOT, "%d recursos, %d KB de datos, %d KB en %s%n", recursos.size(), datos / 1024,
+                total / 1024, destino);
+        return 0;
+    }
+
+    private static long alinear(long posicion, int alineacion) {
+        return (posicion + alineacion - 1) & -alineacion;
+    }
+
+    private static void escribir(FileChannel salida, ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) salida.write(bytes);
+    }
+}
@@ -0,0 +1,307 @@
+package recursos;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+
+import comun.Opciones;
+
+/**
+ * Paso de construcción que empaqueta los sprites, los botones y los marcos de las barras
+ * de vida en unas pocas imágenes grandes (páginas de atlas) con un índice de regiones.
+ *
+ * Los GIF animados se decodifican aquí, componiendo cada fotograma sobre el anterior
+ * según su desplazamiento y su forma de borrarse, y se guardan como una tira de
+ * fotogramas ya completos con la duración de cada uno. En tiempo de ejecución
+ * AtlasSprites carga cada página una sola vez y dibuja cada sprite como un recorte de
+ * ella (ImageView.setViewport), así que en lugar de un fichero, una decodificación y una
+ * textura por imagen hay una por página.
+ *
+ * Las imágenes con algún lado mayor que el límite (los fondos de pantalla completa) no se
+ * empaquetan: ocuparían casi una página entera cada una y no se ganaría nada.
+ *
+ * Al terminar muestra la memoria de textura antes (cada imagen suelta y cada fotograma
+ * de los GIF, que JavaFX guarda decodificados) y después (las páginas).
+ *
+ * Uso: java recursos.GeneradorAtlas [opcion=valor...]
+ *
+ *     origen=src/application/resources/Vista/img        Carpeta con las imágenes
+ *     destino=src/application/resources/Vista/atlas     Carpeta donde se escriben las páginas y el índice
+ *     pagina=4096          Ancho y alto máximos de una página
+ *     limite=1024          Lado máximo de una imagen para entrar en el atlas
+ *     separacion=2         Píxeles vacíos entre regiones, para que el filtrado no mezcle vecinas
+ *
+ * Códigos de salida: 0 atlas generado, 1 error de lectura o escritura, 2 opciones no válidas.
+ */
+public class GeneradorAtlas {
+
+    private static final String USO = "Uso: java recursos.GeneradorAtlas [origen=carpeta] [destino=carpeta] "
+            + "[pagina=px] [limite=px] [separacion=px]";
+
+    /** Duración de un fotograma de GIF sin retardo o con uno de 10 ms o menos, como hacen los navegadores */
+    private static final int MS_POR_DEFECTO = 100;
+
+    /** Una región del atlas: una imagen estática o un fotograma de un GIF */
+    private static final class Region {
+        final String nombre;
+        final BufferedImage imagen;
+        final int ms;
+        int pagina, x, y;
+
+        Region(String nombre, BufferedImage imagen, int ms) {
+            this.nombre = nombre;
+            this.imagen = imagen;
+            this.ms = ms;
+        }
+    }
+
+    public static void main(String[] args) {
+        int codigo;
+        try {
+            codigo = generar(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USO);
+            codigo = 2;
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            codigo = 1;
+        }
+        System.exit(codigo);
+    }
+
+    private static int generar(String[] args) throws IOException {
+        Map<String, String> opciones = Opciones.leer(args, "origen", "destino", "pagina", "limite", "separacion");
+        File origen = new File(opciones.getOrDefault("origen", "src/application/resources/Vista/img"));
+        File destino = new File(opciones.getOrDefault("destino", "src/application/resources/Vista/atlas"));
+        int pagina = Integer.parseInt(opciones.getOrDefault("pagina", "4096"));
+        int limite = Integer.parseInt(opciones.getOrDefault("limite", "1024"));
+        int separacion = Integer.parseInt(opciones.getOrDefault("separacion", "2"));
+        if (limite + separacion > pagina || separacion < 0) {
+            throw new IllegalArgumentException("El límite más la separación no puede ser mayor que la página");
+        }
+        File[] ficheros = origen.listFiles((d, n) -> n.matches("(?i).*\\.(png|gif|jpe?g)"));
+        if (ficheros == null) throw new IOException("No existe la carpeta " + origen);
+        Arrays.sort(ficheros);
+
+        List<Region> regiones = new ArrayList<>();
+        long bytesAntes = 0;
+        int texturasAntes = 0;
+        for (File f : ficheros) {
+            String nombre = f.getName().substring(0, f.getName().lastIndexOf('.'));
+            List<Region> marcos = leer(f, nombre);
+            BufferedImage primera = marcos.get(0).imagen;
+            if (primera.getWidth() > limite || primera.getHeight() > limite) {
+                System.out.printf("%-16s %4dx%-4d  se queda suelta (mayor que %d)%n",
+                        nombre, primera.getWidth(), primera.getHeight(), limite);
+                continue;
+            }
+            for (Region r : marcos) bytesAntes += 4L * r.imagen.getWidth() * r.imagen.getHeight();
+            texturasAntes += marcos.size();
+            regiones.addAll(marcos);
+            System.out.printf("%-16s %4dx%-4d  %d fotograma(s)%n", nombre, primera.getWidth(), primera.getHeight(),
+                    marcos.size());
+        }
+        if (regiones.isEmpty()) throw new IOException("No hay imágenes que empaquetar en " + origen);
+
+        List<int[]> paginas = empaquetarMejor(regiones, pagina, separacion);
+
+        if (!destino.isDirectory() && !destino.mkdirs()) throw new IOException("No se pudo crear " + destino);
+        long bytesDespues = 0;
+        for (int p = 0; p < paginas.size(); p++) {
+            int[] tam = paginas.get(p);
+            BufferedImage imagen = new BufferedImage(tam[0], tam[1], BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = imagen.createGraphics();
+            for (Region r : regiones) {
+                if (r.pagina == p) g.drawImage(r.imagen, r.x, r.y, null);
+            }
+            g.dispose();
+            ImageIO.write(imagen, "png", new File(destino, AtlasSprites.pagina(p)));
+            bytesDespues += 4L * tam[0] * tam[1];
+        }
+
+        try (PrintWriter indice = new PrintWriter(new File(destino, AtlasSprites.INDICE), StandardCharsets.UTF_8.name())) {
+            indice.println("# Generado por recursos.GeneradorAtlas a partir de " + origen.getPath() + "; no editar");
+            indice.println("antes " + bytesAntes + " " + texturasAntes);
+            for (int p = 0; p < paginas.size(); p++) {
+                indice.println("pagina " + p + " " + AtlasSprites.pagina(p) + " " + paginas.get(p)[0] + " " + paginas.get(p)[1]);
+            }
+            // Los fotogramas de cada imagen van seguidos y en orden
+            for (Region r : regiones) {
+                indice.println("region " + r.nombre + " " + r.pagina + " " + r.x + " " + r.y + " "
+                        + r.imagen.getWidth() + " " + r.imagen.getHeight() + " " + r.ms);
+            }
+        }
+
+        System.out.printf(Locale.ROOT, "Antes:   %d texturas, %.1f MB%n", texturasAntes, bytesAntes / 1048576.0);
+        System.out.printf(Locale.ROOT, "Después: %d página(s), %.1f MB (%+.1f%%)%n", paginas.size(),
+                bytesDespues / 1048576.0, (bytesDespues - bytesAntes) * 100.0 / bytesAntes);
+        System.out.println("Atlas escrito en " + destino);
+        return 0;
+    }
+
+    /**
+     * Lee una imagen; si es un GIF animado, todos sus fotogramas ya compuestos.
+     */
+    private static List<Region> leer(File f, String nombre) throws IOException {
+        List<Region> marcos = new ArrayList<>();
+        try (ImageInputStream entrada = ImageIO.createImageInputStream(f)) {
+            Iterator<ImageReader> lectores = entrada == null ? null : ImageIO.getImageReaders(entrada);
+            if (lectores == null || !lectores.hasNext()) throw new IOException("Formato no reconocido: " + f);
+            ImageReader lector = lectores.next();
+            try {
+                lector.setInput(entrada);
+                if (!"gif".equalsIgnoreCase(lector.getFormatName())) {
+                    marcos.add(new Region(nombre, argb(lector.read(0)), 0));
+                } else {
+                    leerGif(lector, nombre, marcos);
+                }
+            } finally {
+                lector.dispose();
+            }
+        }
+        return marcos;
+    }
+
+    /**
+     * Compone los fotogramas de un GIF: cada uno se dibuja en su posición sobre el lienzo
+     * que dejó el anterior y después se borra según su disposición.
+     */
+    private static void leerGif(ImageReader lector, String nombre, List<Region> marcos) throws IOException {
+        int numero = lector.getNumImages(true);
+        IIOMetadataNode pantalla = nodo(lector.getStreamMetadata(), "LogicalScreenDescriptor");
+        int ancho = pantalla == null ? lector.getWidth(0) : Integer.parseInt(pantalla.getAttribute("logicalScreenWidth"));
+        int alto = pantalla == null ? lector.getHeight(0) : Integer.parseInt(pantalla.getAttribute("logicalScreenHeight"));
+
+        BufferedImage lienzo = new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = lienzo.createGraphics();
+        try {
+            for (int i = 0; i < numero; i++) {
+                BufferedImage trozo = lector.read(i);
+                IIOMetadata metadatos = lector.getImageMetadata(i);
+                IIOMetadataNode descriptor = nodo(metadatos, "ImageDescriptor");
+                IIOMetadataNode control = nodo(metadatos, "GraphicControlExtension");
+                int x = descriptor == null ? 0 : Integer.parseInt(descriptor.getAttribute("imageLeftPosition"));
+                int y = descriptor == null ? 0 : Integer.parseInt(descriptor.getAttribute("imageTopPosition"));
+                String disposicion = control == null ? "none" : control.getAttribute("disposalMethod");
+                int centesimas = control == null ? 0 : Integer.parseInt(control.getAttribute("delayTime"));
+
+                BufferedImage anterior = "restoreToPrevious".equals(disposicion) ? copia(lienzo) : null;
+                g.drawImage(trozo, x, y, null);
+                marcos.add(new Region(nombre, copia(lienzo), centesimas <= 1 ? MS_POR_DEFECTO : centesimas * 10));
+
+                if ("restoreToBackgroundColor".equals(disposicion)) {
+                    g.setComposite(AlphaComposite.Clear);
+                    g.fillRect(x, y, trozo.getWidth(), trozo.getHeight());
+                    g.setComposite(AlphaComposite.SrcOver);
+                } else if (anterior != null) {
+                    g.setComposite(AlphaComposite.Src);
+                    g.drawImage(anterior, 0, 0, null);
+                    g.setComposite(AlphaComposite.SrcOver);
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+    }
+
+    /**
+     * Prueba anchos de fila desde el de la región más ancha hasta el de la página y se queda
+     * con el reparto que menos superficie ocupa: con filas del ancho de la página, las más
+     * bajas dejan mucho hueco debajo de las altas.
+     *
+     * @return Ancho y alto usados de cada página
+     */
+    private static List<int[]> empaquetarMejor(List<Region> regiones, int lado, int separacion) {
+        int minimo = 0;
+        for (Region r : regiones) minimo = Math.max(minimo, r.imagen.getWidth() + separacion);
+        int mejorAncho = lado;
+        long mejorSuperficie = Long.MAX_VALUE;
+        for (int ancho = minimo; ancho <= lado; ancho += 16) {
+            long superficie = 0;
+            for (int[] p : empaquetar(regiones, ancho, lado, separacion)) superficie += (long) p[0] * p[1];
+            if (superficie < mejorSuperficie) {
+                mejorSuperficie = superficie;
+                mejorAncho = ancho;
+            }
+        }
+        return empaquetar(regiones, mejorAncho, lado, separacion);
+    }
+
+    /**
+     * Reparte las regiones en filas (de la más alta a la más baja) y las filas en páginas.
+     *
+     * @param ancho Ancho máximo de una fila
+     * @param lado Alto máximo de una página
+     * @return Ancho y alto usados de cada página
+     */
+    private static List<int[]> empaquetar(List<Region> regiones, int ancho, int lado, int separacion) {
+        List<Region> orden = new ArrayList<>(regiones);
+        // Orden estable: los fotogramas de un mismo GIF, que miden lo mismo, siguen juntos
+        orden.sort(Comparator.comparingInt((Region r) -> r.imagen.getHeight()).reversed());
+
+        List<int[]> paginas = new ArrayList<>();
+        int pagina = 0, x = 0, y = 0, altoFila = 0, anchoUsado = 0;
+        for (Region r : orden) {
+            int w = r.imagen.getWidth() + separacion;
+            int h = r.imagen.getHeight() + separacion;
+            if (x + w > ancho) {
+                y += altoFila;
+                x = 0;
+                altoFila = 0;
+            }
+            if (y + h > lado) {
+                paginas.add(new int[] {anchoUsado, y + altoFila});
+                pagina++;
+                x = y = altoFila = anchoUsado = 0;
+            }
+            r.pagina = pagina;
+            r.x = x;
+            r.y = y;
+            x += w;
+            altoFila = Math.max(altoFila, h);
+            anchoUsado = Math.max(anchoUsado, x);
+        }
+        paginas.add(new int[] {anchoUsado, y + altoFila});
+        return paginas;
+    }
+
+    private static IIOMetadataNode nodo(IIOMetadata metadatos, String nombre) {
+        if (metadatos == null) return null;
+        IIOMetadataNode raiz = (IIOMetadataNode) metadatos.getAsTree(metadatos.getNativeMetadataFormatName());
+        for (int i = 0; i < raiz.getLength(); i++) {
+            if (raiz.item(i).getNodeName().equals(nombre)) return (IIOMetadataNode) raiz.item(i);
+        }
+        return null;
+    }
+
+    private static BufferedImage argb(BufferedImage imagen) {
+        if (imagen.getType() == BufferedImage.TYPE_INT_ARGB) return imagen;
+        return copia(imagen);
+    }
+
+    private static BufferedImage copia(BufferedImage imagen) {
+        BufferedImage c = new BufferedImage(imagen.getWidth(), imagen.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = c.createGraphics();
+        g.drawImage(imagen, 0, 0, null);
+        g.dispose();
+        return c;
+    }
+}
@@ -0,0 +1,11 @@
+package registro;
+
+/**
+ * Nivel de un mensaje del registro, de menos a más importante.
+ */
+public enum Nivel {
+    DEPURACION,
+    INFO,
+    AVISO,
+    ERROR
+}
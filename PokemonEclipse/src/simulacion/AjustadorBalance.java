@@ -0,0 +1,349 @@
+package simulacion;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import comun.Opciones;
+import ia.Politica;
+import modelo.Catalogo;
+import modelo.EstadoBatalla;
+import modelo.Movimiento;
+
+/**
+ * Ajustador automático del balance de los movimientos.
+ *
+ * Busca valores de daño y PP máximos para los movimientos de ambos Pokémon que
+ * acerquen el porcentaje de victorias de Charizard y la duración media de la batalla
+ * a los objetivos indicados. La búsqueda es una estrategia evolutiva (1 + lambda):
+ * en cada generación se crean lambda mutaciones del mejor candidato, se evalúan en
+ * paralelo y se conserva la mejor si mejora.
+ *
+ * Cada candidato se evalúa con un lote de partidas simuladas que usan siempre la misma
+ * semilla (números aleatorios comunes), así las diferencias entre candidatos se deben a
+ * los parámetros y no al azar. Los vectores ya evaluados se guardan en una caché, de modo
+ * que las mutaciones repetidas no se vuelven a simular.
+ *
+ * Uso: java simulacion.AjustadorBalance [opcion=valor ...]
+ *
+ *     victorias=0.5                  Porcentaje de victorias de Charizard buscado (0.0 - 1.0)
+ *     turnos=14                      Duración media buscada, en turnos
+ *     generaciones=200               Generaciones de la búsqueda
+ *     partidas=4000                  Partidas simuladas por candidato
+ *     hilos=N                        Hilos de simulación (por defecto, los núcleos disponibles)
+ *     politica=aleatorio             Política de ambos lados (como en Torneo)
+ *     salida=catalogo-ajustado.txt   Catálogo que se guarda con el mejor resultado
+ */
+public class AjustadorBalance {
+
+    private static final String USO = "Uso: java simulacion.AjustadorBalance [victorias=0.0-1.0] [turnos=N] "
+            + "[generaciones=N] [partidas=N] [hilos=N] [politica=politica] [salida=fichero]";
+
+    private static final int DANO_MIN = 1;
+    private static final int DANO_MAX = 40;
+    private static final int PP_MIN = 1;
+    private static final int PP_MAX = 15;
+
+    /** Mutaciones evaluadas por generación */
+    private static final int LAMBDA = 16;
+
+    private final double victoriasObjetivo;
+    private final double turnosObjetivo;
+    private final int partidasPorCandidato;
+    private final Politica politica;
+    private final Catalogo base;
+    private final ExecutorService ejecutor;
+    private final long semilla;
+
+    // Caché de candidatos evaluados (o en evaluación) indexada por el vector de parámetros
+    private final ConcurrentHashMap<Parametros, CompletableFuture<Resultado>> cache = new ConcurrentHashMap<>();
+    private final AtomicLong consultas = new AtomicLong();
+    private final AtomicLong simulaciones = new AtomicLong();
+
+    /**
+     * @param base Catálogo del que se toman los movimientos y el punto de partida
+     * @param politica Política con la que juegan ambos lados
+     * @param victoriasObjetivo Porcentaje de victorias de Charizard buscado (0.0 - 1.0)
+     * @param turnosObjetivo Duración media buscada, en turnos
+     * @param partidasPorCandidato Partidas simuladas para evaluar cada candidato
+     * @param hilos Número de hilos de simulación
+     * @param semilla Semilla de las partidas y de las mutaciones
+     */
+    public AjustadorBalance(Catalogo base, Politica politica, double victoriasObjetivo, double turnosObjetivo,
+                            int partidasPorCandidato, int hilos, long semilla) {
+        this.politica = politica;
+        this.victoriasObjetivo = victoriasObjetivo;
+        this.turnosObjetivo = turnosObjetivo;
+        this.partidasPorCandidato = partidasPorCandidato;
+        this.ejecutor = Executors.newFixedThreadPool(hilos);
+        this.semilla = semilla;
+        this.base = base;
+    }
+
+    public static void main(String[] args) throws Exception {
+        try {
+            ejecutar(args);
+        } catch (IllegalArgumentException e) {
+            // Opciones mal escritas, números no válidos o políticas desconocidas
+            System.err.println(e.getMessage());
+            System.err.println(USO);
+            System.exit(2);
+        }
+    }
+
+    private static void ejecutar(String[] args) throws Exception {
+        Map<String, String> opciones = Opciones.leer(args, "victorias", "turnos", "generaciones", "partidas", "hilos",
+                "politica", "salida");
+        double victorias = Double.parseDouble(opciones.getOrDefault("victorias", "0.5"));
+        double turnos = Double.parseDouble(opciones.getOrDefault("turnos", "14"));
+        int generaciones = Integer.parseInt(opciones.getOrDefault("generaciones", "200"));
+        int partidas = Integer.parseInt(opciones.getOrDefault("partidas", "4000"));
+        int hilos = Integer.parseInt(opciones.getOrDefault("hilos",
+                Integer.toString(Runtime.getRuntime().availableProcessors())));
+        Politica politica = Torneo.crearPolitica(opciones.getOrDefault("politica", "aleatorio"));
+        Path salida = Paths.get(opciones.getOrDefault("salida", "catalogo-ajustado.txt"));
+
+        Catalogo base = Catalogo.activo();
+        AjustadorBalance ajustador = new AjustadorBalance(base, politica, victorias, turnos, partidas, hilos, 1);
+        try {
+            long inicio = System.nanoTime();
+            Parametros mejor = ajustador.buscar(Parametros.desde(base), generaciones);
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+
+            Resultado r = ajustador.evaluar(mejor).join();
+            System.out.printf("Mejor: %.1f%% victorias de Charizard, %.1f turnos de media (error %.5f)%n",
+                    100 * r.victorias, r.turnos, r.error);
+            System.out.printf("%d candidatos pedidos, %d simulados (%.1f%% aciertos de caché), %.0f partidas/s%n",
+                    ajustador.consultas.get(), ajustador.simulaciones.get(), 100 * ajustador.tasaAciertos(),
+                    ajustador.simulaciones.get() * (double) partidas / segundos);
+
+            String comentario = String.format("Generado por AjustadorBalance: objetivo %.1f%% victorias y %.1f turnos%n"
+                    + "Resultado: %.1f%% victorias y %.1f turnos", 100 * victorias, turnos, 100 * r.victorias, r.turnos);
+            ajustador.aCatalogo(mejor).guardar(salida, comentario);
+            System.out.println("Catálogo guardado en " + salida);
+        } finally {
+            ajustador.ejecutor.shutdown();
+        }
+    }
+
+    /**
+     * Ejecuta la estrategia evolutiva desde un vector inicial.
+     *
+     * @param inicial Parámetros de partida
+     * @param generaciones Número de generaciones
+     * @return Mejor vector encontrado
+     */
+    public Parametros buscar(Parametros inicial, int generaciones) {
+        SplittableRandom rand = new SplittableRandom(semilla);
+        Parametros mejor = inicial;
+        Resultado resultadoMejor = evaluar(mejor).join();
+        int sinMejora = 0;
+
+        for (int g = 0; g < generaciones; g++) {
+            // Si no se mejora en varias generaciones, se dan pasos más grandes
+            int paso = 1 + sinMejora / 10;
+            List<Parametros> candidatos = new ArrayList<>(LAMBDA);
+            List<CompletableFuture<Resultado>> resultados = new ArrayList<>(LAMBDA);
+            for (int i = 0; i < LAMBDA; i++) {
+                Parametros c = mejor.mutar(rand, paso);
+                candidatos.add(c);
+                resultados.add(evaluar(c));
+            }
+
+            boolean mejora = false;
+            for (int i = 0; i < LAMBDA; i++) {
+                Resultado r = resultados.get(i).join();
+                if (r.error < resultadoMejor.error) {
+                    mejor = candidatos.get(i);
+                    resultadoMejor = r;
+                    mejora = true;
+                }
+            }
+            sinMejora = mejora ? 0 : sinMejora + 1;
+
+            if (mejora || g % 20 == 0) {
+                System.out.printf("Generación %d: %.1f%% victorias, %.1f turnos, error %.5f%n",
+                        g, 100 * resultadoMejor.victorias, resultadoMejor.turnos, resultadoMejor.error);
+            }
+        }
+        return mejor;
+    }
+
+    /**
+     * Evalúa un candidato, reutilizando el resultado si ya se evaluó (o se está evaluando).
+     *
+     * @param v Vector de parámetros
+     * @return Futuro con el resultado de la simulación
+     */
+    public CompletableFuture<Resultado> evaluar(Parametros v) {
+        consultas.incrementAndGet();
+        return cache.computeIfAbsent(v, k -> CompletableFuture.supplyAsync(() -> simular(k), ejecutor));
+    }
+
+    /**
+     * Simula el lote de partidas de un candidato.
+     */
+    private Resultado simular(Parametros v) {
+        simulaciones.incrementAndGet();
+        EstadoBatalla inicial = aCatalogo(v).estadoInicial();
+        EstadoBatalla estado = inicial.copia();
+        SplittableRandom rand = new SplittableRandom(semilla);
+        long victorias = 0;
+        long empates = 0;
+        long turnos = 0;
+        for (int p = 0; p < partidasPorCandidato; p++) {
+            estado.copiarDe(inicial);
+            while (!estado.terminada()) {
+                estado.aplicar(politica.elegirMovimiento(estado, rand), rand);
+                turnos++;
+            }
+            int ganador = estado.ganador();
+            if (ganador == EstadoBatalla.CHARIZARD) victorias++;
+            else if (ganador < 0) empates++;
+        }
+        double tasa = (victorias + 0.5 * empates) / partidasPorCandidato;
+        double media = (double) turnos / partidasPorCandidato;
+        double errorTurnos = (media - turnosObjetivo) / turnosObjetivo;
+        double error = (tasa - victoriasObjetivo) * (tasa - victoriasObjetivo) + errorTurnos * errorTurnos;
+        return new Resultado(tasa, media, error);
+    }
+
+    /**
+     * Construye el catálogo correspondiente a un vector de parámetros.
+     *
+     * @param v Vector de parámetros
+     * @return Catálogo con las especies y movimientos originales (tipo, precisión, efectos...) y el daño base y PP del vector
+     */
+    public Catalogo aCatalogo(Parametros v) {
+        return v.aplicarA(base);
+    }
+
+    /**
+     * @return Fracción de consultas resueltas sin simular
+     */
+    public double tasaAciertos() {
+        long total = consultas.get();
+        return total == 0 ? 0 : 1 - (double) simulaciones.get() / total;
+    }
+
+    /**
+     * Resultado de evaluar un candidato.
+     */
+    public static final class Resultado {
+        public final double victorias;
+        public final double turnos;
+        public final double error;
+
+        Resultado(double victorias, double turnos, double error) {
+            this.victorias = victorias;
+            this.turnos = turnos;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Vector inmutable de parámetros: daño y PP máximos de cada movimiento,
+     * primero los de Charizard y después los de Lucario. Sirve como clave de la caché.
+     */
+    public static final class Parametros {
+        final int[] valores;
+        private final int hash;
+
+        Parametros(int[] valores) {
+            this.valores = valores;
+            this.hash = Arrays.hashCode(valores);
+        }
+
+        /**
+         * @param valores Daño y PP de cada movimiento, en el orden de getValores()
+         * @return Parametros con una copia de los valores
+         */
+        public static Parametros de(int[] valores) {
+            return new Parametros(valores.clone());
+        }
+
+        /**
+         * @param catalogo Catálogo de partida
+         * @return Parametros con los valores del catálogo (daño redondeado a entero)
+         */
+        public static Parametros desde(Catalogo catalogo) {
+            List<Integer> valores = new ArrayList<>();
+            for (int lado = 0; lado < 2; lado++) {
+                for (Movimiento m : catalogo.movimientos(lado)) {
+                    valores.add((int) Math.round(m.getDano()));
+                    valores.add(m.ppMax);
+                }
+            }
+            return new Parametros(valores.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        /**
+         * Construye el catálogo correspondiente a este vector.
+         *
+         * @param base Catálogo con el mismo número de movimientos por lado
+         * @return Catálogo con las especies y movimientos de base (tipo, precisión, efectos...) y el daño y PP del vector
+         * @throws IllegalArgumentException Si el vector no tiene la longitud del catálogo
+         */
+        public Catalogo aplicarA(Catalogo base) {
+            Movimiento[][] lados = {base.movimientos(0), base.movimientos(1)};
+            if (valores.length != 2 * (lados[0].length + lados[1].length)) {
+                throw new IllegalArgumentException("El vector tiene " + valores.length + " valores y el catálogo "
+                        + 2 * (lados[0].length + lados[1].length));
+            }
+            int k = 0;
+            for (int lado = 0; lado < 2; lado++) {
+                for (int i = 0; i < lados[lado].length; i++) {
+                    Movimiento m = lados[lado][i];
+                    lados[lado][i] = new Movimiento(m.nombre, m.getTipo(), valores[k], valores[k + 1],
+                            m.getPrecision(), m.getProbCritico(), m.getVariacion(), m.getPrioridad())
+                            .setEfecto(m.getEfecto(), m.getProbEfecto());
+                    k += 2;
+                }
+            }
+            return new Catalogo(base.especie(0), lados[0], base.especie(1), lados[1]);
+        }
+
+        /**
+         * @return Copia de los valores: daño y PP de cada movimiento, primero Charizard y después Lucario
+         */
+        public int[] getValores() {
+            return valores.clone();
+        }
+
+        /**
+         * Devuelve una copia con entre uno y tres parámetros cambiados, dentro de los límites.
+         */
+        Parametros mutar(SplittableRandom rand, int paso) {
+            int[] nuevos = valores.clone();
+            int cambios = 1 + rand.nextInt(3);
+            for (int c = 0; c < cambios; c++) {
+                int i = rand.nextInt(nuevos.length);
+                int delta = rand.nextInt(1, paso + 1) * (rand.nextBoolean() ? 1 : -1);
+                boolean esDano = i % 2 == 0;
+                int min = esDano ? DANO_MIN : PP_MIN;
+                int max = esDano ? DANO_MAX : PP_MAX;
+                nuevos[i] = Math.max(min, Math.min(max, nuevos[i] + delta));
+            }
+            return new Parametros(nuevos);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Parametros && hash == ((Parametros) o).hash && Arrays.equals(valores, ((Parametros) o).valores);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package simulacion;
+
+/**
+ * Bloque de memoria reutilizable donde un hilo de simulación codifica trayectorias
+ * completas antes de entregarlo al hilo escritor.
+ *
+ * Cada trayectoria se codifica así (todos los enteros en varint):
+ * - Estado inicial: vida de cada lado, lado que empieza y, por lado, número de
+ *   movimientos seguido de los PP de cada uno.
+ * - Número de turnos.
+ * - Por cada turno, un byte de cabecera (bit 7: lado que mueve, bits 5-6: recompensa,
+ *   bits 0-4: movimiento) y la variación de vida de cada lado en zigzag.
+ *   Los PP no se guardan: el movimiento usado pierde un PP, salvo si el código de
+ *   movimiento es TURNO_PERDIDO (dormido o paralizado: no mueve ni gasta PP).
+ *
+ * Recompensa: 0 = turno intermedio, 1 = gana quien mueve, 2 = pierde, 3 = empate.
+ */
+final class BloqueTrayectorias {
+
+    static final int RECOMPENSA_NINGUNA = 0;
+    static final int RECOMPENSA_VICTORIA = 1;
+    static final int RECOMPENSA_DERROTA = 2;
+    static final int RECOMPENSA_EMPATE = 3;
+
+    /** Código de movimiento de un turno perdido; los movimientos usados van de 0 a 30 */
+    static final int TURNO_PERDIDO = 0x1F;
+
+    final byte[] datos;
+    int tamano;
+    int trayectorias;
+    long turnos;
+
+    BloqueTrayectorias(int capacidad) {
+        datos = new byte[capacidad];
+    }
+
+    void vaciar() {
+        tamano = 0;
+        trayectorias = 0;
+        turnos = 0;
+    }
+
+    int libre() {
+        return datos.length - tamano;
+    }
+
+    void escribirByte(int b) {
+        datos[tamano++] = (byte) b;
+    }
+
+    void escribirVarint(int valor) {
+        while ((valor & ~0x7F) != 0) {
+            datos[tamano++] = (byte) ((valor & 0x7F) | 0x80);
+            valor >>>= 7;
+        }
+        datos[tamano++] = (byte) valor;
+    }
+
+    /**
+     * Codifica un entero con signo para que los valores pequeños negativos ocupen un byte.
+     */
+    void escribirZigZag(int valor) {
+        escribirVarint((valor << 1) ^ (valor >> 31));
+    }
+}
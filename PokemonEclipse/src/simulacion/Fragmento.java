@@ -0,0 +1,147 @@
+package simulacion;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+import modelo.Catalogo;
+import simulacion.FabricaPartidas.Partida;
+
+/**
+ * Parte de una simulación que se encarga a un trabajador: las batallas [desde, hasta)
+ * de una serie, con sus políticas, su semilla y, si hace falta, un vector de parámetros
+ * de AjustadorBalance que se aplica al catálogo activo.
+ *
+ * Como la semilla de cada batalla depende solo de la semilla de la serie y del número
+ * de batalla, un fragmento da siempre el mismo resultado, lo juegue el proceso que lo
+ * juegue o aunque se repita después de que un trabajador se caiga.
+ */
+public final class Fragmento {
+
+    public final long id;
+    public final int desde;
+    public final int hasta;
+    public final long semilla;
+    public final String charizard;
+    public final String lucario;
+
+    /** Miembros por equipo; 0 = batalla normal */
+    public final int equipos;
+
+    /** Daño y PP de cada movimiento (ver AjustadorBalance.Parametros); vacío = catálogo tal cual */
+    private final int[] parametros;
+
+    /**
+     * @param id Identificador del fragmento dentro de la simulación
+     * @param desde Primera batalla
+     * @param hasta Batalla siguiente a la última
+     * @param semilla Semilla de la serie
+     * @param charizard Política de Charizard
+     * @param lucario Política de Lucario
+     * @param equipos Miembros por equipo (1 - 6), o 0 para la batalla normal
+     * @param parametros Vector de parámetros del catálogo, o un array vacío
+     */
+    public Fragmento(long id, int desde, int hasta, long semilla, String charizard, String lucario, int equipos,
+                     int[] parametros) {
+        if (desde < 0 || hasta < desde) throw new IllegalArgumentException("Rango no válido: " + desde + " - " + hasta);
+        if (equipos < 0 || equipos > 6) throw new IllegalArgumentException("Miembros por equipo no válidos: " + equipos);
+        if (equipos > 0 && parametros.length > 0) {
+            throw new IllegalArgumentException("Los parámetros del catálogo solo se aplican a la batalla normal");
+        }
+        this.id = id;
+        this.desde = desde;
+        this.hasta = hasta;
+        this.semilla = semilla;
+        this.charizard = charizard;
+        this.lucario = lucario;
+        this.equipos = equipos;
+        this.parametros = parametros.clone();
+    }
+
+    /**
+     * Texto que identifica la configuración de las batallas (todo menos el rango y la semilla).
+     * Los fragmentos con la misma clave pueden reutilizar la misma fábrica de partidas.
+     * @return Clave de la configuración
+     */
+    public String configuracion() {
+        return charizard + '|' + lucario + '|' + equipos + '|' + Arrays.toString(parametros);
+    }
+
+    /**
+     * @return Fábrica de partidas con las políticas, el tipo de batalla y el catálogo del fragmento
+     * @throws IOException Si una política "tabla" no puede leer su fichero
+     */
+    public Supplier<Partida> crearFabrica() throws IOException {
+        if (equipos > 0) return FabricaPartidas.equipos(equipos, charizard, lucario);
+        Catalogo catalogo = Catalogo.activo();
+        if (parametros.length > 0) catalogo = AjustadorBalance.Parametros.de(parametros).aplicarA(catalogo);
+        return FabricaPartidas.batalla(catalogo, charizard, lucario);
+    }
+
+    /**
+     * Juega las batallas del fragmento.
+     * @param partida Partida creada con la fábrica de esta configuración
+     * @return Estadísticas de las batallas
+     */
+    public EstadisticasSimulacion jugar(Partida partida) {
+        EstadisticasSimulacion e = new EstadisticasSimulacion();
+        for (int k = desde; k < hasta; k++) {
+            SplittableRandom rand = new SplittableRandom(FabricaPartidas.semillaPartida(semilla, k));
+            long inicio = System.nanoTime();
+            int ganador = partida.jugar(rand);
+            e.registrar(ganador, partida.turnos(), System.nanoTime() - inicio);
+        }
+        return e;
+    }
+
+    public int getBatallas() {
+        return hasta - desde;
+    }
+
+    /**
+     * Escribe el fragmento en binario.
+     * @param salida Flujo de salida
+     */
+    public void escribir(DataOutput salida) throws IOException {
+        salida.writeLong(id);
+        salida.writeInt(desde);
+        salida.writeInt(hasta);
+        salida.writeLong(semilla);
+        salida.writeUTF(charizard);
+        salida.writeUTF(lucario);
+        salida.writeByte(equipos);
+        salida.writeShort(parametros.length);
+        for (int v : parametros) salida.writeShort(v);
+    }
+
+    /**
+     * Lee un fragmento escrito con escribir.
+     * @param entrada Flujo de entrada
+     * @return Fragmento nuevo
+     * @throws IOException Si el flujo se corta o los datos no son válidos
+     */
+    public static Fragmento leer(DataInput entrada) throws IOException {
+        long id = entrada.readLong();
+        int desde = entrada.readInt();
+        int hasta = entrada.readInt();
+        long semilla = entrada.readLong();
+        String charizard = entrada.readUTF();
+        String lucario = entrada.readUTF();
+        int equipos = entrada.readUnsignedByte();
+        int[] parametros = new int[entrada.readUnsignedShort()];
+        for (int i = 0; i < parametros.length; i++) parametros[i] = entrada.readShort();
+        try {
+            return new Fragmento(id, desde, hasta, semilla, charizard, lucario, equipos, parametros);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Fragmento no válido: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "fragmento " + id + " [" + desde + ", " + hasta + ")";
+    }
+}
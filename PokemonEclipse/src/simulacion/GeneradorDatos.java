@@ -0,0 +1,220 @@
+package simulacion;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import comun.Opciones;
+import ia.Politica;
+import ia.PoliticaAleatoria;
+import ia.PoliticaTabla;
+import modelo.Batalla;
+import modelo.EstadoBatalla;
+
+/**
+ * Generador de datos de self-play para análisis offline.
+ *
+ * Varios hilos juegan batallas en paralelo y codifican cada trayectoria (estado,
+ * movimiento y recompensa de cada turno) en bloques que un único hilo escribe en
+ * ficheros rotativos (EscritorTrayectorias). Los turnos se guardan como diferencias
+ * respecto al anterior en varint, de modo que cada turno ocupa unos pocos bytes.
+ *
+ * Uso: java simulacion.GeneradorDatos [opcion=valor ...]
+ *
+ *     episodios=1000000         Batallas que se generan
+ *     hilos=N                   Hilos de simulación (por defecto, los núcleos disponibles)
+ *     directorio=trayectorias   Carpeta de los ficheros
+ *     mb=256                    Tamaño de cada fichero en MB
+ *     politica=fichero          Tabla de PoliticaTabla para ambos lados (por defecto, al azar)
+ */
+public class GeneradorDatos {
+
+    private static final String USO = "Uso: java simulacion.GeneradorDatos [episodios=N] [hilos=N] [directorio=carpeta] "
+            + "[mb=N] [politica=fichero]";
+
+    private static final int TAMANO_BLOQUE = 1 << 20;
+    private static final int BLOQUES_POR_HILO = 4;
+
+    private final EscritorTrayectorias escritor;
+    private final EstadoBatalla inicial;
+    private final Politica politica;
+    private final AtomicLong pendientes;
+
+    /**
+     * @param escritor Destino de los bloques codificados
+     * @param inicial Estado inicial de cada batalla
+     * @param politica Política de ambos lados
+     * @param episodios Número de batallas a generar
+     * @throws IllegalArgumentException Si algún Pokémon tiene más movimientos de los que caben en un turno
+     */
+    public GeneradorDatos(EscritorTrayectorias escritor, EstadoBatalla inicial, Politica politica, long episodios) {
+        for (int lado = 0; lado < 2; lado++) {
+            if (inicial.getNumMovimientos(lado) >= BloqueTrayectorias.TURNO_PERDIDO) {
+                throw new IllegalArgumentException("Demasiados movimientos: " + inicial.getNumMovimientos(lado));
+            }
+        }
+        this.escritor = escritor;
+        this.inicial = inicial;
+        this.politica = politica;
+        this.pendientes = new AtomicLong(episodios);
+    }
+
+    public static void main(String[] args) throws Exception {
+        try {
+            ejecutar(args);
+        } catch (IllegalArgumentException e) {
+            // Opciones mal escritas o números no válidos
+            System.err.println(e.getMessage());
+            System.err.println(USO);
+            System.exit(2);
+        }
+    }
+
+    private static void ejecutar(String[] args) throws Exception {
+        Map<String, String> opciones = Opciones.leer(args, "episodios", "hilos", "directorio", "mb", "politica");
+        long episodios = Long.parseLong(opciones.getOrDefault("episodios", "1000000"));
+        int hilos = Integer.parseInt(opciones.getOrDefault("hilos",
+                Integer.toString(Runtime.getRuntime().availableProcessors())));
+        Path directorio = Paths.get(opciones.getOrDefault("directorio", "trayectorias"));
+        long maxBytes = Long.parseLong(opciones.getOrDefault("mb", "256")) << 20;
+        Politica politica = opciones.containsKey("politica")
+                ? PoliticaTabla.cargar(Paths.get(opciones.get("politica"))) : new PoliticaAleatoria();
+
+        long inicio = System.nanoTime();
+        EscritorTrayectorias escritor = new EscritorTrayectorias(directorio, maxBytes, hilos * BLOQUES_POR_HILO, TAMANO_BLOQUE);
+        try (escritor) {
+            new GeneradorDatos(escritor, Batalla.estadoInicial(), politica, episodios).generar(hilos);
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+
+        long turnos = escritor.getTurnosEscritos();
+        System.out.printf("%d episodios, %d turnos en %.1f s (%.0f turnos/s) con %d hilos%n",
+                episodios, turnos, segundos, turnos / segundos, hilos);
+        System.out.printf("%d bytes en %d ficheros: %.2f bytes/turno, %.1f MB/s%n",
+                escritor.getBytesEscritos(), escritor.getNumFicheros(),
+                (double) escritor.getBytesEscritos() / Math.max(1, turnos), escritor.getBytesEscritos() / segundos / (1 << 20));
+        System.out.printf("Espera de los simuladores por disco: %.1f ms en total%n", escritor.getNanosEsperandoBloque() / 1e6);
+    }
+
+    /**
+     * Juega todos los episodios pendientes con el número de hilos indicado. Si falla un
+     * hilo se detienen los demás antes de devolver el error, para que ninguno siga pidiendo
+     * bloques al escritor cuando se cierre.
+     *
+     * @param hilos Número de hilos de simulación
+     * @throws Exception Si falla algún hilo o la escritura
+     */
+    public void generar(int hilos) throws Exception {
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        SplittableRandom semillas = new SplittableRandom();
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int i = 0; i < hilos; i++) {
+            SplittableRandom rand = semillas.split();
+            tareas.add(ejecutor.submit(() -> {
+                trabajar(rand);
+                return null;
+            }));
+        }
+        ejecutor.shutdown();
+        try {
+            for (Future<?> tarea : tareas) tarea.get();
+        } catch (ExecutionException | InterruptedException e) {
+            pendientes.set(0);
+            ejecutor.shutdownNow();
+            ejecutor.awaitTermination(1, TimeUnit.MINUTES);
+            throw e;
+        }
+        ejecutor.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Bucle de un hilo: juega episodios y los codifica en su bloque actual, entregándolo
+     * al escritor cuando no cabe la trayectoria siguiente.
+     *
+     * Los turnos perdidos no gastan PP, así que el número de turnos de un episodio no se
+     * conoce de antemano: se guardan en arrays que crecen según haga falta y el espacio en
+     * el bloque se comprueba al terminar el episodio.
+     */
+    private void trabajar(SplittableRandom rand) throws IOException, InterruptedException {
+        EstadoBatalla estado = inicial.copia();
+        int bytesCabecera = 5 * (5 + inicial.getNumMovimientos(0) + inicial.getNumMovimientos(1));
+        int[] cabeceras = new int[64];
+        int[] deltaVida = new int[2 * cabeceras.length];
+
+        BloqueTrayectorias bloque = escritor.pedirBloque();
+        while (pendientes.getAndDecrement() > 0) {
+            estado.copiarDe(inicial);
+
+            // Se juega el episodio guardando los turnos, porque su número va delante
+            int turnos = 0;
+            while (!estado.terminada()) {
+                if (turnos == cabeceras.length) {
+                    cabeceras = Arrays.copyOf(cabeceras, 2 * turnos);
+                    deltaVida = Arrays.copyOf(deltaVida, 4 * turnos);
+                }
+                int lado = estado.getTurno();
+                int vida0 = estado.getVida(0);
+                int vida1 = estado.getVida(1);
+                int mov = politica.elegirMovimiento(estado, rand);
+                int pp = estado.getPp(lado, mov);
+                estado.aplicar(mov, rand);
+                // Dormido o paralizado: pierde el turno sin gastar el PP
+                int codigo = estado.getPp(lado, mov) == pp ? BloqueTrayectorias.TURNO_PERDIDO : mov;
+
+                int recompensa = BloqueTrayectorias.RECOMPENSA_NINGUNA;
+                if (estado.terminada()) {
+                    int ganador = estado.ganador();
+                    recompensa = ganador < 0 ? BloqueTrayectorias.RECOMPENSA_EMPATE
+                            : ganador == lado ? BloqueTrayectorias.RECOMPENSA_VICTORIA
+                            : BloqueTrayectorias.RECOMPENSA_DERROTA;
+                }
+                cabeceras[turnos] = lado << 7 | recompensa << 5 | codigo;
+                deltaVida[2 * turnos] = estado.getVida(0) - vida0;
+                deltaVida[2 * turnos + 1] = estado.getVida(1) - vida1;
+                turnos++;
+            }
+
+            int necesarios = bytesCabecera + 11 * turnos;
+            if (bloque.libre() < necesarios) {
+                escritor.entregar(bloque);
+                bloque = escritor.pedirBloque();
+                if (bloque.libre() < necesarios) throw new IOException("Trayectoria de " + turnos + " turnos mayor que un bloque");
+            }
+            codificarCabecera(bloque, inicial);
+            bloque.escribirVarint(turnos);
+            for (int t = 0; t < turnos; t++) {
+                bloque.escribirByte(cabeceras[t]);
+                bloque.escribirZigZag(deltaVida[2 * t]);
+                bloque.escribirZigZag(deltaVida[2 * t + 1]);
+            }
+            bloque.trayectorias++;
+            bloque.turnos += turnos;
+        }
+        escritor.entregar(bloque);
+    }
+
+    /**
+     * Escribe el estado inicial completo de la trayectoria.
+     */
+    private static void codificarCabecera(BloqueTrayectorias bloque, EstadoBatalla estado) {
+        bloque.escribirVarint(estado.getVida(0));
+        bloque.escribirVarint(estado.getVida(1));
+        bloque.escribirVarint(estado.getTurno());
+        for (int lado = 0; lado < 2; lado++) {
+            int n = estado.getNumMovimientos(lado);
+            bloque.escribirVarint(n);
+            for (int i = 0; i < n; i++) bloque.escribirVarint(estado.getPp(lado, i));
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package simulacion;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import comun.Opciones;
+import ia.Politica;
+import modelo.Batalla;
+import modelo.EstadoBatalla;
+import registro.Registro;
+
+/**
+ * Comprobación de regresiones de memoria en el camino de cada turno.
+ *
+ * Mide con el contador por hilo de la JVM (ThreadMXBean.getThreadAllocatedBytes) los
+ * bytes que reservan, ya compiladas por el JIT, las partes de un turno, y falla si alguna
+ * se pasa de su presupuesto:
+ *
+ *     turno          Elección de movimiento de los dos lados y EstadoBatalla.aplicar,
+ *                    como en las simulaciones: 0 bytes
+ *     atacar         Un turno de la partida real en una Batalla sin interfaz: la elección
+ *                    del rival sobre Batalla.getEstadoCompartido y Batalla.atacar, con sus
+ *                    mensajes y métricas, sin historial para deshacer (como el modo turbo): 0 bytes
+ *     deshacer       Lo mismo con el historial para deshacer, como en la partida del jugador:
+ *                    además la instantánea de cada turno, un objeto y como mucho la copia
+ *                    de un array de PP
+ *
+ * La batalla medida no tiene controlador, así que no se cuenta la actualización de la
+ * interfaz (textos de etiquetas y botones), que JavaFX no permite medir sin ventana; para
+ * eso está PruebaCargaInterfaz. Cada medida se repite varias rondas y cuenta la mejor,
+ * para que no fallen por reservas puntuales del JIT o de la carga de clases.
+ *
+ * Uso: java simulacion.PresupuestoAsignacion [opcion=valor...]
+ *
+ *     turnos=1000000       Turnos por ronda
+ *     rondas=5
+ *     charizard=voraz      Política de Charizard (ver Torneo.crearPolitica)
+ *     lucario=aleatorio    Política de Lucario
+ *     turno=0              Presupuesto en bytes por turno simulado
+ *     atacar=0             Presupuesto en bytes por turno de Batalla sin historial
+ *     deshacer=96          Presupuesto en bytes por turno de Batalla con historial
+ *
+ * Códigos de salida: 0 presupuestos cumplidos, 1 alguno superado, 2 opciones no válidas.
+ */
+public class PresupuestoAsignacion {
+
+    private static final String USO = "Uso: java simulacion.PresupuestoAsignacion [turnos=N] [rondas=N] "
+            + "[charizard=politica] [lucario=politica] [turno=bytes] [atacar=bytes] [deshacer=bytes]";
+
+    /** Evita que el JIT elimine los resultados */
+    private static long sumidero;
+
+    public static void main(String[] args) throws Exception {
+        int codigo;
+        try {
+            codigo = comprobar(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USO);
+            codigo = 2;
+        }
+        System.exit(codigo);
+    }
+
+    private static int comprobar(String[] args) throws IOException {
+        Map<String, String> opciones = Opciones.leer(args, "turnos", "rondas", "charizard", "lucario", "turno", "atacar",
+                "deshacer");
+        int turnos = Integer.parseInt(opciones.getOrDefault("turnos", "1000000"));
+        int rondas = Integer.parseInt(opciones.getOrDefault("rondas", "5"));
+        Politica charizard = Torneo.crearPolitica(opciones.getOrDefault("charizard", "voraz"));
+        Politica lucario = Torneo.crearPolitica(opciones.getOrDefault("lucario", "aleatorio"));
+        double maxTurno = Double.parseDouble(opciones.getOrDefault("turno", "0"));
+        double maxAtacar = Double.parseDouble(opciones.getOrDefault("atacar", "0"));
+        double maxDeshacer = Double.parseDouble(opciones.getOrDefault("deshacer", "96"));
+        if (turnos < 10 || rondas < 1) throw new IllegalArgumentException("Hacen falta al menos 10 turnos y 1 ronda");
+
+        // Los mensajes de la prueba no se quieren ver: van a un fichero temporal salvo que se pida otro
+        if (System.getProperty("pokemon.registro.fichero") == null) {
+            File descarte = File.createTempFile("presupuesto", ".log");
+            descarte.deleteOnExit();
+            System.setProperty("pokemon.registro.fichero", descarte.getPath());
+        }
+
+        List<String> fallos = new ArrayList<>();
+        SplittableRandom rand = new SplittableRandom(1);
+
+        EstadoBatalla inicial = Batalla.estadoInicial();
+        EstadoBatalla estado = inicial.copia();
+        medir(fallos, "turno", maxTurno, turnos, rondas, n -> {
+            long suma = 0;
+            for (int i = 0; i < n; i++) {
+                if (estado.terminada()) estado.copiarDe(inicial);
+                Politica p = estado.getTurno() == EstadoBatalla.CHARIZARD ? charizard : lucario;
+                int mov = p.elegirMovimiento(estado, rand);
+                if (mov < 0) {
+                    estado.copiarDe(inicial);
+                    continue;
+                }
+                estado.aplicar(mov, rand);
+                suma += estado.getVida(EstadoBatalla.LUCARIO);
+            }
+            return suma;
+        });
+
+        Batalla sinHistorial = new Batalla();
+        sinHistorial.setDeshacerActivo(false);
+        medir(fallos, "atacar", maxAtacar, turnos, rondas, n -> jugar(sinHistorial, charizard, lucario, rand, n));
+
+        Batalla conHistorial = new Batalla();
+        medir(fallos, "deshacer", maxDeshacer, turnos, rondas, n -> jugar(conHistorial, charizard, lucario, rand, n));
+
+        System.out.println("(control " + sumidero + ")");
+        Registro.vaciar(1000);
+        if (fallos.isEmpty()) {
+            System.out.println("Presupuestos cumplidos");
+            return 0;
+        }
+        for (String f : fallos) System.out.println("FALLO: " + f);
+        return 1;
+    }
+
+    /**
+     * Juega n turnos en la batalla como el modo turbo de BatallaController: cada lado elige
+     * con su política sobre el estado compartido y ataca, y al terminar empieza otra partida.
+     */
+    private static long jugar(Batalla batalla, Politica charizard, Politica lucario, SplittableRandom rand, int n) {
+        long suma = 0;
+        for (int i = 0; i < n; i++) {
+            EstadoBatalla estado = batalla.getEstadoCompartido();
+            boolean turnoCharizard = estado.getTurno() == EstadoBatalla.CHARIZARD;
+            int mov = estado.terminada() ? -1
+                    : (turnoCharizard ? charizard : lucario).elegirMovimiento(estado, rand);
+            if (mov < 0 || !batalla.atacar(turnoCharizard, mov)) batalla.iniciarPartidaNueva();
+            suma += mov;
+        }
+        return suma;
+    }
+
+    /**
+     * Operación medida: ejecuta n iteraciones y devuelve un valor que depende de todas.
+     */
+    private interface Operacion {
+        long ejecutar(int n);
+    }
+
+    /**
+     * Calienta la operación, la mide varias rondas y anota un fallo si en la mejor ronda
+     * reserva más bytes por iteración que el presupuesto.
+     */
+    private static void medir(List<String> fallos, String nombre, double presupuesto, int operaciones, int rondas,
+                              Operacion op) {
+        com.sun.management.ThreadMXBean hilos = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().getId();
+
+        for (int i = 0; i < 5; i++) sumidero += op.ejecutar(operaciones / 10);
+
+        double mejorBytes = Double.MAX_VALUE;
+        double mejorNs = Double.MAX_VALUE;
+        for (int r = 0; r < rondas; r++) {
+            long bytesAntes = hilos.getThreadAllocatedBytes(id);
+            long inicio = System.nanoTime();
+            sumidero += op.ejecutar(operaciones);
+            long ns = System.nanoTime() - inicio;
+            long bytes = hilos.getThreadAllocatedBytes(id) - bytesAntes;
+            mejorBytes = Math.min(mejorBytes, (double) bytes / operaciones);
+            mejorNs = Math.min(mejorNs, (double) ns / operaciones);
+        }
+        // Menos de un byte por cada mil operaciones es ruido de la propia medición
+        double bytes = mejorBytes < 0.001 ? 0 : mejorBytes;
+        boolean cumple = bytes <= presupuesto;
+        System.out.printf(Locale.ROOT, "%-12s %8.2f ns/op  %8.3f bytes/op  (presupuesto %.0f)  %s%n",
+                nombre, mejorNs, bytes, presupuesto, cumple ? "ok" : "FALLO");
+        if (!cumple) {
+            fallos.add(String.format(Locale.ROOT, "%s reserva %.3f bytes por operación, presupuesto %.0f",
+                    nombre, bytes, presupuesto));
+        }
+    }
+}
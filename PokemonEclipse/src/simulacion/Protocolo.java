@@ -0,0 +1,51 @@
+package simulacion;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Protocolo binario entre Coordinador y Trabajador.
+ *
+ * Cada mensaje empieza por un byte con su tipo. El trabajador saluda con la firma y la
+ * versión; después el coordinador le manda fragmentos de uno en uno y el trabajador
+ * contesta a cada uno con sus estadísticas o con un error. FIN le dice que ya no hay más.
+ *
+ *     HOLA       firma (int), versión (int)
+ *     TRABAJO    Fragmento.escribir
+ *     RESULTADO  id del fragmento (long), EstadisticasSimulacion.escribir
+ *     ERROR      id del fragmento (long), mensaje (UTF)
+ *     FIN        -
+ */
+final class Protocolo {
+
+    /** "PKE1" */
+    static final int FIRMA = 0x504B4531;
+    static final int VERSION = 1;
+
+    static final byte HOLA = 1;
+    static final byte TRABAJO = 2;
+    static final byte RESULTADO = 3;
+    static final byte ERROR = 4;
+    static final byte FIN = 5;
+
+    private Protocolo() {
+    }
+
+    static void escribirHola(DataOutput salida) throws IOException {
+        salida.writeByte(HOLA);
+        salida.writeInt(FIRMA);
+        salida.writeInt(VERSION);
+    }
+
+    /**
+     * @throws IOException Si el otro extremo no habla este protocolo o usa otra versión
+     */
+    static void leerHola(DataInput entrada) throws IOException {
+        if (entrada.readByte() != HOLA || entrada.readInt() != FIRMA) {
+            throw new IOException("La conexión no es de un trabajador");
+        }
+        int version = entrada.readInt();
+        if (version != VERSION) throw new IOException("Versión de protocolo " + version + ", se esperaba " + VERSION);
+    }
+}
@@ -0,0 +1,119 @@
+package simulacion;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import comun.Opciones;
+import ia.PoliticaEquipo;
+import ia.PoliticaEquipoAleatoria;
+import ia.PoliticaEquipoVoraz;
+import modelo.EstadoBatalla;
+import modelo.EstadoEquipos;
+import modelo.Equipo;
+
+/**
+ * Simula combates por equipos entre dos políticas y mide el coste por turno.
+ *
+ * Juega el mismo número de combates con equipos de 1, 3 y 6 Pokémon (los primeros de los
+ * equipos de ejemplo) y muestra el porcentaje de victorias, la duración media y el tiempo
+ * y los bytes reservados por turno, que no deberían crecer con el tamaño del equipo.
+ *
+ * Uso: java simulacion.SimuladorEquipos [opcion=valor ...]
+ *
+ *     partidas=200000      Combates por tamaño de equipo
+ *     charizard=voraz      Política del equipo de Charizard: aleatorio o voraz
+ *     lucario=aleatorio    Política del equipo de Lucario
+ *     semilla=1            Semilla de los combates
+ */
+public class SimuladorEquipos {
+
+    private static final String USO = "Uso: java simulacion.SimuladorEquipos [partidas=N] [charizard=politica] "
+            + "[lucario=politica] [semilla=N]";
+
+    public static void main(String[] args) {
+        try {
+            ejecutar(args);
+        } catch (IllegalArgumentException e) {
+            // Opciones mal escritas, números no válidos o políticas desconocidas
+            System.err.println(e.getMessage());
+            System.err.println(USO);
+            System.exit(2);
+        }
+    }
+
+    private static void ejecutar(String[] args) {
+        Map<String, String> opciones = Opciones.leer(args, "partidas", "charizard", "lucario", "semilla");
+        int partidas = Integer.parseInt(opciones.getOrDefault("partidas", "200000"));
+        PoliticaEquipo p0 = crearPolitica(opciones.getOrDefault("charizard", "voraz"));
+        PoliticaEquipo p1 = crearPolitica(opciones.getOrDefault("lucario", "aleatorio"));
+        long semilla = Long.parseLong(opciones.getOrDefault("semilla", "1"));
+
+        com.sun.management.ThreadMXBean hilos = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().getId();
+        PoliticaEquipo[] politicas = {p0, p1};
+
+        for (int tamano : new int[]{1, 3, 6, 1, 3, 6}) {
+            EstadoEquipos inicial = new EstadoEquipos(Equipo.porDefecto(EstadoBatalla.CHARIZARD).primeros(tamano),
+                    Equipo.porDefecto(EstadoBatalla.LUCARIO).primeros(tamano));
+            EstadoEquipos estado = inicial.copia();
+            SplittableRandom rand = new SplittableRandom(semilla);
+            long[] resultados = new long[3];
+            long turnos = 0;
+
+            long bytesAntes = hilos.getThreadAllocatedBytes(id);
+            long inicio = System.nanoTime();
+            for (int p = 0; p < partidas; p++) {
+                estado.copiarDe(inicial);
+                int ganador = jugar(estado, politicas, rand);
+                resultados[ganador < 0 ? 2 : ganador]++;
+                turnos += estado.getTurno();
+            }
+            long ns = System.nanoTime() - inicio;
+            long bytes = hilos.getThreadAllocatedBytes(id) - bytesAntes;
+
+            System.out.printf("%d contra %d: %.1f%% / %.1f%% / %.1f%% empates, %.1f turnos, %.1f ns/turno, %.4f bytes/turno%n",
+                    tamano, tamano, 100.0 * resultados[0] / partidas, 100.0 * resultados[1] / partidas,
+                    100.0 * resultados[2] / partidas, (double) turnos / partidas,
+                    (double) ns / turnos, (double) bytes / turnos);
+        }
+    }
+
+    /**
+     * Juega un combate completo desde el estado dado. No crea objetos si las políticas no lo hacen.
+     *
+     * @param estado Estado de partida (se modifica)
+     * @param politicas Política de cada lado
+     * @param rand Generador aleatorio
+     * @return Lado ganador o -1 si hay empate
+     */
+    public static int jugar(EstadoEquipos estado, PoliticaEquipo[] politicas, SplittableRandom rand) {
+        while (!estado.terminada()) {
+            int a0 = politicas[0].elegirAccion(estado, 0, rand);
+            int a1 = politicas[1].elegirAccion(estado, 1, rand);
+            estado.resolverTurno(a0, a1, rand);
+            for (int lado = 0; lado < 2; lado++) {
+                if (estado.debeCambiar(lado)) {
+                    estado.reemplazar(lado, politicas[lado].elegirReemplazo(estado, lado, rand));
+                }
+            }
+        }
+        return estado.ganador();
+    }
+
+    /**
+     * Crea una política de equipo a partir de su nombre en la línea de comandos.
+     * @param nombre aleatorio o voraz
+     * @return Política correspondiente (se puede usar desde varios hilos)
+     */
+    public static PoliticaEquipo crearPolitica(String nombre) {
+        switch (nombre) {
+            case "aleatorio":
+                return new PoliticaEquipoAleatoria();
+            case "voraz":
+                return new PoliticaEquipoVoraz();
+            default:
+                throw new IllegalArgumentException("Política desconocida: " + nombre);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package simulacion;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import comun.Opciones;
+import simulacion.FabricaPartidas.Partida;
+
+/**
+ * Proceso trabajador de la simulación distribuida.
+ *
+ * Se conecta al Coordinador, juega los fragmentos que le manda y le devuelve las
+ * estadísticas de cada uno hasta que recibe FIN. Las partidas de cada configuración
+ * se crean una vez y se reutilizan en los fragmentos siguientes, así que después del
+ * primer fragmento no se cargan políticas ni catálogos otra vez.
+ *
+ * Normalmente lo lanza el propio coordinador, pero también se puede arrancar a mano:
+ *
+ * Uso: java simulacion.Trabajador puerto=N [opcion=valor ...]
+ *
+ *     puerto=N          Puerto del coordinador (obligatorio)
+ *     host=127.0.0.1    Máquina del coordinador
+ *     fallo=0           Probabilidad (0.0 - 1.0) de que el proceso se cierre de golpe al
+ *                       recibir un fragmento, para probar que el coordinador lo vuelve a repartir
+ */
+public class Trabajador {
+
+    private static final String USO = "Uso: java simulacion.Trabajador puerto=N [host=maquina] [fallo=0.0-1.0]";
+
+    public static void main(String[] args) throws IOException {
+        String host;
+        int puerto;
+        double fallo;
+        try {
+            Map<String, String> opciones = Opciones.leer(args, "host", "puerto", "fallo");
+            if (!opciones.containsKey("puerto")) throw new IllegalArgumentException("Falta la opción puerto");
+            host = opciones.getOrDefault("host", "127.0.0.1");
+            puerto = Integer.parseInt(opciones.get("puerto"));
+            fallo = Double.parseDouble(opciones.getOrDefault("fallo", "0"));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USO);
+            System.exit(2);
+            return;
+        }
+
+        try (Socket socket = new Socket(host, puerto)) {
+            socket.setTcpNoDelay(true);
+            atender(socket, fallo);
+        } catch (ConnectException e) {
+            // El coordinador ya ha terminado o no se ha arrancado
+            System.err.println("Trabajador: no se puede conectar con " + host + ":" + puerto);
+            System.exit(1);
+        } catch (EOFException e) {
+            // El coordinador terminó sin mandar FIN (por ejemplo, si se conectó cuando ya no quedaba nada)
+            System.err.println("Trabajador: el coordinador ha cerrado la conexión");
+        }
+    }
+
+    private static void atender(Socket socket, double fallo) throws IOException {
+        DataInputStream entrada = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        Protocolo.escribirHola(salida);
+        salida.flush();
+
+        Map<String, Partida> partidas = new HashMap<>();
+        SplittableRandom azar = new SplittableRandom();
+        while (true) {
+            byte tipo = entrada.readByte();
+            if (tipo == Protocolo.FIN) return;
+            if (tipo != Protocolo.TRABAJO) throw new IOException("Mensaje inesperado: " + tipo);
+            Fragmento fragmento = Fragmento.leer(entrada);
+            if (fallo > 0 && azar.nextDouble() < fallo) {
+                System.err.println("Trabajador: fallo simulado en el " + fragmento);
+                Runtime.getRuntime().halt(1);
+            }
+
+            EstadisticasSimulacion resultado;
+            try {
+                Partida partida = partidas.get(fragmento.configuracion());
+                if (partida == null) {
+                    partida = fragmento.crearFabrica().get();
+                    partidas.put(fragmento.configuracion(), partida);
+                }
+                resultado = fragmento.jugar(partida);
+            } catch (IOException | RuntimeException e) {
+                // Política desconocida, fichero de tabla que no existe... repetirlo en otro trabajador no sirve
+                salida.writeByte(Protocolo.ERROR);
+                salida.writeLong(fragmento.id);
+                salida.writeUTF(String.valueOf(e.getMessage()));
+                salida.flush();
+                continue;
+            }
+            salida.writeByte(Protocolo.RESULTADO);
+            salida.writeLong(fragmento.id);
+            resultado.escribir(salida);
+            salida.flush();
+        }
+    }
+}
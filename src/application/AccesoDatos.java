@@ -4,13 +4,21 @@ import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 
+import metricas.Contador;
+import metricas.EventosJfr;
+import metricas.Histograma;
+import metricas.Metricas;
+import modelo.Catalogo;
+import modelo.EstadoBatalla;
 import modelo.Movimiento;
 import modelo.Pokemon;
+import registro.Registro;
 
 /**
  * Clase para manejar la conexión a la base de datos y operaciones
@@ -21,6 +29,18 @@ public class AccesoDatos {
     /** Conexión con la base de datos MySQL */
     private Connection conexion;
 
+    private static final Registro REGISTRO = Registro.de("bd");
+
+    // Duración de cada operación con la base de datos y operaciones que fallaron
+    private static final Histograma TIEMPO_CONEXION = Metricas.histograma("bd.conectar");
+    private static final Histograma TIEMPO_GUARDAR = Metricas.histograma("bd.guardar");
+    private static final Histograma TIEMPO_CARGAR = Metricas.histograma("bd.cargar");
+    private static final Contador ERRORES = Metricas.contador("bd.errores");
+
+    // Sentencias ejecutadas y filas escritas o leídas en la operación en curso (para los eventos JFR)
+    private int sentencias;
+    private int filas;
+
     /**
      * Constructor que establece la conexión con la base de datos MySQL.
      * @throws SQLException Si ocurre un error en la conexión
@@ -32,7 +52,19 @@ public class AccesoDatos {
         String contraseña = "4c4e6l7t8A.";
 
         // Establecer conexión
-        this.conexion = DriverManager.getConnection(url, usuario, contraseña);
+        long inicio = System.nanoTime();
+        EventosJfr.BaseDatos evento = iniciarEvento();
+        boolean correcta = false;
+        try {
+            this.conexion = DriverManager.getConnection(url, usuario, contraseña);
+            correcta = true;
+        } catch (SQLException e) {
+            ERRORES.incrementar();
+            throw e;
+        } finally {
+            TIEMPO_CONEXION.registrarDesde(inicio);
+            terminarEvento(evento, "conectar", correcta);
+        }
     }
 
     /**
@@ -45,6 +77,9 @@ public class AccesoDatos {
      * @throws SQLException Si ocurre un error durante la operación SQL
      */
     public void guardarPartida(String nombreGuardado, boolean turnoCharizard, Pokemon charizard, Pokemon lucario) throws SQLException {
+        long inicio = System.nanoTime();
+        EventosJfr.BaseDatos evento = iniciarEvento();
+        boolean correcta = false;
         try {
             conexion.setAutoCommit(false);
 
@@ -53,7 +88,7 @@ public class AccesoDatos {
             PreparedStatement psPartida = conexion.prepareStatement(insertPartida, Statement.RETURN_GENERATED_KEYS);
             psPartida.setString(1, nombreGuardado);
             psPartida.setBoolean(2, turnoCharizard);
-            psPartida.executeUpdate();
+            actualizar(psPartida);
 
             ResultSet rs = psPartida.getGeneratedKeys();
             if (!rs.next()) throw new SQLException("No se pudo obtener el ID de la partida");
@@ -64,15 +99,54 @@ public class AccesoDatos {
             insertarPokemon(partidaId, false, lucario);
 
             conexion.commit();
-            System.out.println("¡Partida guardada exitosamente!");
+            correcta = true;
+            REGISTRO.info("¡Partida guardada exitosamente! ({} sentencias, {} filas)", sentencias, filas);
         } catch (SQLException e) {
+            ERRORES.incrementar();
             conexion.rollback();
             throw e;
+        } finally {
+            TIEMPO_GUARDAR.registrarDesde(inicio);
+            terminarEvento(evento, "guardar", correcta);
         }
     }
 
+    private EventosJfr.BaseDatos iniciarEvento() {
+        sentencias = 0;
+        filas = 0;
+        EventosJfr.BaseDatos evento = new EventosJfr.BaseDatos();
+        evento.begin();
+        return evento;
+    }
+
+    private void terminarEvento(EventosJfr.BaseDatos evento, String operacion, boolean correcta) {
+        evento.end();
+        if (!evento.shouldCommit()) return;
+        evento.operacion = operacion;
+        evento.sentencias = sentencias;
+        evento.filas = filas;
+        evento.correcta = correcta;
+        evento.commit();
+    }
+
+    /**
+     * Ejecuta una sentencia de escritura contando la sentencia y las filas afectadas.
+     */
+    private void actualizar(PreparedStatement ps) throws SQLException {
+        sentencias++;
+        filas += ps.executeUpdate();
+    }
+
     /**
-     * Inserta un Pokémon y sus movimientos en la base de datos.
+     * Ejecuta una consulta contando la sentencia (las filas se cuentan al recorrerla).
+     */
+    private ResultSet consultar(PreparedStatement ps) throws SQLException {
+        sentencias++;
+        return ps.executeQuery();
+    }
+
+    /**
+     * Inserta un Pokémon (con sus condiciones de estado empaquetadas) y sus movimientos en la base de datos.
      * @param partidaId ID de la partida a la que pertenece el Pokémon
      * @param esJugador Indica si el Pokémon es del jugador (true) o rival (false)
      * @param p Objeto Pokemon a insertar
@@ -80,13 +154,14 @@ public class AccesoDatos {
      * @throws SQLException Si ocurre un error SQL
      */
     private int insertarPokemon(int partidaId, boolean esJugador, Pokemon p) throws SQLException {
-        String insertPokemon = "INSERT INTO batalla (partida_id, jugador, nombre_pokemon, vida) VALUES (?, ?, ?, ?)";
+        String insertPokemon = "INSERT INTO batalla (partida_id, jugador, nombre_pokemon, vida, condicion) VALUES (?, ?, ?, ?, ?)";
         PreparedStatement ps = conexion.prepareStatement(insertPokemon, Statement.RETURN_GENERATED_KEYS);
         ps.setInt(1, partidaId);
         ps.setBoolean(2, esJugador);
         ps.setString(3, p.nombre);
         ps.setDouble(4, p.getVida());
-        ps.executeUpdate();
+        ps.setInt(5, p.getCondicion());
+        actualizar(ps);
 
         ResultSet rs = ps.getGeneratedKeys();
         if (!rs.next()) throw new SQLException("No se pudo obtener el ID del Pokémon");
@@ -100,7 +175,7 @@ public class AccesoDatos {
             psMov.setString(2, m.nombre);
             psMov.setInt(3, m.pp);
             psMov.setInt(4, m.ppMax);
-            psMov.executeUpdate();
+            actualizar(psMov);
         }
 
         return pokemonId;
@@ -128,11 +203,29 @@ public class AccesoDatos {
      * @throws SQLException Si no se encuentra ninguna partida o error SQL
      */
     public PartidaGuardada cargarUltimaPartida() throws SQLException {
+        long inicio = System.nanoTime();
+        EventosJfr.BaseDatos evento = iniciarEvento();
+        boolean correcta = false;
+        try {
+            PartidaGuardada partida = leerUltimaPartida();
+            correcta = true;
+            return partida;
+        } catch (SQLException e) {
+            ERRORES.incrementar();
+            throw e;
+        } finally {
+            TIEMPO_CARGAR.registrarDesde(inicio);
+            terminarEvento(evento, "cargar", correcta);
+        }
+    }
+
+    private PartidaGuardada leerUltimaPartida() throws SQLException {
         String query = "SELECT * FROM partidas_guardadas ORDER BY fecha DESC LIMIT 1";
         PreparedStatement ps = conexion.prepareStatement(query);
-        ResultSet rs = ps.executeQuery();
+        ResultSet rs = consultar(ps);
 
         if (!rs.next()) throw new SQLException("No se encontró ninguna partida guardada");
+        filas++;
 
         int partidaId = rs.getInt("id");
         boolean turno = rs.getBoolean("turno");
@@ -140,39 +233,54 @@ public class AccesoDatos {
         Pokemon charizard = null;
         Pokemon lucario = null;
 
+        // Los tipos, estadísticas y parámetros de los movimientos no se guardan: se toman del catálogo
+        Catalogo catalogo = Catalogo.activo();
+
         // Consultar los Pokémon relacionados a la partida
         String sqlPokemon = "SELECT * FROM batalla WHERE partida_id = ?";
         PreparedStatement psPoke = conexion.prepareStatement(sqlPokemon);
         psPoke.setInt(1, partidaId);
-        ResultSet rsPoke = psPoke.executeQuery();
+        ResultSet rsPoke = consultar(psPoke);
 
         while (rsPoke.next()) {
+            filas++;
             int pokeId = rsPoke.getInt("id");
             String nombre = rsPoke.getString("nombre_pokemon");
             double vida = rsPoke.getDouble("vida");
+            int condicion = rsPoke.getInt("condicion");
             boolean esJugador = rsPoke.getBoolean("jugador");
+            int lado = esJugador ? EstadoBatalla.CHARIZARD : EstadoBatalla.LUCARIO;
 
             // Cargar movimientos asociados al Pokémon
             List<Movimiento> listaMovimientos = new ArrayList<>();
             String sqlMov = "SELECT * FROM movimientos_pokemon WHERE pokemon_id = ?";
             PreparedStatement psMov = conexion.prepareStatement(sqlMov);
             psMov.setInt(1, pokeId);
-            ResultSet rsMov = psMov.executeQuery();
+            ResultSet rsMov = consultar(psMov);
 
             while (rsMov.next()) {
+                filas++;
                 String nombreMov = rsMov.getString("nombre_movimiento");
                 int pp = rsMov.getInt("pp_actual");
                 int ppMax = rsMov.getInt("pp_maximo");
-                double dano = rsMov.getDouble("dano"); // Asegúrate que la tabla movimientos_pokemon tenga esta columna
 
-                Movimiento m = new Movimiento(nombreMov, dano, ppMax);
+                Movimiento m = catalogo.movimiento(lado, nombreMov);
+                if (m == null) {
+                    // El esquema no guarda el daño; solo las bases de datos antiguas tienen la columna
+                    if (!tieneColumna(rsMov, "dano")) {
+                        REGISTRO.aviso("El movimiento {} de {} no está en el catálogo; se ignora", nombreMov, nombre);
+                        continue;
+                    }
+                    m = new Movimiento(nombreMov, rsMov.getDouble("dano"), ppMax);
+                }
                 m.setPp(pp);
                 listaMovimientos.add(m);
             }
 
             Movimiento[] movimientosArray = listaMovimientos.toArray(new Movimiento[0]);
-            Pokemon p = new Pokemon(nombre, movimientosArray);
+            Pokemon p = new Pokemon(nombre, catalogo.especie(lado), movimientosArray);
             p.setVida(vida);
+            p.setCondicion(condicion);
 
             if (esJugador) {
                 charizard = p;
@@ -183,4 +291,12 @@ public class AccesoDatos {
 
         return new PartidaGuardada(turno, charizard, lucario);
     }
+
+    private static boolean tieneColumna(ResultSet rs, String columna) throws SQLException {
+        ResultSetMetaData columnas = rs.getMetaData();
+        for (int i = 1; i <= columnas.getColumnCount(); i++) {
+            if (columnas.getColumnLabel(i).equalsIgnoreCase(columna)) return true;
+        }
+        return false;
+    }
 }
@@ -0,0 +1,243 @@
+package application;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import comun.Opciones;
+import modelo.Catalogo;
+import simulacion.FabricaPartidas;
+import simulacion.FabricaPartidas.Partida;
+
+/**
+ * Modo sin interfaz gráfica: juega muchas batallas desde la línea de comandos y mide
+ * el rendimiento, para pruebas de regresión y de capacidad en servidores sin pantalla.
+ *
+ * No carga ninguna vista ni inicia JavaFX, así que arranca en unas décimas de segundo.
+ * Cada batalla usa un generador derivado de la semilla y de su número, de modo que los
+ * resultados son los mismos con cualquier número de hilos. Se mide la duración de cada
+ * batalla para dar percentiles de latencia además del rendimiento total.
+ *
+ * Uso: java application.Consola [opcion=valor ...]
+ *
+ *     batallas=10000        Batallas medidas
+ *     calentamiento=0       Batallas previas sin medir (para que el JIT compile el código)
+ *     charizard=voraz       Política de Charizard: aleatorio, voraz, mcts[:playouts], tabla[:fichero]
+ *     lucario=aleatorio     Política de Lucario (en combates por equipos: aleatorio o voraz)
+ *     equipos=0             Miembros por equipo (1 - 6) para combates por equipos; 0 = batalla normal
+ *     semilla=1             Semilla de las batallas
+ *     hilos=N               Hilos (por defecto, los núcleos disponibles)
+ *     formato=texto         texto, csv o json
+ *
+ * También se puede lanzar con "java application.JuegoPokemon --consola [opcion=valor ...]".
+ */
+public final class Consola {
+
+    /** Batallas que juega cada tarea del pool */
+    private static final int BATALLAS_POR_TAREA = 1000;
+
+    private static final String USO = "Uso: java application.Consola [batallas=N] [calentamiento=N] "
+            + "[charizard=politica] [lucario=politica] [equipos=0-6] [semilla=N] [hilos=N] [formato=texto|csv|json]";
+
+    private Consola() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        try {
+            ejecutar(args);
+        } catch (IllegalArgumentException e) {
+            // Opciones mal escritas, números no válidos o políticas desconocidas
+            System.err.println(e.getMessage());
+            System.err.println(USO);
+            System.exit(2);
+        }
+    }
+
+    private static void ejecutar(String[] args) throws Exception {
+        Map<String, String> opciones = leerOpciones(args);
+        int batallas = Integer.parseInt(opciones.getOrDefault("batallas", "10000"));
+        int calentamiento = Integer.parseInt(opciones.getOrDefault("calentamiento", "0"));
+        String charizard = opciones.getOrDefault("charizard", "voraz");
+        String lucario = opciones.getOrDefault("lucario", "aleatorio");
+        int equipos = Integer.parseInt(opciones.getOrDefault("equipos", "0"));
+        long semilla = Long.parseLong(opciones.getOrDefault("semilla", "1"));
+        int hilos = Integer.parseInt(opciones.getOrDefault("hilos",
+                Integer.toString(Runtime.getRuntime().availableProcessors())));
+        String formato = opciones.getOrDefault("formato", "texto");
+
+        Supplier<Partida> fabrica = equipos > 0
+                ? FabricaPartidas.equipos(equipos, charizard, lucario)
+                : FabricaPartidas.batalla(Catalogo.activo(), charizard, lucario);
+        long arranqueMs = ManagementFactory.getRuntimeMXBean().getUptime();
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        try {
+            if (calentamiento > 0) {
+                jugar(ejecutor, fabrica, calentamiento, ~semilla, new long[calentamiento]);
+            }
+            long[] latencias = new long[batallas];
+            long inicio = System.nanoTime();
+            long[] totales = jugar(ejecutor, fabrica, batallas, semilla, latencias);
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+
+            Map<String, Object> informe = informe(batallas, hilos, semilla, charizard, lucario, equipos,
+                    totales, segundos, latencias, arranqueMs);
+            switch (formato) {
+                case "csv":
+                    imprimirCsv(informe);
+                    break;
+                case "json":
+                    imprimirJson(informe);
+                    break;
+                default:
+                    imprimirTexto(informe);
+            }
+        } finally {
+            ejecutor.shutdown();
+        }
+    }
+
+    /**
+     * Lee los argumentos "opcion=valor".
+     * @throws IllegalArgumentException Si alguno no tiene ese formato o no es una opción conocida
+     */
+    private static Map<String, String> leerOpciones(String[] args) {
+        Map<String, String> opciones = Opciones.leer(args, "batallas", "calentamiento", "charizard", "lucario",
+                "equipos", "semilla", "hilos", "formato");
+        String formato = opciones.getOrDefault("formato", "texto");
+        if (!formato.equals("texto") && !formato.equals("csv") && !formato.equals("json")) {
+            throw new IllegalArgumentException("Formato desconocido: " + formato);
+        }
+        return opciones;
+    }
+
+    /**
+     * Reparte las batallas entre los hilos y guarda la duración de cada una.
+     *
+     * @param latencias Array donde se guarda la duración en ns de cada batalla
+     * @return {victorias de Charizard, victorias de Lucario, empates, turnos}
+     */
+    private static long[] jugar(ExecutorService ejecutor, Supplier<Partida> fabrica, int batallas, long semilla,
+                                long[] latencias) throws Exception {
+        List<Future<long[]>> tareas = new ArrayList<>();
+        for (int desde = 0; desde < batallas; desde += BATALLAS_POR_TAREA) {
+            int d = desde, hasta = Math.min(batallas, desde + BATALLAS_POR_TAREA);
+            tareas.add(ejecutor.submit(() -> jugarBloque(fabrica.get(), d, hasta, semilla, latencias)));
+        }
+        long[] totales = new long[4];
+        for (Future<long[]> tarea : tareas) {
+            long[] r = tarea.get();
+            for (int k = 0; k < totales.length; k++) totales[k] += r[k];
+        }
+        return totales;
+    }
+
+    private static long[] jugarBloque(Partida partida, int desde, int hasta, long semilla, long[] latencias) {
+        long[] r = new long[4];
+        for (int k = desde; k < hasta; k++) {
+            SplittableRandom rand = new SplittableRandom(FabricaPartidas.semillaPartida(semilla, k));
+            long inicio = System.nanoTime();
+            int ganador = partida.jugar(rand);
+            latencias[k] = System.nanoTime() - inicio;
+            r[ganador < 0 ? 2 : ganador]++;
+            r[3] += partida.turnos();
+        }
+        return r;
+    }
+
+    /**
+     * Reúne los resultados en el orden en que se imprimen. Las latencias se dan en microsegundos.
+     */
+    private static Map<String, Object> informe(int batallas, int hilos, long semilla, String charizard, String lucario,
+                                               int equipos, long[] totales, double segundos, long[] latencias,
+                                               long arranqueMs) {
+        long[] ordenadas = latencias.clone();
+        Arrays.sort(ordenadas);
+        Map<String, Object> informe = new LinkedHashMap<>();
+        informe.put("batallas", batallas);
+        informe.put("hilos", hilos);
+        informe.put("semilla", semilla);
+        informe.put("charizard", charizard);
+        informe.put("lucario", lucario);
+        informe.put("miembros", Math.max(1, equipos));
+        informe.put("victorias_charizard", totales[0]);
+        informe.put("victorias_lucario", totales[1]);
+        informe.put("empates", totales[2]);
+        informe.put("turnos_medios", batallas == 0 ? 0.0 : (double) totales[3] / batallas);
+        informe.put("segundos", segundos);
+        informe.put("batallas_por_segundo", batallas / segundos);
+        informe.put("turnos_por_segundo", totales[3] / segundos);
+        informe.put("latencia_p50_us", percentil(ordenadas, 0.50));
+        informe.put("latencia_p90_us", percentil(ordenadas, 0.90));
+        informe.put("latencia_p99_us", percentil(ordenadas, 0.99));
+        informe.put("latencia_p999_us", percentil(ordenadas, 0.999));
+        informe.put("latencia_max_us", ordenadas.length == 0 ? 0.0 : ordenadas[ordenadas.length - 1] / 1e3);
+        informe.put("arranque_ms", arranqueMs);
+        return informe;
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        if (ordenadas.length == 0) return 0;
+        int i = (int) Math.ceil(p * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, Math.min(ordenadas.length - 1, i))] / 1e3;
+    }
+
+    private static void imprimirTexto(Map<String, Object> i) {
+        long batallas = ((Integer) i.get("batallas")).longValue();
+        System.out.printf("%d batallas %s contra %s (%d contra %d), %d hilos, semilla %d%n", batallas,
+                i.get("charizard"), i.get("lucario"), i.get("miembros"), i.get("miembros"), i.get("hilos"), i.get("semilla"));
+        System.out.printf("Charizard %.1f%%, Lucario %.1f%%, empates %.1f%%, %.1f turnos de media%n",
+                porcentaje(i.get("victorias_charizard"), batallas), porcentaje(i.get("victorias_lucario"), batallas),
+                porcentaje(i.get("empates"), batallas), i.get("turnos_medios"));
+        System.out.printf("%.0f batallas/s, %.0f turnos/s en %.3f s (arranque %d ms)%n",
+                i.get("batallas_por_segundo"), i.get("turnos_por_segundo"), i.get("segundos"), i.get("arranque_ms"));
+        System.out.printf("Latencia por batalla (µs): p50 %.1f, p90 %.1f, p99 %.1f, p99.9 %.1f, máx %.1f%n",
+                i.get("latencia_p50_us"), i.get("latencia_p90_us"), i.get("latencia_p99_us"),
+                i.get("latencia_p999_us"), i.get("latencia_max_us"));
+    }
+
+    private static double porcentaje(Object valor, long total) {
+        return total == 0 ? 0 : 100.0 * (Long) valor / total;
+    }
+
+    private static void imprimirCsv(Map<String, Object> informe) {
+        System.out.println(String.join(",", informe.keySet()));
+        StringBuilder fila = new StringBuilder();
+        for (Object valor : informe.values()) {
+            if (fila.length() > 0) fila.append(',');
+            fila.append(formatear(valor));
+        }
+        System.out.println(fila);
+    }
+
+    private static void imprimirJson(Map<String, Object> informe) {
+        StringBuilder json = new StringBuilder("{");
+        for (Map.Entry<String, Object> e : informe.entrySet()) {
+            if (json.length() > 1) json.append(", ");
+            json.append('"').append(e.getKey()).append("\": ");
+            if (e.getValue() instanceof String) {
+                json.append('"').append(((String) e.getValue()).replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+            } else {
+                json.append(formatear(e.getValue()));
+            }
+        }
+        System.out.println(json.append('}'));
+    }
+
+    /**
+     * Números con punto decimal sea cual sea el idioma del sistema.
+     */
+    private static String formatear(Object valor) {
+        if (valor instanceof Double) return String.format(Locale.ROOT, "%.3f", (Double) valor);
+        return String.valueOf(valor);
+    }
+}
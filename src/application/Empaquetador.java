@@ -0,0 +1,165 @@
+package application;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.spi.ToolProvider;
+import java.util.stream.Stream;
+
+import comun.Opciones;
+
+/**
+ * Empaquetado para arrancar rápido: una imagen de ejecución recortada con jlink y un
+ * archivo CDS (class data sharing) de la aplicación generado con una ejecución de
+ * entrenamiento.
+ *
+ * Pasos:
+ *
+ *     1. jlink enlaza solo los módulos que necesita PokemonEclipse (JavaFX incluido, que
+ *        tiene que estar en el module path como jmods o jars modulares), sin información
+ *        de depuración, cabeceras ni páginas de manual, con un lanzador bin/pokemon.
+ *     2. La JVM de la imagen genera su archivo CDS base con las clases del JDK (-Xshare:dump).
+ *     3. Entrenamiento: se arranca el juego con -XX:ArchiveClassesAtExit y
+ *        -Dpokemon.arranque.medir=true, que pasa solo del menú a la batalla y sale; las
+ *        clases cargadas (JavaFX, vistas, controladores, modelo) quedan en lib/pokemon.jsa.
+ *     4. El lanzador bin/pokemon (y bin/pokemon.bat) se reescribe para usar ese archivo.
+ *
+ * Con el archivo, la JVM proyecta las clases ya verificadas en lugar de leerlas y
+ * analizarlas de los jars en cada arranque. El conector de MySQL no es modular y no entra
+ * en la imagen: para guardar partidas hay que añadirlo con -cp al lanzar. BancoArranque
+ * compara el arranque de la imagen con y sin el archivo.
+ *
+ * Uso: java application.Empaquetador modulos=ruta[:ruta...] [opcion=valor...]
+ *
+ *     modulos=...          Module path con PokemonEclipse compilado y los jmods de JavaFX
+ *     destino=imagen       Carpeta de la imagen (no debe existir)
+ *     entrenar=true        Genera el archivo CDS de la aplicación
+ *     ventana=false        Entrenamiento sin pantalla (hace falta Monocle en el module path)
+ *     espera=120           Segundos que se espera al entrenamiento
+ *
+ * Códigos de salida: 0 imagen generada, 1 fallo de jlink o del entrenamiento, 2 opciones no válidas.
+ */
+public class Empaquetador {
+
+    private static final String USO = "Uso: java application.Empaquetador modulos=ruta[:ruta...] [destino=carpeta] "
+            + "[entrenar=true|false] [ventana=true|false] [espera=s]";
+
+    private static final String LANZADOR = "pokemon";
+
+    public static void main(String[] args) {
+        int codigo;
+        try {
+            codigo = empaquetar(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USO);
+            codigo = 2;
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            codigo = 1;
+        }
+        System.exit(codigo);
+    }
+
+    private static int empaquetar(String[] args) throws IOException {
+        Map<String, String> opciones = Opciones.leer(args, "modulos", "destino", "entrenar", "ventana", "espera");
+        String modulos = opciones.get("modulos");
+        if (modulos == null) throw new IllegalArgumentException("Falta modulos=");
+        Path destino = Paths.get(opciones.getOrDefault("destino", "imagen"));
+        boolean entrenar = Boolean.parseBoolean(opciones.getOrDefault("entrenar", "true"));
+        boolean ventana = Boolean.parseBoolean(opciones.getOrDefault("ventana", "false"));
+        long espera = Long.parseLong(opciones.getOrDefault("espera", "120"));
+        if (Files.exists(destino)) throw new IllegalArgumentException("Ya existe " + destino);
+
+        // 1. Imagen recortada
+        ToolProvider jlink = ToolProvider.findFirst("jlink")
+                .orElseThrow(() -> new IOException("Esta JVM no tiene jlink; hace falta un JDK"));
+        String modulo = BancoArranque.PRINCIPAL.substring(0, BancoArranque.PRINCIPAL.indexOf('/'));
+        long inicio = System.nanoTime();
+        int resultado = jlink.run(System.out, System.err, "--module-path", modulos, "--add-modules", modulo,
+                "--strip-debug", "--no-header-files", "--no-man-pages",
+                "--launcher", LANZADOR + "=" + BancoArranque.PRINCIPAL, "--output", destino.toString());
+        if (resultado != 0) {
+            System.err.println("jlink terminó con código " + resultado);
+            return 1;
+        }
+        System.out.printf("Imagen en %s (%d MB) en %.1f s%n", destino, tamano(destino) / (1024 * 1024),
+                (System.nanoTime() - inicio) / 1e9);
+        if (!entrenar) return 0;
+
+        // 2. Archivo CDS base de la imagen (avisa de cada clase de la lista por defecto que no está
+        // en la imagen recortada; esa salida no se muestra)
+        String java = BancoArranque.ejecutableJava(destino).toString();
+        if (!esperar(Arrays.asList(java, "-Xshare:dump"), espera)) return 1;
+
+        // 3. Entrenamiento
+        Path archivo = destino.resolve("lib").resolve(BancoArranque.ARCHIVO_CDS);
+        List<String> comando = new ArrayList<>();
+        comando.add(java);
+        comando.add("-XX:ArchiveClassesAtExit=" + archivo);
+        comando.add("-Dpokemon.arranque.medir=true");
+        if (!ventana) comando.addAll(BancoArranque.opcionesSinVentana());
+        comando.add("-m");
+        comando.add(BancoArranque.PRINCIPAL);
+        long[] tiempos = BancoArranque.ejecutar(comando, espera);
+        if (tiempos == null || !Files.isRegularFile(archivo)) {
+            System.err.println("El entrenamiento no generó " + archivo);
+            return 1;
+        }
+        System.out.printf("Entrenamiento: menú a los %d ms, batalla a los %d ms; archivo CDS de %d MB%n",
+                tiempos[0], tiempos[1], Files.size(archivo) / (1024 * 1024));
+
+        // 4. Lanzadores con el archivo
+        reescribirLanzador(destino.resolve("bin").resolve(LANZADOR), "JLINK_VM_OPTIONS=",
+                "JLINK_VM_OPTIONS=\"-XX:SharedArchiveFile=`dirname $0`/../lib/" + BancoArranque.ARCHIVO_CDS
+                        + " -Xshare:auto\"");
+        reescribirLanzador(destino.resolve("bin").resolve(LANZADOR + ".bat"), "set JLINK_VM_OPTIONS=",
+                "set JLINK_VM_OPTIONS=-XX:SharedArchiveFile=\"%~dp0..\\lib\\" + BancoArranque.ARCHIVO_CDS
+                        + "\" -Xshare:auto");
+        System.out.println("Listo: " + destino.resolve("bin").resolve(LANZADOR));
+        return 0;
+    }
+
+    /**
+     * Cambia la línea de opciones de la JVM de un lanzador de jlink, si existe ese lanzador.
+     */
+    private static void reescribirLanzador(Path lanzador, String prefijo, String linea) throws IOException {
+        if (!Files.isRegularFile(lanzador)) return;
+        List<String> lineas = new ArrayList<>(Files.readAllLines(lanzador, StandardCharsets.UTF_8));
+        for (int i = 0; i < lineas.size(); i++) {
+            if (lineas.get(i).startsWith(prefijo)) lineas.set(i, linea);
+        }
+        Files.write(lanzador, lineas, StandardCharsets.UTF_8);
+    }
+
+    private static boolean esperar(List<String> comando, long esperaSegundos) throws IOException {
+        Process proceso = new ProcessBuilder(comando).redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        try {
+            if (!proceso.waitFor(esperaSegundos, TimeUnit.SECONDS)) {
+                proceso.destroyForcibly();
+                System.err.println("No terminó a tiempo: " + comando);
+                return false;
+            }
+        } catch (InterruptedException e) {
+            proceso.destroyForcibly();
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        if (proceso.exitValue() != 0) System.err.println("Código " + proceso.exitValue() + ": " + comando);
+        return proceso.exitValue() == 0;
+    }
+
+    private static long tamano(Path carpeta) throws IOException {
+        try (Stream<Path> ficheros = Files.walk(carpeta)) {
+            return ficheros.filter(Files::isRegularFile).mapToLong(f -> f.toFile().length()).sum();
+        }
+    }
+}
@@ -2,12 +2,28 @@ package application;
 
 import controlador.MenuController;
 import controlador.BatallaController;
+import controlador.VistaBatalla;
+import controlador.VistaMenu;
+import ia.OponenteMCTS;
+import ia.PoliticaTabla;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.function.Supplier;
 import javafx.application.Application;
-import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import metricas.Contador;
+import metricas.EventosJfr;
+import metricas.Metricas;
 import modelo.Batalla;
+import recursos.ArchivoRecursos;
+import registro.Registro;
+import simulacion.Torneo;
 
 /**
  * Clase principal de la aplicación Pokémon Eclipse.
@@ -15,14 +31,21 @@ import modelo.Batalla;
  * Extiende javafx.application.Application para manejar el ciclo de vida
  * de la aplicación JavaFX.
  * 
- * Se encarga de cargar las interfaces (FXML) y controladores para
- * el menú principal y la escena de batalla, y de iniciar la ventana principal.
+ * Se encarga de crear las interfaces y controladores para el menú principal y la
+ * escena de batalla, y de iniciar la ventana principal. Las interfaces se editan en
+ * FXML (Vista/Menu.fxml y Vista/Batalla.fxml), pero no se leen al arrancar: se
+ * construyen con las vistas que genera de ellas recursos.GeneradorVistas.
  */
 public class JuegoPokemon extends Application {
 
+    // Vistas construidas desde que empezó el programa
+    private static final Contador CARGAS_VISTA = Metricas.contador("escena.cargas");
+
+    private static final Registro REGISTRO = Registro.de("juego");
+
     /**
      * Método start llamado al iniciar la aplicación.
-     * Carga las vistas y controladores de menú y batalla desde archivos FXML,
+     * Crea las vistas y controladores de menú y batalla (ver VistaMenu y VistaBatalla),
      * instancia la lógica de la batalla y los conecta con los controladores,
      * configura las escenas y muestra la ventana principal.
      * 
@@ -31,43 +54,139 @@ public class JuegoPokemon extends Application {
      */
     @Override
     public void start(Stage primaryStage) throws Exception {
+        long inicio = System.nanoTime();
 
-        // Carga la vista y controlador del menú principal desde FXML
-        FXMLLoader menuLoader = new FXMLLoader(getClass().getResource("/Vista/Menu.fxml"));
-        Parent rootMenu = menuLoader.load();
-        MenuController menuController = menuLoader.getController();
+        // Crea la vista y controlador del menú principal
+        MenuController menuController = new MenuController();
+        Parent rootMenu = cargarVista(() -> VistaMenu.crear(menuController), "Menu");
 
-        // Carga la vista y controlador de la escena de batalla desde FXML
-        FXMLLoader batallaLoader = new FXMLLoader(getClass().getResource("/Vista/Batalla.fxml"));
-        Parent rootBatalla = batallaLoader.load();
-        BatallaController batallaController = batallaLoader.getController();
+        // Crea la vista y controlador de la escena de batalla
+        BatallaController batallaController = new BatallaController();
+        Parent rootBatalla = cargarVista(() -> VistaBatalla.crear(batallaController), "Batalla");
 
         // Crea instancia de la lógica de batalla y la conecta con su controlador
         Batalla batalla = new Batalla();
         batallaController.setBatalla(batalla);
         batalla.setController(batallaController);
 
+        // Rival opcional: -Dpokemon.rival=mcts usa MCTS con -Dpokemon.mcts.ms milisegundos por movimiento;
+        // -Dpokemon.rival=tabla usa la política entrenada en -Dpokemon.tabla (por defecto politica.bin)
+        String rival = System.getProperty("pokemon.rival", "aleatorio");
+        if ("mcts".equalsIgnoreCase(rival)) {
+            batallaController.setOponenteMCTS(new OponenteMCTS(Long.getLong("pokemon.mcts.ms", 500)));
+        } else if ("tabla".equalsIgnoreCase(rival)) {
+            Path tabla = Paths.get(System.getProperty("pokemon.tabla", "politica.bin"));
+            try {
+                batallaController.setPoliticaRival(PoliticaTabla.cargar(tabla));
+            } catch (IOException e) {
+                REGISTRO.aviso("No se pudo cargar la política {}: {}", tabla, e.getMessage());
+            }
+        }
+
+        // Modo turbo opcional: -Dpokemon.turbo=turnos por segundo hace que Charizard juegue solo con la
+        // política -Dpokemon.turbo.charizard (por defecto voraz; ver Torneo.crearPolitica)
+        String turbo = System.getProperty("pokemon.turbo");
+        if (turbo != null) {
+            String politica = System.getProperty("pokemon.turbo.charizard", "voraz");
+            try {
+                batallaController.setTurbo(Torneo.crearPolitica(politica), Double.parseDouble(turbo));
+            } catch (IOException | IllegalArgumentException e) {
+                REGISTRO.aviso("No se pudo activar el modo turbo ({}, {}): {}", turbo, politica, e.getMessage());
+            }
+        }
+
         // Crea escenas con las interfaces cargadas
         Scene sceneMenu = new Scene(rootMenu);
         Scene sceneBatalla = new Scene(rootBatalla);
 
-        // Pasa al controlador del menú el Stage principal y la escena de batalla para cambiar entre ellas
+        // Mide los pulsos de JavaFX, avisa si el hilo se bloquea y añade el panel de rendimiento (F3)
+        VigilanteFx.iniciar();
+        VigilanteFx.instalar(sceneMenu);
+        VigilanteFx.instalar(sceneBatalla);
+
+        // Pasa al controlador del menú el Stage principal y la escena de batalla para cambiar entre ellas,
+        // y el controlador de batalla para cerrarlo si se carga una partida
         menuController.setStage(primaryStage);
         menuController.setEscenaBatalla(sceneBatalla);
+        menuController.setControladorBatalla(batallaController);
+
+        // Tiempo hasta el primer fotograma del menú (y, midiendo el arranque, hasta poder jugar la batalla)
+        MedidorArranque.instalar(primaryStage, sceneMenu, sceneBatalla);
 
         // Configura el Stage principal
         primaryStage.setTitle("Pokémon Eclipse");
-        primaryStage.setScene(sceneMenu);
+        mostrarEscena(primaryStage, sceneMenu, "menú");
         primaryStage.setFullScreen(true); // Modo pantalla completa
         primaryStage.setFullScreenExitHint(""); // Oculta mensaje para salir pantalla completa
         primaryStage.show(); // Muestra ventana
+        Metricas.histograma("escena.inicio").registrarDesde(inicio);
+
+        // Qué imágenes se han leído para arrancar, cuándo y cuántos bytes
+        ArchivoRecursos.comun().registrarTraza();
+    }
+
+    /**
+     * Construye una vista y registra la construcción como evento JFR de escena.
+     *
+     * @param vista Crea la vista con su controlador (por ejemplo VistaBatalla.crear)
+     * @param nombre Nombre de la vista para el evento
+     * @return Raíz de la vista
+     */
+    public static Parent cargarVista(Supplier<? extends Parent> vista, String nombre) {
+        EventosJfr.Escena evento = new EventosJfr.Escena();
+        evento.begin();
+        Parent raiz = vista.get();
+        CARGAS_VISTA.incrementar();
+        evento.escena = nombre;
+        evento.operacion = "cargar";
+        evento.commit();
+        return raiz;
+    }
+
+    /**
+     * Pone una escena en el Stage y registra el cambio como evento JFR de escena.
+     *
+     * @param stage Stage principal
+     * @param escena Escena a mostrar
+     * @param nombre Nombre de la escena para el evento
+     */
+    public static void mostrarEscena(Stage stage, Scene escena, String nombre) {
+        EventosJfr.Escena evento = new EventosJfr.Escena();
+        evento.begin();
+        stage.setScene(escena);
+        evento.escena = nombre;
+        evento.operacion = "mostrar";
+        evento.commit();
+    }
+
+    /**
+     * Al cerrar la aplicación, con -Dpokemon.metricas=fichero, guarda las métricas en JSON en
+     * ese fichero; sin la propiedad no se exportan.
+     */
+    @Override
+    public void stop() {
+        String fichero = System.getProperty("pokemon.metricas");
+        if (fichero == null) return;
+        try {
+            Files.write(Paths.get(fichero), (Metricas.aJson() + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+            REGISTRO.info("Métricas guardadas en {}", fichero);
+        } catch (IOException e) {
+            REGISTRO.error("No se pudieron guardar las métricas en {}: {}", fichero, e.getMessage());
+        }
     }
 
     /**
      * Método main que lanza la aplicación JavaFX.
-     * @param args argumentos desde línea de comandos (no usados).
+     * Con "--consola" como primer argumento juega batallas sin interfaz (ver Consola)
+     * y no llega a iniciar JavaFX.
+     * @param args argumentos desde línea de comandos.
+     * @throws Exception Si falla el modo sin interfaz.
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--consola")) {
+            Consola.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         launch(args);
     }
 }
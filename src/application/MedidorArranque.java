@@ -0,0 +1,88 @@
+package application;
+
+import java.lang.management.ManagementFactory;
+
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+import metricas.Histograma;
+import metricas.Metricas;
+import registro.Registro;
+
+/**
+ * Mide el arranque desde que empezó la JVM: cuándo se dibuja el primer fotograma del menú
+ * y cuándo la pantalla de batalla está lista para jugar (con el primer botón de movimiento
+ * activo). Cada momento es el primer pulso de JavaFX, después del layout, en que la escena
+ * está en una ventana visible.
+ *
+ * Normalmente solo se mide el menú, porque lo que tarda el jugador en pasar a la batalla
+ * no es arranque. Con -Dpokemon.arranque.medir=true (lo usan BancoArranque y el
+ * entrenamiento de Empaquetador) se pasa solo a la batalla en cuanto se dibuja el menú, se
+ * escribe una línea "ARRANQUE menu=ms batalla=ms" en la salida estándar y se cierra la
+ * aplicación.
+ */
+final class MedidorArranque {
+
+    /** Principio de la línea que lee BancoArranque */
+    static final String PREFIJO = "ARRANQUE";
+
+    private static final Histograma MENU = Metricas.histograma("arranque.menu");
+    private static final Histograma BATALLA = Metricas.histograma("arranque.batalla");
+
+    private static final Registro REGISTRO = Registro.de("arranque");
+
+    private MedidorArranque() {
+    }
+
+    /**
+     * Empieza a vigilar las dos escenas. Hay que llamarlo antes de mostrar el Stage.
+     *
+     * @param stage Stage principal
+     * @param menu Escena del menú, la que se muestra primero
+     * @param batalla Escena de batalla
+     */
+    static void instalar(Stage stage, Scene menu, Scene batalla) {
+        boolean medir = Boolean.getBoolean("pokemon.arranque.medir");
+        long[] msMenu = {-1};
+
+        menu.addPostLayoutPulseListener(new Runnable() {
+            @Override
+            public void run() {
+                if (!visible(menu)) return;
+                menu.removePostLayoutPulseListener(this);
+                msMenu[0] = desdeInicioJvm();
+                MENU.registrar(msMenu[0] * 1_000_000);
+                REGISTRO.info("Primer fotograma del menú a los {} ms del arranque", msMenu[0]);
+                if (medir) Platform.runLater(() -> JuegoPokemon.mostrarEscena(stage, batalla, "batalla"));
+            }
+        });
+
+        if (!medir) return;
+        batalla.addPostLayoutPulseListener(new Runnable() {
+            @Override
+            public void run() {
+                if (!visible(batalla)) return;
+                Node boton = batalla.lookup("#movimiento0");
+                if (boton == null || boton.isDisable()) return;
+                batalla.removePostLayoutPulseListener(this);
+                long msBatalla = desdeInicioJvm();
+                BATALLA.registrar(msBatalla * 1_000_000);
+                REGISTRO.info("Batalla lista para jugar a los {} ms del arranque", msBatalla);
+                System.out.println(PREFIJO + " menu=" + msMenu[0] + " batalla=" + msBatalla);
+                Platform.exit();
+            }
+        });
+    }
+
+    private static boolean visible(Scene escena) {
+        return escena.getWindow() != null && escena.getWindow().isShowing();
+    }
+
+    /**
+     * @return Milisegundos desde que arrancó la JVM
+     */
+    private static long desdeInicioJvm() {
+        return System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+}
@@ -0,0 +1,94 @@
+package application;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import controlador.BatallaController;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.layout.Pane;
+
+/**
+ * Panel de rendimiento que se superpone en la esquina de cada escena y se muestra u
+ * oculta con F3: fotogramas por segundo, tiempo de pulso, memoria ocupada y lo que
+ * tardó el último guardado de partida.
+ *
+ * Hay un panel por escena y todos comparten el mismo estado visible. Los datos salen de
+ * VigilanteFx, que también es quien llama a actualizar(). Con -Dpokemon.panel=true
+ * el panel empieza visible.
+ */
+final class PanelRendimiento {
+
+    private static final MemoryMXBean MEMORIA = ManagementFactory.getMemoryMXBean();
+
+    private static final String ESTILO = "-fx-background-color: rgba(0, 0, 0, 0.7); -fx-text-fill: white; "
+            + "-fx-font-family: monospace; -fx-font-size: 14px; -fx-padding: 6 10 6 10;";
+
+    /** Paneles de todas las escenas; los de escenas que ya no se usan se liberan solos */
+    private static final Set<Label> PANELES = Collections.newSetFromMap(new WeakHashMap<>());
+
+    private static boolean visible = Boolean.getBoolean("pokemon.panel");
+
+    private PanelRendimiento() {
+    }
+
+    /**
+     * Añade el panel a la escena y la tecla F3 para mostrarlo u ocultarlo.
+     * La raíz de la escena tiene que ser un Pane (en las vistas del juego es un AnchorPane).
+     *
+     * @param escena Escena nueva
+     */
+    static void anadir(Scene escena) {
+        Parent raiz = escena.getRoot();
+        if (!(raiz instanceof Pane)) return;
+        Label panel = new Label();
+        panel.setStyle(ESTILO);
+        panel.setLayoutX(10);
+        panel.setLayoutY(10);
+        panel.setMouseTransparent(true);
+        panel.setVisible(visible);
+        ((Pane) raiz).getChildren().add(panel);
+        PANELES.add(panel);
+
+        escena.addEventFilter(KeyEvent.KEY_PRESSED, e -> {
+            if (e.getCode() == KeyCode.F3) {
+                alternar();
+                e.consume();
+            }
+        });
+    }
+
+    /**
+     * Muestra u oculta los paneles de todas las escenas.
+     */
+    private static void alternar() {
+        visible = !visible;
+        for (Label panel : PANELES) panel.setVisible(visible);
+        actualizar();
+    }
+
+    /**
+     * Refresca el texto de los paneles visibles. Se llama desde el hilo de JavaFX.
+     */
+    static void actualizar() {
+        if (!visible) return;
+        MemoryUsage heap = MEMORIA.getHeapMemoryUsage();
+        long guardadoNs = BatallaController.getUltimoGuardadoNs();
+        String texto = String.format(Locale.ROOT, "FPS %5.1f%nPulso %5.2f ms%nMemoria %d / %d MB%nGuardado %s",
+                VigilanteFx.getFps(), VigilanteFx.getPulsoMs(),
+                heap.getUsed() >> 20, (heap.getMax() < 0 ? heap.getCommitted() : heap.getMax()) >> 20,
+                guardadoNs < 0 ? "-" : String.format(Locale.ROOT, "%.0f ms", guardadoNs / 1e6));
+        for (Label panel : PANELES) {
+            Scene escena = panel.getScene();
+            if (escena != null && escena.getWindow() != null && escena.getWindow().isShowing()) panel.setText(texto);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package comun;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lectura de las opciones "opcion=valor" de las herramientas de línea de comandos
+ * (Consola, Coordinador, los generadores de recursos, los bancos de pruebas...).
+ */
+public final class Opciones {
+
+    private Opciones() {
+    }
+
+    /**
+     * Lee los argumentos como pares opcion=valor, en el orden en que se dan; si una opción
+     * se repite, vale la última.
+     *
+     * @param args Argumentos de main
+     * @param conocidas Nombres de las opciones que admite la herramienta
+     * @return Valor de cada opción dada
+     * @throws IllegalArgumentException Si un argumento no tiene '=' o la opción no es conocida
+     */
+    public static Map<String, String> leer(String[] args, String... conocidas) {
+        List<String> admitidas = Arrays.asList(conocidas);
+        Map<String, String> opciones = new LinkedHashMap<>();
+        for (String arg : args) {
+            int igual = arg.indexOf('=');
+            if (igual <= 0 || !admitidas.contains(arg.substring(0, igual))) {
+                throw new IllegalArgumentException("Opción no válida: " + arg);
+            }
+            opciones.put(arg.substring(0, igual), arg.substring(igual + 1));
+        }
+        return opciones;
+    }
+}
@@ -3,16 +3,32 @@ package controlador;
 import javafx.scene.control.Label;
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.SplittableRandom;
+import java.util.function.LongConsumer;
 
 import application.AccesoDatos;
 import application.AccesoDatos.PartidaGuardada;
+import ia.AsistenteProbabilidad;
+import ia.MotorProbabilidad.ModeloJugador;
+import ia.OponenteMCTS;
+import ia.Politica;
+import ia.PoliticaAleatoria;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.ProgressBar;
 import javafx.scene.image.ImageView;
+import javafx.scene.layout.Pane;
+import metricas.Contador;
+import metricas.EventosJfr;
+import metricas.Histograma;
+import metricas.Metricas;
 import modelo.Batalla;
-import modelo.Movimiento;
+import modelo.EstadoBatalla;
 import modelo.Pokemon;
+import recursos.AtlasSprites;
+import registro.Registro;
 
 /**
  * Controlador para manejar la lógica y la interfaz de la batalla entre dos Pokémon:
@@ -23,33 +39,112 @@ import modelo.Pokemon;
  */
 public class BatallaController {
 
-    // Indica si es el turno de Charizard.
-    private boolean turnoCharizard;
-
-    // Instancias de Pokémon que participan en la batalla.
-    private Pokemon charizard;
-    private Pokemon lucario;
-
     // Objeto que maneja la lógica de la batalla.
     private Batalla batalla;
 
-    // Componentes gráficos de la interfaz vinculados con FXML.
-    @FXML private ProgressBar barraCharizard;  // Barra de vida de Charizard.
-    @FXML private ProgressBar barraLucario;    // Barra de vida de Lucario.
-    @FXML private Label vidaCharizard;         // Texto que muestra el porcentaje de vida de Charizard.
-    @FXML private Label vidaLucario;            // Texto que muestra el porcentaje de vida de Lucario.
+    // Rival MCTS opcional (null = Lucario ataca al azar).
+    private OponenteMCTS oponenteMCTS;
+
+    // Política instantánea opcional para Lucario, por ejemplo una tabla aprendida (null = al azar).
+    private Politica politicaRival;
+    private final SplittableRandom rand = new SplittableRandom();
+
+    // Indica si se está esperando la respuesta del rival MCTS.
+    private boolean esperandoRival;
+
+    // Se incrementa con cada partida para descartar respuestas del rival que lleguen tarde.
+    private long partidaActual;
+
+    // Probabilidad de victoria y movimiento sugerido. Es compartido entre pantallas para que
+    // su caché sirva también al cargar una partida. Supone que Charizard sigue jugando el
+    // movimiento de más daño y que Lucario ataca al azar.
+    private static final AsistenteProbabilidad ASISTENTE =
+            new AsistenteProbabilidad(ModeloJugador.VORAZ, ModeloJugador.ALEATORIO, 4096);
+
+    // Lo que antes se imprimía en cada pronóstico: aciertos, fallos y tasa de aciertos de su caché
+    static {
+        Metricas.medidor("ia.pronostico.cache.aciertos", ASISTENTE.getCache()::getAciertos);
+        Metricas.medidor("ia.pronostico.cache.fallos", ASISTENTE.getCache()::getFallos);
+        Metricas.medidor("ia.pronostico.cache.tasa", ASISTENTE.getCache()::tasaAciertos);
+    }
+
+    // Se incrementa con cada turno para descartar pronósticos de turnos anteriores.
+    private long turnoPronostico;
+
+    // Tiempo que tarda el rival en elegir: política instantánea o búsqueda MCTS (desde que se pide hasta que llega)
+    private static final Histograma ELECCION_POLITICA = Metricas.histograma("ia.eleccion.politica");
+    private static final Histograma ELECCION_MCTS = Metricas.histograma("ia.eleccion.mcts");
+
+    // Tiempo de cálculo de cada pronóstico
+    private static final Histograma PRONOSTICO = Metricas.histograma("ia.pronostico");
+
+    private static final Registro REGISTRO = Registro.de("batalla");
+
+    // Llamadas a actualizarUI; la prueba de carga comprueba cuántas hay por clic
+    private static final Contador ACTUALIZACIONES = Metricas.contador("ui.actualizar");
+
+    // Duración del último guardado, conexión incluida, para el panel de rendimiento (-1 = ninguno todavía)
+    private static volatile long ultimoGuardadoNs = -1;
 
-    // Botones para los diferentes movimientos de Charizard.
-    @FXML private Button botonLlamarada;
-    @FXML private Button botonLanzallamas;
-    @FXML private Button botonDragon;
-    @FXML private Button botonAcrobata;
+    // Modo turbo (ver setTurbo): política de Charizard (null = juega el jugador) y turnos por segundo
+    private Politica politicaTurbo;
+    private double turnosPorSegundo;
+    private long inicioTurboNs;
+    private long turnosTurbo;
+    private int batallasTurbo, victoriasTurbo;
+    // La misma referencia al añadirla a RelojAnimacion y al quitarla
+    private final LongConsumer tareaTurbo = this::pulsoTurbo;
 
-    @FXML private ImageView imagenFuego;        // Imagen relacionada con los ataques de fuego (posiblemente decorativa).
+    // Mientras es true, actualizarUI no hace nada: el modo turbo juega muchos turnos por fotograma
+    // y solo se dibuja el último
+    private boolean enLote;
 
-    @FXML private Button guardarPartida;        // Botón para guardar el estado actual de la batalla.
+    // Tiempo máximo de turnos turbo por fotograma, para no bloquear el hilo de JavaFX
+    private static final long LOTE_MAX_NS = 8_000_000L;
+    private static final Contador TURNOS_TURBO = Metricas.contador("turbo.turnos");
+    private static final Contador TURNOS_DESCARTADOS = Metricas.contador("turbo.descartados");
 
-    @FXML private Label labelTurno;              // Label que indica de quién es el turno actual.
+    // Componentes gráficos de la interfaz, definidos en Batalla.fxml. Los asigna VistaBatalla
+    // (generada del FXML por recursos.GeneradorVistas), por eso no son privados.
+    @FXML ProgressBar barraCharizard;  // Barra de vida de Charizard.
+    @FXML ProgressBar barraLucario;    // Barra de vida de Lucario.
+    @FXML Label vidaCharizard;         // Texto que muestra el porcentaje de vida de Charizard.
+    @FXML Label vidaLucario;            // Texto que muestra el porcentaje de vida de Lucario.
+
+    // Fondo, sprites de los Pokémon y marcos de sus barras de vida (ver AtlasSprites).
+    @FXML ImageView fondo;
+    @FXML ImageView spriteCharizard;
+    @FXML ImageView spriteLucario;
+    @FXML ImageView marcoCharizard;
+    @FXML ImageView marcoLucario;
+
+    // Panel donde se crean los botones de los movimientos de Charizard (ver PanelMovimientos).
+    @FXML Pane panelMovimientos;
+    private PanelMovimientos movimientos;
+
+    @FXML Button guardarPartida;        // Botón para guardar el estado actual de la batalla.
+    @FXML Button botonDeshacer;         // Vuelve al turno anterior del jugador.
+    @FXML Button botonRehacer;          // Vuelve a aplicar el turno deshecho.
+
+    @FXML Label labelTurno;              // Label que indica de quién es el turno actual.
+
+    @FXML CheckBox mostrarPronostico;   // Activa o desactiva el pronóstico de la batalla.
+    @FXML Label labelPronostico;         // Probabilidad de victoria y movimiento sugerido.
+
+    /**
+     * Llamado por VistaBatalla al terminar de asignar los campos: pone las imágenes y prepara
+     * el panel de movimientos.
+     */
+    @FXML
+    void initialize() {
+        AtlasSprites atlas = AtlasSprites.comun();
+        atlas.mostrar(fondo, "FondoBatalla");
+        atlas.mostrar(spriteCharizard, "Charizard");
+        atlas.mostrar(spriteLucario, "Lucario");
+        atlas.mostrar(marcoCharizard, "BarraCharizard");
+        atlas.mostrar(marcoLucario, "barraLucario");
+        movimientos = new PanelMovimientos(panelMovimientos, this::usarMovimiento);
+    }
 
     /**
      * Asigna la batalla activa al controlador y actualiza la interfaz gráfica.
@@ -58,6 +153,8 @@ public class BatallaController {
      */
     public void setBatalla(Batalla batalla) {
         this.batalla = batalla;
+        batalla.setDeshacerActivo(politicaTurbo == null);
+        reiniciarOponente();
         actualizarUI();
     }
 
@@ -71,97 +168,350 @@ public class BatallaController {
     }
 
     /**
-     * Método asociado al botón "Llamarada". Realiza el ataque de tipo "Llamarada".
-     * Luego, si Lucario sigue con vida, ejecuta un ataque aleatorio de Lucario.
+     * Manejador de todos los botones de movimiento: ataca con el movimiento pulsado y,
+     * si Lucario sigue con vida, Lucario responde.
+     *
+     * @param movIndex índice del movimiento de Charizard.
      */
-    @FXML
-    private void atacarConLlamarada() {
-        if (batalla == null) return;
-        batalla.atacar(true, 0);
-        if (batalla.getLucario().getVida() > 0) {
-            batalla.ataqueAleatorioLucario();
+    private void usarMovimiento(int movIndex) {
+        EventosJfr.tareaFx("atacar", () -> turnoJugador(movIndex));
+    }
+
+    /**
+     * Ejecuta el ataque del jugador y la respuesta de Lucario.
+     * Sin rival MCTS, Lucario ataca al azar en el acto; con rival MCTS, la búsqueda
+     * se hace en segundo plano y el ataque se aplica en el hilo de JavaFX al terminar.
+     * Lucario responde mientras le toque: si a Charizard no le quedan PP el turno ya no
+     * vuelve a él, y si a Lucario no le quedan, ni siquiera responde.
+     *
+     * @param movIndex índice del movimiento de Charizard.
+     */
+    private void turnoJugador(int movIndex) {
+        if (batalla == null || esperandoRival || politicaTurbo != null) return;
+        if (oponenteMCTS != null) oponenteMCTS.cancelar();
+        cancelarPronostico();
+
+        boolean atacado = batalla.atacar(true, movIndex);
+        if (atacado && oponenteMCTS != null) oponenteMCTS.avanzar(movIndex);
+
+        while (!batalla.getTurnoCharizard() && batalla.getCharizard().getVida() > 0
+                && batalla.getLucario().getVida() > 0) {
+            if (politicaRival == null && oponenteMCTS != null) {
+                respuestaMCTS();
+                return;
+            }
+            if (!ataqueInmediatoLucario()) break;
         }
         actualizarUI();
     }
 
     /**
-     * Método asociado al botón "Garra Dragón". Realiza el ataque "Garra Dragón".
-     * Luego, si Lucario sigue con vida, ejecuta un ataque aleatorio de Lucario.
+     * Ataque de Lucario con la política del rival o, si no hay, al azar.
+     *
+     * @return true si Lucario atacó
+     */
+    private boolean ataqueInmediatoLucario() {
+        if (politicaRival == null) return batalla.ataqueAleatorioLucario();
+        long inicio = System.nanoTime();
+        int mov = politicaRival.elegirMovimiento(batalla.getEstadoCompartido(), rand);
+        ELECCION_POLITICA.registrarDesde(inicio);
+        return mov >= 0 && batalla.atacar(false, mov);
+    }
+
+    /**
+     * Método asociado al botón "Deshacer". Vuelve al último turno del jugador, deshaciendo
+     * también la respuesta de Lucario.
      */
     @FXML
-    private void atacarConGarraDragon() {
-        if (batalla == null) return;
-        batalla.atacar(true, 1);
-        if (batalla.getLucario().getVida() > 0) {
-            batalla.ataqueAleatorioLucario();
+    void deshacer() {
+        EventosJfr.tareaFx("deshacer", this::deshacerTurno);
+    }
+
+    private void deshacerTurno() {
+        if (batalla == null || esperandoRival) return;
+        cancelarPronostico();
+        while (batalla.deshacer() && !batalla.getTurnoCharizard()) {
+            // Se sigue deshaciendo hasta el turno de Charizard
         }
+        reiniciarOponente();
         actualizarUI();
     }
 
     /**
-     * Método asociado al botón "Acrobata". Realiza el ataque "Acrobata".
-     * Luego, si Lucario sigue con vida, ejecuta un ataque aleatorio de Lucario.
+     * Método asociado al botón "Rehacer". Vuelve a aplicar el turno deshecho con el mismo
+     * resultado, incluida la respuesta de Lucario.
      */
     @FXML
-    private void atacarConAcrobata() {
-        if (batalla == null) return;
-        batalla.atacar(true, 2);
-        if (batalla.getLucario().getVida() > 0) {
-            batalla.ataqueAleatorioLucario();
+    void rehacer() {
+        EventosJfr.tareaFx("rehacer", this::rehacerTurno);
+    }
+
+    private void rehacerTurno() {
+        if (batalla == null || esperandoRival) return;
+        cancelarPronostico();
+        while (batalla.rehacer() && !batalla.getTurnoCharizard()) {
+            // Se sigue rehaciendo hasta el turno de Charizard
         }
+        reiniciarOponente();
         actualizarUI();
     }
 
     /**
-     * Método asociado al botón "Lanzallamas". Realiza el ataque "Lanzallamas".
-     * Luego, si Lucario sigue con vida, ejecuta un ataque aleatorio de Lucario.
+     * Pide al rival MCTS su movimiento sin bloquear la interfaz.
+     * Los botones quedan desactivados hasta que Lucario ataca.
      */
-    @FXML
-    private void atacarConLanzallamas() {
-        if (batalla == null) return;
-        batalla.atacar(true, 3);
-        if (batalla.getLucario().getVida() > 0) {
-            batalla.ataqueAleatorioLucario();
+    private void respuestaMCTS() {
+        esperandoRival = true;
+        desactivarBotones();
+        labelTurno.setText("Lucario está pensando...");
+        long partida = partidaActual;
+        long inicio = System.nanoTime();
+        oponenteMCTS.elegirMovimientoAsync(batalla.getEstado()).thenAccept(mov -> Platform.runLater(() ->
+                EventosJfr.tareaFx("respuestaMCTS", () -> aplicarRespuestaMCTS(partida, inicio, mov))));
+    }
+
+    /**
+     * Aplica en el hilo de JavaFX el movimiento elegido por el rival MCTS.
+     *
+     * @param partida Partida en la que se pidió el movimiento
+     * @param inicio Instante en que se pidió (System.nanoTime())
+     * @param mov Movimiento elegido, o -1 si no hay ninguno
+     */
+    private void aplicarRespuestaMCTS(long partida, long inicio, int mov) {
+        // Se descarta la respuesta si mientras tanto empezó otra partida
+        if (partida != partidaActual) return;
+        ELECCION_MCTS.registrarDesde(inicio);
+        esperandoRival = false;
+        // Las estadísticas son inmutables, así que se pueden pasar al registro tal cual
+        REGISTRO.depuracion("Rival MCTS: {}", oponenteMCTS.getUltimasEstadisticas());
+        if (mov >= 0 && batalla.atacar(false, mov)) {
+            oponenteMCTS.avanzar(mov);
         }
         actualizarUI();
+        if (batalla.getCharizard().getVida() > 0 && batalla.getLucario().getVida() > 0) {
+            // Si a Charizard no le quedan PP, Lucario vuelve a mover
+            if (mov >= 0 && !batalla.getTurnoCharizard()) respuestaMCTS();
+            else oponenteMCTS.ponderar(batalla.getEstado());
+        }
+    }
+
+    /**
+     * Usa un rival MCTS en lugar del ataque aleatorio de Lucario.
+     *
+     * @param oponente rival MCTS, o null para volver al ataque aleatorio.
+     */
+    public void setOponenteMCTS(OponenteMCTS oponente) {
+        this.oponenteMCTS = oponente;
+        reiniciarOponente();
+    }
+
+    /**
+     * Usa una política de decisión inmediata (por ejemplo PoliticaTabla) para Lucario.
+     *
+     * @param politica política del rival, o null para volver al ataque aleatorio.
+     */
+    public void setPoliticaRival(Politica politica) {
+        this.politicaRival = politica;
+    }
+
+    /**
+     * Descarta lo que el rival MCTS hubiera pensado, por ejemplo tras cargar una partida.
+     */
+    private void reiniciarOponente() {
+        partidaActual++;
+        esperandoRival = false;
+        if (oponenteMCTS != null && batalla != null) {
+            oponenteMCTS.reiniciar();
+            oponenteMCTS.ponderar(batalla.getEstado());
+        }
+    }
+
+    /**
+     * Activa el modo turbo: Charizard también lo juega una política y la batalla avanza sola a
+     * la velocidad dada, empezando otra al terminar cada una. Los turnos se juegan al ritmo del
+     * RelojAnimacion, todos los que tocan en cada fotograma, y la interfaz se actualiza una vez
+     * por fotograma con el resultado del último, así que los intermedios no se llegan a dibujar.
+     * Si en un fotograma no da tiempo a jugar todos los que tocan, los que faltan se descartan
+     * en lugar de acumular retraso. Solo avanza mientras la pantalla de batalla está visible.
+     *
+     * Lucario juega con la política del rival o, si no hay, al azar (el rival MCTS, que piensa
+     * en segundo plano, no se usa en modo turbo). Mientras dura no se guardan los ataques para
+     * deshacer, así que los turnos no reservan memoria.
+     *
+     * @param charizard Política de Charizard, o null para terminar el modo turbo
+     * @param turnosPorSegundo Velocidad de la batalla
+     */
+    public void setTurbo(Politica charizard, double turnosPorSegundo) {
+        if (politicaTurbo == null && charizard != null) RelojAnimacion.cadaPulso(tareaTurbo);
+        if (politicaTurbo != null && charizard == null) RelojAnimacion.quitarTarea(tareaTurbo);
+        this.politicaTurbo = charizard;
+        this.turnosPorSegundo = turnosPorSegundo;
+        inicioTurboNs = 0;
+        if (oponenteMCTS != null) oponenteMCTS.cancelar();
+        esperandoRival = false;
+        if (batalla != null) {
+            batalla.setDeshacerActivo(charizard == null);
+            actualizarUI();
+        }
+    }
+
+    /**
+     * Deja de usar el controlador cuando se sustituye por otro: termina el modo turbo, para
+     * que el reloj no siga jugando turnos en una pantalla descartada, y cancela lo que se esté
+     * calculando en segundo plano.
+     */
+    public void cerrar() {
+        if (politicaTurbo != null) {
+            RelojAnimacion.quitarTarea(tareaTurbo);
+            politicaTurbo = null;
+        }
+        if (oponenteMCTS != null) oponenteMCTS.cancelar();
+        cancelarPronostico();
+    }
+
+    /**
+     * Juega los turnos que tocan en este fotograma del modo turbo.
+     *
+     * @param ahora Instante del fotograma en nanosegundos
+     */
+    private void pulsoTurbo(long ahora) {
+        if (batalla == null || !pantallaVisible()) {
+            // En pausa: al volver se empieza a contar de nuevo en lugar de recuperar el tiempo perdido
+            inicioTurboNs = 0;
+            return;
+        }
+        if (inicioTurboNs == 0) {
+            inicioTurboNs = ahora;
+            turnosTurbo = 0;
+            return;
+        }
+        long debidos = (long) ((ahora - inicioTurboNs) / 1e9 * turnosPorSegundo) - turnosTurbo;
+        if (debidos <= 0) return;
+
+        long limite = System.nanoTime() + LOTE_MAX_NS;
+        long jugados = 0;
+        enLote = true;
+        try {
+            while (jugados < debidos && ((jugados & 63) != 0 || System.nanoTime() < limite)) {
+                turnoTurbo();
+                jugados++;
+            }
+        } finally {
+            enLote = false;
+        }
+        turnosTurbo += debidos;
+        TURNOS_TURBO.sumar(jugados);
+        if (jugados < debidos) TURNOS_DESCARTADOS.sumar(debidos - jugados);
+
+        cancelarPronostico();
+        actualizarUI();
+        if (batallasTurbo > 0) {
+            labelTurno.setText("Turbo: " + batallasTurbo + " batallas, Charizard gana el "
+                    + victoriasTurbo * 100 / batallasTurbo + "%");
+        }
+    }
+
+    /**
+     * Juega un turno del modo turbo o, si la batalla ha terminado, anota el resultado y empieza otra.
+     */
+    private void turnoTurbo() {
+        EstadoBatalla estado = batalla.getEstadoCompartido();
+        if (estado.terminada()) {
+            batallasTurbo++;
+            if (estado.ganador() == EstadoBatalla.CHARIZARD) victoriasTurbo++;
+            batalla.iniciarPartidaNueva();
+            return;
+        }
+        boolean charizard = estado.getTurno() == EstadoBatalla.CHARIZARD;
+        Politica politica = charizard ? politicaTurbo : politicaRival;
+        int mov = politica != null ? politica.elegirMovimiento(estado, rand)
+                : PoliticaAleatoria.movimientoAleatorio(estado, rand);
+        if (mov < 0 || !batalla.atacar(charizard, mov)) batalla.iniciarPartidaNueva();
+    }
+
+    /**
+     * @return true si la pantalla de batalla está en una ventana abierta
+     */
+    private boolean pantallaVisible() {
+        return labelTurno.getScene() != null && labelTurno.getScene().getWindow() != null
+                && labelTurno.getScene().getWindow().isShowing();
     }
 
     /**
      * Actualiza la interfaz gráfica con el estado actual de la batalla:
-     * - Barras de vida de ambos Pokémon.
-     * - Texto con porcentaje de vida.
+     * - Barras de vida de ambos Pokémon, animadas con RelojAnimacion.
+     * - Texto con porcentaje de vida y condiciones de estado.
      * - Estado (habilitado/deshabilitado) y texto de los botones según los PP disponibles.
      */
     public void actualizarUI() {
+        if (enLote) return;
+        ACTUALIZACIONES.incrementar();
         if (batalla != null) {
             Pokemon charizard = batalla.getCharizard();
             Pokemon lucario = batalla.getLucario();
 
-            barraCharizard.setProgress(charizard.getVida());
-            barraLucario.setProgress(lucario.getVida());
+            RelojAnimacion.animar(barraCharizard, charizard.getVida());
+            RelojAnimacion.animar(barraLucario, lucario.getVida());
 
-            vidaCharizard.setText(String.format("%.0f%%", charizard.getVida() * 100));
-            vidaLucario.setText(String.format("%.0f%%", lucario.getVida() * 100));
+            vidaCharizard.setText(Batalla.textoVida(charizard));
+            vidaLucario.setText(Batalla.textoVida(lucario));
 
-            actualizarTextosBotones();
+            actualizarMovimientos();
+            actualizarPronostico();
+            if (botonDeshacer != null) botonDeshacer.setDisable(!batalla.puedeDeshacer());
+            if (botonRehacer != null) botonRehacer.setDisable(!batalla.puedeRehacer());
         }
     }
 
     /**
-     * Actualiza los textos de los botones de ataque con el nombre del movimiento
-     * y la cantidad de PP restantes. También deshabilita los botones si no hay PP.
+     * Método asociado a la casilla "Mostrar probabilidades". Muestra u oculta el pronóstico.
      */
-    private void actualizarTextosBotones() {
-        Movimiento[] movimientos = batalla.getCharizard().getMovimientos();
-        botonLlamarada.setText("LLAMARADA (PP: " + movimientos[0].pp + ")");
-        botonDragon.setText("GARRA DRAGÓN (PP: " + movimientos[1].pp + ")");
-        botonAcrobata.setText("ACROBATA (PP: " + movimientos[2].pp + ")");
-        botonLanzallamas.setText("LANZALLAMAS (PP: " + movimientos[3].pp + ")");
+    @FXML
+    void alternarPronostico() {
+        EventosJfr.tareaFx("alternarPronostico", this::actualizarPronostico);
+    }
 
-        botonLlamarada.setDisable(movimientos[0].pp <= 0);
-        botonDragon.setDisable(movimientos[1].pp <= 0);
-        botonAcrobata.setDisable(movimientos[2].pp <= 0);
-        botonLanzallamas.setDisable(movimientos[3].pp <= 0);
+    /**
+     * Pide en segundo plano el pronóstico de la posición actual y lo muestra al recibirlo,
+     * salvo que mientras tanto haya empezado otro turno.
+     */
+    private void actualizarPronostico() {
+        if (labelPronostico == null || mostrarPronostico == null) return;
+        cancelarPronostico();
+        boolean activo = mostrarPronostico.isSelected() && batalla != null;
+        labelPronostico.setVisible(activo);
+        if (!activo) return;
+
+        long turno = turnoPronostico;
+        ASISTENTE.pronosticar(batalla.getEstado()).thenAccept(p -> Platform.runLater(() -> {
+            if (turno != turnoPronostico) return;
+            String texto = String.format("Victoria: %.1f%%", p.victoria * 100);
+            if (p.movimientoSugerido >= 0) {
+                texto += "  -  Sugerido: " + batalla.getCharizard().getMovimientos()[p.movimientoSugerido].nombre;
+            }
+            labelPronostico.setText(texto);
+            PRONOSTICO.registrar((long) (p.milisegundos * 1_000_000));
+        }));
+    }
+
+    /**
+     * Cancela el pronóstico pendiente y descarta el que llegue tarde.
+     */
+    private void cancelarPronostico() {
+        turnoPronostico++;
+        ASISTENTE.cancelar();
+    }
+
+    /**
+     * Muestra los movimientos de Charizard con sus PP. Los botones solo están activos en
+     * el turno de Charizard, con la batalla en marcha, con PP en el movimiento y fuera del
+     * modo turbo.
+     */
+    public void actualizarMovimientos() {
+        Pokemon charizard = batalla.getCharizard();
+        boolean activo = batalla.getTurnoCharizard() && !esperandoRival && politicaTurbo == null
+                && charizard.getVida() > 0 && batalla.getLucario().getVida() > 0;
+        movimientos.mostrar(charizard.getMovimientos(), activo);
     }
 
     /**
@@ -169,10 +519,7 @@ public class BatallaController {
      * cuando la batalla ha finalizado o está en un estado no interactivo.
      */
     public void desactivarBotones() {
-        botonLlamarada.setDisable(true);
-        botonDragon.setDisable(true);
-        botonAcrobata.setDisable(true);
-        botonLanzallamas.setDisable(true);
+        movimientos.desactivar();
     }
 
     /**
@@ -199,7 +546,7 @@ public class BatallaController {
      * @return Array de botones de ataque.
      */
     public Button[] getBotonesCharizard() {
-        return new Button[]{botonLlamarada, botonDragon, botonAcrobata, botonLanzallamas};
+        return movimientos.getBotones();
     }
 
     /**
@@ -207,28 +554,45 @@ public class BatallaController {
      * usando la clase AccesoDatos.
      */
     @FXML
-    private void guardarPartida() {
+    void guardarPartida() {
+        EventosJfr.tareaFx("guardarPartida", this::guardarEnBaseDatos);
+    }
+
+    private void guardarEnBaseDatos() {
+        long inicio = System.nanoTime();
         try {
             AccesoDatos gestor = new AccesoDatos();
             gestor.guardarPartida("Guardado manual",
                                   batalla.getTurnoCharizard(),
                                   batalla.getCharizard(),
                                   batalla.getLucario());
-            System.out.println("Partida guardada exitosamente");
         } catch (SQLException e) {
-            e.printStackTrace();
+            // AccesoDatos ya registra el guardado correcto; aquí solo queda el fallo, con su traza
+            REGISTRO.error("No se pudo guardar la partida", e);
+        } finally {
+            ultimoGuardadoNs = System.nanoTime() - inicio;
         }
     }
 
     /**
-     * Carga una partida guardada restaurando los estados de los Pokémon y el turno.
+     * @return Lo que tardó el último guardado de partida, conexión incluida, en nanosegundos; -1 si aún no se ha guardado
+     */
+    public static long getUltimoGuardadoNs() {
+        return ultimoGuardadoNs;
+    }
+
+    /**
+     * Carga una partida guardada en la batalla (ver setBatalla) restaurando los estados de
+     * los Pokémon y el turno; se descarta lo que se estuviera calculando de la posición
+     * anterior y el rival empieza a pensar desde la nueva.
      * 
      * @param partida instancia de PartidaGuardada con los datos a cargar.
      */
     public void cargarPartida(PartidaGuardada partida) {
-        this.turnoCharizard = partida.turnoCharizard;
-        this.charizard = partida.charizard;
-        this.lucario = partida.lucario;
+        if (oponenteMCTS != null) oponenteMCTS.cancelar();
+        cancelarPronostico();
+        batalla.cargarPartida(partida.turnoCharizard, partida.charizard, partida.lucario);
+        reiniciarOponente();
     }
 
 }
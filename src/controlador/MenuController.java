@@ -1,21 +1,26 @@
 package controlador;
 
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.scene.control.Button;
+import javafx.scene.image.ImageView;
 import javafx.stage.Stage;
 import application.AccesoDatos;
+import application.JuegoPokemon;
 import application.AccesoDatos.PartidaGuardada;
 import javafx.event.ActionEvent;
-import javafx.scene.Parent;
 import javafx.scene.Scene;
+import metricas.EventosJfr;
+import metricas.Histograma;
+import metricas.Metricas;
+import recursos.AtlasSprites;
+import registro.Registro;
 
 /**
  * Controlador del menú principal de la aplicación.
  * 
  * Gestiona la navegación entre escenas, específicamente para:
  * - Cambiar a la escena del juego/batalla.
- * - Cargar una partida guardada y abrir la escena de batalla con el estado cargado.
+ * - Cargar una partida guardada en la batalla y abrir su escena con el estado cargado.
  */
 public class MenuController {
 
@@ -25,6 +30,28 @@ public class MenuController {
     // Referencia a la escena de batalla que se puede establecer desde la clase principal.
     private Scene escenaBatalla;
 
+    // Controlador de la escena de batalla, que recibe las partidas cargadas.
+    private BatallaController controladorBatalla;
+
+    private static final Registro REGISTRO = Registro.de("menu");
+
+    // Duración de los cambios de escena (hasta que la escena queda puesta en el Stage).
+    private static final Histograma CAMBIO_A_BATALLA = Metricas.histograma("escena.batalla");
+    private static final Histograma CAMBIO_A_PARTIDA_CARGADA = Metricas.histograma("escena.cargar_partida");
+
+    // Fondo y aura del menú (ver AtlasSprites). Los asigna VistaMenu, generada de Menu.fxml.
+    @FXML ImageView fondo;
+    @FXML ImageView aura;
+
+    /**
+     * Llamado por VistaMenu al terminar de asignar los campos: pone las imágenes.
+     */
+    @FXML
+    void initialize() {
+        AtlasSprites.comun().mostrar(fondo, "FondoMenu");
+        AtlasSprites.comun().mostrar(aura, "Aura");
+    }
+
     /**
      * Asigna el Stage principal de la aplicación.
      * 
@@ -43,49 +70,58 @@ public class MenuController {
         this.escenaBatalla = escena;
     }
 
+    /**
+     * Asigna el controlador de la escena de batalla.
+     * 
+     * @param controlador Controlador de la escena dada en setEscenaBatalla.
+     */
+    public void setControladorBatalla(BatallaController controlador) {
+        this.controladorBatalla = controlador;
+    }
+
     /**
      * Evento para cambiar la escena actual a la escena de batalla.
      * 
      * @param event Evento de acción disparado por la interfaz (por ejemplo, clic en botón).
      */
     @FXML
-    private void cambiarAEscenaJuego(ActionEvent event) {
-        if (primaryStage != null && escenaBatalla != null) {
-            primaryStage.setScene(escenaBatalla);
-        }
+    void cambiarAEscenaJuego(ActionEvent event) {
+        EventosJfr.tareaFx("cambiarAEscenaJuego", () -> {
+            if (primaryStage != null && escenaBatalla != null) {
+                long inicio = System.nanoTime();
+                JuegoPokemon.mostrarEscena(primaryStage, escenaBatalla, "batalla");
+                CAMBIO_A_BATALLA.registrarDesde(inicio);
+            }
+        });
     }
 
     /**
-     * Evento para cargar la última partida guardada desde la base de datos o almacenamiento,
-     * crear una nueva escena de batalla inicializada con dicha partida y mostrarla.
+     * Evento para cargar la última partida guardada desde la base de datos o almacenamiento
+     * en la batalla y mostrar su escena. Se reutilizan la escena y el controlador creados al
+     * arrancar, así que el rival (MCTS, tabla o turbo) sigue siendo el configurado.
      * 
      * @param event Evento de acción disparado por la interfaz (por ejemplo, clic en botón).
      */
     @FXML
-    private void cargarPartida(ActionEvent event) {
+    void cargarPartida(ActionEvent event) {
+        EventosJfr.tareaFx("cargarPartida", this::abrirUltimaPartida);
+    }
+
+    private void abrirUltimaPartida() {
+        if (primaryStage == null || escenaBatalla == null || controladorBatalla == null) return;
+        long inicio = System.nanoTime();
         try {
             AccesoDatos gestor = new AccesoDatos();
             // Carga la última partida guardada.
             PartidaGuardada partida = gestor.cargarUltimaPartida();
 
-            // Crea un nuevo controlador de batalla e inicializa con la partida cargada.
-            BatallaController controlador = new BatallaController();
-            controlador.cargarPartida(partida);
-
-            // Carga el archivo FXML de la escena de batalla y establece el controlador personalizado.
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/application/Batalla.fxml"));
-            loader.setController(controlador);
-            Parent root = loader.load();
-
-            // Crea la escena de batalla con la raíz cargada.
-            Scene escena = new Scene(root);
-
-            // Cambia la escena mostrada en el Stage principal.
-            primaryStage.setScene(escena);
+            // La aplica a la batalla existente y muestra su escena.
+            controladorBatalla.cargarPartida(partida);
+            JuegoPokemon.mostrarEscena(primaryStage, escenaBatalla, "partida cargada");
+            CAMBIO_A_PARTIDA_CARGADA.registrarDesde(inicio);
 
         } catch (Exception e) {
-            e.printStackTrace();
-            // Aquí se puede añadir código para mostrar un mensaje de error al usuario.
+            REGISTRO.error("No se pudo cargar la partida", e);
         }
     }
 }
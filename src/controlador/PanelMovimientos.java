@@ -0,0 +1,175 @@
+package controlador;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+import javafx.event.ActionEvent;
+import javafx.event.EventHandler;
+import javafx.geometry.Pos;
+import javafx.scene.control.Button;
+import javafx.scene.control.ContentDisplay;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.StackPane;
+import modelo.Movimiento;
+import modelo.Tipo;
+import recursos.AtlasSprites;
+
+/**
+ * Botones de los movimientos del Pokémon activo, creados a partir de su lista de movimientos.
+ *
+ * Cada botón lleva de fondo la imagen del tipo del movimiento, el texto con su nombre y
+ * sus PP y, abajo, una barra fina con los PP que quedan, que se anima con RelojAnimacion. Todos comparten un único manejador que pasa el índice del movimiento pulsado.
+ * Los botones no se destruyen: si el Pokémon activo cambia o tiene otros movimientos, se
+ * reutilizan los que ya hay, se crean solo los que falten y los que sobren se ocultan
+ * fuera del layout. Además solo se toca una propiedad del nodo cuando su valor cambia, así
+ * que una actualización sin cambios no provoca CSS ni layout.
+ */
+final class PanelMovimientos {
+
+    private static final String ESTILO = "-fx-background-color: transparent; -fx-padding: 0; "
+            + "-fx-text-fill: white; -fx-font-size: 22px; -fx-font-style: italic;";
+
+    private static final String ESTILO_PP = "-fx-accent: #f8d030; -fx-padding: 0;";
+
+    private static final double ANCHO = 234;
+    private static final double ALTO = 66;
+    private static final double ALTO_PP = 6;
+
+    /** Fondo de los botones cuyo tipo no tiene imagen propia */
+    private static final String FONDO_DEFECTO = "botonFuego";
+
+    /** Fondo ya resuelto de cada tipo */
+    private static final Map<Tipo, String> FONDOS = new EnumMap<>(Tipo.class);
+
+    /** Un botón del panel y lo que está mostrando */
+    private static final class Hueco {
+        final Button boton;
+        final ImageView fondo;
+        final ProgressBar barraPp;
+        Movimiento movimiento;
+        int pp = -1;
+
+        Hueco(Button boton, ImageView fondo, ProgressBar barraPp) {
+            this.boton = boton;
+            this.fondo = fondo;
+            this.barraPp = barraPp;
+        }
+    }
+
+    private final Pane contenedor;
+    private final List<Hueco> huecos = new ArrayList<>();
+    private final EventHandler<ActionEvent> manejador;
+    private int visibles;
+
+    /**
+     * @param contenedor Panel donde se colocan los botones en orden (en la vista, un TilePane de dos columnas)
+     * @param alUsar Recibe el índice del movimiento pulsado
+     */
+    PanelMovimientos(Pane contenedor, IntConsumer alUsar) {
+        this.contenedor = contenedor;
+        this.manejador = e -> alUsar.accept((Integer) ((Button) e.getSource()).getUserData());
+    }
+
+    /**
+     * Muestra los movimientos dados, reutilizando los botones que ya existen.
+     *
+     * @param movimientos Movimientos del Pokémon activo, en orden
+     * @param activo false para desactivar todos los botones (turno del rival, batalla terminada...)
+     */
+    void mostrar(Movimiento[] movimientos, boolean activo) {
+        while (huecos.size() < movimientos.length) huecos.add(crearHueco(huecos.size()));
+        for (int i = 0; i < huecos.size(); i++) {
+            Hueco h = huecos.get(i);
+            if (i >= movimientos.length) {
+                if (h.boton.isVisible()) {
+                    h.boton.setVisible(false);
+                    h.boton.setManaged(false);
+                    h.movimiento = null;
+                }
+                continue;
+            }
+            Movimiento m = movimientos[i];
+            if (!h.boton.isVisible()) {
+                h.boton.setVisible(true);
+                h.boton.setManaged(true);
+            }
+            if (h.movimiento == null || h.movimiento.getTipo() != m.getTipo()) {
+                AtlasSprites.comun().mostrar(h.fondo, fondo(m.getTipo()));
+            }
+            if (h.movimiento != m || h.pp != m.pp) {
+                h.boton.setText(m.nombre.toUpperCase(Locale.ROOT) + " (PP: " + m.pp + "/" + m.ppMax + ")");
+                double restantes = m.ppMax > 0 ? (double) m.pp / m.ppMax : 0;
+                // Un movimiento distinto en el hueco no es un cambio de PP: su barra no se anima
+                if (h.movimiento == m) RelojAnimacion.animar(h.barraPp, restantes);
+                else RelojAnimacion.fijar(h.barraPp, restantes);
+                h.movimiento = m;
+                h.pp = m.pp;
+            }
+            boolean desactivado = !activo || m.pp <= 0;
+            if (h.boton.isDisable() != desactivado) h.boton.setDisable(desactivado);
+        }
+        visibles = movimientos.length;
+    }
+
+    /**
+     * Desactiva todos los botones sin cambiar lo que muestran.
+     */
+    void desactivar() {
+        for (Hueco h : huecos) {
+            if (!h.boton.isDisable()) h.boton.setDisable(true);
+        }
+    }
+
+    /**
+     * @return Botones de los movimientos que se están mostrando, en orden
+     */
+    Button[] getBotones() {
+        Button[] botones = new Button[visibles];
+        for (int i = 0; i < visibles; i++) botones[i] = huecos.get(i).boton;
+        return botones;
+    }
+
+    private Hueco crearHueco(int indice) {
+        ImageView fondo = new ImageView();
+        fondo.setFitWidth(ANCHO);
+        fondo.setFitHeight(ALTO);
+        fondo.setPreserveRatio(true);
+        ProgressBar barraPp = new ProgressBar(1);
+        barraPp.setStyle(ESTILO_PP);
+        barraPp.setPrefWidth(ANCHO - 24);
+        barraPp.setPrefHeight(ALTO_PP);
+        barraPp.setMaxHeight(ALTO_PP);
+        StackPane.setAlignment(barraPp, Pos.BOTTOM_CENTER);
+        Button boton = new Button();
+        boton.setGraphic(new StackPane(fondo, barraPp));
+        boton.setContentDisplay(ContentDisplay.CENTER);
+        boton.setMnemonicParsing(false);
+        boton.setStyle(ESTILO);
+        boton.setPrefWidth(ANCHO);
+        boton.setPrefHeight(ALTO);
+        boton.setUserData(indice);
+        boton.setId("movimiento" + indice);
+        boton.setOnAction(manejador);
+        boton.setVisible(false);
+        boton.setManaged(false);
+        contenedor.getChildren().add(boton);
+        return new Hueco(boton, fondo, barraPp);
+    }
+
+    /**
+     * @return Nombre de la imagen de fondo del tipo en el atlas (botonFuego, botonDragon...),
+     *         o FONDO_DEFECTO si el tipo no tiene imagen
+     */
+    private static String fondo(Tipo tipo) {
+        return FONDOS.computeIfAbsent(tipo, t -> {
+            String nombre = "boton" + t.name().charAt(0) + t.name().substring(1).toLowerCase(Locale.ROOT);
+            return AtlasSprites.comun().contiene(nombre) ? nombre : FONDO_DEFECTO;
+        });
+    }
+}
@@ -0,0 +1,179 @@
+package controlador;
+
+import javafx.geometry.NodeOrientation;
+import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.AnchorPane;
+import javafx.scene.layout.TilePane;
+import javafx.scene.paint.Color;
+
+/**
+ * Vista generada por recursos.GeneradorVistas a partir de Batalla.fxml: crea los
+ * nodos con código y los asigna directamente a los campos de BatallaController,
+ * sin FXMLLoader. No se edita a mano: se cambia el FXML y se vuelve a generar.
+ */
+public final class VistaBatalla {
+
+    private VistaBatalla() {
+    }
+
+    /**
+     * Crea los nodos, los asigna al controlador y llama a su initialize, como
+     * FXMLLoader con el FXML.
+     *
+     * @param controlador Controlador de la vista
+     * @return Raíz de la vista
+     */
+    public static AnchorPane crear(BatallaController controlador) {
+        AnchorPane raiz = new AnchorPane();
+        raiz.setMaxHeight(Double.NEGATIVE_INFINITY);
+        raiz.setMaxWidth(Double.NEGATIVE_INFINITY);
+        raiz.setMinHeight(Double.NEGATIVE_INFINITY);
+        raiz.setMinWidth(Double.NEGATIVE_INFINITY);
+        raiz.setPrefHeight(875.0);
+        raiz.setPrefWidth(1550.0);
+        ImageView fondo = new ImageView();
+        fondo.setId("fondo");
+        fondo.setFitHeight(875.0);
+        fondo.setFitWidth(1550.0);
+        // Sprites y marcos de las barras: los pone BatallaController desde el atlas (ver recursos.AtlasSprites)
+        ImageView spriteCharizard = new ImageView();
+        spriteCharizard.setId("spriteCharizard");
+        spriteCharizard.setFitHeight(496.0);
+        spriteCharizard.setFitWidth(688.0);
+        spriteCharizard.setLayoutX(87.0);
+        spriteCharizard.setLayoutY(380.0);
+        spriteCharizard.setPickOnBounds(true);
+        spriteCharizard.setPreserveRatio(true);
+        ImageView spriteLucario = new ImageView();
+        spriteLucario.setId("spriteLucario");
+        spriteLucario.setFitHeight(217.0);
+        spriteLucario.setFitWidth(182.0);
+        spriteLucario.setLayoutX(1203.0);
+        spriteLucario.setLayoutY(355.0);
+        spriteLucario.setPickOnBounds(true);
+        spriteLucario.setPreserveRatio(true);
+        // Botones de movimiento: los crea BatallaController a partir de los movimientos de Charizard
+        TilePane panelMovimientos = new TilePane();
+        panelMovimientos.setId("panelMovimientos");
+        panelMovimientos.setHgap(9.0);
+        panelMovimientos.setLayoutX(867.0);
+        panelMovimientos.setLayoutY(678.0);
+        panelMovimientos.setPrefColumns(2);
+        panelMovimientos.setPrefTileHeight(66.0);
+        panelMovimientos.setPrefTileWidth(234.0);
+        panelMovimientos.setVgap(2.0);
+        ImageView marcoCharizard = new ImageView();
+        marcoCharizard.setId("marcoCharizard");
+        marcoCharizard.setFitHeight(131.0);
+        marcoCharizard.setFitWidth(578.0);
+        marcoCharizard.setLayoutY(475.0);
+        marcoCharizard.setPickOnBounds(true);
+        marcoCharizard.setPreserveRatio(true);
+        ProgressBar barraCharizard = new ProgressBar();
+        barraCharizard.setId("barraCharizard");
+        barraCharizard.setLayoutX(16.0);
+        barraCharizard.setLayoutY(541.0);
+        barraCharizard.setNodeOrientation(NodeOrientation.RIGHT_TO_LEFT);
+        barraCharizard.setPrefHeight(18.0);
+        barraCharizard.setPrefWidth(287.0);
+        barraCharizard.setProgress(1.0);
+        Label vidaCharizard = new Label();
+        vidaCharizard.setId("vidaCharizard");
+        vidaCharizard.setLayoutX(268.0);
+        vidaCharizard.setLayoutY(561.0);
+        vidaCharizard.setText("250");
+        ImageView marcoLucario = new ImageView();
+        marcoLucario.setId("marcoLucario");
+        marcoLucario.setFitHeight(114.0);
+        marcoLucario.setFitWidth(341.0);
+        marcoLucario.setLayoutX(1227.0);
+        marcoLucario.setLayoutY(239.0);
+        marcoLucario.setPickOnBounds(true);
+        marcoLucario.setPreserveRatio(true);
+        ProgressBar barraLucario = new ProgressBar();
+        barraLucario.setId("barraLucario");
+        barraLucario.setLayoutX(1280.0);
+        barraLucario.setLayoutY(292.0);
+        barraLucario.setNodeOrientation(NodeOrientation.RIGHT_TO_LEFT);
+        barraLucario.setPrefHeight(18.0);
+        barraLucario.setPrefWidth(248.0);
+        barraLucario.setProgress(1.0);
+        Label vidaLucario = new Label();
+        vidaLucario.setId("vidaLucario");
+        vidaLucario.setLayoutX(1255.0);
+        vidaLucario.setLayoutY(293.0);
+        vidaLucario.setText("250");
+        Label labelTurno = new Label();
+        labelTurno.setId("labelTurno");
+        labelTurno.setLayoutX(700.0);
+        labelTurno.setLayoutY(200.0);
+        labelTurno.setText("Turno de Charizard");
+        labelTurno.setTextFill(Color.WHITE);
+        Label labelPronostico = new Label();
+        labelPronostico.setId("labelPronostico");
+        labelPronostico.setLayoutX(700.0);
+        labelPronostico.setLayoutY(230.0);
+        labelPronostico.setTextFill(Color.WHITE);
+        labelPronostico.setVisible(false);
+        CheckBox mostrarPronostico = new CheckBox();
+        mostrarPronostico.setId("mostrarPronostico");
+        mostrarPronostico.setLayoutX(120.0);
+        mostrarPronostico.setLayoutY(10.0);
+        mostrarPronostico.setMnemonicParsing(false);
+        mostrarPronostico.setOnAction(e -> controlador.alternarPronostico());
+        mostrarPronostico.setText("Mostrar probabilidades");
+        mostrarPronostico.setTextFill(Color.WHITE);
+        Button guardarPartida = new Button();
+        guardarPartida.setId("guardarPartida");
+        guardarPartida.setLayoutY(-1.0);
+        guardarPartida.setMnemonicParsing(false);
+        guardarPartida.setOnAction(e -> controlador.guardarPartida());
+        guardarPartida.setPrefHeight(40.0);
+        guardarPartida.setPrefWidth(110.0);
+        guardarPartida.setText("Guardar Partida");
+        Button botonDeshacer = new Button();
+        botonDeshacer.setId("botonDeshacer");
+        botonDeshacer.setLayoutX(330.0);
+        botonDeshacer.setLayoutY(-1.0);
+        botonDeshacer.setMnemonicParsing(false);
+        botonDeshacer.setOnAction(e -> controlador.deshacer());
+        botonDeshacer.setPrefHeight(40.0);
+        botonDeshacer.setPrefWidth(90.0);
+        botonDeshacer.setText("Deshacer");
+        Button botonRehacer = new Button();
+        botonRehacer.setId("botonRehacer");
+        botonRehacer.setLayoutX(425.0);
+        botonRehacer.setLayoutY(-1.0);
+        botonRehacer.setMnemonicParsing(false);
+        botonRehacer.setOnAction(e -> controlador.rehacer());
+        botonRehacer.setPrefHeight(40.0);
+        botonRehacer.setPrefWidth(90.0);
+        botonRehacer.setText("Rehacer");
+        raiz.getChildren().addAll(fondo, spriteCharizard, spriteLucario, panelMovimientos, marcoCharizard,
+                barraCharizard, vidaCharizard, marcoLucario, barraLucario, vidaLucario, labelTurno, labelPronostico,
+                mostrarPronostico, guardarPartida, botonDeshacer, botonRehacer);
+
+        controlador.fondo = fondo;
+        controlador.spriteCharizard = spriteCharizard;
+        controlador.spriteLucario = spriteLucario;
+        controlador.panelMovimientos = panelMovimientos;
+        controlador.marcoCharizard = marcoCharizard;
+        controlador.barraCharizard = barraCharizard;
+        controlador.vidaCharizard = vidaCharizard;
+        controlador.marcoLucario = marcoLucario;
+        controlador.barraLucario = barraLucario;
+        controlador.vidaLucario = vidaLucario;
+        controlador.labelTurno = labelTurno;
+        controlador.labelPronostico = labelPronostico;
+        controlador.mostrarPronostico = mostrarPronostico;
+        controlador.guardarPartida = guardarPartida;
+        controlador.botonDeshacer = botonDeshacer;
+        controlador.botonRehacer = botonRehacer;
+        controlador.initialize();
+        return raiz;
+    }
+}
@@ -0,0 +1,78 @@
+package controlador;
+
+import javafx.scene.control.Button;
+import javafx.scene.control.TextField;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.AnchorPane;
+import javafx.scene.text.Font;
+
+/**
+ * Vista generada por recursos.GeneradorVistas a partir de Menu.fxml: crea los
+ * nodos con código y los asigna directamente a los campos de MenuController,
+ * sin FXMLLoader. No se edita a mano: se cambia el FXML y se vuelve a generar.
+ */
+public final class VistaMenu {
+
+    private VistaMenu() {
+    }
+
+    /**
+     * Crea los nodos, los asigna al controlador y llama a su initialize, como
+     * FXMLLoader con el FXML.
+     *
+     * @param controlador Controlador de la vista
+     * @return Raíz de la vista
+     */
+    public static AnchorPane crear(MenuController controlador) {
+        AnchorPane raiz = new AnchorPane();
+        // Imagen de fondo
+        ImageView fondo = new ImageView();
+        fondo.setId("fondo");
+        fondo.setFitHeight(875.0);
+        fondo.setFitWidth(1550.0);
+        // Aura: la pone MenuController desde el atlas (ver recursos.AtlasSprites)
+        ImageView aura = new ImageView();
+        aura.setId("aura");
+        aura.setFitHeight(290.0);
+        aura.setFitWidth(300.0);
+        aura.setLayoutX(210.0);
+        aura.setLayoutY(225.0);
+        // Texto principal
+        TextField textField1 = new TextField();
+        textField1.setLayoutX(628.0);
+        textField1.setLayoutY(112.0);
+        textField1.setPrefHeight(91.0);
+        textField1.setPrefWidth(514.0);
+        textField1.setStyle("-fx-background-color: Transparent;");
+        textField1.setText("POKÉMON ECLIPSE");
+        textField1.setFont(new Font("BN Jinx", 50.0));
+        // Botón iniciar
+        Button iniciarPartidaNueva = new Button();
+        iniciarPartidaNueva.setId("iniciarPartidaNueva");
+        iniciarPartidaNueva.setLayoutX(220.0);
+        iniciarPartidaNueva.setLayoutY(659.0);
+        iniciarPartidaNueva.setOnAction(controlador::cambiarAEscenaJuego);
+        iniciarPartidaNueva.setPrefHeight(70.0);
+        iniciarPartidaNueva.setPrefWidth(1094.0);
+        iniciarPartidaNueva.setStyle("-fx-background-color: Transparent;");
+        iniciarPartidaNueva.setText("Iniciar Partida Nueva");
+        iniciarPartidaNueva.setFont(new Font("System Bold", 40.0));
+        // Botón cargar partida
+        Button cargarPartida = new Button();
+        cargarPartida.setId("cargarPartida");
+        cargarPartida.setLayoutX(220.0);
+        cargarPartida.setLayoutY(761.0);
+        cargarPartida.setOnAction(controlador::cargarPartida);
+        cargarPartida.setPrefHeight(70.0);
+        cargarPartida.setPrefWidth(1094.0);
+        cargarPartida.setStyle("-fx-background-color: Transparent;");
+        cargarPartida.setText("Cargar Partida");
+        cargarPartida.setFont(new Font("System Bold", 40.0));
+        raiz.getChildren().addAll(fondo, aura, textField1, iniciarPartidaNueva, cargarPartida);
+
+        controlador.fondo = fondo;
+        controlador.aura = aura;
+        controlador.initialize();
+        return raiz;
+    }
+}
@@ -0,0 +1,147 @@
+package ia;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import ia.MotorProbabilidad.ModeloJugador;
+import ia.MotorProbabilidad.Probabilidades;
+import modelo.EstadoBatalla;
+
+/**
+ * Calcula en segundo plano la probabilidad de victoria del jugador y el movimiento
+ * que se le sugiere, para mostrarlos en la pantalla de batalla.
+ *
+ * Los cálculos se hacen en un único hilo propio, nunca en el de JavaFX. Cada petición
+ * nueva cancela la anterior si aún no había empezado, y los resultados se guardan en una
+ * caché LRU indexada por la posición, así que volver a una posición conocida (por
+ * ejemplo al cargar una partida) no cuesta nada.
+ *
+ * La caché y el motor suponen que todas las batallas usan los mismos movimientos; si
+ * llega un estado con otras reglas se vacían y se empieza de nuevo.
+ */
+public class AsistenteProbabilidad {
+
+    /**
+     * Resultado para una posición, visto desde Charizard.
+     */
+    public static final class Pronostico {
+        /** Probabilidad de que gane Charizard */
+        public final double victoria;
+        /** Probabilidad de empate */
+        public final double empate;
+        /** Movimiento sugerido a Charizard, o -1 si no le toca o no puede mover */
+        public final int movimientoSugerido;
+        /** Milisegundos que costó calcularlo */
+        public final double milisegundos;
+
+        Pronostico(double victoria, double empate, int movimientoSugerido, double milisegundos) {
+            this.victoria = victoria;
+            this.empate = empate;
+            this.movimientoSugerido = movimientoSugerido;
+            this.milisegundos = milisegundos;
+        }
+    }
+
+    private final ModeloJugador modeloCharizard;
+    private final ModeloJugador modeloLucario;
+    private final CacheLRU<EstadoBatalla, Pronostico> cache;
+    private final ExecutorService ejecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "pronostico");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Protegidos por this
+    private MotorProbabilidad motor;
+    private EstadoBatalla reglas;
+    private CompletableFuture<Pronostico> pendiente;
+
+    /**
+     * @param modeloCharizard Cómo se supone que juega Charizard después del movimiento sugerido
+     * @param modeloLucario Cómo se supone que juega Lucario
+     * @param capacidadCache Número máximo de posiciones guardadas
+     */
+    public AsistenteProbabilidad(ModeloJugador modeloCharizard, ModeloJugador modeloLucario, int capacidadCache) {
+        this.modeloCharizard = modeloCharizard;
+        this.modeloLucario = modeloLucario;
+        this.cache = new CacheLRU<>(capacidadCache);
+    }
+
+    /**
+     * Pide el pronóstico de una posición. Si está en la caché el futuro ya viene completado;
+     * si no, se calcula en el hilo del asistente. Cancela la petición anterior.
+     *
+     * @param estado Estado de la batalla (se copia, puede seguir modificándose)
+     * @return Futuro con el pronóstico (cancelado si llega otra petición antes de empezar)
+     */
+    public CompletableFuture<Pronostico> pronosticar(EstadoBatalla estado) {
+        cancelar();
+        EstadoBatalla clave = estado.copia();
+        comprobarReglas(clave);
+        Pronostico guardado = cache.obtener(clave);
+        if (guardado != null) return CompletableFuture.completedFuture(guardado);
+
+        CompletableFuture<Pronostico> futuro = new CompletableFuture<>();
+        synchronized (this) {
+            pendiente = futuro;
+        }
+        ejecutor.execute(() -> {
+            if (futuro.isDone()) return;
+            try {
+                futuro.complete(calcular(clave));
+            } catch (RuntimeException e) {
+                futuro.completeExceptionally(e);
+            }
+        });
+        return futuro;
+    }
+
+    /**
+     * Cancela la petición en curso, por ejemplo porque empieza un turno nuevo.
+     * Si el cálculo ya había empezado termina igualmente (es breve) y su resultado
+     * se guarda en la caché, pero el futuro queda cancelado.
+     */
+    public synchronized void cancelar() {
+        if (pendiente != null) {
+            pendiente.cancel(false);
+            pendiente = null;
+        }
+    }
+
+    /**
+     * @return Caché de pronósticos, para consultar sus estadísticas
+     */
+    public CacheLRU<EstadoBatalla, Pronostico> getCache() {
+        return cache;
+    }
+
+    /**
+     * Si el estado usa otros movimientos que los anteriores, descarta el motor y la caché.
+     */
+    private synchronized void comprobarReglas(EstadoBatalla estado) {
+        if (reglas == null || !reglas.mismasReglas(estado)) {
+            reglas = estado;
+            motor = null;
+            cache.limpiar();
+        }
+    }
+
+    private Pronostico calcular(EstadoBatalla estado) {
+        long inicio = System.nanoTime();
+        MotorProbabilidad m;
+        synchronized (this) {
+            if (motor == null) motor = new MotorProbabilidad(estado, modeloCharizard, modeloLucario);
+            m = motor;
+        }
+        Probabilidades p = m.analizar(estado);
+        int sugerido = -1;
+        if (!estado.terminada() && estado.getTurno() == EstadoBatalla.CHARIZARD) {
+            sugerido = m.mejorMovimiento(estado);
+        }
+        Pronostico pronostico = new Pronostico(p.victoriaCharizard, p.empate, sugerido,
+                (System.nanoTime() - inicio) / 1e6);
+        cache.guardar(estado, pronostico);
+        return pronostico;
+    }
+}
@@ -0,0 +1,105 @@
+package ia;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caché de tamaño limitado que expulsa la entrada usada hace más tiempo (LRU).
+ *
+ * Es un LinkedHashMap en orden de acceso protegido por el propio objeto, suficiente
+ * para consultas de la interfaz, que son pocas y baratas. Lleva la cuenta de aciertos,
+ * fallos y expulsiones para poder comprobar si el tamaño es adecuado.
+ *
+ * @param <K> Tipo de la clave (no debe modificarse mientras esté en la caché)
+ * @param <V> Tipo del valor
+ */
+public class CacheLRU<K, V> {
+
+    private final int capacidad;
+    private final LinkedHashMap<K, V> entradas;
+    private long aciertos;
+    private long fallos;
+    private long expulsiones;
+
+    /**
+     * @param capacidad Número máximo de entradas
+     */
+    public CacheLRU(int capacidad) {
+        if (capacidad <= 0) throw new IllegalArgumentException("Capacidad no válida: " + capacidad);
+        this.capacidad = capacidad;
+        this.entradas = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > CacheLRU.this.capacidad) {
+                    expulsiones++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Busca una clave y la marca como usada recientemente.
+     *
+     * @param clave Clave a buscar
+     * @return Valor guardado, o null si no está
+     */
+    public synchronized V obtener(K clave) {
+        V valor = entradas.get(clave);
+        if (valor != null) aciertos++;
+        else fallos++;
+        return valor;
+    }
+
+    /**
+     * Guarda un valor, expulsando la entrada menos usada si la caché está llena.
+     *
+     * @param clave Clave
+     * @param valor Valor (no null)
+     */
+    public synchronized void guardar(K clave, V valor) {
+        entradas.put(clave, valor);
+    }
+
+    /**
+     * Vacía la caché sin reiniciar las estadísticas.
+     */
+    public synchronized void limpiar() {
+        entradas.clear();
+    }
+
+    public synchronized int getTamano() {
+        return entradas.size();
+    }
+
+    public int getCapacidad() {
+        return capacidad;
+    }
+
+    public synchronized long getAciertos() {
+        return aciertos;
+    }
+
+    public synchronized long getFallos() {
+        return fallos;
+    }
+
+    public synchronized long getExpulsiones() {
+        return expulsiones;
+    }
+
+    /**
+     * @return Fracción de consultas que encontraron el valor en la caché
+     */
+    public synchronized double tasaAciertos() {
+        long total = aciertos + fallos;
+        return total == 0 ? 0 : (double) aciertos / total;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("Caché: %d/%d entradas, %d aciertos, %d fallos (%.1f%%), %d expulsiones",
+                entradas.size(), capacidad, aciertos, fallos, 100 * tasaAciertos(), expulsiones);
+    }
+}
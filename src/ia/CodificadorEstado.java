@@ -0,0 +1,77 @@
+package ia;
+
+import modelo.EstadoBatalla;
+
+/**
+ * Convierte un EstadoBatalla en un índice entero para las tablas de la IA.
+ *
+ * El estado se ve desde el lado al que le toca mover y se agrupa para que quepa en
+ * una tabla pequeña:
+ * - Vida propia y del rival en tramos de 10 puntos (10 tramos cada una).
+ * - PP propios de cada movimiento limitados a 0..3 (2 bits por movimiento).
+ * - Para el rival solo importa si cada movimiento tiene PP o no (1 bit por movimiento).
+ *
+ * Se consideran como máximo MAX_MOVIMIENTOS movimientos por Pokémon.
+ */
+public final class CodificadorEstado {
+
+    /** Movimientos por Pokémon que caben en el índice */
+    public static final int MAX_MOVIMIENTOS = 4;
+
+    /** Número de tramos de vida */
+    private static final int TRAMOS_VIDA = 10;
+
+    /** Número total de índices posibles */
+    public static final int NUM_ESTADOS = TRAMOS_VIDA * TRAMOS_VIDA << (3 * MAX_MOVIMIENTOS);
+
+    private CodificadorEstado() {
+    }
+
+    /**
+     * Calcula el índice del estado desde el punto de vista del lado que mueve.
+     * No crea objetos.
+     *
+     * @param estado Estado de una batalla no terminada
+     * @return Índice entre 0 y NUM_ESTADOS - 1
+     */
+    public static int indice(EstadoBatalla estado) {
+        int propio = estado.getTurno();
+        int rival = 1 - propio;
+
+        int indice = tramo(estado.getVida(propio)) * TRAMOS_VIDA + tramo(estado.getVida(rival));
+
+        int n = Math.min(MAX_MOVIMIENTOS, estado.getNumMovimientos(propio));
+        int ppPropios = 0;
+        for (int i = 0; i < n; i++) {
+            ppPropios |= Math.min(3, estado.getPp(propio, i)) << (2 * i);
+        }
+
+        n = Math.min(MAX_MOVIMIENTOS, estado.getNumMovimientos(rival));
+        int ppRival = 0;
+        for (int i = 0; i < n; i++) {
+            if (estado.getPp(rival, i) > 0) ppRival |= 1 << i;
+        }
+
+        return ((indice << (2 * MAX_MOVIMIENTOS)) | ppPropios) << MAX_MOVIMIENTOS | ppRival;
+    }
+
+    /**
+     * Indica si, en un índice calculado con indice, el lado que mueve tiene PP para el
+     * movimiento dado (los movimientos que no tiene cuentan como sin PP).
+     *
+     * @param indice Índice del estado
+     * @param mov Índice del movimiento, menor que MAX_MOVIMIENTOS
+     * @return true si el movimiento tiene PP
+     */
+    public static boolean tienePp(int indice, int mov) {
+        return (indice >>> (MAX_MOVIMIENTOS + 2 * mov) & 3) != 0;
+    }
+
+    /**
+     * Tramo de vida: 1-10 puntos es el tramo 0, 91-100 el tramo 9.
+     */
+    private static int tramo(int vida) {
+        if (vida <= 0) return 0;
+        return Math.min(TRAMOS_VIDA - 1, (vida - 1) * TRAMOS_VIDA / EstadoBatalla.VIDA_MAX);
+    }
+}
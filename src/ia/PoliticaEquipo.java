@@ -0,0 +1,38 @@
+package ia;
+
+import java.util.SplittableRandom;
+
+import modelo.EstadoEquipos;
+
+/**
+ * Estrategia para los combates por equipos: qué hace el Pokémon activo cada turno
+ * y a quién se saca cuando se debilita.
+ */
+public interface PoliticaEquipo {
+
+    /**
+     * Elige la acción de un lado para el turno.
+     *
+     * @param estado Estado del combate (no se modifica)
+     * @param lado Lado que elige
+     * @param rand Generador aleatorio del hilo que llama
+     * @return Índice de movimiento, EstadoEquipos.CAMBIO + miembro, o EstadoEquipos.NINGUNA
+     */
+    int elegirAccion(EstadoEquipos estado, int lado, SplittableRandom rand);
+
+    /**
+     * Elige qué miembro sale después de que el activo se debilite.
+     * Por defecto el primero con vida.
+     *
+     * @param estado Estado del combate
+     * @param lado Lado que debe cambiar
+     * @param rand Generador aleatorio del hilo que llama
+     * @return Miembro con vida que sale, o -1 si no queda ninguno
+     */
+    default int elegirReemplazo(EstadoEquipos estado, int lado, SplittableRandom rand) {
+        for (int i = 0; i < estado.getMiembros(lado); i++) {
+            if (estado.puedeCambiar(lado, i)) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,56 @@
+package ia;
+
+import java.util.SplittableRandom;
+
+import modelo.EstadoEquipos;
+
+/**
+ * Política de equipo que elige al azar: normalmente un movimiento con PP del activo y,
+ * de vez en cuando (o si el activo no tiene PP), un cambio a otro miembro con vida.
+ * No crea objetos.
+ */
+public class PoliticaEquipoAleatoria implements PoliticaEquipo {
+
+    /** Probabilidad de cambiar de Pokémon pudiendo atacar */
+    private static final double PROBABILIDAD_CAMBIO = 0.1;
+
+    @Override
+    public int elegirAccion(EstadoEquipos estado, int lado, SplittableRandom rand) {
+        int miembro = estado.getActivo(lado);
+        int movimientos = 0;
+        for (int k = 0; k < estado.getNumMovimientos(lado, miembro); k++) {
+            if (estado.puedeUsar(lado, k)) movimientos++;
+        }
+        int cambios = 0;
+        for (int i = 0; i < estado.getMiembros(lado); i++) {
+            if (estado.puedeCambiar(lado, i)) cambios++;
+        }
+
+        if (cambios > 0 && (movimientos == 0 || rand.nextDouble() < PROBABILIDAD_CAMBIO)) {
+            int elegido = rand.nextInt(cambios);
+            for (int i = 0; i < estado.getMiembros(lado); i++) {
+                if (estado.puedeCambiar(lado, i) && elegido-- == 0) return EstadoEquipos.CAMBIO + i;
+            }
+        }
+        if (movimientos == 0) return EstadoEquipos.NINGUNA;
+        int elegido = rand.nextInt(movimientos);
+        for (int k = 0; k < estado.getNumMovimientos(lado, miembro); k++) {
+            if (estado.puedeUsar(lado, k) && elegido-- == 0) return k;
+        }
+        return EstadoEquipos.NINGUNA;
+    }
+
+    @Override
+    public int elegirReemplazo(EstadoEquipos estado, int lado, SplittableRandom rand) {
+        int vivos = 0;
+        for (int i = 0; i < estado.getMiembros(lado); i++) {
+            if (estado.puedeCambiar(lado, i)) vivos++;
+        }
+        if (vivos == 0) return -1;
+        int elegido = rand.nextInt(vivos);
+        for (int i = 0; i < estado.getMiembros(lado); i++) {
+            if (estado.puedeCambiar(lado, i) && elegido-- == 0) return i;
+        }
+        return -1;
+    }
+}
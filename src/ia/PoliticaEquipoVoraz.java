@@ -0,0 +1,62 @@
+package ia;
+
+import java.util.SplittableRandom;
+
+import modelo.EstadoEquipos;
+
+/**
+ * Política de equipo voraz: usa el movimiento con PP de mayor daño esperado contra el
+ * rival actual. Si el activo no puede hacer daño (sin PP o rival inmune), cambia al
+ * miembro con vida que más daño esperado le haría; lo mismo al elegir reemplazo.
+ * No crea objetos.
+ */
+public class PoliticaEquipoVoraz implements PoliticaEquipo {
+
+    @Override
+    public int elegirAccion(EstadoEquipos estado, int lado, SplittableRandom rand) {
+        int mejor = EstadoEquipos.NINGUNA;
+        double mejorDano = 0;
+        for (int k = 0; k < estado.getNumMovimientos(lado, estado.getActivo(lado)); k++) {
+            if (estado.puedeUsar(lado, k) && estado.danoEsperado(lado, k) > mejorDano) {
+                mejor = k;
+                mejorDano = estado.danoEsperado(lado, k);
+            }
+        }
+        if (mejor != EstadoEquipos.NINGUNA) return mejor;
+
+        int miembro = mejorMiembro(estado, lado);
+        if (miembro >= 0) return EstadoEquipos.CAMBIO + miembro;
+        // Sin cambios posibles: cualquier movimiento con PP aunque no haga daño
+        for (int k = 0; k < estado.getNumMovimientos(lado, estado.getActivo(lado)); k++) {
+            if (estado.puedeUsar(lado, k)) return k;
+        }
+        return EstadoEquipos.NINGUNA;
+    }
+
+    @Override
+    public int elegirReemplazo(EstadoEquipos estado, int lado, SplittableRandom rand) {
+        return mejorMiembro(estado, lado);
+    }
+
+    /**
+     * Miembro con vida (que no sea el activo) cuyo mejor movimiento con PP hace más
+     * daño esperado al activo rival, o -1 si no hay ninguno.
+     */
+    private static int mejorMiembro(EstadoEquipos estado, int lado) {
+        int rival = estado.getActivo(1 - lado);
+        int mejor = -1;
+        double mejorDano = -1;
+        for (int i = 0; i < estado.getMiembros(lado); i++) {
+            if (!estado.puedeCambiar(lado, i)) continue;
+            double dano = 0;
+            for (int k = 0; k < estado.getNumMovimientos(lado, i); k++) {
+                if (estado.getPp(lado, i, k) > 0) dano = Math.max(dano, estado.danoEsperadoContra(lado, i, k, rival));
+            }
+            if (dano > mejorDano) {
+                mejor = i;
+                mejorDano = dano;
+            }
+        }
+        return mejor;
+    }
+}
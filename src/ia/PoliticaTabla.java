@@ -0,0 +1,88 @@
+package ia;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import modelo.EstadoBatalla;
+
+/**
+ * Política aprendida por self-play y cargada desde una tabla binaria compacta.
+ *
+ * La tabla guarda, para cada lado e índice de CodificadorEstado, el movimiento elegido
+ * en 2 bits. Decidir un movimiento es calcular el índice y leer un byte: O(1) y sin
+ * crear objetos. Si el movimiento de la tabla no tiene PP se elige uno al azar.
+ *
+ * Formato del fichero: "PKPT" (int), versión (short), número de estados (int),
+ * y a continuación NUM_ESTADOS / 4 bytes por lado (Charizard y después Lucario).
+ */
+public class PoliticaTabla implements Politica {
+
+    private static final int MAGIA = 0x504B5054;
+    private static final short VERSION = 1;
+
+    private final byte[][] movimientos;
+
+    private PoliticaTabla(byte[][] movimientos) {
+        this.movimientos = movimientos;
+    }
+
+    @Override
+    public int elegirMovimiento(EstadoBatalla estado, SplittableRandom rand) {
+        int lado = estado.getTurno();
+        int indice = CodificadorEstado.indice(estado);
+        int mov = (movimientos[lado][indice >> 2] >> ((indice & 3) * 2)) & 3;
+        if (estado.puedeUsar(lado, mov)) return mov;
+        return PoliticaAleatoria.movimientoAleatorio(estado, rand);
+    }
+
+    /**
+     * Carga una tabla exportada por TablaQ.exportarPolitica.
+     *
+     * @param ruta Fichero de la tabla
+     * @return Política lista para usar
+     * @throws IOException Si el fichero no existe o no es compatible
+     */
+    public static PoliticaTabla cargar(Path ruta) throws IOException {
+        try (InputStream in = Files.newInputStream(ruta)) {
+            return cargar(in);
+        }
+    }
+
+    /**
+     * Carga una tabla desde un flujo (por ejemplo un recurso del classpath).
+     *
+     * @param entrada Flujo con el contenido de la tabla
+     * @return Política lista para usar
+     * @throws IOException Si el contenido no es compatible
+     */
+    public static PoliticaTabla cargar(InputStream entrada) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(entrada));
+        if (in.readInt() != MAGIA || in.readShort() != VERSION || in.readInt() != CodificadorEstado.NUM_ESTADOS) {
+            throw new IOException("Tabla de política no compatible");
+        }
+        byte[][] movimientos = new byte[2][CodificadorEstado.NUM_ESTADOS / 4];
+        in.readFully(movimientos[0]);
+        in.readFully(movimientos[1]);
+        return new PoliticaTabla(movimientos);
+    }
+
+    /**
+     * Escribe la tabla empaquetada en el formato que lee cargar.
+     */
+    static void escribir(Path ruta, byte[][] movimientos) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(ruta)))) {
+            out.writeInt(MAGIA);
+            out.writeShort(VERSION);
+            out.writeInt(CodificadorEstado.NUM_ESTADOS);
+            out.write(movimientos[0]);
+            out.write(movimientos[1]);
+        }
+    }
+}
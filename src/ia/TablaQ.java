@@ -0,0 +1,170 @@
+package ia;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+import modelo.EstadoBatalla;
+
+/**
+ * Tabla Q de ambos lados para el aprendizaje por refuerzo.
+ *
+ * Hay una fila por índice de CodificadorEstado y una columna por movimiento.
+ * Varios hilos la actualizan a la vez sin bloqueos (estilo "Hogwild"): alguna
+ * actualización se puede perder, pero a cambio el entrenamiento escala con los núcleos.
+ *
+ * Se puede guardar como punto de control para reanudar el entrenamiento y exportar
+ * como tabla de política compacta (ver PoliticaTabla).
+ */
+public class TablaQ {
+
+    /** Cabecera de los puntos de control ("PKQT") */
+    private static final int MAGIA_CHECKPOINT = 0x504B5154;
+
+    private static final int ACCIONES = CodificadorEstado.MAX_MOVIMIENTOS;
+
+    /** Valores Q por lado: q[lado][indice * ACCIONES + movimiento] */
+    final float[][] q = new float[2][CodificadorEstado.NUM_ESTADOS * ACCIONES];
+
+    /** Episodios de entrenamiento acumulados (también los de sesiones anteriores) */
+    final AtomicLong episodios = new AtomicLong();
+
+    /**
+     * Valor Q de un movimiento en el estado dado.
+     * @param lado Lado que mueve
+     * @param indice Índice del estado (CodificadorEstado)
+     * @param mov Índice del movimiento
+     * @return Valor Q estimado
+     */
+    public float valor(int lado, int indice, int mov) {
+        return q[lado][indice * ACCIONES + mov];
+    }
+
+    /**
+     * Mejor movimiento disponible para el lado que mueve según la tabla.
+     * @param estado Estado de la batalla
+     * @return Índice del movimiento, o -1 si no tiene ninguno con PP
+     */
+    public int mejorMovimiento(EstadoBatalla estado) {
+        int lado = estado.getTurno();
+        int base = CodificadorEstado.indice(estado) * ACCIONES;
+        int n = Math.min(ACCIONES, estado.getNumMovimientos(lado));
+        int mejor = -1;
+        for (int i = 0; i < n; i++) {
+            if (estado.puedeUsar(lado, i) && (mejor < 0 || q[lado][base + i] > q[lado][base + mejor])) {
+                mejor = i;
+            }
+        }
+        return mejor;
+    }
+
+    /**
+     * Valor del mejor movimiento disponible para el lado que mueve.
+     * @param estado Estado de una batalla no terminada
+     * @return Máximo valor Q entre los movimientos con PP
+     */
+    public float mejorValor(EstadoBatalla estado) {
+        int mov = mejorMovimiento(estado);
+        if (mov < 0) return 0f;
+        return valor(estado.getTurno(), CodificadorEstado.indice(estado), mov);
+    }
+
+    /**
+     * Acerca el valor Q de un movimiento al objetivo.
+     * @param lado Lado que movió
+     * @param indice Índice del estado antes de mover
+     * @param mov Movimiento usado
+     * @param objetivo Valor objetivo
+     * @param alfa Tasa de aprendizaje
+     */
+    public void actualizar(int lado, int indice, int mov, float objetivo, float alfa) {
+        int i = indice * ACCIONES + mov;
+        q[lado][i] += alfa * (objetivo - q[lado][i]);
+    }
+
+    public long getEpisodios() {
+        return episodios.get();
+    }
+
+    /**
+     * Suma episodios jugados al contador acumulado.
+     * @param n Episodios jugados
+     */
+    public void sumarEpisodios(long n) {
+        episodios.addAndGet(n);
+    }
+
+    /**
+     * Guarda la tabla completa en un fichero temporal y lo renombra, de forma que un
+     * corte a mitad de escritura nunca deja un punto de control corrupto.
+     *
+     * @param ruta Fichero del punto de control
+     * @throws IOException Si no se puede escribir
+     */
+    public void guardarCheckpoint(Path ruta) throws IOException {
+        Path temporal = ruta.resolveSibling(ruta.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporal), 1 << 16))) {
+            out.writeInt(MAGIA_CHECKPOINT);
+            out.writeInt(CodificadorEstado.NUM_ESTADOS);
+            out.writeLong(episodios.get());
+            for (float[] tabla : q) {
+                for (float v : tabla) out.writeFloat(v);
+            }
+        }
+        Files.move(temporal, ruta, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Carga un punto de control guardado con guardarCheckpoint.
+     *
+     * @param ruta Fichero del punto de control
+     * @return Tabla cargada
+     * @throws IOException Si el fichero no existe o no es compatible
+     */
+    public static TablaQ cargarCheckpoint(Path ruta) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(ruta), 1 << 16))) {
+            if (in.readInt() != MAGIA_CHECKPOINT || in.readInt() != CodificadorEstado.NUM_ESTADOS) {
+                throw new IOException("Punto de control no compatible: " + ruta);
+            }
+            TablaQ tabla = new TablaQ();
+            tabla.episodios.set(in.readLong());
+            for (float[] fila : tabla.q) {
+                for (int i = 0; i < fila.length; i++) fila[i] = in.readFloat();
+            }
+            return tabla;
+        }
+    }
+
+    /**
+     * Exporta la política aprendida: para cada lado y estado, el movimiento con PP con mayor
+     * valor Q (el mismo que elegiría mejorMovimiento) empaquetado en 2 bits (100 KB por lado).
+     * Los estados sin ningún movimiento con PP se quedan con el 0.
+     *
+     * @param ruta Fichero de salida
+     * @throws IOException Si no se puede escribir
+     */
+    public void exportarPolitica(Path ruta) throws IOException {
+        byte[][] movimientos = new byte[2][];
+        for (int lado = 0; lado < 2; lado++) {
+            byte[] empaquetado = new byte[CodificadorEstado.NUM_ESTADOS / 4];
+            for (int indice = 0; indice < CodificadorEstado.NUM_ESTADOS; indice++) {
+                int base = indice * ACCIONES;
+                int mejor = -1;
+                for (int a = 0; a < ACCIONES; a++) {
+                    if (CodificadorEstado.tienePp(indice, a) && (mejor < 0 || q[lado][base + a] > q[lado][base + mejor])) {
+                        mejor = a;
+                    }
+                }
+                if (mejor > 0) empaquetado[indice >> 2] |= (byte) (mejor << ((indice & 3) * 2));
+            }
+            movimientos[lado] = empaquetado;
+        }
+        PoliticaTabla.escribir(ruta, movimientos);
+    }
+}
@@ -0,0 +1,159 @@
+package metricas;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Eventos propios para Java Flight Recorder.
+ *
+ * Aparecen en la categoría "Pokémon Eclipse" de cualquier grabación, por ejemplo con
+ * -XX:StartFlightRecording o con "jcmd <pid> JFR.start", sin configurar nada más.
+ * Sin grabación en marcha begin() y commit() no hacen nada y la JIT suele eliminar el
+ * objeto del evento, así que se pueden dejar en el código de producción; donde no puede
+ * (ver ataqueActivo) el evento solo se crea si se está grabando. Los eventos que se
+ * emiten en cada turno no guardan la pila para que la grabación cueste lo mínimo.
+ */
+public final class EventosJfr {
+
+    private EventosJfr() {
+    }
+
+    /**
+     * Un ataque de Batalla.atacar, con la actualización de la interfaz incluida.
+     */
+    @Name("pokemon.Ataque")
+    @Label("Ataque")
+    @Category({"Pokémon Eclipse", "Batalla"})
+    @StackTrace(false)
+    public static final class Ataque extends Event {
+        @Label("Atacante")
+        public String atacante;
+
+        @Label("Movimiento")
+        public String movimiento;
+
+        @Label("Daño")
+        @Description("Puntos de vida (sobre 100) quitados al defensor; 0 si falló o perdió el turno")
+        public int dano;
+
+        @Label("Turno perdido")
+        @Description("El atacante estaba dormido o paralizado y no se movió")
+        public boolean turnoPerdido;
+    }
+
+    /**
+     * Una operación de AccesoDatos.
+     */
+    @Name("pokemon.BaseDatos")
+    @Label("Operación de base de datos")
+    @Category({"Pokémon Eclipse", "Base de datos"})
+    public static final class BaseDatos extends Event {
+        @Label("Operación")
+        public String operacion;
+
+        @Label("Sentencias")
+        public int sentencias;
+
+        @Label("Filas")
+        @Description("Filas escritas o leídas")
+        public int filas;
+
+        @Label("Correcta")
+        public boolean correcta;
+    }
+
+    /**
+     * Construcción de una vista o cambio de la escena del Stage principal.
+     */
+    @Name("pokemon.Escena")
+    @Label("Escena")
+    @Category({"Pokémon Eclipse", "Interfaz"})
+    public static final class Escena extends Event {
+        @Label("Escena")
+        public String escena;
+
+        @Label("Operación")
+        @Description("\"cargar\" para la construcción de la vista, \"mostrar\" para el cambio de escena")
+        public String operacion;
+    }
+
+    /**
+     * Tarea del hilo de JavaFX (normalmente un manejador de eventos) que ha tardado más
+     * de lo normal. Mientras dura, la ventana no se redibuja ni responde.
+     */
+    @Name("pokemon.TareaFx")
+    @Label("Tarea larga del hilo de JavaFX")
+    @Category({"Pokémon Eclipse", "Interfaz"})
+    @Threshold("20 ms")
+    public static final class TareaFx extends Event {
+        @Label("Tarea")
+        public String tarea;
+    }
+
+    /** Tipo del evento Ataque, para saber sin crear el evento si alguna grabación lo recoge */
+    private static final EventType TIPO_ATAQUE = EventType.getEventType(Ataque.class);
+
+    /**
+     * Batalla.atacar es demasiado grande para que la JIT elimine el objeto del evento, así
+     * que solo crea el Ataque cuando esto es true y los turnos no reservan memoria sin grabación.
+     *
+     * @return true si alguna grabación en marcha recoge el evento Ataque
+     */
+    public static boolean ataqueActivo() {
+        return TIPO_ATAQUE.isEnabled();
+    }
+
+    /** Tarea del hilo de JavaFX en marcha, o null; la lee el vigilante del hilo desde otro hilo */
+    private static volatile String tareaFxEnCurso;
+
+    /** Histograma "fx.tarea.<nombre>" de cada tarea, buscado en el registro una sola vez por nombre */
+    private static final ConcurrentHashMap<String, Histograma> HISTOGRAMAS_TAREA = new ConcurrentHashMap<>();
+
+    /**
+     * Ejecuta una tarea y la registra como TareaFx si supera el umbral (20 ms por defecto,
+     * configurable en la grabación). Su duración se guarda también en el histograma
+     * "fx.tarea.<nombre>" y, mientras dura, getTareaFxEnCurso() devuelve su nombre.
+     *
+     * @param nombre Nombre de la tarea, por ejemplo el del manejador
+     * @param tarea Código a ejecutar
+     */
+    public static void tareaFx(String nombre, Runnable tarea) {
+        String anterior = tareaFxEnCurso;
+        tareaFxEnCurso = nombre;
+        long inicio = System.nanoTime();
+        TareaFx evento = new TareaFx();
+        evento.begin();
+        try {
+            tarea.run();
+        } finally {
+            evento.end();
+            if (evento.shouldCommit()) {
+                evento.tarea = nombre;
+                evento.commit();
+            }
+            histogramaTarea(nombre).registrarDesde(inicio);
+            tareaFxEnCurso = anterior;
+        }
+    }
+
+    private static Histograma histogramaTarea(String nombre) {
+        Histograma histograma = HISTOGRAMAS_TAREA.get(nombre);
+        return histograma != null ? histograma
+                : HISTOGRAMAS_TAREA.computeIfAbsent(nombre, n -> Metricas.histograma("fx.tarea." + n));
+    }
+
+    /**
+     * @return Nombre de la tarea de tareaFx que se está ejecutando, o null si no hay ninguna
+     */
+    public static String getTareaFxEnCurso() {
+        return tareaFxEnCurso;
+    }
+}
@@ -0,0 +1,136 @@
+package metricas;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de duraciones (o de cualquier valor no negativo) sin bloqueos.
+ *
+ * Las cubetas son logarítmicas como en HdrHistogram: los 32 primeros valores tienen
+ * una cada uno y a partir de ahí cada potencia de dos se divide en 32 cubetas iguales,
+ * así que cualquier valor de 0 a Long.MAX_VALUE se guarda con un error relativo menor
+ * del 3% en un array fijo. Registrar un valor es calcular la cubeta con un par de
+ * operaciones de bits e incrementarla atómicamente; nunca se reservan objetos.
+ *
+ * Los percentiles se calculan al leer, recorriendo las cubetas. Una lectura hecha mientras
+ * otros hilos registran puede no incluir los últimos valores, pero nunca es incoherente
+ * por más de esos pocos valores.
+ */
+public final class Histograma {
+
+    /** Bits de la mantisa de cada cubeta: 2^5 = 32 cubetas por potencia de dos */
+    private static final int BITS_SUBCUBETA = 5;
+    private static final int SUBCUBETAS = 1 << BITS_SUBCUBETA;
+
+    /** Número de cubetas necesarias para cualquier valor long no negativo */
+    public static final int CUBETAS = (64 - BITS_SUBCUBETA + 1) * SUBCUBETAS;
+
+    private final AtomicLongArray cubetas = new AtomicLongArray(CUBETAS);
+    private final LongAdder suma = new LongAdder();
+    private final AtomicLong maximo = new AtomicLong();
+
+    Histograma() {
+    }
+
+    /**
+     * @param valor Valor a registrar; los negativos cuentan como 0
+     */
+    public void registrar(long valor) {
+        valor = Math.max(0, valor);
+        cubetas.incrementAndGet(cubeta(valor));
+        suma.add(valor);
+        // Casi siempre el valor no es un máximo nuevo y no hace falta escribir
+        long max = maximo.get();
+        while (valor > max && !maximo.compareAndSet(max, valor)) {
+            max = maximo.get();
+        }
+    }
+
+    /**
+     * Registra el tiempo pasado desde un instante.
+     * @param inicioNs Valor de System.nanoTime() al empezar la operación
+     */
+    public void registrarDesde(long inicioNs) {
+        registrar(System.nanoTime() - inicioNs);
+    }
+
+    /**
+     * @param valor Valor no negativo
+     * @return Cubeta del valor, entre 0 y CUBETAS - 1
+     */
+    public static int cubeta(long valor) {
+        if (valor < SUBCUBETAS) return (int) valor;
+        int exponente = 63 - Long.numberOfLeadingZeros(valor);
+        int desplazamiento = exponente - BITS_SUBCUBETA;
+        return (desplazamiento + 1) * SUBCUBETAS + (int) ((valor >>> desplazamiento) & (SUBCUBETAS - 1));
+    }
+
+    /**
+     * @param cubeta Índice de cubeta
+     * @return Mayor valor que cae en la cubeta
+     */
+    public static long limiteSuperior(int cubeta) {
+        if (cubeta < SUBCUBETAS) return cubeta;
+        int desplazamiento = cubeta / SUBCUBETAS - 1;
+        long base = (long) (SUBCUBETAS + cubeta % SUBCUBETAS) << desplazamiento;
+        return base + (1L << desplazamiento) - 1;
+    }
+
+    /**
+     * @param p Percentil entre 0.0 y 1.0
+     * @return Valor por debajo del que queda esa fracción de los registrados (cota superior de su cubeta)
+     */
+    public long percentil(double p) {
+        return percentiles(p)[0];
+    }
+
+    /**
+     * Calcula varios percentiles sobre la misma lectura de las cubetas.
+     * @param ps Percentiles entre 0.0 y 1.0, en orden creciente
+     * @return Valor de cada percentil
+     */
+    public long[] percentiles(double... ps) {
+        long[] copia = new long[CUBETAS];
+        long total = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            copia[i] = cubetas.get(i);
+            total += copia[i];
+        }
+        long max = maximo.get();
+        long[] valores = new long[ps.length];
+        if (total == 0) return valores;
+        int i = 0;
+        long acumulado = copia[0];
+        for (int k = 0; k < ps.length; k++) {
+            long objetivo = Math.max(1, (long) Math.ceil(ps[k] * total));
+            while (acumulado < objetivo && i < CUBETAS - 1) acumulado += copia[++i];
+            valores[k] = Math.min(max, limiteSuperior(i));
+        }
+        return valores;
+    }
+
+    /**
+     * @return Valores registrados (se suman las cubetas, así que registrar no paga un contador más)
+     */
+    public long cuenta() {
+        long n = 0;
+        for (int i = 0; i < CUBETAS; i++) n += cubetas.get(i);
+        return n;
+    }
+
+    public double media() {
+        long n = cuenta();
+        return n == 0 ? 0 : (double) suma.sum() / n;
+    }
+
+    public long maximo() {
+        return maximo.get();
+    }
+
+    void reiniciar() {
+        for (int i = 0; i < CUBETAS; i++) cubetas.set(i, 0);
+        suma.reset();
+        maximo.set(0);
+    }
+}
@@ -0,0 +1,150 @@
+package metricas;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Registro de métricas de toda la aplicación: contadores, histogramas de duración y medidores.
+ *
+ * Las métricas se piden por nombre una sola vez (normalmente en un campo static final de la
+ * clase que las usa) y después se actualizan sin pasar por el registro, así que en el
+ * camino caliente solo cuestan un incremento de LongAdder o de una cubeta del histograma.
+ * Los nombres van en minúsculas separados por puntos: "batalla.atacar", "bd.guardar"...
+ * Las duraciones se registran en nanosegundos.
+ *
+ * leer() da una foto de todos los valores, que se puede exportar como texto o JSON.
+ * Se puede usar desde cualquier hilo.
+ */
+public final class Metricas {
+
+    private static final ConcurrentHashMap<String, Object> METRICAS = new ConcurrentHashMap<>();
+
+    /** Percentiles que se exportan de cada histograma */
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final String[] SUFIJOS = {"p50", "p90", "p99", "p999"};
+
+    static {
+        MemoryMXBean memoria = ManagementFactory.getMemoryMXBean();
+        medidor("jvm.memoria_usada_bytes", () -> memoria.getHeapMemoryUsage().getUsed());
+        medidor("jvm.hilos", () -> ManagementFactory.getThreadMXBean().getThreadCount());
+    }
+
+    private Metricas() {
+    }
+
+    /**
+     * @param nombre Nombre de la métrica
+     * @return Contador con ese nombre; se crea la primera vez
+     * @throws IllegalArgumentException Si el nombre ya es de otro tipo de métrica
+     */
+    public static Contador contador(String nombre) {
+        return obtener(nombre, Contador.class, Contador::new);
+    }
+
+    /**
+     * @param nombre Nombre de la métrica
+     * @return Histograma con ese nombre; se crea la primera vez
+     * @throws IllegalArgumentException Si el nombre ya es de otro tipo de métrica
+     */
+    public static Histograma histograma(String nombre) {
+        return obtener(nombre, Histograma.class, Histograma::new);
+    }
+
+    /**
+     * Registra un medidor, un valor que se consulta en el momento de leer las métricas
+     * (tamaño de una cola, memoria usada...). Si ya existía uno con ese nombre se sustituye.
+     *
+     * @param nombre Nombre de la métrica
+     * @param valor Función que devuelve el valor actual; debe ser rápida y se puede llamar desde cualquier hilo
+     */
+    public static void medidor(String nombre, DoubleSupplier valor) {
+        Object anterior = METRICAS.put(nombre, valor);
+        if (anterior != null && !(anterior instanceof DoubleSupplier)) {
+            METRICAS.put(nombre, anterior);
+            throw new IllegalArgumentException("La métrica " + nombre + " no es un medidor");
+        }
+    }
+
+    private static <T> T obtener(String nombre, Class<T> tipo, Supplier<T> crear) {
+        Object m = METRICAS.computeIfAbsent(nombre, k -> crear.get());
+        if (!tipo.isInstance(m)) {
+            throw new IllegalArgumentException("La métrica " + nombre + " no es un " + tipo.getSimpleName().toLowerCase());
+        }
+        return tipo.cast(m);
+    }
+
+    /**
+     * Foto de todas las métricas, ordenadas por nombre. Cada contador y medidor da un valor;
+     * cada histograma da su cuenta, media, percentiles y máximo ("nombre.cuenta", "nombre.p99"...).
+     *
+     * @return Mapa nuevo de nombre a valor (Long o Double)
+     */
+    public static Map<String, Number> leer() {
+        Map<String, Number> valores = new TreeMap<>();
+        for (Map.Entry<String, Object> e : METRICAS.entrySet()) {
+            String nombre = e.getKey();
+            Object m = e.getValue();
+            if (m instanceof Contador) {
+                valores.put(nombre, ((Contador) m).valor());
+            } else if (m instanceof Histograma) {
+                Histograma h = (Histograma) m;
+                valores.put(nombre + ".cuenta", h.cuenta());
+                valores.put(nombre + ".media", h.media());
+                long[] p = h.percentiles(PERCENTILES);
+                for (int i = 0; i < p.length; i++) valores.put(nombre + "." + SUFIJOS[i], p[i]);
+                valores.put(nombre + ".max", h.maximo());
+            } else {
+                valores.put(nombre, ((DoubleSupplier) m).getAsDouble());
+            }
+        }
+        return valores;
+    }
+
+    /**
+     * @return Una línea "nombre valor" por métrica
+     */
+    public static String aTexto() {
+        StringBuilder texto = new StringBuilder();
+        for (Map.Entry<String, Number> e : leer().entrySet()) {
+            texto.append(e.getKey()).append(' ').append(formatear(e.getValue())).append(System.lineSeparator());
+        }
+        return texto.toString();
+    }
+
+    /**
+     * @return Objeto JSON de una línea con todas las métricas
+     */
+    public static String aJson() {
+        StringBuilder json = new StringBuilder("{");
+        for (Map.Entry<String, Number> e : leer().entrySet()) {
+            if (json.length() > 1) json.append(", ");
+            json.append('"').append(e.getKey()).append("\": ").append(formatear(e.getValue()));
+        }
+        return json.append('}').toString();
+    }
+
+    /**
+     * Números con punto decimal sea cual sea el idioma del sistema.
+     */
+    private static String formatear(Number valor) {
+        if (valor instanceof Double) return String.format(Locale.ROOT, "%.3f", valor.doubleValue());
+        return String.valueOf(valor);
+    }
+
+    /**
+     * Pone a cero los contadores y los histogramas, por ejemplo entre dos mediciones.
+     * Los medidores no se tocan.
+     */
+    public static void reiniciar() {
+        for (Object m : METRICAS.values()) {
+            if (m instanceof Contador) ((Contador) m).reiniciar();
+            else if (m instanceof Histograma) ((Histograma) m).reiniciar();
+        }
+    }
+}
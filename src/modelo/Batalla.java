@@ -1,12 +1,17 @@
 package modelo;
 
 import controlador.BatallaController;
-import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 
 import java.io.*;
 import java.util.Random;
 
+import metricas.Contador;
+import metricas.EventosJfr;
+import metricas.Histograma;
+import metricas.Metricas;
+import registro.Registro;
+
 /**
  * Clase que representa la lógica de una batalla entre dos Pokémon: Charizard y Lucario.
  * 
@@ -14,7 +19,8 @@ import java.util.Random;
  * y la interacción con la interfaz a través del controlador BatallaController.
  * 
  * No contiene referencias directas a elementos gráficos como Stage o Scene, solo a controles UI necesarios
- * para actualizar la interfaz (labels y botones).
+ * para actualizar la interfaz (labels y botones). Sin controlador (ver setController) la batalla
+ * se juega igual, sin interfaz.
  */
 public class Batalla {
 
@@ -24,52 +30,153 @@ public class Batalla {
     // Indica si es el turno de Charizard (true) o de Lucario (false)
     boolean turnoCharizard = true;
 
-    // Referencias a etiquetas de la interfaz para mostrar información de turno y vida
+    // Etiqueta de la interfaz que muestra de quién es el turno
     Label labelTurno;
-    Label vidaCharizard, vidaLucario;
-
-    // Arreglos con botones de movimientos para cada Pokémon (para actualizar estado y texto)
-    Button[] botonesMovCharizard = new Button[4];
-    Button[] botonesMovLucario = new Button[4];
 
     // Controlador asociado para comunicación con la UI
     private BatallaController controller;
 
+    // Probabilidad de golpe crítico y variación mínima del daño de los movimientos predeterminados
+    static final double PROB_CRITICO = 1.0 / 24;
+    static final double VARIACION = 0.85;
+
+    // Generador para las tiradas de daño y los ataques aleatorios de Lucario
+    private final Random rand = new Random();
+
+    // Posiciones anteriores a cada ataque, para deshacer y rehacer
+    private final HistorialBatalla historial = new HistorialBatalla(500);
+
+    // false si los ataques no se guardan en el historial (ver setDeshacerActivo)
+    private boolean deshacerActivo = true;
+
+    // Última instantánea creada, para compartir sus tablas y PP con la siguiente
+    private Instantanea ultimaInstantanea;
+
+    // Estado que se reutiliza en cada turno para las instantáneas y el rival (ver getEstadoCompartido)
+    private EstadoBatalla estadoCompartido;
+
+    // Mensajes de la batalla; se escriben en otro hilo para no retrasar los turnos
+    private static final Registro REGISTRO = Registro.de("batalla");
+
+    // Nombres de las estadísticas en los mensajes, por índice (Condicion.ATAQUE...)
+    private static final String[] ESTADISTICAS = {"El ataque", "La defensa", "La velocidad"};
+
+    // Métricas de los ataques: duración (incluida la actualización de la interfaz) y resultados
+    private static final Histograma TIEMPO_ATAQUE = Metricas.histograma("batalla.atacar");
+    private static final Contador ATAQUES_SIN_PP = Metricas.contador("batalla.sin_pp");
+    private static final Contador TURNOS_PERDIDOS = Metricas.contador("batalla.turnos_perdidos");
+    private static final Contador DERROTAS = Metricas.contador("batalla.derrotas");
+
     /**
-     * Constructor que inicializa los Pokémon y sus movimientos con valores predeterminados.
+     * Constructor que inicializa los Pokémon y sus movimientos con el catálogo activo
+     * (los valores predeterminados salvo que se indique -Dpokemon.catalogo).
      * Establece la vida inicial al 100% (1.0).
      */
     public Batalla() {
-        charizard = new Pokemon("Mega Charizard", new Movimiento[]{
-                new Movimiento("Llamarada", 20, 2),
-                new Movimiento("Garra Dragón", 12, 6),
-                new Movimiento("Acróbata", 11, 7),
-                new Movimiento("Lanzallamas", 8, 10)
-        });
+        this(Catalogo.activo());
+    }
+
+    /**
+     * Constructor que toma los movimientos de un catálogo (por ejemplo uno ajustado
+     * con el ajustador de balance) en lugar de los valores predeterminados.
+     *
+     * @param catalogo Catálogo con los movimientos de ambos Pokémon.
+     */
+    public Batalla(Catalogo catalogo) {
+        charizard = new Pokemon("Mega Charizard", catalogo.especie(EstadoBatalla.CHARIZARD),
+                catalogo.movimientos(EstadoBatalla.CHARIZARD));
         charizard.setVida(1.0);
 
-        lucario = new Pokemon("Mega Lucario", new Movimiento[]{
-                new Movimiento("Abocajarro", 25, 3),
-                new Movimiento("Patada Alta", 12, 5),
-                new Movimiento("Puño Certero", 10, 7),
-                new Movimiento("Esfera Aural", 5, 6)
-        });
+        lucario = new Pokemon("Mega Lucario", catalogo.especie(EstadoBatalla.LUCARIO),
+                catalogo.movimientos(EstadoBatalla.LUCARIO));
         lucario.setVida(1.0);
     }
 
+    /**
+     * Especie de Charizard: Mega Charizard X, de tipo Fuego y Dragón.
+     * @return Tipos y estadísticas de Charizard.
+     */
+    public static Especie especieCharizard() {
+        return new Especie("Mega Charizard X", new Tipo[]{Tipo.FUEGO, Tipo.DRAGON}, 100, 100, 100);
+    }
+
+    /**
+     * Especie de Lucario: Mega Lucario, de tipo Lucha y Acero, con más defensa.
+     * @return Tipos y estadísticas de Lucario.
+     */
+    public static Especie especieLucario() {
+        return new Especie("Mega Lucario", new Tipo[]{Tipo.LUCHA, Tipo.ACERO}, 100, 150, 112);
+    }
+
+    /**
+     * Crea los movimientos iniciales de Charizard con sus PP al máximo.
+     * Todos los movimientos tienen 1/24 de probabilidad de crítico y un daño entre el 85% y el 100%.
+     * El daño es el base: contra Lucario el Fuego es muy eficaz y el Dragón poco eficaz.
+     * Llamarada y Lanzallamas pueden quemar (10%).
+     * @return Array con los 4 movimientos de Charizard.
+     */
+    public static Movimiento[] movimientosCharizard() {
+        return new Movimiento[]{
+                new Movimiento("Llamarada", Tipo.FUEGO, 10, 2, 0.85, PROB_CRITICO, VARIACION)
+                        .setEfecto(Condicion.EFECTO_QUEMAR, 0.1),
+                new Movimiento("Garra Dragón", Tipo.DRAGON, 24, 6, 1.0, PROB_CRITICO, VARIACION),
+                new Movimiento("Acróbata", Tipo.VOLADOR, 16, 7, 1.0, PROB_CRITICO, VARIACION),
+                new Movimiento("Lanzallamas", Tipo.FUEGO, 4, 10, 1.0, PROB_CRITICO, VARIACION)
+                        .setEfecto(Condicion.EFECTO_QUEMAR, 0.1)
+        };
+    }
+
+    /**
+     * Crea los movimientos iniciales de Lucario con sus PP al máximo.
+     * Todos los movimientos tienen 1/24 de probabilidad de crítico y un daño entre el 85% y el 100%.
+     * Todos son de tipo Lucha, así que tienen STAB. Puño Certero puede bajar la defensa
+     * del rival (10%).
+     * @return Array con los 4 movimientos de Lucario.
+     */
+    public static Movimiento[] movimientosLucario() {
+        return new Movimiento[]{
+                new Movimiento("Abocajarro", Tipo.LUCHA, 17, 3, 1.0, PROB_CRITICO, VARIACION),
+                new Movimiento("Patada Alta", Tipo.LUCHA, 8, 5, 0.9, PROB_CRITICO, VARIACION),
+                new Movimiento("Puño Certero", Tipo.LUCHA, 7, 7, 0.7, PROB_CRITICO, VARIACION)
+                        .setEfecto(Condicion.EFECTO_BAJAR_DEFENSA, 0.1),
+                new Movimiento("Esfera Aural", Tipo.LUCHA, 3, 6, 1.0, PROB_CRITICO, VARIACION)
+        };
+    }
+
+    /**
+     * Estado de una partida nueva sin crear Pokémon ni controles de la interfaz,
+     * para las herramientas que simulan batallas sin JavaFX.
+     *
+     * @return Estado inicial: ambos con vida completa, PP al máximo y turno de Charizard.
+     */
+    public static EstadoBatalla estadoInicial() {
+        return Catalogo.activo().estadoInicial();
+    }
+
     /**
      * Establece el controlador de la batalla para poder actualizar la interfaz gráfica.
-     * Obtiene referencias a etiquetas y botones desde el controlador.
+     * Obtiene la etiqueta del turno desde el controlador; las barras, las etiquetas de vida
+     * y los botones de movimiento los gestiona el propio controlador. Mientras no se llame,
+     * la batalla no toca la interfaz.
      * 
      * @param controller Instancia del controlador BatallaController.
      */
     public void setController(BatallaController controller) {
         this.controller = controller;
         this.labelTurno = controller.getLabelTurno();
-        this.vidaCharizard = controller.getVidaCharizard();
-        this.vidaLucario = controller.getVidaLucario();
-        this.botonesMovCharizard = controller.getBotonesCharizard();
-        //this.botonesMovLucario = controller.getBotonesLucario();
+    }
+
+    /**
+     * Activa o desactiva el historial para deshacer. Cada ataque guarda en él una instantánea
+     * (un objeto pequeño y, si cambian los PP, una copia de los del atacante), así que las
+     * batallas que se juegan solas, como el modo turbo, lo desactivan para no reservar memoria
+     * en cada turno. Al desactivarlo se olvida lo que hubiera.
+     *
+     * @param activo true para poder deshacer los ataques
+     */
+    public void setDeshacerActivo(boolean activo) {
+        deshacerActivo = activo;
+        if (!activo) historial.limpiar();
     }
 
     /**
@@ -77,51 +184,151 @@ public class Batalla {
      * Se especifica si ataca Charizard (true) o Lucario (false),
      * y el índice del movimiento que se usará.
      * 
-     * Se decrementan los PP del movimiento, se calcula el daño y se actualizan las barras y botones.
-     * Cambia el turno y actualiza el texto en la interfaz.
+     * Si el atacante está dormido o paralizado puede perder el turno. Si no, se decrementan
+     * los PP del movimiento, se calcula el daño (con niveles y quemadura) y se tira su efecto
+     * secundario. Al final del turno el atacante sufre el daño de quemadura o veneno.
+     * Se actualizan las barras y botones, cambia el turno y actualiza el texto en la interfaz.
+     * Como en EstadoBatalla, si al que le toca no le quedan PP el turno vuelve al atacante.
+     *
+     * Sin grabación JFR ni historial para deshacer no reserva memoria, con interfaz o sin ella
+     * (lo comprueba simulacion.PresupuestoAsignacion).
      * 
      * @param esCharizard true si ataca Charizard, false si ataca Lucario.
      * @param movIndex índice del movimiento usado.
+     * @return true si el ataque se realizó, false si el movimiento no tenía PP.
      */
-    public void atacar(boolean esCharizard, int movIndex) {
+    public boolean atacar(boolean esCharizard, int movIndex) {
+        long inicio = System.nanoTime();
+        EventosJfr.Ataque evento = EventosJfr.ataqueActivo() ? new EventosJfr.Ataque() : null;
+        if (evento != null) evento.begin();
         Pokemon atacante = esCharizard ? charizard : lucario;
         Pokemon defensor = esCharizard ? lucario : charizard;
         Movimiento mov = atacante.movimientos[movIndex];
 
         if (mov.pp <= 0) {
-            System.out.println("Sin PP para " + mov.nombre);
-            return;
+            REGISTRO.aviso("Sin PP para {}", mov.nombre);
+            ATAQUES_SIN_PP.incrementar();
+            return false;
+        }
+        if (deshacerActivo) historial.registrar(getInstantanea());
+
+        int estadoAntes = Condicion.principal(atacante.condicion);
+        int c = Condicion.intentarMover(atacante.condicion, rand);
+        atacante.condicion = c & ~Condicion.PIERDE_TURNO;
+        int dano = 0;
+
+        if ((c & Condicion.PIERDE_TURNO) != 0) {
+            TURNOS_PERDIDOS.incrementar();
+            REGISTRO.info(estadoAntes == Condicion.DORMIDO
+                    ? "{} está dormido."
+                    : "{} está paralizado. ¡No se puede mover!", atacante.nombre);
+        } else {
+            if (estadoAntes == Condicion.DORMIDO) REGISTRO.info("{} se despertó.", atacante.nombre);
+            mov.pp--;
+
+            // Tirada de daño según tipos, estadísticas, precisión, crítico y variación (0 = el ataque falla)
+            dano = atacante.distribucionContra(movIndex, defensor).tirar(rand);
+            dano = Condicion.escalarDano(dano, atacante.condicion, defensor.condicion);
+            defensor.vida -= dano / 100.0;
+            if (defensor.vida < 0) defensor.vida = 0;
+
+            if (dano == 0 && mov.dano > 0) {
+                REGISTRO.info("{} usó {}, pero falló.", atacante.nombre, mov.nombre);
+            } else {
+                REGISTRO.info("{} usó {}. Vida de {}: {}%", atacante.nombre, mov.nombre, defensor.nombre,
+                        (int) Math.round(defensor.vida * 100));
+                double efectividad = defensor.especie.efectividadRecibida(mov.tipo);
+                if (efectividad > 1) REGISTRO.info("¡Es muy eficaz!");
+                else if (efectividad < 1) REGISTRO.info("No es muy eficaz...");
+                if (mov.efecto != Condicion.EFECTO_NINGUNO && rand.nextDouble() < mov.probEfectoAlUsar()) {
+                    aplicarEfecto(Condicion.esPropio(mov.efecto) ? atacante : defensor, mov.efecto);
+                }
+            }
         }
 
-        mov.pp--;
-
-        defensor.vida -= mov.dano / 100.0;
-        if (defensor.vida < 0) defensor.vida = 0;
-
-        System.out.println(atacante.nombre + " usó " + mov.nombre + ". Vida de " + defensor.nombre + ": " + (int) (defensor.vida * 100) + "%");
-
-        actualizarBarrasVida();
-        actualizarBotones();
+        // Fin del turno: daño por quemadura o veneno del atacante
+        int residual = Condicion.danoResidual(atacante.condicion);
+        if (residual > 0 && defensor.vida > 0) {
+            atacante.vida = Math.max(0, atacante.vida - residual / 100.0);
+            REGISTRO.info(Condicion.principal(atacante.condicion) == Condicion.QUEMADO
+                    ? "{} se resiente de la quemadura." : "{} sufre por el veneno.", atacante.nombre);
+        }
 
-        if (defensor.vida <= 0) {
-            labelTurno.setText("¡" + defensor.nombre + " ha sido derrotado!");
+        Pokemon derrotado = defensor.vida <= 0 ? defensor : atacante.vida <= 0 ? atacante : null;
+        if (derrotado != null) {
+            DERROTAS.incrementar();
             verificarFinBatalla();
-            controller.desactivarBotones();
         } else {
             turnoCharizard = !turnoCharizard;
+            normalizarTurno();
+        }
+        actualizarInterfaz(derrotado);
+        TIEMPO_ATAQUE.registrarDesde(inicio);
+        if (evento != null && evento.shouldCommit()) {
+            evento.atacante = atacante.nombre;
+            evento.movimiento = mov.nombre;
+            evento.dano = dano;
+            evento.turnoPerdido = (c & Condicion.PIERDE_TURNO) != 0;
+            evento.commit();
+        }
+        return true;
+    }
+
+    /**
+     * Muestra en la interfaz el turno (o el derrotado), las barras y los botones.
+     * Sin controlador no hace nada.
+     *
+     * @param derrotado Pokémon derrotado en el último ataque, o null si la partida sigue
+     */
+    private void actualizarInterfaz(Pokemon derrotado) {
+        if (controller == null) return;
+        if (derrotado != null) {
+            labelTurno.setText("¡" + derrotado.nombre + " ha sido derrotado!");
+            controller.desactivarBotones();
+        } else {
             labelTurno.setText(turnoCharizard ? "Turno de Charizard" : "Turno de Lucario");
         }
         controller.actualizarUI();
     }
 
+    /**
+     * Si al Pokémon al que le toca no le quedan PP y al otro sí, le cede el turno (la misma
+     * regla que EstadoBatalla.normalizarTurno, para que la IA y la interfaz coincidan).
+     */
+    private void normalizarTurno() {
+        Pokemon propio = turnoCharizard ? charizard : lucario;
+        Pokemon rival = turnoCharizard ? lucario : charizard;
+        if (!propio.tieneMovimientos() && rival.tieneMovimientos()) turnoCharizard = !turnoCharizard;
+    }
+
+    /**
+     * Aplica un efecto secundario a un Pokémon y anota el cambio en el registro.
+     * @param objetivo Pokémon afectado
+     * @param efecto Efecto (Condicion.EFECTO_*)
+     */
+    private void aplicarEfecto(Pokemon objetivo, int efecto) {
+        int antes = objetivo.condicion;
+        objetivo.condicion = Condicion.aplicarEfecto(antes, efecto, Condicion.inmunidades(objetivo.especie), rand);
+        if (objetivo.condicion == antes) return;
+        if (Condicion.principal(objetivo.condicion) != Condicion.principal(antes)) {
+            REGISTRO.info("¡{} ahora está {}!", objetivo.nombre, Condicion.nombreMinusculas(objetivo.condicion));
+        }
+        for (int e = Condicion.ATAQUE; e <= Condicion.VELOCIDAD; e++) {
+            int cambio = Condicion.nivel(objetivo.condicion, e) - Condicion.nivel(antes, e);
+            if (cambio != 0) {
+                REGISTRO.info(cambio > 0 ? "{} de {} subió." : "{} de {} bajó.", ESTADISTICAS[e], objetivo.nombre);
+            }
+        }
+    }
+
     /**
      * Método que ejecuta un ataque aleatorio de Lucario.
      * Se asegura de que Lucario tenga movimientos con PP disponible antes de atacar.
+     * @return true si Lucario atacó
      */
-    public void ataqueAleatorioLucario() {
-        if (charizard.getVida() <= 0 || lucario.getVida() <= 0) return;
+    public boolean ataqueAleatorioLucario() {
+        if (charizard.getVida() <= 0 || lucario.getVida() <= 0) return false;
 
-        Random rand = new Random();
         Movimiento[] movimientos = lucario.getMovimientos();
 
         int intentos = 0;
@@ -131,57 +338,40 @@ public class Batalla {
             intentos++;
         } while (movimientos[index].getPp() <= 0 && intentos < 10);
 
-        if (movimientos[index].getPp() > 0) {
-            atacar(false, index); 
-        } 
+        return movimientos[index].getPp() > 0 && atacar(false, index);
     }
 
     /**
      * Inicializa o reinicia una partida nueva.
      * Restablece la vida, turno y PP de movimientos de ambos Pokémon.
-     * Actualiza la interfaz y muestra mensaje por consola.
+     * Actualiza la interfaz y anota el mensaje en el registro.
      */
     public void iniciarPartidaNueva() {
         charizard.setVida(1.0);
         lucario.setVida(1.0);
+        charizard.setCondicion(Condicion.NINGUNO);
+        lucario.setCondicion(Condicion.NINGUNO);
         turnoCharizard = true;
-        labelTurno.setText("Turno de Charizard");
         charizard.resetMovimientos();
         lucario.resetMovimientos();
-        actualizarBarrasVida();
-        actualizarBotones();
-        System.out.println("Iniciando partida nueva...");
+        historial.limpiar();
+        actualizarInterfaz(null);
+        REGISTRO.info("Iniciando partida nueva...");
     }
 
     /**
-     * Actualiza las barras de vida y etiquetas con el porcentaje actual de vida de cada Pokémon.
+     * Texto de la etiqueta de vida: porcentaje y condiciones (ej. "80% QUE Def-1").
+     * @param p Pokémon
+     * @return Texto para la etiqueta
      */
-    private void actualizarBarrasVida() {
-        charizard.actualizarBarra();
-        lucario.actualizarBarra();
-        vidaCharizard.setText((int) (charizard.vida * 100) + "%");
-        vidaLucario.setText((int) (lucario.vida * 100) + "%");
-    }
-
-    /**
-     * Actualiza los textos y estado (habilitado/deshabilitado) de los botones de movimientos
-     * de Charizard según el turno actual y los PP restantes.
-     */
-    private void actualizarBotones() {
-        for (int i = 0; i < charizard.movimientos.length; i++) {
-            Movimiento m = charizard.movimientos[i];
-            botonesMovCharizard[i].setText(m.nombre + " (PP: " + m.pp + "/" + m.ppMax + ")");
-            botonesMovCharizard[i].setDisable(!turnoCharizard || m.pp <= 0 || charizard.vida <= 0);
-        }
-        /* Código comentado para deshabilitar botones de Lucario si fuera necesario
-        for (int i = 0; i < lucario.movimientos.length; i++) {
-            botonesMovLucario[i].setDisable(true);
-        }*/
+    public static String textoVida(Pokemon p) {
+        String condicion = Condicion.abreviatura(p.condicion);
+        return (int) (p.vida * 100) + "%" + (condicion.isEmpty() ? "" : " " + condicion);
     }
 
     /**
      * Guarda el estado actual de la partida en un archivo de texto local.
-     * Se almacenan vida, turno y PP de movimientos de ambos Pokémon.
+     * Se almacenan vida, turno, PP de movimientos y condiciones de estado de ambos Pokémon.
      */
     public void guardarPartida() {
         try (PrintWriter writer = new PrintWriter(new FileWriter("partida_guardada.txt"))) {
@@ -190,15 +380,18 @@ public class Batalla {
             writer.println(turnoCharizard);
             for (Movimiento m : charizard.movimientos) writer.println(m.pp);
             for (Movimiento m : lucario.movimientos) writer.println(m.pp);
-            System.out.println("Partida guardada.");
+            writer.println(charizard.condicion);
+            writer.println(lucario.condicion);
+            REGISTRO.info("Partida guardada.");
         } catch (IOException e) {
-            System.out.println("Error al guardar partida.");
+            REGISTRO.error("Error al guardar partida.", e);
         }
     }
 
     /**
      * Carga una partida previamente guardada desde archivo de texto local,
-     * actualizando vida, turno y PP de movimientos.
+     * actualizando vida, turno, PP de movimientos y condiciones (las partidas guardadas
+     * antes de existir las condiciones no las tienen y se cargan sin ninguna).
      * Actualiza también la interfaz con los nuevos valores cargados.
      */
     public void cargarPartida() {
@@ -208,40 +401,107 @@ public class Batalla {
             turnoCharizard = Boolean.parseBoolean(reader.readLine());
             for (Movimiento m : charizard.movimientos) m.pp = Integer.parseInt(reader.readLine());
             for (Movimiento m : lucario.movimientos) m.pp = Integer.parseInt(reader.readLine());
-
-            actualizarBarrasVida();
-            actualizarBotones();
-            labelTurno.setText(turnoCharizard ? "Turno de Charizard" : "Turno de Lucario");
-
-            System.out.println("Partida cargada.");
+            String linea = reader.readLine();
+            charizard.condicion = linea == null ? Condicion.NINGUNO : Integer.parseInt(linea);
+            linea = reader.readLine();
+            lucario.condicion = linea == null ? Condicion.NINGUNO : Integer.parseInt(linea);
+            normalizarTurno();
+            historial.limpiar();
+            actualizarInterfaz(null);
+
+            REGISTRO.info("Partida cargada.");
         } catch (IOException | NumberFormatException e) {
-            System.out.println("Error al cargar partida: " + e.getMessage());
+            REGISTRO.error("Error al cargar partida: {}", e.getMessage());
         }
     }
 
     /**
-     * Deshabilita todos los botones de movimientos de ambos Pokémon (por ejemplo, al finalizar batalla).
+     * Pone la batalla en la posición de una partida cargada de la base de datos (ver
+     * AccesoDatos.cargarUltimaPartida): vida, condiciones, PP y turno. Los PP se copian por
+     * nombre de movimiento. Actualiza también la interfaz.
+     *
+     * @param turnoCharizard true si en la partida le toca a Charizard
+     * @param charizard Charizard de la partida, o null si no está (se queda como está)
+     * @param lucario Lucario de la partida, o null si no está
      */
-    private void deshabilitarTodosLosBotones() {
-        for (Button b : botonesMovCharizard) {
-            b.setDisable(true);
+    public void cargarPartida(boolean turnoCharizard, Pokemon charizard, Pokemon lucario) {
+        copiar(charizard, this.charizard);
+        copiar(lucario, this.lucario);
+        this.turnoCharizard = turnoCharizard;
+        normalizarTurno();
+        historial.limpiar();
+        actualizarInterfaz(null);
+
+        REGISTRO.info("Partida cargada.");
+    }
+
+    private static void copiar(Pokemon origen, Pokemon destino) {
+        if (origen == null) return;
+        destino.vida = origen.vida;
+        destino.condicion = origen.condicion;
+        for (Movimiento m : destino.movimientos) {
+            for (Movimiento guardado : origen.movimientos) {
+                if (guardado.nombre.equals(m.nombre)) m.pp = guardado.pp;
+            }
         }
-        for (Button b : botonesMovLucario) {
-            b.setDisable(true);
+    }
+
+    /**
+     * Vuelve a la posición anterior al último ataque.
+     * @return true si había algo que deshacer
+     */
+    public boolean deshacer() {
+        Instantanea anterior = historial.deshacer(getInstantanea());
+        if (anterior == null) return false;
+        restaurar(anterior);
+        return true;
+    }
+
+    /**
+     * Vuelve a aplicar el último ataque deshecho, con el mismo resultado que tuvo.
+     * @return true si había algo que rehacer
+     */
+    public boolean rehacer() {
+        Instantanea siguiente = historial.rehacer(getInstantanea());
+        if (siguiente == null) return false;
+        restaurar(siguiente);
+        return true;
+    }
+
+    public boolean puedeDeshacer() {
+        return historial.puedeDeshacer();
+    }
+
+    public boolean puedeRehacer() {
+        return historial.puedeRehacer();
+    }
+
+    /**
+     * Copia una instantánea en los Pokémon y actualiza la interfaz.
+     * @param i Posición a restaurar
+     */
+    private void restaurar(Instantanea i) {
+        Pokemon[] pokemon = {charizard, lucario};
+        for (int lado = 0; lado < 2; lado++) {
+            Pokemon p = pokemon[lado];
+            p.vida = i.getVida(lado) / 100.0;
+            p.condicion = i.getCondicion(lado);
+            for (int m = 0; m < p.movimientos.length; m++) p.movimientos[m].pp = i.getPp(lado, m);
         }
+        turnoCharizard = i.getTurno() == EstadoBatalla.CHARIZARD;
+        ultimaInstantanea = i;
+        actualizarInterfaz(null);
     }
 
     /**
-     * Verifica si la batalla ha finalizado por derrota de alguno de los Pokémon,
-     * muestra mensaje en consola y deshabilita botones.
+     * Verifica si la batalla ha finalizado por derrota de alguno de los Pokémon
+     * y anota el ganador en el registro (los botones los desactiva atacar).
      */
     private void verificarFinBatalla() {
         if (charizard.getVida() <= 0) {
-            System.out.println("¡Lucario ganó!");
-            deshabilitarTodosLosBotones();
+            REGISTRO.info("¡Lucario ganó!");
         } else if (lucario.getVida() <= 0) {
-            System.out.println("¡Charizard ganó!");
-            deshabilitarTodosLosBotones();
+            REGISTRO.info("¡Charizard ganó!");
         }
     }
 
@@ -258,4 +518,39 @@ public class Batalla {
     public boolean getTurnoCharizard() {
         return turnoCharizard;
     }
+
+    /**
+     * Crea una copia compacta del estado actual, sin referencias a la interfaz,
+     * para que la IA pueda simular jugadas sin modificar la partida real.
+     *
+     * @return Estado de la batalla en este momento.
+     */
+    public EstadoBatalla getEstado() {
+        return new EstadoBatalla(charizard, lucario, turnoCharizard);
+    }
+
+    /**
+     * Instantánea inmutable del estado actual. Comparte las tablas y los PP que no hayan
+     * cambiado con la anterior, así que se puede pedir en cada turno sin apenas coste.
+     *
+     * @return Posición actual de la batalla.
+     */
+    public Instantanea getInstantanea() {
+        ultimaInstantanea = Instantanea.de(getEstadoCompartido(), ultimaInstantanea);
+        return ultimaInstantanea;
+    }
+
+    /**
+     * Estado actual copiado en un objeto que la batalla reutiliza en cada llamada, para las
+     * decisiones inmediatas de cada turno (la política del rival, las instantáneas) sin
+     * crear un EstadoBatalla cada vez. La siguiente llamada lo sobrescribe, así que no se
+     * debe guardar ni pasar a otro hilo; para eso está getEstado().
+     *
+     * @return Estado de la batalla en este momento, compartido.
+     */
+    public EstadoBatalla getEstadoCompartido() {
+        if (estadoCompartido == null) estadoCompartido = getEstado();
+        else estadoCompartido.cargarDe(charizard, lucario, turnoCharizard);
+        return estadoCompartido;
+    }
 }
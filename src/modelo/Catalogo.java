@@ -0,0 +1,276 @@
+package modelo;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import registro.Registro;
+
+/**
+ * Catálogo con la especie de cada Pokémon (tipos, ataque y defensa) y sus movimientos
+ * (nombre, daño base, PP máximos, precisión, probabilidad de crítico, variación del daño, tipo,
+ * prioridad y efecto secundario).
+ *
+ * Por defecto contiene los valores de Batalla, pero se puede cargar desde un fichero de
+ * texto, por ejemplo el que genera el ajustador de balance. El formato es una línea por
+ * especie y una por movimiento, en orden, con los campos separados por ';'. La velocidad
+ * de la especie es opcional (100). En los movimientos los siete últimos campos son
+ * opcionales y valen 1.0, 0.0, 1.0, NORMAL, 0, NINGUNO y 0.0 si se omiten:
+ *
+ *     especie;charizard;Mega Charizard X;FUEGO/DRAGON;100;100;100
+ *     charizard;Llamarada;10;2;0.85;0.0417;0.85;FUEGO;0;QUEMAR;0.1
+ *     lucario;Abocajarro;25;3
+ *
+ * Si falta la línea de especie de un Pokémon se usa una sin tipos y con estadísticas de
+ * referencia, de modo que los catálogos anteriores a los tipos siguen dando el mismo daño.
+ * Las líneas vacías y las que empiezan por '#' se ignoran.
+ */
+public class Catalogo {
+
+    /** Propiedad del sistema con la ruta de un catálogo alternativo */
+    public static final String PROPIEDAD = "pokemon.catalogo";
+
+    private static final String[] LADOS = {"charizard", "lucario"};
+
+    private static final Registro REGISTRO = Registro.de("catalogo");
+
+    private final Especie[] especies;
+    private final List<List<Movimiento>> movimientos;
+
+    private Catalogo(Especie[] especies, List<List<Movimiento>> movimientos) {
+        this.especies = especies;
+        this.movimientos = movimientos;
+    }
+
+    /**
+     * Crea un catálogo con los movimientos indicados y especies sin tipos.
+     *
+     * @param movsCharizard Movimientos de Charizard
+     * @param movsLucario Movimientos de Lucario
+     */
+    public Catalogo(Movimiento[] movsCharizard, Movimiento[] movsLucario) {
+        this(Especie.NEUTRA, movsCharizard, Especie.NEUTRA, movsLucario);
+    }
+
+    /**
+     * Crea un catálogo con las especies y los movimientos indicados.
+     *
+     * @param especieCharizard Tipos y estadísticas de Charizard
+     * @param movsCharizard Movimientos de Charizard
+     * @param especieLucario Tipos y estadísticas de Lucario
+     * @param movsLucario Movimientos de Lucario
+     */
+    public Catalogo(Especie especieCharizard, Movimiento[] movsCharizard, Especie especieLucario, Movimiento[] movsLucario) {
+        this(new Especie[]{especieCharizard, especieLucario}, List.of(List.of(movsCharizard), List.of(movsLucario)));
+    }
+
+    /**
+     * Catálogo con los valores originales del juego.
+     * @return Catálogo por defecto
+     */
+    public static Catalogo porDefecto() {
+        return new Catalogo(Batalla.especieCharizard(), Batalla.movimientosCharizard(),
+                Batalla.especieLucario(), Batalla.movimientosLucario());
+    }
+
+    /**
+     * Catálogo que usa el juego: el de la propiedad pokemon.catalogo si está definida
+     * y se puede leer, y el de por defecto en otro caso. Se lee una sola vez, la primera
+     * vez que se pide; el catálogo no cambia y movimientos devuelve copias, así que todas
+     * las batallas pueden compartirlo.
+     *
+     * @return Catálogo activo
+     */
+    public static Catalogo activo() {
+        return Activo.CATALOGO;
+    }
+
+    /** Carga perezosa y segura entre hilos del catálogo activo */
+    private static final class Activo {
+        static final Catalogo CATALOGO = leerActivo();
+
+        private static Catalogo leerActivo() {
+            String ruta = System.getProperty(PROPIEDAD);
+            if (ruta != null) {
+                try {
+                    return cargar(Paths.get(ruta));
+                } catch (IOException | IllegalArgumentException e) {
+                    REGISTRO.error("Error al cargar el catálogo {}; se usa el de por defecto: {}", ruta, e.getMessage());
+                }
+            }
+            return porDefecto();
+        }
+    }
+
+    /**
+     * Lee un catálogo en el formato descrito en la clase.
+     *
+     * @param ruta Fichero del catálogo
+     * @return Catálogo leído
+     * @throws IOException Si no se puede leer el fichero
+     */
+    public static Catalogo cargar(Path ruta) throws IOException {
+        List<List<Movimiento>> lados = List.of(new ArrayList<>(), new ArrayList<>());
+        Especie[] especies = {Especie.NEUTRA, Especie.NEUTRA};
+        int numLinea = 0;
+        for (String linea : Files.readAllLines(ruta, StandardCharsets.UTF_8)) {
+            numLinea++;
+            linea = linea.trim();
+            if (linea.isEmpty() || linea.startsWith("#")) continue;
+            String[] campos = linea.split(";");
+            if (campos[0].trim().equalsIgnoreCase("especie")) {
+                if (campos.length < 6) {
+                    throw new IllegalArgumentException("Línea " + numLinea + " incompleta: " + linea);
+                }
+                int lado = indiceLado(campos[1].trim());
+                if (lado < 0) {
+                    throw new IllegalArgumentException("Línea " + numLinea + ": Pokémon desconocido " + campos[1]);
+                }
+                especies[lado] = new Especie(campos[2].trim(), leerTipos(campos[3].trim()),
+                        Integer.parseInt(campos[4].trim()), Integer.parseInt(campos[5].trim()),
+                        campos.length > 6 ? Integer.parseInt(campos[6].trim()) : Especie.ESTADISTICA_BASE);
+                continue;
+            }
+            if (campos.length < 4) {
+                throw new IllegalArgumentException("Línea " + numLinea + " incompleta: " + linea);
+            }
+            int lado = indiceLado(campos[0].trim());
+            if (lado < 0) {
+                throw new IllegalArgumentException("Línea " + numLinea + ": Pokémon desconocido " + campos[0]);
+            }
+            Movimiento m = new Movimiento(campos[1].trim(),
+                    campos.length > 7 ? Tipo.valueOf(campos[7].trim().toUpperCase()) : Tipo.NORMAL,
+                    Double.parseDouble(campos[2].trim()), Integer.parseInt(campos[3].trim()),
+                    campos.length > 4 ? Double.parseDouble(campos[4].trim()) : 1.0,
+                    campos.length > 5 ? Double.parseDouble(campos[5].trim()) : 0.0,
+                    campos.length > 6 ? Double.parseDouble(campos[6].trim()) : 1.0,
+                    campos.length > 8 ? Integer.parseInt(campos[8].trim()) : 0);
+            if (campos.length > 9) {
+                m.setEfecto(Condicion.efectoPorNombre(campos[9].trim()),
+                        campos.length > 10 ? Double.parseDouble(campos[10].trim()) : 1.0);
+            }
+            lados.get(lado).add(m);
+        }
+        if (lados.get(0).isEmpty() || lados.get(1).isEmpty()) {
+            throw new IllegalArgumentException("El catálogo debe tener movimientos para ambos Pokémon");
+        }
+        return new Catalogo(especies, lados);
+    }
+
+    /**
+     * Escribe el catálogo en el formato que lee cargar.
+     *
+     * @param ruta Fichero de salida
+     * @param comentario Texto que se añade como comentario al principio (puede ser null)
+     * @throws IOException Si no se puede escribir
+     */
+    public void guardar(Path ruta, String comentario) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(ruta, StandardCharsets.UTF_8)) {
+            if (comentario != null) {
+                for (String linea : comentario.split("\n")) out.write("# " + linea + "\n");
+            }
+            out.write("# especie;pokemon;nombre;tipos;ataque;defensa;velocidad\n");
+            for (int lado = 0; lado < 2; lado++) {
+                Especie e = especies[lado];
+                StringBuilder tipos = new StringBuilder();
+                for (Tipo t : e.tipos) tipos.append(tipos.length() > 0 ? "/" : "").append(t);
+                out.write("especie;" + LADOS[lado] + ";" + e.nombre + ";" + tipos + ";" + e.ataque + ";" + e.defensa + ";" + e.velocidad + "\n");
+            }
+            out.write("# pokemon;movimiento;dano;ppMax;precision;critico;variacion;tipo;prioridad;efecto;probEfecto\n");
+            for (int lado = 0; lado < 2; lado++) {
+                for (Movimiento m : movimientos.get(lado)) {
+                    out.write(LADOS[lado] + ";" + m.nombre + ";" + formatear(m.dano) + ";" + m.ppMax + ";"
+                            + formatear(m.precision) + ";" + formatear(m.probCritico) + ";" + formatear(m.variacion)
+                            + ";" + m.tipo + ";" + m.prioridad + ";" + Condicion.nombreEfecto(m.efecto)
+                            + ";" + formatear(m.probEfecto) + "\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * Crea los movimientos de un lado con los PP al máximo.
+     * Cada llamada devuelve objetos nuevos, ya que los PP de una partida se modifican.
+     *
+     * @param lado EstadoBatalla.CHARIZARD o EstadoBatalla.LUCARIO
+     * @return Array de movimientos nuevos
+     */
+    public Movimiento[] movimientos(int lado) {
+        List<Movimiento> lista = movimientos.get(lado);
+        Movimiento[] copia = new Movimiento[lista.size()];
+        for (int i = 0; i < copia.length; i++) {
+            copia[i] = lista.get(i).copia();
+        }
+        return copia;
+    }
+
+    /**
+     * Devuelve una copia (con los PP al máximo) del movimiento de un Pokémon con el nombre indicado.
+     *
+     * @param lado EstadoBatalla.CHARIZARD o EstadoBatalla.LUCARIO
+     * @param nombre Nombre del movimiento
+     * @return Movimiento nuevo, o null si el catálogo no lo tiene
+     */
+    public Movimiento movimiento(int lado, String nombre) {
+        for (Movimiento m : movimientos.get(lado)) {
+            if (m.nombre.equals(nombre)) return m.copia();
+        }
+        return null;
+    }
+
+    /**
+     * @param lado EstadoBatalla.CHARIZARD o EstadoBatalla.LUCARIO
+     * @return Especie del Pokémon de ese lado
+     */
+    public Especie especie(int lado) {
+        return especies[lado];
+    }
+
+    /**
+     * Copia de este catálogo con los mismos movimientos pero sin efectos secundarios,
+     * para las herramientas que solo son exactas sin condiciones de estado (MotorProbabilidad).
+     * @return Catálogo nuevo
+     */
+    public Catalogo sinEfectos() {
+        List<List<Movimiento>> lados = new ArrayList<>();
+        for (int lado = 0; lado < 2; lado++) {
+            List<Movimiento> lista = new ArrayList<>();
+            for (Movimiento m : movimientos(lado)) lista.add(m.setEfecto(Condicion.EFECTO_NINGUNO, 0.0));
+            lados.add(lista);
+        }
+        return new Catalogo(especies.clone(), lados);
+    }
+
+    /**
+     * Estado de una partida nueva con las especies y movimientos de este catálogo.
+     * @return Estado inicial con vida completa y turno de Charizard
+     */
+    public EstadoBatalla estadoInicial() {
+        return new EstadoBatalla(especies[EstadoBatalla.CHARIZARD], movimientos(EstadoBatalla.CHARIZARD), 1.0,
+                especies[EstadoBatalla.LUCARIO], movimientos(EstadoBatalla.LUCARIO), 1.0, true);
+    }
+
+    private static Tipo[] leerTipos(String texto) {
+        if (texto.isEmpty()) return new Tipo[0];
+        String[] partes = texto.split("/");
+        Tipo[] tipos = new Tipo[partes.length];
+        for (int i = 0; i < partes.length; i++) tipos[i] = Tipo.valueOf(partes[i].trim().toUpperCase());
+        return tipos;
+    }
+
+    private static int indiceLado(String nombre) {
+        for (int i = 0; i < LADOS.length; i++) {
+            if (LADOS[i].equalsIgnoreCase(nombre)) return i;
+        }
+        return -1;
+    }
+
+    private static String formatear(double valor) {
+        return valor == Math.rint(valor) ? Long.toString((long) valor) : Double.toString(valor);
+    }
+}
@@ -0,0 +1,298 @@
+package modelo;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Condiciones de estado de un Pokémon empaquetadas en un int, sin objetos por efecto.
+ *
+ * Distribución de los bits (0 = sin ninguna condición):
+ * - 0-2: estado principal (NINGUNO, QUEMADO, PARALIZADO, ENVENENADO o DORMIDO); son excluyentes.
+ * - 3-5: intentos de moverse que le quedan dormido.
+ * - 6-9, 10-13 y 14-17: niveles de ataque, defensa y velocidad, de -6 a +6 en complemento a dos.
+ *
+ * Los multiplicadores de cada estado y nivel están en tablas indexadas por esos bits,
+ * así que escalar el daño o aplicar el daño de fin de turno no tiene condiciones por efecto.
+ *
+ * Reglas simplificadas de los juegos originales:
+ * - Quemado: pierde 6 puntos de vida al final de su turno y hace la mitad de daño.
+ * - Envenenado: pierde 12 puntos de vida al final de su turno.
+ * - Paralizado: una de cada cuatro veces no se mueve; su velocidad se reduce a la mitad.
+ * - Dormido: no se mueve durante 1 a 3 turnos.
+ * - Los Pokémon de tipo Fuego no se queman, los de tipo Eléctrico no se paralizan y los
+ *   de tipo Veneno o Acero no se envenenan.
+ */
+public final class Condicion {
+
+    // Estados principales
+    public static final int NINGUNO = 0;
+    public static final int QUEMADO = 1;
+    public static final int PARALIZADO = 2;
+    public static final int ENVENENADO = 3;
+    public static final int DORMIDO = 4;
+
+    // Estadísticas con niveles
+    public static final int ATAQUE = 0;
+    public static final int DEFENSA = 1;
+    public static final int VELOCIDAD = 2;
+
+    /** Nivel máximo (y mínimo, con signo negativo) de una estadística */
+    public static final int NIVEL_MAX = 6;
+
+    // Efectos secundarios de los movimientos
+    public static final int EFECTO_NINGUNO = 0;
+    public static final int EFECTO_QUEMAR = 1;
+    public static final int EFECTO_PARALIZAR = 2;
+    public static final int EFECTO_ENVENENAR = 3;
+    public static final int EFECTO_DORMIR = 4;
+    public static final int EFECTO_BAJAR_ATAQUE = 5;
+    public static final int EFECTO_BAJAR_DEFENSA = 6;
+    public static final int EFECTO_BAJAR_VELOCIDAD = 7;
+    public static final int EFECTO_SUBIR_ATAQUE_PROPIO = 8;
+    public static final int EFECTO_BAJAR_DEFENSA_PROPIA = 9;
+
+    /** Nombres de los efectos, para el catálogo */
+    private static final String[] EFECTOS = {"NINGUNO", "QUEMAR", "PARALIZAR", "ENVENENAR", "DORMIR",
+            "BAJAR_ATAQUE", "BAJAR_DEFENSA", "BAJAR_VELOCIDAD", "SUBIR_ATAQUE_PROPIO", "BAJAR_DEFENSA_PROPIA"};
+
+    /** Marca que añade intentarMover() cuando el Pokémon pierde el turno */
+    public static final int PIERDE_TURNO = 1 << 30;
+
+    private static final int MASCARA_PRINCIPAL = 0x7;
+    private static final int DESP_SUENO = 3;
+    private static final int MASCARA_SUENO = 0x7 << DESP_SUENO;
+    private static final int DESP_NIVELES = 6;
+    private static final int BITS_NIVEL = 4;
+
+    /** Puntos de vida perdidos al final del turno por estado principal */
+    private static final int[] RESIDUAL = {0, 6, 0, 12, 0};
+
+    /** Multiplicador del daño hecho por estado principal (la quemadura lo reduce a la mitad) */
+    private static final double[] FACTOR_ESTADO = {1, 0.5, 1, 1, 1};
+
+    /** Multiplicador de una estadística por nivel, indexado por los 4 bits del nivel */
+    private static final double[] FACTOR_NIVEL = new double[1 << BITS_NIVEL];
+
+    /** Multiplicador de la velocidad por estado principal (la parálisis la reduce a la mitad) */
+    private static final double[] FACTOR_VELOCIDAD_ESTADO = {1, 1, 0.5, 1, 1};
+
+    private static final String[] NOMBRES = {"", "Quemado", "Paralizado", "Envenenado", "Dormido"};
+    private static final String[] NOMBRES_MINUSCULAS = {"", "quemado", "paralizado", "envenenado", "dormido"};
+    private static final String[] ABREVIATURAS = {"", "QUE", "PAR", "VEN", "DOR"};
+
+    static {
+        for (int bits = 0; bits < FACTOR_NIVEL.length; bits++) {
+            int nivel = (bits << 28) >> 28;
+            FACTOR_NIVEL[bits] = nivel >= 0 ? (2.0 + nivel) / 2.0 : 2.0 / (2.0 - nivel);
+        }
+    }
+
+    private Condicion() {
+    }
+
+    /**
+     * @param c Condición empaquetada
+     * @return Estado principal (NINGUNO, QUEMADO, PARALIZADO, ENVENENADO o DORMIDO)
+     */
+    public static int principal(int c) {
+        return c & MASCARA_PRINCIPAL;
+    }
+
+    /**
+     * @param c Condición empaquetada
+     * @param estadistica ATAQUE, DEFENSA o VELOCIDAD
+     * @return Nivel de la estadística (-6 a +6)
+     */
+    public static int nivel(int c, int estadistica) {
+        int desp = DESP_NIVELES + BITS_NIVEL * estadistica;
+        return (c << (32 - BITS_NIVEL - desp)) >> (32 - BITS_NIVEL);
+    }
+
+    /**
+     * Cambia el nivel de una estadística, sin pasar de +-NIVEL_MAX.
+     *
+     * @param c Condición empaquetada
+     * @param estadistica ATAQUE, DEFENSA o VELOCIDAD
+     * @param delta Niveles que sube (o baja si es negativo)
+     * @return Condición nueva
+     */
+    public static int cambiarNivel(int c, int estadistica, int delta) {
+        int nivel = Math.max(-NIVEL_MAX, Math.min(NIVEL_MAX, nivel(c, estadistica) + delta));
+        int desp = DESP_NIVELES + BITS_NIVEL * estadistica;
+        return (c & ~(((1 << BITS_NIVEL) - 1) << desp)) | (nivel & ((1 << BITS_NIVEL) - 1)) << desp;
+    }
+
+    /**
+     * Quita los niveles de las estadísticas (al retirarse del combate) y deja el estado principal.
+     * @param c Condición empaquetada
+     * @return Condición sin niveles
+     */
+    public static int sinNiveles(int c) {
+        return c & (MASCARA_PRINCIPAL | MASCARA_SUENO);
+    }
+
+    /**
+     * Escala el daño de un ataque según el ataque del atacante (nivel y quemadura) y la
+     * defensa del defensor. Sin condiciones devuelve el mismo daño.
+     *
+     * @param dano Daño tirado
+     * @param atacante Condición del atacante
+     * @param defensor Condición del defensor
+     * @return Daño final (al menos 1 si el original lo era)
+     */
+    public static int escalarDano(int dano, int atacante, int defensor) {
+        if (dano == 0 || (atacante | defensor) == 0) return dano;
+        double factor = FACTOR_ESTADO[atacante & MASCARA_PRINCIPAL]
+                * FACTOR_NIVEL[(atacante >> DESP_NIVELES) & 0xF]
+                / FACTOR_NIVEL[(defensor >> (DESP_NIVELES + BITS_NIVEL)) & 0xF];
+        return Math.max(1, (int) (dano * factor + 1e-9));
+    }
+
+    /**
+     * @param c Condición empaquetada
+     * @return Multiplicador de la velocidad (nivel y parálisis)
+     */
+    public static double factorVelocidad(int c) {
+        return FACTOR_VELOCIDAD_ESTADO[c & MASCARA_PRINCIPAL]
+                * FACTOR_NIVEL[(c >> (DESP_NIVELES + 2 * BITS_NIVEL)) & 0xF];
+    }
+
+    /**
+     * Puntos de vida que pierde al final de su turno (quemadura o veneno).
+     * @param c Condición empaquetada
+     * @return Daño residual
+     */
+    public static int danoResidual(int c) {
+        return RESIDUAL[c & MASCARA_PRINCIPAL];
+    }
+
+    /**
+     * Comprueba si un Pokémon puede moverse este turno. Si está dormido gasta un intento
+     * (y se despierta al agotarlos); si está paralizado no se mueve una de cada cuatro veces.
+     *
+     * @param c Condición empaquetada
+     * @param rand Generador aleatorio
+     * @return Condición nueva, con PIERDE_TURNO si no se mueve
+     */
+    public static int intentarMover(int c, RandomGenerator rand) {
+        int p = c & MASCARA_PRINCIPAL;
+        if (p == DORMIDO) {
+            int intentos = ((c & MASCARA_SUENO) >> DESP_SUENO) - 1;
+            if (intentos <= 0) return c & ~(MASCARA_PRINCIPAL | MASCARA_SUENO);
+            return (c & ~MASCARA_SUENO) | intentos << DESP_SUENO | PIERDE_TURNO;
+        }
+        if (p == PARALIZADO && rand.nextInt(4) == 0) return c | PIERDE_TURNO;
+        return c;
+    }
+
+    /**
+     * Indica si un efecto se aplica al propio atacante en lugar de al defensor.
+     * @param efecto Efecto secundario
+     * @return true para los efectos propios
+     */
+    public static boolean esPropio(int efecto) {
+        return efecto >= EFECTO_SUBIR_ATAQUE_PROPIO;
+    }
+
+    /**
+     * Aplica un efecto secundario. Los estados principales no se aplican si ya tiene uno
+     * o si es inmune por su tipo.
+     *
+     * @param c Condición del Pokémon afectado
+     * @param efecto Efecto secundario
+     * @param inmunidades Máscara de inmunidades (ver inmunidades())
+     * @param rand Generador aleatorio (duración del sueño)
+     * @return Condición nueva
+     */
+    public static int aplicarEfecto(int c, int efecto, int inmunidades, RandomGenerator rand) {
+        switch (efecto) {
+            case EFECTO_QUEMAR:
+            case EFECTO_PARALIZAR:
+            case EFECTO_ENVENENAR:
+            case EFECTO_DORMIR:
+                if ((c & MASCARA_PRINCIPAL) != NINGUNO || (inmunidades & (1 << efecto)) != 0) return c;
+                c |= efecto;
+                if (efecto == EFECTO_DORMIR) c |= rand.nextInt(2, 5) << DESP_SUENO;
+                return c;
+            case EFECTO_BAJAR_ATAQUE:
+                return cambiarNivel(c, ATAQUE, -1);
+            case EFECTO_BAJAR_DEFENSA:
+            case EFECTO_BAJAR_DEFENSA_PROPIA:
+                return cambiarNivel(c, DEFENSA, -1);
+            case EFECTO_BAJAR_VELOCIDAD:
+                return cambiarNivel(c, VELOCIDAD, -1);
+            case EFECTO_SUBIR_ATAQUE_PROPIO:
+                return cambiarNivel(c, ATAQUE, 1);
+            default:
+                return c;
+        }
+    }
+
+    /**
+     * Máscara de estados principales a los que es inmune una especie por sus tipos
+     * (bit 1 << estado).
+     *
+     * @param especie Especie
+     * @return Máscara de inmunidades
+     */
+    public static int inmunidades(Especie especie) {
+        int mascara = 0;
+        for (Tipo t : especie.tipos) {
+            if (t == Tipo.FUEGO) mascara |= 1 << QUEMADO;
+            if (t == Tipo.ELECTRICO) mascara |= 1 << PARALIZADO;
+            if (t == Tipo.VENENO || t == Tipo.ACERO) mascara |= 1 << ENVENENADO;
+        }
+        return mascara;
+    }
+
+    /**
+     * @param nombre Nombre del efecto (ej. "QUEMAR")
+     * @return Código del efecto
+     */
+    public static int efectoPorNombre(String nombre) {
+        for (int i = 0; i < EFECTOS.length; i++) {
+            if (EFECTOS[i].equalsIgnoreCase(nombre)) return i;
+        }
+        throw new IllegalArgumentException("Efecto desconocido: " + nombre);
+    }
+
+    /**
+     * @param efecto Código del efecto
+     * @return Nombre del efecto
+     */
+    public static String nombreEfecto(int efecto) {
+        return EFECTOS[efecto];
+    }
+
+    /**
+     * @param c Condición empaquetada
+     * @return Nombre del estado principal ("" si no tiene)
+     */
+    public static String nombre(int c) {
+        return NOMBRES[c & MASCARA_PRINCIPAL];
+    }
+
+    /**
+     * Como nombre, en minúsculas para usarlo dentro de una frase sin crear un String.
+     * @param c Condición empaquetada
+     * @return Nombre del estado principal en minúsculas ("" si no tiene)
+     */
+    public static String nombreMinusculas(int c) {
+        return NOMBRES_MINUSCULAS[c & MASCARA_PRINCIPAL];
+    }
+
+    /**
+     * Texto corto para la interfaz: estado principal y niveles distintos de cero.
+     * @param c Condición empaquetada
+     * @return Por ejemplo "QUE Atq-1", o "" sin condiciones
+     */
+    public static String abreviatura(int c) {
+        if (c == 0) return "";
+        StringBuilder sb = new StringBuilder(ABREVIATURAS[c & MASCARA_PRINCIPAL]);
+        String[] estadisticas = {"Atq", "Def", "Vel"};
+        for (int e = 0; e < 3; e++) {
+            int n = nivel(c, e);
+            if (n != 0) sb.append(sb.length() > 0 ? " " : "").append(estadisticas[e]).append(n > 0 ? "+" : "").append(n);
+        }
+        return sb.toString();
+    }
+}
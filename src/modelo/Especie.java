@@ -0,0 +1,126 @@
+package modelo;
+
+import java.util.Arrays;
+
+/**
+ * Datos fijos de un Pokémon que intervienen en el combate: tipos, ataque, defensa y velocidad.
+ *
+ * Es inmutable y no depende de JavaFX, así que la usan tanto Pokemon como las herramientas
+ * sin interfaz. Al crearla se precalculan dos tablas indexadas por el ordinal del tipo del
+ * ataque: el STAB que aplica como atacante y la efectividad que recibe como defensor.
+ * Así el multiplicador de un ataque son dos accesos a array y una división, sin mapas ni
+ * condiciones.
+ *
+ * El daño de un movimiento es su daño base por el STAB, la efectividad y ataque / defensa,
+ * y se expresa en puntos de vida (100 = vida completa).
+ */
+public final class Especie {
+
+    /** Ataque y defensa de referencia (con ambos iguales el daño no cambia) */
+    public static final int ESTADISTICA_BASE = 100;
+
+    /** Especie sin tipos y con estadísticas de referencia: el daño es el daño base */
+    public static final Especie NEUTRA = new Especie("", new Tipo[0], ESTADISTICA_BASE, ESTADISTICA_BASE);
+
+    final String nombre;
+    final Tipo[] tipos;
+    final int ataque;
+    final int defensa;
+    final int velocidad;
+
+    /** STAB por tipo de ataque */
+    private final double[] stab;
+
+    /** Efectividad recibida por tipo de ataque */
+    private final double[] efectividadRecibida;
+
+    /**
+     * @param nombre Nombre de la especie (ej. "Mega Charizard X")
+     * @param tipos Uno o dos tipos (vacío = sin tipo)
+     * @param ataque Estadística de ataque
+     * @param defensa Estadística de defensa
+     */
+    public Especie(String nombre, Tipo[] tipos, int ataque, int defensa) {
+        this(nombre, tipos, ataque, defensa, ESTADISTICA_BASE);
+    }
+
+    /**
+     * @param nombre Nombre de la especie (ej. "Mega Charizard X")
+     * @param tipos Uno o dos tipos (vacío = sin tipo)
+     * @param ataque Estadística de ataque
+     * @param defensa Estadística de defensa
+     * @param velocidad Estadística de velocidad (decide quién mueve antes en combates por equipos)
+     */
+    public Especie(String nombre, Tipo[] tipos, int ataque, int defensa, int velocidad) {
+        if (ataque <= 0 || defensa <= 0) {
+            throw new IllegalArgumentException("Ataque y defensa deben ser positivos: " + ataque + "/" + defensa);
+        }
+        this.nombre = nombre;
+        this.tipos = tipos.clone();
+        this.ataque = ataque;
+        this.defensa = defensa;
+        this.velocidad = velocidad;
+        this.stab = Tipo.stab(tipos);
+        this.efectividadRecibida = Tipo.efectividadRecibida(tipos);
+    }
+
+    /**
+     * Multiplicador del daño base de un movimiento de esta especie contra otra.
+     * No crea objetos ni tiene condiciones.
+     *
+     * @param tipoMovimiento Tipo del movimiento
+     * @param defensor Especie que recibe el ataque
+     * @return STAB x efectividad x ataque / defensa
+     */
+    public double multiplicador(Tipo tipoMovimiento, Especie defensor) {
+        int t = tipoMovimiento.ordinal();
+        return stab[t] * defensor.efectividadRecibida[t] * ataque / defensor.defensa;
+    }
+
+    /**
+     * Efectividad de un tipo de ataque contra esta especie.
+     * @param tipoAtaque Tipo del ataque
+     * @return 0, 0.25, 0.5, 1, 2 o 4
+     */
+    public double efectividadRecibida(Tipo tipoAtaque) {
+        return efectividadRecibida[tipoAtaque.ordinal()];
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public Tipo[] getTipos() {
+        return tipos.clone();
+    }
+
+    public int getAtaque() {
+        return ataque;
+    }
+
+    public int getDefensa() {
+        return defensa;
+    }
+
+    public int getVelocidad() {
+        return velocidad;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Especie)) return false;
+        Especie otra = (Especie) o;
+        return ataque == otra.ataque && defensa == otra.defensa && velocidad == otra.velocidad && nombre.equals(otra.nombre)
+                && Arrays.equals(tipos, otra.tipos);
+    }
+
+    @Override
+    public int hashCode() {
+        return (31 * nombre.hashCode() + Arrays.hashCode(tipos)) * 31 + (ataque * 1000 + defensa) * 1000 + velocidad;
+    }
+
+    @Override
+    public String toString() {
+        return nombre + Arrays.toString(tipos) + " ataque " + ataque + ", defensa " + defensa + ", velocidad " + velocidad;
+    }
+}
@@ -0,0 +1,438 @@
+package modelo;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Estado de un combate entre dos equipos de hasta seis Pokémon, sin interfaz gráfica.
+ *
+ * Al contrario que EstadoBatalla, aquí los dos lados eligen su acción a la vez y el turno
+ * se resuelve en orden: primero los cambios de Pokémon, después los movimientos de mayor
+ * prioridad y, a igual prioridad, el Pokémon más rápido (los empates se sortean). El orden
+ * lo decide un PlanificadorTurno de capacidad fija.
+ *
+ * Todo el estado de los equipos está en arrays primitivos indexados por lado y miembro.
+ * Las distribuciones de daño de cada enfrentamiento posible se calculan al crear el estado
+ * y se comparten entre copias. Resolver un turno no crea objetos y su coste no depende del
+ * tamaño de los equipos: solo se miran los Pokémon activos y unos contadores por lado.
+ *
+ * Las condiciones de estado de cada miembro se guardan empaquetadas (ver Condicion). El
+ * estado principal se mantiene al cambiar de Pokémon, pero los niveles de las estadísticas
+ * se pierden. Al final de cada turno los activos sufren el daño de quemadura o veneno.
+ *
+ * Cuando un Pokémon se debilita, su lado debe elegir un reemplazo con reemplazar() antes
+ * del siguiente turno (ver debeCambiar()).
+ */
+public final class EstadoEquipos {
+
+    /** Miembros máximos por equipo */
+    public static final int MAX_MIEMBROS = 6;
+
+    /** Movimientos máximos por Pokémon */
+    public static final int MAX_MOVIMIENTOS = 4;
+
+    /** Turnos tras los que el combate termina en empate (evita cambios infinitos) */
+    public static final int MAX_TURNOS = 1000;
+
+    /** Acción: no hacer nada (solo si no hay otra posible) */
+    public static final int NINGUNA = -1;
+
+    /** Las acciones CAMBIO + i cambian al miembro i; las menores usan ese movimiento */
+    public static final int CAMBIO = MAX_MOVIMIENTOS;
+
+    // Tablas compartidas entre copias
+
+    /** Nombres de las especies de cada lado, para mostrar el combate */
+    final String[][] nombres;
+
+    /** Miembros de cada lado */
+    final int[] miembros;
+
+    /** Movimientos de cada miembro [lado * MAX_MIEMBROS + miembro] */
+    final int[] numMovimientos;
+
+    /** Velocidad de cada miembro [lado * MAX_MIEMBROS + miembro] */
+    final int[] velocidad;
+
+    /** Prioridad de cada movimiento [(lado * MAX_MIEMBROS + miembro) * MAX_MOVIMIENTOS + mov] */
+    final int[] prioridad;
+
+    /** PP máximos de cada movimiento, mismo índice que prioridad */
+    final int[] ppMax;
+
+    /** Distribución del daño de cada movimiento contra cada rival [indiceMovimiento * MAX_MIEMBROS + rival] */
+    final DistribucionDano[] distribuciones;
+
+    /** Daño esperado, mismo índice que distribuciones (para las políticas) */
+    final double[] danoEsperado;
+
+    /** Efecto secundario de cada movimiento, mismo índice que prioridad */
+    final int[] efecto;
+
+    /** Probabilidad de causar el efecto al usar cada movimiento, mismo índice que prioridad */
+    final double[] probEfecto;
+
+    /** Movimientos sin daño (su efecto no depende de golpear), mismo índice que prioridad */
+    final boolean[] sinDano;
+
+    /** Estados a los que es inmune cada miembro [lado * MAX_MIEMBROS + miembro] */
+    final int[] inmunidades;
+
+    // Estado mutable
+
+    /** Vida de cada miembro en puntos [lado * MAX_MIEMBROS + miembro] */
+    final int[] vida = new int[2 * MAX_MIEMBROS];
+
+    /** PP actuales, mismo índice que ppMax */
+    final int[] pp = new int[2 * MAX_MIEMBROS * MAX_MOVIMIENTOS];
+
+    /** Condiciones de estado de cada miembro [lado * MAX_MIEMBROS + miembro] */
+    final int[] condicion = new int[2 * MAX_MIEMBROS];
+
+    /** Miembro en combate de cada lado */
+    final int[] activo = new int[2];
+
+    /** Miembros con vida de cada lado */
+    final int[] vivos = new int[2];
+
+    /** PP que le quedan a los miembros con vida de cada lado */
+    final int[] ppRestantes = new int[2];
+
+    /** Lados cuyo Pokémon activo está debilitado y deben sacar otro */
+    final boolean[] debeCambiar = new boolean[2];
+
+    /** Turnos jugados */
+    int turno;
+
+    private final PlanificadorTurno planificador = new PlanificadorTurno(2);
+
+    /**
+     * Crea el estado inicial de un combate: todos con vida completa y PP al máximo,
+     * y el primer miembro de cada equipo en combate.
+     *
+     * @param equipo0 Equipo del lado 0 (jugador)
+     * @param equipo1 Equipo del lado 1 (rival)
+     */
+    public EstadoEquipos(Equipo equipo0, Equipo equipo1) {
+        Equipo[] equipos = {equipo0, equipo1};
+        nombres = new String[2][];
+        miembros = new int[2];
+        numMovimientos = new int[2 * MAX_MIEMBROS];
+        velocidad = new int[2 * MAX_MIEMBROS];
+        prioridad = new int[2 * MAX_MIEMBROS * MAX_MOVIMIENTOS];
+        ppMax = new int[2 * MAX_MIEMBROS * MAX_MOVIMIENTOS];
+        distribuciones = new DistribucionDano[2 * MAX_MIEMBROS * MAX_MOVIMIENTOS * MAX_MIEMBROS];
+        danoEsperado = new double[distribuciones.length];
+        efecto = new int[prioridad.length];
+        probEfecto = new double[prioridad.length];
+        sinDano = new boolean[prioridad.length];
+        inmunidades = new int[2 * MAX_MIEMBROS];
+
+        for (int lado = 0; lado < 2; lado++) {
+            Equipo equipo = equipos[lado];
+            Equipo rival = equipos[1 - lado];
+            miembros[lado] = equipo.getTamano();
+            nombres[lado] = new String[miembros[lado]];
+            for (int i = 0; i < miembros[lado]; i++) {
+                int m = lado * MAX_MIEMBROS + i;
+                Especie especie = equipo.especies[i];
+                Movimiento[] movs = equipo.movimientos[i];
+                nombres[lado][i] = especie.nombre;
+                numMovimientos[m] = movs.length;
+                velocidad[m] = especie.velocidad;
+                inmunidades[m] = Condicion.inmunidades(especie);
+                vida[m] = EstadoBatalla.VIDA_MAX;
+                vivos[lado]++;
+                for (int k = 0; k < movs.length; k++) {
+                    int idx = m * MAX_MOVIMIENTOS + k;
+                    prioridad[idx] = movs[k].prioridad;
+                    ppMax[idx] = movs[k].ppMax;
+                    pp[idx] = movs[k].ppMax;
+                    ppRestantes[lado] += movs[k].ppMax;
+                    efecto[idx] = movs[k].efecto;
+                    probEfecto[idx] = movs[k].probEfectoAlUsar();
+                    sinDano[idx] = movs[k].dano <= 0;
+                    for (int r = 0; r < rival.getTamano(); r++) {
+                        DistribucionDano d = DistribucionDano.de(movs[k],
+                                especie.multiplicador(movs[k].tipo, rival.especies[r]));
+                        distribuciones[idx * MAX_MIEMBROS + r] = d;
+                        danoEsperado[idx * MAX_MIEMBROS + r] = d.esperado();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Constructor de copia: comparte las tablas y duplica el estado mutable.
+     */
+    private EstadoEquipos(EstadoEquipos otro) {
+        nombres = otro.nombres;
+        miembros = otro.miembros;
+        numMovimientos = otro.numMovimientos;
+        velocidad = otro.velocidad;
+        prioridad = otro.prioridad;
+        ppMax = otro.ppMax;
+        distribuciones = otro.distribuciones;
+        danoEsperado = otro.danoEsperado;
+        efecto = otro.efecto;
+        probEfecto = otro.probEfecto;
+        sinDano = otro.sinDano;
+        inmunidades = otro.inmunidades;
+        copiarDe(otro);
+    }
+
+    /**
+     * @return Copia independiente de este estado
+     */
+    public EstadoEquipos copia() {
+        return new EstadoEquipos(this);
+    }
+
+    /**
+     * Sobrescribe este estado con otro del mismo combate sin crear objetos.
+     * @param otro Estado de origen
+     */
+    public void copiarDe(EstadoEquipos otro) {
+        System.arraycopy(otro.vida, 0, vida, 0, vida.length);
+        System.arraycopy(otro.pp, 0, pp, 0, pp.length);
+        System.arraycopy(otro.condicion, 0, condicion, 0, condicion.length);
+        activo[0] = otro.activo[0];
+        activo[1] = otro.activo[1];
+        vivos[0] = otro.vivos[0];
+        vivos[1] = otro.vivos[1];
+        ppRestantes[0] = otro.ppRestantes[0];
+        ppRestantes[1] = otro.ppRestantes[1];
+        debeCambiar[0] = otro.debeCambiar[0];
+        debeCambiar[1] = otro.debeCambiar[1];
+        turno = otro.turno;
+    }
+
+    /**
+     * Resuelve un turno con las acciones elegidas por ambos lados. Las acciones no válidas
+     * se ignoran. Un Pokémon debilitado antes de actuar pierde su acción. Al final del turno
+     * los activos quemados o envenenados pierden vida.
+     *
+     * @param accion0 Acción del lado 0
+     * @param accion1 Acción del lado 1
+     * @param rand Generador aleatorio para el orden en caso de empate y las tiradas de daño
+     */
+    public void resolverTurno(int accion0, int accion1, RandomGenerator rand) {
+        planificador.limpiar();
+        programar(0, accion0, rand);
+        programar(1, accion1, rand);
+
+        while (!planificador.vacio()) {
+            long elemento = planificador.extraer();
+            int lado = PlanificadorTurno.lado(elemento);
+            int accion = PlanificadorTurno.accion(elemento);
+            if (accion >= CAMBIO) {
+                cambiarActivo(lado, accion - CAMBIO);
+            } else if (vida[lado * MAX_MIEMBROS + activo[lado]] > 0) {
+                usarMovimiento(lado, accion, rand);
+                if (vivos[0] == 0 || vivos[1] == 0) break;
+            }
+        }
+        turno++;
+        if (vivos[0] == 0 || vivos[1] == 0) return;
+
+        // Fin del turno: daño por quemadura o veneno de los activos
+        for (int lado = 0; lado < 2; lado++) {
+            int m = lado * MAX_MIEMBROS + activo[lado];
+            int residual = Condicion.danoResidual(condicion[m]);
+            if (residual > 0 && vida[m] > 0) {
+                vida[m] -= residual;
+                if (vida[m] <= 0) debilitar(lado, m);
+            }
+        }
+    }
+
+    /**
+     * Saca a otro miembro; el que se retira pierde los niveles de sus estadísticas.
+     */
+    private void cambiarActivo(int lado, int miembro) {
+        int m = lado * MAX_MIEMBROS + activo[lado];
+        condicion[m] = Condicion.sinNiveles(condicion[m]);
+        activo[lado] = miembro;
+    }
+
+    private void programar(int lado, int accion, RandomGenerator rand) {
+        if (debeCambiar[lado]) return;
+        int m = lado * MAX_MIEMBROS + activo[lado];
+        int v = velocidad[m];
+        if (condicion[m] != 0) v = (int) (v * Condicion.factorVelocidad(condicion[m]));
+        if (accion >= CAMBIO) {
+            if (!puedeCambiar(lado, accion - CAMBIO)) return;
+            planificador.agregar(PlanificadorTurno.PRIORIDAD_CAMBIO, v, rand.nextInt(), lado, accion);
+        } else if (puedeUsar(lado, accion)) {
+            planificador.agregar(prioridad[m * MAX_MOVIMIENTOS + accion], v, rand.nextInt(), lado, accion);
+        }
+    }
+
+    private void usarMovimiento(int lado, int mov, RandomGenerator rand) {
+        int rival = 1 - lado;
+        int atacante = lado * MAX_MIEMBROS + activo[lado];
+        int c = condicion[atacante];
+        if (c != 0) {
+            c = Condicion.intentarMover(c, rand);
+            condicion[atacante] = c & ~Condicion.PIERDE_TURNO;
+            if ((c & Condicion.PIERDE_TURNO) != 0) return;
+        }
+
+        int idx = atacante * MAX_MOVIMIENTOS + mov;
+        pp[idx]--;
+        ppRestantes[lado]--;
+
+        int defensor = rival * MAX_MIEMBROS + activo[rival];
+        int danoHecho = distribuciones[idx * MAX_MIEMBROS + activo[rival]].tirar(rand);
+        danoHecho = Condicion.escalarDano(danoHecho, c, condicion[defensor]);
+
+        int ef = efecto[idx];
+        if (ef != Condicion.EFECTO_NINGUNO && (danoHecho > 0 || sinDano[idx]) && rand.nextDouble() < probEfecto[idx]) {
+            int objetivo = Condicion.esPropio(ef) ? atacante : defensor;
+            condicion[objetivo] = Condicion.aplicarEfecto(condicion[objetivo], ef, inmunidades[objetivo], rand);
+        }
+
+        vida[defensor] -= danoHecho;
+        if (vida[defensor] <= 0) debilitar(rival, defensor);
+    }
+
+    /**
+     * Marca como debilitado a un miembro y descuenta sus PP de los que le quedan a su lado.
+     */
+    private void debilitar(int lado, int m) {
+        vida[m] = 0;
+        vivos[lado]--;
+        for (int k = 0; k < numMovimientos[m]; k++) {
+            ppRestantes[lado] -= pp[m * MAX_MOVIMIENTOS + k];
+        }
+        debeCambiar[lado] = vivos[lado] > 0;
+    }
+
+    /**
+     * Saca a un miembro en lugar del Pokémon debilitado.
+     *
+     * @param lado Lado que cambia
+     * @param miembro Miembro con vida que sale al combate
+     * @return true si el cambio era válido
+     */
+    public boolean reemplazar(int lado, int miembro) {
+        if (!debeCambiar[lado] || !puedeCambiar(lado, miembro)) return false;
+        cambiarActivo(lado, miembro);
+        debeCambiar[lado] = false;
+        return true;
+    }
+
+    /**
+     * Indica si el combate ha terminado: un equipo sin Pokémon con vida, ninguno con PP
+     * o el límite de turnos.
+     * @return true si no quedan jugadas
+     */
+    public boolean terminada() {
+        return vivos[0] == 0 || vivos[1] == 0 || (ppRestantes[0] == 0 && ppRestantes[1] == 0) || turno >= MAX_TURNOS;
+    }
+
+    /**
+     * @return Lado ganador (0 o 1), o -1 si no hay ganador
+     */
+    public int ganador() {
+        if (vivos[1] == 0 && vivos[0] > 0) return 0;
+        if (vivos[0] == 0 && vivos[1] > 0) return 1;
+        return -1;
+    }
+
+    /**
+     * @param lado Lado
+     * @param mov Índice del movimiento del Pokémon activo
+     * @return true si el activo tiene vida y le quedan PP de ese movimiento
+     */
+    public boolean puedeUsar(int lado, int mov) {
+        int m = lado * MAX_MIEMBROS + activo[lado];
+        return mov >= 0 && mov < numMovimientos[m] && vida[m] > 0 && pp[m * MAX_MOVIMIENTOS + mov] > 0;
+    }
+
+    /**
+     * @param lado Lado
+     * @param miembro Miembro del equipo
+     * @return true si el miembro tiene vida y no es el que está en combate
+     */
+    public boolean puedeCambiar(int lado, int miembro) {
+        return miembro >= 0 && miembro < miembros[lado] && miembro != activo[lado]
+                && vida[lado * MAX_MIEMBROS + miembro] > 0;
+    }
+
+    /**
+     * @param lado Lado
+     * @return true si al Pokémon activo le queda algún movimiento con PP
+     */
+    public boolean activoTieneMovimientos(int lado) {
+        int m = lado * MAX_MIEMBROS + activo[lado];
+        for (int k = 0; k < numMovimientos[m]; k++) {
+            if (pp[m * MAX_MOVIMIENTOS + k] > 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Daño esperado de un movimiento del activo de un lado contra el activo del rival.
+     * @param lado Lado atacante
+     * @param mov Movimiento del activo
+     * @return Daño esperado en puntos de vida
+     */
+    public double danoEsperado(int lado, int mov) {
+        return danoEsperadoContra(lado, activo[lado], mov, activo[1 - lado]);
+    }
+
+    /**
+     * Daño esperado de un movimiento de cualquier miembro contra cualquier rival.
+     * @param lado Lado atacante
+     * @param miembro Miembro atacante
+     * @param mov Movimiento
+     * @param rival Miembro del equipo rival
+     * @return Daño esperado en puntos de vida
+     */
+    public double danoEsperadoContra(int lado, int miembro, int mov, int rival) {
+        return danoEsperado[((lado * MAX_MIEMBROS + miembro) * MAX_MOVIMIENTOS + mov) * MAX_MIEMBROS + rival];
+    }
+
+    // Getters
+
+    public boolean debeCambiar(int lado) {
+        return debeCambiar[lado];
+    }
+
+    public int getActivo(int lado) {
+        return activo[lado];
+    }
+
+    public int getMiembros(int lado) {
+        return miembros[lado];
+    }
+
+    public int getVivos(int lado) {
+        return vivos[lado];
+    }
+
+    public int getVida(int lado, int miembro) {
+        return vida[lado * MAX_MIEMBROS + miembro];
+    }
+
+    public int getCondicion(int lado, int miembro) {
+        return condicion[lado * MAX_MIEMBROS + miembro];
+    }
+
+    public int getPp(int lado, int miembro, int mov) {
+        return pp[(lado * MAX_MIEMBROS + miembro) * MAX_MOVIMIENTOS + mov];
+    }
+
+    public int getNumMovimientos(int lado, int miembro) {
+        return numMovimientos[lado * MAX_MIEMBROS + miembro];
+    }
+
+    public String getNombre(int lado, int miembro) {
+        return nombres[lado][miembro];
+    }
+
+    public int getTurno() {
+        return turno;
+    }
+}
@@ -0,0 +1,229 @@
+package modelo;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Fotografía inmutable de una batalla uno contra uno.
+ *
+ * Al contrario que EstadoBatalla, nunca se modifica: aplicar un movimiento devuelve una
+ * instantánea nueva que comparte con la anterior todo lo que el movimiento no cambia.
+ * Las tablas de daño y efectos se comparten siempre, y los PP de cada lado están en un
+ * array propio que solo se copia cuando ese lado gasta un PP. Abrir una rama cuesta un
+ * objeto pequeño y como mucho un array de PP, así que se pueden guardar en una pila para
+ * deshacer (ver HistorialBatalla) o explorar varias jugadas desde la misma posición sin
+ * copiar los Pokémon ni sus movimientos.
+ *
+ * Las reglas del movimiento son las de EstadoBatalla: cada instantánea resuelve las jugadas
+ * cargándose en un EstadoBatalla de trabajo por hilo, compartido por todas las que vienen
+ * de la misma batalla. Se puede usar desde varios hilos a la vez.
+ */
+public final class Instantanea {
+
+    /**
+     * Tablas de la batalla y estados de trabajo, compartidos por todas las instantáneas
+     * que salen de la misma.
+     */
+    private static final class Reglas {
+        final EstadoBatalla plantilla;
+        final ThreadLocal<EstadoBatalla> trabajo;
+
+        Reglas(EstadoBatalla estado) {
+            plantilla = estado.copia();
+            trabajo = ThreadLocal.withInitial(plantilla::copia);
+        }
+    }
+
+    private final Reglas reglas;
+
+    /** PP de cada lado; se comparten entre instantáneas y no se modifican nunca */
+    private final int[] ppCharizard, ppLucario;
+
+    private final int vidaCharizard, vidaLucario;
+    private final int condicionCharizard, condicionLucario;
+    private final int turno;
+
+    private Instantanea(Reglas reglas, int[] ppCharizard, int[] ppLucario, EstadoBatalla estado) {
+        this.reglas = reglas;
+        this.ppCharizard = ppCharizard;
+        this.ppLucario = ppLucario;
+        this.vidaCharizard = estado.vida[EstadoBatalla.CHARIZARD];
+        this.vidaLucario = estado.vida[EstadoBatalla.LUCARIO];
+        this.condicionCharizard = estado.condicion[EstadoBatalla.CHARIZARD];
+        this.condicionLucario = estado.condicion[EstadoBatalla.LUCARIO];
+        this.turno = estado.turno;
+    }
+
+    /**
+     * Crea la instantánea de un estado. El estado se puede seguir modificando después.
+     *
+     * @param estado Estado de la batalla
+     * @return Instantánea nueva con sus propias reglas
+     */
+    public static Instantanea de(EstadoBatalla estado) {
+        return new Instantanea(new Reglas(estado), estado.pp[0].clone(), estado.pp[1].clone(), estado);
+    }
+
+    /**
+     * Crea la instantánea de un estado compartiendo con otra anterior de la misma batalla
+     * las reglas y los PP que no hayan cambiado.
+     *
+     * @param estado Estado de la batalla
+     * @param anterior Instantánea anterior (puede ser null o de otra batalla)
+     * @return Instantánea nueva
+     */
+    public static Instantanea de(EstadoBatalla estado, Instantanea anterior) {
+        if (anterior == null || !anterior.reglas.plantilla.mismasReglas(estado)) return de(estado);
+        return anterior.siguiente(estado);
+    }
+
+    /**
+     * Instantánea de un estado de trabajo, reutilizando los arrays de PP que no cambian.
+     */
+    private Instantanea siguiente(EstadoBatalla estado) {
+        return new Instantanea(reglas, compartir(ppCharizard, estado.pp[0]), compartir(ppLucario, estado.pp[1]), estado);
+    }
+
+    private static int[] compartir(int[] anterior, int[] actual) {
+        return Arrays.equals(anterior, actual) ? anterior : actual.clone();
+    }
+
+    /**
+     * Aplica un movimiento del lado al que le toca, igual que EstadoBatalla.aplicar.
+     *
+     * @param mov Índice del movimiento
+     * @param rand Generador aleatorio para las tiradas
+     * @return Instantánea resultante, o esta misma si el movimiento no tenía PP
+     */
+    public Instantanea aplicar(int mov, RandomGenerator rand) {
+        EstadoBatalla trabajo = reglas.trabajo.get();
+        cargarEn(trabajo);
+        if (!trabajo.aplicar(mov, rand)) return this;
+        return siguiente(trabajo);
+    }
+
+    /**
+     * Aplica un movimiento con un daño concreto, igual que EstadoBatalla.aplicarConDano.
+     *
+     * @param mov Índice del movimiento
+     * @param dano Daño que se resta al defensor
+     * @return Instantánea resultante, o esta misma si el movimiento no tenía PP
+     */
+    public Instantanea aplicarConDano(int mov, int dano) {
+        EstadoBatalla trabajo = reglas.trabajo.get();
+        cargarEn(trabajo);
+        if (!trabajo.aplicarConDano(mov, dano)) return this;
+        return siguiente(trabajo);
+    }
+
+    /**
+     * Sobrescribe un estado de la misma batalla con esta posición, sin crear objetos.
+     * @param destino Estado con las mismas reglas
+     */
+    public void cargarEn(EstadoBatalla destino) {
+        System.arraycopy(ppCharizard, 0, destino.pp[0], 0, ppCharizard.length);
+        System.arraycopy(ppLucario, 0, destino.pp[1], 0, ppLucario.length);
+        destino.vida[EstadoBatalla.CHARIZARD] = vidaCharizard;
+        destino.vida[EstadoBatalla.LUCARIO] = vidaLucario;
+        destino.condicion[EstadoBatalla.CHARIZARD] = condicionCharizard;
+        destino.condicion[EstadoBatalla.LUCARIO] = condicionLucario;
+        destino.turno = turno;
+    }
+
+    /**
+     * @return Estado modificable con esta posición, para el código que trabaja con EstadoBatalla
+     */
+    public EstadoBatalla aEstado() {
+        EstadoBatalla estado = reglas.plantilla.copia();
+        cargarEn(estado);
+        return estado;
+    }
+
+    /**
+     * @return true si un Pokémon no tiene vida o a ninguno le quedan PP
+     */
+    public boolean terminada() {
+        return vidaCharizard <= 0 || vidaLucario <= 0 || (!tieneMovimientos(ppCharizard) && !tieneMovimientos(ppLucario));
+    }
+
+    /**
+     * @return EstadoBatalla.CHARIZARD, EstadoBatalla.LUCARIO o -1 si no hay ganador
+     */
+    public int ganador() {
+        if (vidaLucario <= 0) return EstadoBatalla.CHARIZARD;
+        if (vidaCharizard <= 0) return EstadoBatalla.LUCARIO;
+        return -1;
+    }
+
+    /**
+     * @param lado EstadoBatalla.CHARIZARD o EstadoBatalla.LUCARIO
+     * @param mov Índice del movimiento
+     * @return true si al movimiento le quedan PP
+     */
+    public boolean puedeUsar(int lado, int mov) {
+        int[] pp = pp(lado);
+        return mov >= 0 && mov < pp.length && pp[mov] > 0;
+    }
+
+    private static boolean tieneMovimientos(int[] pp) {
+        for (int p : pp) {
+            if (p > 0) return true;
+        }
+        return false;
+    }
+
+    private int[] pp(int lado) {
+        return lado == EstadoBatalla.CHARIZARD ? ppCharizard : ppLucario;
+    }
+
+    /**
+     * Indica si otra instantánea sale de la misma batalla y comparte sus tablas.
+     * @param otra Instantánea a comparar
+     * @return true si comparten reglas
+     */
+    public boolean mismaBatalla(Instantanea otra) {
+        return reglas == otra.reglas;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Instantanea)) return false;
+        Instantanea otra = (Instantanea) o;
+        return turno == otra.turno && vidaCharizard == otra.vidaCharizard && vidaLucario == otra.vidaLucario
+                && condicionCharizard == otra.condicionCharizard && condicionLucario == otra.condicionLucario
+                && Arrays.equals(ppCharizard, otra.ppCharizard) && Arrays.equals(ppLucario, otra.ppLucario);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = turno;
+        h = 31 * h + vidaCharizard;
+        h = 31 * h + vidaLucario;
+        h = 31 * h + condicionCharizard;
+        h = 31 * h + condicionLucario;
+        h = 31 * h + Arrays.hashCode(ppCharizard);
+        return 31 * h + Arrays.hashCode(ppLucario);
+    }
+
+    // Getters
+
+    public int getTurno() {
+        return turno;
+    }
+
+    public int getVida(int lado) {
+        return lado == EstadoBatalla.CHARIZARD ? vidaCharizard : vidaLucario;
+    }
+
+    public int getCondicion(int lado) {
+        return lado == EstadoBatalla.CHARIZARD ? condicionCharizard : condicionLucario;
+    }
+
+    public int getPp(int lado, int mov) {
+        return pp(lado)[mov];
+    }
+
+    public int getNumMovimientos(int lado) {
+        return pp(lado).length;
+    }
+}
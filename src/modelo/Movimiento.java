@@ -4,14 +4,18 @@ package modelo;
  * Representa un movimiento o ataque que un Pokémon puede realizar en batalla.
  * 
  * Contiene información sobre el nombre del movimiento, el daño que inflige,
- * y los puntos de poder (PP) disponibles para usarlo.
+ * los puntos de poder (PP) disponibles para usarlo, su tipo, su precisión, la probabilidad
+ * de golpe crítico, la variación aleatoria del daño y su efecto secundario.
  */
 public class Movimiento {
 
     /** Nombre del movimiento (ej. "Llamarada") */
     public String nombre;
 
-    /** Daño que inflige el movimiento */
+    /** Tipo del movimiento (decide el STAB y la efectividad) */
+    Tipo tipo = Tipo.NORMAL;
+
+    /** Daño base que inflige el movimiento, antes de tipos y estadísticas */
     double dano;
 
     /** Puntos de poder actuales (PP), que indican cuántas veces se puede usar el movimiento */
@@ -20,6 +24,33 @@ public class Movimiento {
     /** Puntos de poder máximos (PP máximos) */
     public int ppMax;
 
+    /** Probabilidad de acertar (0.0 - 1.0) */
+    double precision = 1.0;
+
+    /** Probabilidad de golpe crítico (0.0 - 1.0) */
+    double probCritico = 0.0;
+
+    /** Fracción mínima del daño en la tirada aleatoria (1.0 = daño fijo, 0.85 = entre 85% y 100%) */
+    double variacion = 1.0;
+
+    /** Prioridad: en combates por equipos los de mayor prioridad van antes sin mirar la velocidad */
+    int prioridad = 0;
+
+    /** Efecto secundario (Condicion.EFECTO_*) que puede causar al golpear */
+    int efecto = Condicion.EFECTO_NINGUNO;
+
+    /** Probabilidad de causar el efecto secundario al golpear (0.0 - 1.0) */
+    double probEfecto = 0.0;
+
+    /** Multiplicador de daño de un golpe crítico */
+    public static final double MULTIPLICADOR_CRITICO = 1.5;
+
+    /** Distribución del daño, calculada la primera vez que se necesita */
+    private DistribucionDano distribucion;
+
+    /** Multiplicador con el que se calculó la distribución */
+    private double multiplicadorDistribucion;
+
     /**
      * Constructor para crear un movimiento con su nombre, daño y PP máximo.
      * Inicializa los PP actuales al máximo.
@@ -35,6 +66,67 @@ public class Movimiento {
         this.pp = ppMax;
     }
 
+    /**
+     * Constructor completo, con precisión, probabilidad de crítico y variación del daño.
+     * 
+     * @param nombre Nombre del movimiento
+     * @param dano Daño que inflige el movimiento
+     * @param ppMax Puntos de poder máximos (PP máximo)
+     * @param precision Probabilidad de acertar (0.0 - 1.0)
+     * @param probCritico Probabilidad de golpe crítico (0.0 - 1.0)
+     * @param variacion Fracción mínima del daño en la tirada (0.0 - 1.0)
+     */
+    public Movimiento(String nombre, double dano, int ppMax, double precision, double probCritico, double variacion) {
+        this(nombre, dano, ppMax);
+        this.precision = precision;
+        this.probCritico = probCritico;
+        this.variacion = variacion;
+    }
+
+    /**
+     * Constructor completo con tipo.
+     * 
+     * @param nombre Nombre del movimiento
+     * @param tipo Tipo del movimiento
+     * @param dano Daño base que inflige el movimiento
+     * @param ppMax Puntos de poder máximos (PP máximo)
+     * @param precision Probabilidad de acertar (0.0 - 1.0)
+     * @param probCritico Probabilidad de golpe crítico (0.0 - 1.0)
+     * @param variacion Fracción mínima del daño en la tirada (0.0 - 1.0)
+     */
+    public Movimiento(String nombre, Tipo tipo, double dano, int ppMax, double precision, double probCritico, double variacion) {
+        this(nombre, dano, ppMax, precision, probCritico, variacion);
+        this.tipo = tipo;
+    }
+
+    /**
+     * Constructor completo con tipo y prioridad.
+     * 
+     * @param nombre Nombre del movimiento
+     * @param tipo Tipo del movimiento
+     * @param dano Daño base que inflige el movimiento
+     * @param ppMax Puntos de poder máximos (PP máximo)
+     * @param precision Probabilidad de acertar (0.0 - 1.0)
+     * @param probCritico Probabilidad de golpe crítico (0.0 - 1.0)
+     * @param variacion Fracción mínima del daño en la tirada (0.0 - 1.0)
+     * @param prioridad Prioridad del movimiento (0 normal, positiva = antes; entre -7 y 5)
+     */
+    public Movimiento(String nombre, Tipo tipo, double dano, int ppMax, double precision, double probCritico,
+                      double variacion, int prioridad) {
+        this(nombre, tipo, dano, ppMax, precision, probCritico, variacion);
+        this.prioridad = prioridad;
+    }
+
+    /**
+     * Crea una copia con los PP al máximo y los mismos parámetros.
+     * @return Movimiento nuevo
+     */
+    public Movimiento copia() {
+        Movimiento copia = new Movimiento(nombre, tipo, dano, ppMax, precision, probCritico, variacion, prioridad);
+        copia.setEfecto(efecto, probEfecto);
+        return copia;
+    }
+
     /**
      * Restaura los PP del movimiento al valor máximo.
      */
@@ -74,5 +166,107 @@ public class Movimiento {
      */
     public void setDano(double dano) {
         this.dano = dano;
+        this.distribucion = null;
+    }
+
+    /**
+     * Obtiene la distribución exacta del daño base teniendo en cuenta precisión, crítico y variación.
+     * @return Distribución del daño en puntos de vida
+     */
+    public DistribucionDano getDistribucion() {
+        return getDistribucion(1.0);
+    }
+
+    /**
+     * Obtiene la distribución del daño con un multiplicador de tipos y estadísticas
+     * (ver Especie.multiplicador). Se guarda la última calculada, que en una batalla
+     * uno contra uno es siempre la misma.
+     *
+     * @param multiplicador Multiplicador del daño base
+     * @return Distribución del daño en puntos de vida
+     */
+    public DistribucionDano getDistribucion(double multiplicador) {
+        if (distribucion == null || multiplicadorDistribucion != multiplicador) {
+            distribucion = DistribucionDano.de(this, multiplicador);
+            multiplicadorDistribucion = multiplicador;
+        }
+        return distribucion;
+    }
+
+    /**
+     * Obtiene la prioridad del movimiento.
+     * @return Prioridad (0 = normal)
+     */
+    public int getPrioridad() {
+        return prioridad;
+    }
+
+    /**
+     * Establece el efecto secundario del movimiento.
+     * @param efecto Efecto (Condicion.EFECTO_*)
+     * @param probabilidad Probabilidad de causarlo al golpear (0.0 - 1.0)
+     * @return Este movimiento, para encadenar al crearlo
+     */
+    public Movimiento setEfecto(int efecto, double probabilidad) {
+        this.efecto = efecto;
+        this.probEfecto = probabilidad;
+        return this;
+    }
+
+    /**
+     * Obtiene el efecto secundario del movimiento.
+     * @return Efecto (Condicion.EFECTO_*)
+     */
+    public int getEfecto() {
+        return efecto;
+    }
+
+    /**
+     * Obtiene la probabilidad de causar el efecto secundario.
+     * @return Probabilidad (0.0 - 1.0)
+     */
+    public double getProbEfecto() {
+        return probEfecto;
+    }
+
+    /**
+     * Probabilidad de causar el efecto secundario cada vez que se usa. Los movimientos
+     * sin daño no pueden fallar el golpe y solo lo causan si aciertan.
+     * @return Probabilidad por uso (0.0 - 1.0)
+     */
+    double probEfectoAlUsar() {
+        return dano > 0 ? probEfecto : probEfecto * precision;
+    }
+
+    /**
+     * Obtiene el tipo del movimiento.
+     * @return Tipo
+     */
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    /**
+     * Obtiene la probabilidad de acertar.
+     * @return Precisión (0.0 - 1.0)
+     */
+    public double getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Obtiene la probabilidad de golpe crítico.
+     * @return Probabilidad de crítico (0.0 - 1.0)
+     */
+    public double getProbCritico() {
+        return probCritico;
+    }
+
+    /**
+     * Obtiene la fracción mínima del daño en la tirada aleatoria.
+     * @return Variación (1.0 = daño fijo)
+     */
+    public double getVariacion() {
+        return variacion;
     }
 }
@@ -0,0 +1,97 @@
+package modelo;
+
+/**
+ * Cola de prioridad de capacidad fija para ordenar las acciones de un turno.
+ *
+ * Cada acción se guarda como un long cuyos bits altos son la clave de orden
+ * (cambio, prioridad del movimiento, velocidad y desempate al azar) y los bajos
+ * identifican el lado y la acción, así que el montículo es un único array de long.
+ * No crea objetos después de construirse.
+ */
+final class PlanificadorTurno {
+
+    /** Bits reservados para identificar la acción (lado y acción) */
+    private static final int BITS_ACCION = 8;
+
+    /** Bits del desempate al azar */
+    private static final int BITS_DESEMPATE = 16;
+
+    /** Bits de la velocidad */
+    private static final int BITS_VELOCIDAD = 16;
+
+    /** Prioridad de los cambios de Pokémon: por encima de cualquier movimiento */
+    static final int PRIORIDAD_CAMBIO = 7;
+
+    private final long[] monticulo;
+    private int tamano;
+
+    /**
+     * @param capacidad Número máximo de acciones por turno
+     */
+    PlanificadorTurno(int capacidad) {
+        monticulo = new long[capacidad];
+    }
+
+    void limpiar() {
+        tamano = 0;
+    }
+
+    boolean vacio() {
+        return tamano == 0;
+    }
+
+    /**
+     * Añade una acción.
+     *
+     * @param prioridad Prioridad (-8 a 7; los cambios usan PRIORIDAD_CAMBIO)
+     * @param velocidad Velocidad del Pokémon (0 - 65535)
+     * @param desempate Número al azar para los empates (se usan 16 bits)
+     * @param lado Lado que actúa (0 o 1)
+     * @param accion Acción (0 - 127)
+     */
+    void agregar(int prioridad, int velocidad, int desempate, int lado, int accion) {
+        if (tamano == monticulo.length) throw new IllegalStateException("Planificador lleno");
+        long clave = (long) (prioridad + 8) << (BITS_VELOCIDAD + BITS_DESEMPATE + BITS_ACCION)
+                | (long) Math.min(velocidad, 0xFFFF) << (BITS_DESEMPATE + BITS_ACCION)
+                | (long) (desempate & 0xFFFF) << BITS_ACCION
+                | lado << 7 | accion;
+
+        // Subir el elemento nuevo hasta su sitio
+        int i = tamano++;
+        while (i > 0) {
+            int padre = (i - 1) >> 1;
+            if (monticulo[padre] >= clave) break;
+            monticulo[i] = monticulo[padre];
+            i = padre;
+        }
+        monticulo[i] = clave;
+    }
+
+    /**
+     * Extrae la acción que va primero.
+     * @return Valor empaquetado; usar lado() y accion() para leerlo
+     */
+    long extraer() {
+        long primero = monticulo[0];
+        long ultimo = monticulo[--tamano];
+        int i = 0;
+        while (true) {
+            int hijo = 2 * i + 1;
+            if (hijo >= tamano) break;
+            if (hijo + 1 < tamano && monticulo[hijo + 1] > monticulo[hijo]) hijo++;
+            if (ultimo >= monticulo[hijo]) break;
+            monticulo[i] = monticulo[hijo];
+            i = hijo;
+        }
+        if (tamano > 0) monticulo[i] = ultimo;
+        return primero;
+    }
+
+    static int lado(long elemento) {
+        return (int) (elemento >> 7) & 1;
+    }
+
+    static int accion(long elemento) {
+        return (int) elemento & 0x7F;
+    }
+}
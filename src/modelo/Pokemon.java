@@ -1,28 +1,30 @@
 package modelo;
 
 import java.util.Random;
-import javafx.scene.control.ProgressBar;
 
 /**
- * Representa un Pokémon con nombre, vida, movimientos y una barra visual de vida.
+ * Representa un Pokémon con nombre, especie (tipos y estadísticas), vida y movimientos.
+ * La barra de vida que se ve en pantalla es del controlador, que la anima al cambiar la vida.
  */
 public class Pokemon {
 
     /** Nombre del Pokémon (ejemplo: "Mega Charizard") */
     public String nombre;
 
+    /** Tipos, ataque y defensa del Pokémon */
+    Especie especie = Especie.NEUTRA;
+
     /** Vida actual del Pokémon, representada como un valor entre 0.0 y 1.0 */
     double vida = 1.0;
 
-    /** Barra de progreso que representa visualmente la vida del Pokémon */
-    ProgressBar barraVida;
+    /** Condiciones de estado empaquetadas (ver Condicion); 0 = ninguna */
+    int condicion = Condicion.NINGUNO;
 
     /** Array de movimientos que el Pokémon puede usar en batalla */
     public Movimiento[] movimientos;
 
     /**
      * Constructor para crear un Pokémon con nombre y movimientos.
-     * Inicializa la barra de vida con la vida inicial.
      * 
      * @param nombre Nombre del Pokémon
      * @param movimientos Array de movimientos disponibles para este Pokémon
@@ -30,7 +32,39 @@ public class Pokemon {
     public Pokemon(String nombre, Movimiento[] movimientos) {
         this.nombre = nombre;
         this.movimientos = movimientos;
-        this.barraVida = new ProgressBar(vida);
+    }
+
+    /**
+     * Constructor para crear un Pokémon con nombre, especie y movimientos.
+     * 
+     * @param nombre Nombre del Pokémon
+     * @param especie Tipos y estadísticas del Pokémon
+     * @param movimientos Array de movimientos disponibles para este Pokémon
+     */
+    public Pokemon(String nombre, Especie especie, Movimiento[] movimientos) {
+        this(nombre, movimientos);
+        this.especie = especie;
+    }
+
+    /**
+     * Distribución del daño que hace uno de sus movimientos a otro Pokémon,
+     * con STAB, efectividad y estadísticas. No crea objetos si el rival no cambia.
+     * 
+     * @param movIndex Índice del movimiento
+     * @param defensor Pokémon que recibe el ataque
+     * @return Distribución del daño en puntos de vida
+     */
+    public DistribucionDano distribucionContra(int movIndex, Pokemon defensor) {
+        Movimiento mov = movimientos[movIndex];
+        return mov.getDistribucion(especie.multiplicador(mov.tipo, defensor.especie));
+    }
+
+    /**
+     * Obtiene la especie del Pokémon.
+     * @return Tipos y estadísticas
+     */
+    public Especie getEspecie() {
+        return especie;
     }
 
     /**
@@ -50,11 +84,19 @@ public class Pokemon {
     }
 
     /**
-     * Obtiene la barra de progreso que representa la vida visualmente.
-     * @return Barra de progreso de vida
+     * Obtiene las condiciones de estado (quemadura, parálisis, niveles...).
+     * @return Condición empaquetada (ver Condicion)
+     */
+    public int getCondicion() {
+        return condicion;
+    }
+
+    /**
+     * Establece las condiciones de estado.
+     * @param condicion Condición empaquetada (ver Condicion)
      */
-    public ProgressBar getBarraVida() {
-        return barraVida;
+    public void setCondicion(int condicion) {
+        this.condicion = condicion;
     }
 
     /**
@@ -74,6 +116,17 @@ public class Pokemon {
         }
     }
 
+    /**
+     * Indica si le queda algún movimiento con PP.
+     * @return true si puede atacar
+     */
+    public boolean tieneMovimientos() {
+        for (Movimiento m : movimientos) {
+            if (m.pp > 0) return true;
+        }
+        return false;
+    }
+
     /**
      * Selecciona y devuelve un movimiento al azar entre los disponibles.
      * @return Movimiento elegido aleatoriamente
@@ -83,11 +136,4 @@ public class Pokemon {
         int index = rand.nextInt(movimientos.length); // elige índice al azar
         return movimientos[index];
     }
-
-    /**
-     * Actualiza la barra de vida para reflejar el estado actual de vida.
-     */
-    public void actualizarBarra() {
-        barraVida.setProgress(vida);
-    }
 }
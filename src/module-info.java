@@ -4,14 +4,19 @@ module PokemonEclipse {
 	requires javafx.graphics;
 	requires java.desktop;
 	requires java.sql;
+	requires jdk.management;
+	requires jdk.jfr;
     
-    // Exporta el paquete del controlador a javafx.fxml
-    exports controlador to javafx.fxml;
-    
-    // Abre el paquete si usas inyección FXML con campos privados
-    opens controlador to javafx.fxml;
+    // Las vistas se construyen con las clases que genera recursos.GeneradorVistas a partir
+    // de los FXML, sin FXMLLoader, así que controlador no se abre ni se exporta a javafx.fxml
+    // (javafx.fxml solo se usa por las anotaciones @FXML, que sirven a Scene Builder)
     
     // Exporta otros paquetes necesarios
     exports application;
     exports modelo;
-}
\ No newline at end of file
+    exports ia;
+    exports simulacion;
+    exports metricas;
+    exports registro;
+    exports recursos;
+}
\ No newline at end of file
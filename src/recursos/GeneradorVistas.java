@@ -0,0 +1,715 @@
+package recursos;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import comun.Opciones;
+
+/**
+ * Paso de construcción que convierte las vistas FXML en clases Java que crean los mismos
+ * nodos con código, para no leer el XML ni usar reflexión al arrancar.
+ *
+ * El FXML sigue siendo el formato en que se editan las vistas (a mano o con Scene
+ * Builder); de cada Vista/Nombre.fxml sale una clase VistaNombre en el paquete de su
+ * fx:controller con un método estático crear(controlador) que hace lo mismo que
+ * FXMLLoader: crea los nodos en el orden del documento, les pone sus propiedades, asigna
+ * cada fx:id como id del nodo y al campo del mismo nombre del controlador, conecta los
+ * manejadores "#metodo" y llama a initialize. Como la vista está en el paquete del
+ * controlador, los campos, los manejadores e initialize no pueden ser privados, y el
+ * módulo no tiene que abrir el paquete a javafx.fxml.
+ *
+ * Los tipos de las propiedades se sacan por reflexión de las clases de JavaFX y del
+ * controlador compilado (sin inicializarlas), así que se ejecuta con el proyecto ya
+ * compilado y JavaFX en el module path; después hay que volver a compilar. Se admite lo
+ * que usan las vistas del juego: imports, elementos de objeto (con @NamedArg si la clase
+ * no tiene constructor sin argumentos), atributos con números, booleanos, cadenas,
+ * enumerados y colores, propiedades estáticas (AnchorPane.topAnchor), elementos de
+ * propiedad (listas como children, u objetos como font) y manejadores de eventos. Las
+ * expresiones ($), los recursos (%), las rutas (@), fx:include y fx:define dan error.
+ *
+ * Uso: java recursos.GeneradorVistas [opcion=valor...]
+ *
+ *     origen=src/Vista     Carpeta con los FXML
+ *     destino=src          Carpeta raíz de las fuentes donde se escriben las vistas
+ *     comprobar=false      No escribe nada: falla si alguna vista generada no está al día
+ *
+ * Códigos de salida: 0 vistas generadas (o al día), 1 error en un FXML o vista
+ * desactualizada, 2 opciones no válidas.
+ */
+public class GeneradorVistas {
+
+    private static final String USO = "Uso: java recursos.GeneradorVistas [origen=carpeta] [destino=carpeta] "
+            + "[comprobar=true|false]";
+
+    public static void main(String[] args) {
+        int codigo;
+        try {
+            codigo = generar(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USO);
+            codigo = 2;
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            codigo = 1;
+        }
+        System.exit(codigo);
+    }
+
+    private static int generar(String[] args) throws IOException {
+        Map<String, String> opciones = Opciones.leer(args, "origen", "destino", "comprobar");
+        Path origen = Paths.get(opciones.getOrDefault("origen", "src/Vista"));
+        Path destino = Paths.get(opciones.getOrDefault("destino", "src"));
+        boolean comprobar = Boolean.parseBoolean(opciones.getOrDefault("comprobar", "false"));
+        if (!Files.isDirectory(origen)) throw new IOException("No existe la carpeta " + origen);
+
+        List<Path> vistas;
+        try (Stream<Path> ficheros = Files.list(origen)) {
+            vistas = ficheros.filter(f -> f.getFileName().toString().endsWith(".fxml")).sorted()
+                    .collect(Collectors.toList());
+        }
+        if (vistas.isEmpty()) throw new IOException("No hay ficheros FXML en " + origen);
+
+        int desactualizadas = 0;
+        for (Path fxml : vistas) {
+            Traductor traductor = new Traductor(fxml);
+            String codigo = traductor.traducir();
+            Path fichero = destino.resolve(traductor.paquete.replace('.', '/')).resolve(traductor.clase + ".java");
+            String anterior = Files.isRegularFile(fichero)
+                    ? new String(Files.readAllBytes(fichero), StandardCharsets.UTF_8).replace("\r\n", "\n") : null;
+            boolean alDia = codigo.equals(anterior);
+            if (comprobar) {
+                if (!alDia) desactualizadas++;
+                System.out.printf("%-16s -> %s %s%n", fxml.getFileName(), fichero, alDia ? "al día" : "DESACTUALIZADA");
+                continue;
+            }
+            if (!alDia) {
+                Files.createDirectories(fichero.getParent());
+                Files.write(fichero, codigo.replace("\n", System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+            }
+            System.out.printf("%-16s -> %s (%d nodos)%s%n", fxml.getFileName(), fichero, traductor.nodos,
+                    alDia ? ", sin cambios" : "");
+        }
+        if (desactualizadas > 0) {
+            System.out.println(desactualizadas + " vistas desactualizadas: hay que ejecutar recursos.GeneradorVistas");
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Traduce un FXML a la fuente de su vista.
+     */
+    private static final class Traductor {
+        private final Path fxml;
+        private final String nombre;
+
+        // Clases de los <?import?>, por nombre simple, y paquetes importados con *
+        private final Map<String, String> importadas = new HashMap<>();
+        private final List<String> paquetes = new ArrayList<>();
+
+        // Imports de la vista generada: nombre simple -> nombre completo
+        private final Map<String, String> usadas = new TreeMap<>();
+
+        private final StringBuilder cuerpo = new StringBuilder();
+        private final List<String> asignaciones = new ArrayList<>();
+        private final Map<String, Integer> contadores = new HashMap<>();
+        private Class<?> controlador;
+        String paquete;
+        String clase;
+        int nodos;
+
+        Traductor(Path fxml) {
+            this.fxml = fxml;
+            String fichero = fxml.getFileName().toString();
+            this.nombre = fichero.substring(0, fichero.length() - ".fxml".length());
+        }
+
+        String traducir() throws IOException {
+            Elemento raiz = leer();
+            String nombreControlador = raiz.atributos.get("fx:controller");
+            if (nombreControlador == null) throw error("falta fx:controller en la raíz");
+            controlador = cargar(nombreControlador);
+            paquete = controlador.getPackageName();
+            clase = "Vista" + nombre;
+
+            String variableRaiz = objeto(raiz, true);
+            String tipoRaiz = usar(cargar(nombreClase(raiz.etiqueta)));
+            String tipoControlador = usar(controlador);
+
+            Method initialize = metodo(controlador, "initialize", 0);
+            if (initialize != null) asignaciones.add("controlador.initialize();");
+
+            StringBuilder fuente = new StringBuilder();
+            fuente.append("package ").append(paquete).append(";\n\n");
+            for (String completa : new java.util.TreeSet<>(usadas.values())) {
+                String paqueteClase = completa.substring(0, completa.lastIndexOf('.'));
+                if (!paqueteClase.equals(paquete) && !paqueteClase.equals("java.lang")) {
+                    fuente.append("import ").append(completa).append(";\n");
+                }
+            }
+            fuente.append("\n/**\n")
+                    .append(" * Vista generada por recursos.GeneradorVistas a partir de ").append(fxml.getFileName())
+                    .append(": crea los\n")
+                    .append(" * nodos con código y los asigna directamente a los campos de ").append(tipoControlador)
+                    .append(",\n")
+                    .append(" * sin FXMLLoader. No se edita a mano: se cambia el FXML y se vuelve a generar.\n")
+                    .append(" */\n")
+                    .append("public final class ").append(clase).append(" {\n\n")
+                    .append("    private ").append(clase).append("() {\n    }\n\n")
+                    .append("    /**\n")
+                    .append("     * Crea los nodos, los asigna al controlador y llama a su initialize, como\n")
+                    .append("     * FXMLLoader con el FXML.\n")
+                    .append("     *\n")
+                    .append("     * @param controlador Controlador de la vista\n")
+                    .append("     * @return Raíz de la vista\n")
+                    .append("     */\n")
+                    .append("    public static ").append(tipoRaiz).append(" crear(").append(tipoControlador)
+                    .append(" controlador) {\n")
+                    .append(cuerpo);
+            if (!asignaciones.isEmpty()) fuente.append('\n');
+            for (String asignacion : asignaciones) fuente.append("        ").append(asignacion).append('\n');
+            fuente.append("        return ").append(variableRaiz).append(";\n")
+                    .append("    }\n")
+                    .append("}\n");
+            return fuente.toString();
+        }
+
+        /**
+         * Lee el FXML en un árbol de Elemento, con los atributos en el orden del fichero, y
+         * anota sus imports.
+         */
+        private Elemento leer() throws IOException {
+            XMLInputFactory fabrica = XMLInputFactory.newInstance();
+            fabrica.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            try (InputStream entrada = Files.newInputStream(fxml)) {
+                XMLStreamReader lector = fabrica.createXMLStreamReader(entrada);
+                List<Elemento> abiertos = new ArrayList<>();
+                Elemento raiz = null;
+                while (lector.hasNext()) {
+                    switch (lector.next()) {
+                        case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                            if (lector.getPITarget().equals("import")) importar(lector.getPIData().trim());
+                            break;
+                        case XMLStreamConstants.START_ELEMENT:
+                            Elemento elemento = new Elemento(nombre(lector.getPrefix(), lector.getLocalName()));
+                            for (int i = 0; i < lector.getAttributeCount(); i++) {
+                                elemento.atributos.put(nombre(lector.getAttributePrefix(i), lector.getAttributeLocalName(i)),
+                                        lector.getAttributeValue(i));
+                            }
+                            if (abiertos.isEmpty()) raiz = elemento;
+                            else abiertos.get(abiertos.size() - 1).hijos.add(elemento);
+                            abiertos.add(elemento);
+                            break;
+                        case XMLStreamConstants.END_ELEMENT:
+                            abiertos.remove(abiertos.size() - 1);
+                            break;
+                        case XMLStreamConstants.COMMENT:
+                            if (!abiertos.isEmpty()) abiertos.get(abiertos.size() - 1).hijos.add(new Comentario(lector.getText()));
+                            break;
+                        case XMLStreamConstants.CHARACTERS:
+                        case XMLStreamConstants.CDATA:
+                            if (!abiertos.isEmpty()) abiertos.get(abiertos.size() - 1).texto.append(lector.getText());
+                            break;
+                        default:
+                            break;
+                    }
+                }
+                if (raiz == null) throw error("está vacío");
+                return raiz;
+            } catch (XMLStreamException e) {
+                throw error(e.getMessage());
+            }
+        }
+
+        private void importar(String importacion) {
+            if (importacion.endsWith(".*")) {
+                paquetes.add(importacion.substring(0, importacion.length() - 2));
+            } else {
+                importadas.put(importacion.substring(importacion.lastIndexOf('.') + 1), importacion);
+            }
+        }
+
+        private static String nombre(String prefijo, String local) {
+            return prefijo == null || prefijo.isEmpty() ? local : prefijo + ":" + local;
+        }
+
+        /**
+         * Traduce un elemento de objeto.
+         *
+         * @return Variable con el objeto o, si el objeto no tiene id, propiedades ni hijos,
+         *         la expresión que lo crea
+         */
+        private String objeto(Elemento e, boolean raiz) throws IOException {
+            Class<?> tipo = cargar(nombreClase(e.etiqueta));
+            nodos++;
+
+            String id = null;
+            Map<String, String> propiedades = new LinkedHashMap<>();
+            for (Map.Entry<String, String> a : e.atributos.entrySet()) {
+                String atributo = a.getKey();
+                String valor = a.getValue();
+                if (atributo.startsWith("xmlns") || atributo.equals("fx:controller") && raiz) continue;
+                if (atributo.equals("fx:id")) {
+                    id = valor;
+                } else if (atributo.startsWith("fx:")) {
+                    throw error(atributo + " no está soportado");
+                } else {
+                    propiedades.put(atributo, valor);
+                }
+            }
+
+            String creacion = creacion(tipo, propiedades);
+            List<Elemento> hijos = e.elementos();
+            if (!raiz && id == null && propiedades.isEmpty() && hijos.isEmpty()) return creacion;
+
+            String variable = raiz ? "raiz" : id != null ? id : variable(tipo);
+            linea(usar(tipo) + " " + variable + " = " + creacion + ";");
+            if (id != null) {
+                if (!propiedades.containsKey("id") && metodoPublico(tipo, "setId", String.class) != null) {
+                    linea(variable + ".setId(" + cadena(id) + ");");
+                }
+                asignarCampo(id, tipo, variable);
+            }
+            for (Map.Entry<String, String> p : propiedades.entrySet()) propiedad(tipo, variable, p.getKey(), p.getValue());
+
+            List<String> porDefecto = new ArrayList<>();
+            for (Object n : e.hijos) {
+                if (n instanceof Comentario) {
+                    comentario(((Comentario) n).texto);
+                } else {
+                    Elemento hijo = (Elemento) n;
+                    String etiqueta = hijo.etiqueta;
+                    if (etiqueta.startsWith("fx:")) throw error(etiqueta + " no está soportado");
+                    if (Character.isUpperCase(etiqueta.charAt(etiqueta.lastIndexOf('.') + 1))) {
+                        porDefecto.add(objeto(hijo, false));
+                    } else if (etiqueta.contains(".")) {
+                        throw error("la propiedad estática " + etiqueta + " como elemento no está soportada");
+                    } else {
+                        elementoPropiedad(tipo, variable, hijo);
+                    }
+                }
+            }
+            if (!porDefecto.isEmpty()) {
+                String propiedad = propiedadPorDefecto(tipo);
+                if (propiedad == null) throw error(tipo.getSimpleName() + " no tiene propiedad por defecto para sus hijos");
+                valores(tipo, variable, propiedad, porDefecto);
+            }
+            return variable;
+        }
+
+        /**
+         * Elige el constructor: el sin argumentos o, si no hay, el de argumentos con
+         * @NamedArg que más atributos use. Los atributos usados se quitan de propiedades.
+         */
+        private String creacion(Class<?> tipo, Map<String, String> propiedades) throws IOException {
+            Constructor<?> elegido = null;
+            int usados = -1;
+            for (Constructor<?> c : tipo.getConstructors()) {
+                if (c.getParameterCount() == 0) return "new " + usar(tipo) + "()";
+                String[] nombres = nombresArgumentos(c);
+                if (nombres == null || !propiedades.keySet().containsAll(Arrays.asList(nombres))) continue;
+                if (nombres.length > usados) {
+                    elegido = c;
+                    usados = nombres.length;
+                }
+            }
+            if (elegido == null) {
+                throw error(tipo.getSimpleName() + " no tiene constructor sin argumentos ni uno con @NamedArg para "
+                        + propiedades.keySet());
+            }
+            String[] nombres = nombresArgumentos(elegido);
+            Class<?>[] tipos = elegido.getParameterTypes();
+            StringBuilder argumentos = new StringBuilder();
+            for (int i = 0; i < nombres.length; i++) {
+                if (i > 0) argumentos.append(", ");
+                argumentos.append(valor(tipos[i], propiedades.remove(nombres[i]), nombres[i]));
+            }
+            return "new " + usar(tipo) + "(" + argumentos + ")";
+        }
+
+        private String[] nombresArgumentos(Constructor<?> c) {
+            Parameter[] parametros = c.getParameters();
+            String[] nombres = new String[parametros.length];
+            for (int i = 0; i < parametros.length; i++) {
+                java.lang.annotation.Annotation anotacion = Arrays.stream(parametros[i].getAnnotations())
+                        .filter(a -> a.annotationType().getName().equals("javafx.beans.NamedArg"))
+                        .findFirst().orElse(null);
+                if (anotacion == null) return null;
+                try {
+                    nombres[i] = (String) anotacion.annotationType().getMethod("value").invoke(anotacion);
+                } catch (ReflectiveOperationException ex) {
+                    return null;
+                }
+            }
+            return nombres;
+        }
+
+        /**
+         * Traduce un atributo: propiedad estática, manejador de eventos, setter o lista.
+         */
+        private void propiedad(Class<?> tipo, String variable, String nombre, String valor) throws IOException {
+            int punto = nombre.indexOf('.');
+            if (punto > 0) {
+                Class<?> propietario = cargar(nombreClase(nombre.substring(0, punto)));
+                String setter = "set" + mayuscula(nombre.substring(punto + 1));
+                for (Method m : propietario.getMethods()) {
+                    if (m.getName().equals(setter) && Modifier.isStatic(m.getModifiers()) && m.getParameterCount() == 2
+                            && m.getParameterTypes()[0].isAssignableFrom(tipo)) {
+                        linea(usar(propietario) + "." + setter + "(" + variable + ", "
+                                + valor(m.getParameterTypes()[1], valor, nombre) + ");");
+                        return;
+                    }
+                }
+                throw error("no existe " + propietario.getSimpleName() + "." + setter + " para " + tipo.getSimpleName());
+            }
+            if (nombre.startsWith("on") && valor.startsWith("#")) {
+                manejador(tipo, variable, nombre, valor.substring(1));
+                return;
+            }
+            Method setter = setter(tipo, nombre);
+            if (setter != null) {
+                linea(variable + "." + setter.getName() + "(" + valor(setter.getParameterTypes()[0], valor, nombre) + ");");
+                return;
+            }
+            Method getter = metodoPublico(tipo, "get" + mayuscula(nombre));
+            if (getter != null && List.class.isAssignableFrom(getter.getReturnType())) {
+                // Como FXMLLoader: una lista se rellena con los valores separados por comas
+                List<String> elementos = new ArrayList<>();
+                for (String parte : valor.split(",")) elementos.add(cadena(parte.trim()));
+                valores(tipo, variable, nombre, elementos);
+                return;
+            }
+            throw error(tipo.getSimpleName() + " no tiene la propiedad " + nombre);
+        }
+
+        private void manejador(Class<?> tipo, String variable, String nombre, String metodo) throws IOException {
+            String setter = "set" + mayuscula(nombre);
+            if (Arrays.stream(tipo.getMethods()).noneMatch(m -> m.getName().equals(setter) && m.getParameterCount() == 1)) {
+                throw error(tipo.getSimpleName() + " no tiene el evento " + nombre);
+            }
+            Method conEvento = metodo(controlador, metodo, 1);
+            if (conEvento != null) {
+                linea(variable + "." + setter + "(controlador::" + metodo + ");");
+            } else if (metodo(controlador, metodo, 0) != null) {
+                linea(variable + "." + setter + "(e -> controlador." + metodo + "());");
+            } else {
+                throw error(controlador.getSimpleName() + " no tiene el manejador " + metodo);
+            }
+        }
+
+        /**
+         * Elemento de propiedad: una lista (children) se rellena con sus objetos; otra
+         * propiedad recibe su único objeto, o su texto.
+         */
+        private void elementoPropiedad(Class<?> tipo, String variable, Elemento e) throws IOException {
+            String nombre = e.etiqueta;
+            List<Elemento> hijos = e.elementos();
+            Method getter = metodoPublico(tipo, "get" + mayuscula(nombre));
+            if (getter != null && List.class.isAssignableFrom(getter.getReturnType())) {
+                List<String> valores = new ArrayList<>();
+                for (Object n : e.hijos) {
+                    if (n instanceof Comentario) comentario(((Comentario) n).texto);
+                    else valores.add(objeto((Elemento) n, false));
+                }
+                valores(tipo, variable, nombre, valores);
+                return;
+            }
+            if (hijos.isEmpty()) {
+                propiedad(tipo, variable, nombre, e.texto.toString().trim());
+                return;
+            }
+            if (hijos.size() > 1) throw error("la propiedad " + nombre + " tiene más de un valor");
+            Method setter = setter(tipo, nombre);
+            if (setter == null) throw error(tipo.getSimpleName() + " no tiene la propiedad " + nombre);
+            Class<?> tipoValor = cargar(nombreClase(hijos.get(0).etiqueta));
+            if (!envolver(setter.getParameterTypes()[0]).isAssignableFrom(tipoValor)) {
+                throw error(nombre + " de " + tipo.getSimpleName() + " no admite " + tipoValor.getSimpleName());
+            }
+            String valor = objeto(hijos.get(0), false);
+            linea(variable + "." + setter.getName() + "(" + valor + ");");
+        }
+
+        /** Añade valores a una propiedad de tipo lista, todos en una llamada */
+        private void valores(Class<?> tipo, String variable, String nombre, List<String> valores) throws IOException {
+            if (metodoPublico(tipo, "get" + mayuscula(nombre)) == null) {
+                throw error(tipo.getSimpleName() + " no tiene la lista " + nombre);
+            }
+            if (valores.isEmpty()) return;
+            StringBuilder llamada = new StringBuilder(variable).append(".get").append(mayuscula(nombre)).append("()")
+                    .append(valores.size() == 1 ? ".add(" : ".addAll(");
+            int columna = 8 + llamada.length();
+            for (int i = 0; i < valores.size(); i++) {
+                String v = valores.get(i) + (i == valores.size() - 1 ? ");" : ",");
+                // Líneas de hasta 120 columnas, como el resto del código
+                if (i > 0 && columna + 1 + v.length() > 120) {
+                    llamada.append('\n').append(" ".repeat(16));
+                    columna = 16;
+                } else if (i > 0) {
+                    llamada.append(' ');
+                    columna++;
+                }
+                llamada.append(v);
+                columna += v.length();
+            }
+            linea(llamada.toString());
+        }
+
+        /**
+         * Asigna el nodo al campo del controlador con el nombre del fx:id, si existe. Un
+         * fx:id sin campo solo sirve para lookup, como con FXMLLoader.
+         */
+        private void asignarCampo(String id, Class<?> tipo, String variable) throws IOException {
+            Field campo = null;
+            for (Class<?> c = controlador; c != null && campo == null; c = c.getSuperclass()) {
+                campo = Arrays.stream(c.getDeclaredFields()).filter(f -> f.getName().equals(id)).findFirst().orElse(null);
+            }
+            if (campo == null) return;
+            if (Modifier.isPrivate(campo.getModifiers()) || Modifier.isStatic(campo.getModifiers())
+                    || Modifier.isFinal(campo.getModifiers())) {
+                throw error("el campo " + controlador.getSimpleName() + "." + id
+                        + " tiene que ser de instancia, no final y visible en el paquete para asignarlo");
+            }
+            if (!campo.getType().isAssignableFrom(tipo)) {
+                throw error("el campo " + controlador.getSimpleName() + "." + id + " es " + campo.getType().getSimpleName()
+                        + " y el nodo " + tipo.getSimpleName());
+            }
+            asignaciones.add("controlador." + id + " = " + variable + ";");
+        }
+
+        /**
+         * Expresión Java para el valor de un atributo, según el tipo del parámetro.
+         */
+        private String valor(Class<?> tipo, String valor, String propiedad) throws IOException {
+            if (valor.startsWith("$") || valor.startsWith("%") || valor.startsWith("@")) {
+                throw error("el valor " + valor + " de " + propiedad + " no está soportado (expresión, recurso o ruta)");
+            }
+            if (valor.startsWith("\\")) valor = valor.substring(1);
+            Class<?> t = envolver(tipo);
+            try {
+                if (t == String.class || t == Object.class || t == CharSequence.class) return cadena(valor);
+                if (t == Boolean.class) return String.valueOf(Boolean.parseBoolean(valor.trim()));
+                if (t == Integer.class) return String.valueOf(Integer.parseInt(valor.trim()));
+                if (t == Long.class) return Long.parseLong(valor.trim()) + "L";
+                if (t == Double.class) return decimal(Double.parseDouble(valor.trim()), "Double", "");
+                if (t == Float.class) return decimal(Float.parseFloat(valor.trim()), "Float", "f");
+            } catch (NumberFormatException e) {
+                throw error("el valor " + valor + " de " + propiedad + " no es un " + tipo.getSimpleName());
+            }
+            if (t.isEnum()) {
+                String constante = valor.trim();
+                try {
+                    if (t.getField(constante).isEnumConstant()) return usar(t) + "." + constante;
+                } catch (NoSuchFieldException e) {
+                    // Se informa abajo
+                }
+                throw error(valor + " no es un valor de " + t.getSimpleName());
+            }
+            Class<?> color = cargar("javafx.scene.paint.Color");
+            if (t.isAssignableFrom(color)) {
+                String constante = valor.trim().toUpperCase(java.util.Locale.ROOT);
+                try {
+                    Field f = color.getField(constante);
+                    if (Modifier.isStatic(f.getModifiers()) && f.getType() == color) return usar(color) + "." + constante;
+                } catch (NoSuchFieldException e) {
+                    // No es un color con nombre
+                }
+                return usar(color) + ".web(" + cadena(valor.trim()) + ")";
+            }
+            throw error("no se sabe convertir " + valor + " a " + tipo.getSimpleName() + " para " + propiedad);
+        }
+
+        private String decimal(double d, String clase, String sufijo) {
+            if (d == Double.NEGATIVE_INFINITY) return clase + ".NEGATIVE_INFINITY";
+            if (d == Double.POSITIVE_INFINITY) return clase + ".POSITIVE_INFINITY";
+            if (Double.isNaN(d)) return clase + ".NaN";
+            return (sufijo.isEmpty() ? Double.toString(d) : Float.toString((float) d)) + sufijo;
+        }
+
+        private String propiedadPorDefecto(Class<?> tipo) {
+            for (Class<?> c = tipo; c != null; c = c.getSuperclass()) {
+                for (java.lang.annotation.Annotation a : c.getDeclaredAnnotations()) {
+                    if (!a.annotationType().getName().equals("javafx.beans.DefaultProperty")) continue;
+                    try {
+                        return (String) a.annotationType().getMethod("value").invoke(a);
+                    } catch (ReflectiveOperationException e) {
+                        return null;
+                    }
+                }
+            }
+            return null;
+        }
+
+        private Method setter(Class<?> tipo, String propiedad) {
+            String nombre = "set" + mayuscula(propiedad);
+            for (Method m : tipo.getMethods()) {
+                if (m.getName().equals(nombre) && m.getParameterCount() == 1 && !Modifier.isStatic(m.getModifiers())) return m;
+            }
+            return null;
+        }
+
+        private Method metodoPublico(Class<?> tipo, String nombre, Class<?>... parametros) {
+            try {
+                return tipo.getMethod(nombre, parametros);
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+
+        /**
+         * Método del controlador (o de sus superclases) con ese nombre y número de
+         * parámetros; falla si es privado, porque la vista lo llama directamente.
+         */
+        private Method metodo(Class<?> tipo, String nombre, int parametros) throws IOException {
+            for (Class<?> c = tipo; c != null; c = c.getSuperclass()) {
+                for (Method m : c.getDeclaredMethods()) {
+                    if (!m.getName().equals(nombre) || m.getParameterCount() != parametros) continue;
+                    if (Modifier.isPrivate(m.getModifiers())) {
+                        throw error(c.getSimpleName() + "." + nombre + " no puede ser privado: lo llama la vista generada");
+                    }
+                    return m;
+                }
+            }
+            return null;
+        }
+
+        private Class<?> cargar(String nombre) throws IOException {
+            try {
+                // Sin inicializar: algunas clases de JavaFX necesitan la plataforma arrancada
+                return Class.forName(nombre, false, GeneradorVistas.class.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                throw error("no se encuentra la clase " + nombre);
+            }
+        }
+
+        /** Nombre completo de una clase del FXML, según sus imports */
+        private String nombreClase(String etiqueta) throws IOException {
+            if (etiqueta.contains(".") && Character.isLowerCase(etiqueta.charAt(0))) return etiqueta;
+            String simple = etiqueta.contains(".") ? etiqueta.substring(0, etiqueta.indexOf('.')) : etiqueta;
+            String resto = etiqueta.substring(simple.length()).replace('.', '$');
+            if (importadas.containsKey(simple)) return importadas.get(simple) + resto;
+            for (String p : paquetes) {
+                try {
+                    return Class.forName(p + "." + simple, false, GeneradorVistas.class.getClassLoader()).getName() + resto;
+                } catch (ClassNotFoundException e) {
+                    // Se prueba el siguiente paquete
+                }
+            }
+            if (simple.equals("String") || simple.equals("Double") || simple.equals("Integer") || simple.equals("Boolean")) {
+                return "java.lang." + simple;
+            }
+            throw error("falta el <?import?> de " + simple);
+        }
+
+        /**
+         * Anota la clase para los imports de la vista.
+         *
+         * @return Nombre con el que se escribe en la vista
+         */
+        private String usar(Class<?> tipo) {
+            String simple = tipo.getSimpleName();
+            String completa = tipo.getCanonicalName();
+            String anterior = usadas.putIfAbsent(simple, completa);
+            return anterior == null || anterior.equals(completa) ? simple : completa;
+        }
+
+        private String variable(Class<?> tipo) {
+            String base = Character.toLowerCase(tipo.getSimpleName().charAt(0)) + tipo.getSimpleName().substring(1);
+            return base + contadores.merge(base, 1, Integer::sum);
+        }
+
+        private void comentario(String texto) {
+            String limpio = texto.trim().replaceAll("\\s+", " ");
+            if (!limpio.isEmpty()) linea("// " + limpio);
+        }
+
+        private void linea(String texto) {
+            cuerpo.append("        ").append(texto).append('\n');
+        }
+
+        private IOException error(String mensaje) {
+            return new IOException(fxml.getFileName() + ": " + mensaje);
+        }
+
+        private static Class<?> envolver(Class<?> tipo) {
+            if (!tipo.isPrimitive()) return tipo;
+            if (tipo == boolean.class) return Boolean.class;
+            if (tipo == int.class) return Integer.class;
+            if (tipo == long.class) return Long.class;
+            if (tipo == double.class) return Double.class;
+            if (tipo == float.class) return Float.class;
+            return tipo;
+        }
+
+        private static String mayuscula(String s) {
+            return Character.toUpperCase(s.charAt(0)) + s.substring(1);
+        }
+
+        private static String cadena(String s) {
+            StringBuilder literal = new StringBuilder("\"");
+            for (char c : s.toCharArray()) {
+                switch (c) {
+                    case '"': literal.append("\\\""); break;
+                    case '\\': literal.append("\\\\"); break;
+                    case '\n': literal.append("\\n"); break;
+                    case '\t': literal.append("\\t"); break;
+                    default: literal.append(c);
+                }
+            }
+            return literal.append('"').toString();
+        }
+    }
+
+    /** Elemento del FXML */
+    private static final class Elemento {
+        final String etiqueta;
+        final Map<String, String> atributos = new LinkedHashMap<>();
+        /** Elementos y comentarios, en orden */
+        final List<Object> hijos = new ArrayList<>();
+        final StringBuilder texto = new StringBuilder();
+
+        Elemento(String etiqueta) {
+            this.etiqueta = etiqueta;
+        }
+
+        List<Elemento> elementos() {
+            List<Elemento> elementos = new ArrayList<>();
+            for (Object h : hijos) {
+                if (h instanceof Elemento) elementos.add((Elemento) h);
+            }
+            return elementos;
+        }
+    }
+
+    /** Comentario del FXML, que se copia a la vista */
+    private static final class Comentario {
+        final String texto;
+
+        Comentario(String texto) {
+            this.texto = texto;
+        }
+    }
+}
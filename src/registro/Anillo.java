@@ -0,0 +1,280 @@
+package registro;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Cola circular de mensajes entre los hilos que escriben en el registro y el hilo que los
+ * formatea y los saca por pantalla.
+ *
+ * Las entradas se crean todas al principio y se reutilizan. Cada hilo reserva un número
+ * de secuencia con una operación atómica, rellena la entrada de esa posición y la publica
+ * escribiendo su secuencia (escritura volatile); el hilo escritor las recorre en orden y
+ * solo él formatea. Ningún lado se bloquea: si la cola se llena, el mensaje se descarta
+ * y se cuenta, y a partir de tres cuartos de la capacidad se guarda solo uno de cada 16
+ * mensajes de depuración e información, para dejar sitio a los avisos y errores.
+ * Los descartes se anuncian después con un aviso.
+ */
+final class Anillo {
+
+    /** Una posición de la cola. Los campos normales se publican con la escritura de secuencia. */
+    private static final class Entrada {
+        volatile long secuencia = -1;
+        Nivel nivel;
+        long tiempoMs;
+        String hilo;
+        String origen;
+        String plantilla;
+        Object a0, a1, a2, a3;
+
+        /** Todos los argumentos, cuando son más de cuatro */
+        Object[] resto;
+        int numArgs;
+    }
+
+    /** Uno de cada MUESTREO mensajes de poca importancia se guarda cuando la cola está casi llena */
+    private static final int MUESTREO = 16;
+
+    private static final DateTimeFormatter HORA = DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private final Entrada[] entradas;
+    private final int mascara;
+    private final int casiLleno;
+    private final AtomicLong siguiente = new AtomicLong();
+    private volatile long consumido;
+    private final LongAdder descartados = new LongAdder();
+    private final LongAdder muestreados = new LongAdder();
+    private final PrintStream salida;
+    private final boolean json;
+    private volatile Thread escritor;
+
+    /**
+     * @param capacidad Mensajes que caben en la cola (se redondea a una potencia de dos)
+     * @param salida Flujo donde se escriben los mensajes
+     * @param json true para escribir cada mensaje como un objeto JSON en una línea
+     */
+    Anillo(int capacidad, PrintStream salida, boolean json) {
+        int tamano = Integer.highestOneBit(Math.max(2, capacidad - 1)) << 1;
+        this.entradas = new Entrada[tamano];
+        for (int i = 0; i < tamano; i++) entradas[i] = new Entrada();
+        this.mascara = tamano - 1;
+        this.casiLleno = tamano - tamano / 4;
+        this.salida = salida;
+        this.json = json;
+    }
+
+    /**
+     * Arranca el hilo escritor, que termina solo al acabar el programa.
+     */
+    void iniciar() {
+        Thread hilo = new Thread(this::escribirSiempre, "registro");
+        hilo.setDaemon(true);
+        escritor = hilo;
+        hilo.start();
+    }
+
+    /**
+     * Mete un mensaje en la cola sin bloquear. Los argumentos se formatean después, en el
+     * hilo escritor, así que deben ser inmutables (textos, números...).
+     *
+     * @return false si el mensaje se descartó
+     */
+    boolean publicar(Nivel nivel, String origen, String plantilla, int numArgs, Object a0, Object a1, Object a2,
+                     Object a3, Object[] resto) {
+        long s;
+        while (true) {
+            s = siguiente.get();
+            long ocupados = s - consumido;
+            if (ocupados >= entradas.length) {
+                descartados.increment();
+                return false;
+            }
+            if (ocupados >= casiLleno && nivel.compareTo(Nivel.AVISO) < 0 && s % MUESTREO != 0) {
+                muestreados.increment();
+                return false;
+            }
+            if (siguiente.compareAndSet(s, s + 1)) break;
+        }
+        Entrada e = entradas[(int) s & mascara];
+        e.nivel = nivel;
+        e.tiempoMs = System.currentTimeMillis();
+        e.hilo = Thread.currentThread().getName();
+        e.origen = origen;
+        e.plantilla = plantilla;
+        e.numArgs = numArgs;
+        e.a0 = a0;
+        e.a1 = a1;
+        e.a2 = a2;
+        e.a3 = a3;
+        e.resto = resto;
+        e.secuencia = s;
+        return true;
+    }
+
+    /**
+     * Espera a que el hilo escritor haya sacado todo lo publicado hasta ahora.
+     *
+     * @param esperaMs Tiempo máximo de espera
+     * @return true si se vació a tiempo
+     */
+    boolean vaciar(long esperaMs) {
+        long objetivo = siguiente.get();
+        long limite = System.nanoTime() + esperaMs * 1_000_000;
+        while (consumido < objetivo) {
+            if (System.nanoTime() - limite > 0 || escritor == null) return false;
+            LockSupport.unpark(escritor);
+            LockSupport.parkNanos(100_000);
+        }
+        salida.flush();
+        return true;
+    }
+
+    long getDescartados() {
+        return descartados.sum() + muestreados.sum();
+    }
+
+    /**
+     * Bucle del hilo escritor: saca los mensajes en orden y, cuando no hay ninguno,
+     * vacía el búfer de salida y duerme un milisegundo.
+     */
+    private void escribirSiempre() {
+        StringBuilder linea = new StringBuilder(256);
+        long cursor = 0;
+        long descartesAnunciados = 0;
+        while (true) {
+            Entrada e = entradas[(int) cursor & mascara];
+            if (e.secuencia != cursor) {
+                long descartes = getDescartados();
+                if (descartes != descartesAnunciados) {
+                    linea.setLength(0);
+                    formatear(linea, Nivel.AVISO, System.currentTimeMillis(), "registro", "registro",
+                            (descartes - descartesAnunciados) + " mensajes descartados por saturación", 0,
+                            null, null, null, null, null);
+                    salida.print(linea);
+                    descartesAnunciados = descartes;
+                }
+                salida.flush();
+                LockSupport.parkNanos(1_000_000);
+                continue;
+            }
+            linea.setLength(0);
+            formatear(linea, e.nivel, e.tiempoMs, e.hilo, e.origen, e.plantilla, e.numArgs, e.a0, e.a1, e.a2, e.a3,
+                    e.resto);
+            salida.print(linea);
+            // Se sueltan las referencias antes de liberar la posición
+            e.a0 = e.a1 = e.a2 = e.a3 = null;
+            e.resto = null;
+            consumido = ++cursor;
+        }
+    }
+
+    private void formatear(StringBuilder linea, Nivel nivel, long tiempoMs, String hilo, String origen,
+                           String plantilla, int numArgs, Object a0, Object a1, Object a2, Object a3,
+                           Object[] resto) {
+        StringBuilder mensaje = json ? new StringBuilder() : linea;
+        if (!json) {
+            HORA.formatTo(Instant.ofEpochMilli(tiempoMs), linea);
+            linea.append(' ').append(nivel).append(' ').append(origen).append(": ");
+        }
+        int usados = sustituir(mensaje, plantilla, numArgs, a0, a1, a2, a3, resto);
+        Object ultimo = numArgs == 0 ? null : argumento(numArgs - 1, a0, a1, a2, a3, resto);
+        String traza = usados < numArgs && ultimo instanceof Throwable ? traza((Throwable) ultimo) : null;
+
+        if (json) {
+            linea.append("{\"tiempo\": \"").append(Instant.ofEpochMilli(tiempoMs))
+                    .append("\", \"nivel\": \"").append(nivel)
+                    .append("\", \"origen\": ");
+            texto(linea, origen);
+            linea.append(", \"hilo\": ");
+            texto(linea, hilo);
+            linea.append(", \"plantilla\": ");
+            texto(linea, plantilla);
+            linea.append(", \"mensaje\": ");
+            texto(linea, mensaje.toString());
+            if (traza != null) {
+                linea.append(", \"traza\": ");
+                texto(linea, traza);
+            }
+            linea.append('}');
+        } else if (traza != null) {
+            linea.append(System.lineSeparator()).append(traza.trim());
+        }
+        linea.append(System.lineSeparator());
+    }
+
+    /**
+     * Sustituye cada "{}" de la plantilla por el argumento siguiente.
+     * @return Argumentos usados
+     */
+    private static int sustituir(StringBuilder destino, String plantilla, int numArgs, Object a0, Object a1, Object a2,
+                                 Object a3, Object[] resto) {
+        int usados = 0;
+        int desde = 0;
+        while (true) {
+            int marca = plantilla.indexOf("{}", desde);
+            if (marca < 0 || usados == numArgs) break;
+            destino.append(plantilla, desde, marca).append(argumento(usados++, a0, a1, a2, a3, resto));
+            desde = marca + 2;
+        }
+        destino.append(plantilla, desde, plantilla.length());
+        return usados;
+    }
+
+    /**
+     * Argumento i: los cuatro primeros van en campos propios salvo que se pasaran todos en un array.
+     */
+    private static Object argumento(int i, Object a0, Object a1, Object a2, Object a3, Object[] resto) {
+        if (resto != null) return resto[i];
+        switch (i) {
+            case 0:
+                return a0;
+            case 1:
+                return a1;
+            case 2:
+                return a2;
+            default:
+                return a3;
+        }
+    }
+
+    private static String traza(Throwable t) {
+        StringWriter texto = new StringWriter();
+        t.printStackTrace(new PrintWriter(texto));
+        return texto.toString();
+    }
+
+    private static void texto(StringBuilder json, String valor) {
+        json.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) json.append(String.format("\\u%04x", (int) c));
+                    else json.append(c);
+            }
+        }
+        json.append('"');
+    }
+}
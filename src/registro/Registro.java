@@ -0,0 +1,209 @@
+package registro;
+
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import metricas.Metricas;
+
+/**
+ * Registro de mensajes por niveles que no bloquea al hilo que escribe.
+ *
+ * Cada mensaje es una plantilla con huecos "{}" y sus argumentos. El hilo que registra
+ * solo comprueba el nivel y deja la plantilla y los argumentos en una cola circular
+ * preparada de antemano; el texto se compone y se escribe en un hilo aparte. Así un
+ * turno no espera a la consola ni paga la concatenación de textos, y si el hilo
+ * escritor no da abasto se descartan mensajes en lugar de frenar la partida (ver Anillo).
+ *
+ * Los argumentos se formatean más tarde, así que deben ser valores que no cambien
+ * (textos, números, enums). Si el último argumento es una excepción y no tiene hueco
+ * en la plantilla, se escribe su traza.
+ *
+ * Se configura con propiedades del sistema:
+ *
+ *     -Dpokemon.registro.nivel=INFO       Nivel mínimo: DEPURACION, INFO, AVISO o ERROR
+ *     -Dpokemon.registro.formato=texto    texto o json (un objeto por línea)
+ *     -Dpokemon.registro.fichero=ruta     Fichero de salida (por defecto, la salida estándar)
+ *     -Dpokemon.registro.capacidad=8192   Mensajes que caben en la cola
+ *
+ * Uso: private static final Registro REGISTRO = Registro.de("batalla");
+ *      REGISTRO.info("{} usó {}", atacante, movimiento);
+ */
+public final class Registro {
+
+    private static final Nivel MINIMO;
+    private static final Anillo ANILLO;
+
+    static {
+        Nivel minimo;
+        try {
+            minimo = Nivel.valueOf(System.getProperty("pokemon.registro.nivel", "INFO").toUpperCase());
+        } catch (IllegalArgumentException e) {
+            minimo = Nivel.INFO;
+        }
+        MINIMO = minimo;
+
+        PrintStream salida = System.out;
+        String fichero = System.getProperty("pokemon.registro.fichero");
+        if (fichero != null) {
+            try {
+                salida = new PrintStream(new FileOutputStream(fichero, true), false, StandardCharsets.UTF_8);
+            } catch (FileNotFoundException e) {
+                System.err.println("No se puede abrir el registro " + fichero + ": " + e.getMessage());
+            }
+        }
+        boolean json = "json".equalsIgnoreCase(System.getProperty("pokemon.registro.formato"));
+        ANILLO = new Anillo(Integer.getInteger("pokemon.registro.capacidad", 8192), salida, json);
+        ANILLO.iniciar();
+        Metricas.medidor("registro.descartados", ANILLO::getDescartados);
+        // Al salir se espera un poco a que se escriba lo que quede en la cola
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> ANILLO.vaciar(1000), "registro-vaciar"));
+    }
+
+    private final String origen;
+
+    private Registro(String origen) {
+        this.origen = origen;
+    }
+
+    /**
+     * @param origen Parte del programa que escribe los mensajes ("batalla", "bd"...)
+     * @return Registro para ese origen; conviene guardarlo en un campo static final
+     */
+    public static Registro de(String origen) {
+        return new Registro(origen);
+    }
+
+    /**
+     * @param nivel Nivel del mensaje
+     * @return true si los mensajes de ese nivel se escriben; sirve para no calcular argumentos caros
+     */
+    public boolean activo(Nivel nivel) {
+        return nivel.compareTo(MINIMO) >= 0;
+    }
+
+    /**
+     * Espera a que se escriban los mensajes registrados hasta ahora.
+     * @param esperaMs Tiempo máximo de espera
+     * @return true si se escribieron todos a tiempo
+     */
+    public static boolean vaciar(long esperaMs) {
+        return ANILLO.vaciar(esperaMs);
+    }
+
+    /**
+     * @return Mensajes descartados o no guardados por tener la cola llena desde que empezó el programa
+     */
+    public static long getDescartados() {
+        return ANILLO.getDescartados();
+    }
+
+    // Con hasta cuatro argumentos no se crea ningún array
+
+    private void registrar(Nivel nivel, String plantilla, int numArgs, Object a0, Object a1, Object a2, Object a3) {
+        if (nivel.compareTo(MINIMO) >= 0) ANILLO.publicar(nivel, origen, plantilla, numArgs, a0, a1, a2, a3, null);
+    }
+
+    private void registrar(Nivel nivel, String plantilla, Object[] args) {
+        if (nivel.compareTo(MINIMO) >= 0) {
+            ANILLO.publicar(nivel, origen, plantilla, args.length, null, null, null, null, args);
+        }
+    }
+
+    public void depuracion(String mensaje) {
+        registrar(Nivel.DEPURACION, mensaje, 0, null, null, null, null);
+    }
+
+    public void depuracion(String plantilla, Object a0) {
+        registrar(Nivel.DEPURACION, plantilla, 1, a0, null, null, null);
+    }
+
+    public void depuracion(String plantilla, Object a0, Object a1) {
+        registrar(Nivel.DEPURACION, plantilla, 2, a0, a1, null, null);
+    }
+
+    public void depuracion(String plantilla, Object a0, Object a1, Object a2) {
+        registrar(Nivel.DEPURACION, plantilla, 3, a0, a1, a2, null);
+    }
+
+    public void depuracion(String plantilla, Object a0, Object a1, Object a2, Object a3) {
+        registrar(Nivel.DEPURACION, plantilla, 4, a0, a1, a2, a3);
+    }
+
+    public void depuracion(String plantilla, Object... args) {
+        registrar(Nivel.DEPURACION, plantilla, args);
+    }
+
+    public void info(String mensaje) {
+        registrar(Nivel.INFO, mensaje, 0, null, null, null, null);
+    }
+
+    public void info(String plantilla, Object a0) {
+        registrar(Nivel.INFO, plantilla, 1, a0, null, null, null);
+    }
+
+    public void info(String plantilla, Object a0, Object a1) {
+        registrar(Nivel.INFO, plantilla, 2, a0, a1, null, null);
+    }
+
+    public void info(String plantilla, Object a0, Object a1, Object a2) {
+        registrar(Nivel.INFO, plantilla, 3, a0, a1, a2, null);
+    }
+
+    public void info(String plantilla, Object a0, Object a1, Object a2, Object a3) {
+        registrar(Nivel.INFO, plantilla, 4, a0, a1, a2, a3);
+    }
+
+    public void info(String plantilla, Object... args) {
+        registrar(Nivel.INFO, plantilla, args);
+    }
+
+    public void aviso(String mensaje) {
+        registrar(Nivel.AVISO, mensaje, 0, null, null, null, null);
+    }
+
+    public void aviso(String plantilla, Object a0) {
+        registrar(Nivel.AVISO, plantilla, 1, a0, null, null, null);
+    }
+
+    public void aviso(String plantilla, Object a0, Object a1) {
+        registrar(Nivel.AVISO, plantilla, 2, a0, a1, null, null);
+    }
+
+    public void aviso(String plantilla, Object a0, Object a1, Object a2) {
+        registrar(Nivel.AVISO, plantilla, 3, a0, a1, a2, null);
+    }
+
+    public void aviso(String plantilla, Object a0, Object a1, Object a2, Object a3) {
+        registrar(Nivel.AVISO, plantilla, 4, a0, a1, a2, a3);
+    }
+
+    public void aviso(String plantilla, Object... args) {
+        registrar(Nivel.AVISO, plantilla, args);
+    }
+
+    public void error(String mensaje) {
+        registrar(Nivel.ERROR, mensaje, 0, null, null, null, null);
+    }
+
+    public void error(String plantilla, Object a0) {
+        registrar(Nivel.ERROR, plantilla, 1, a0, null, null, null);
+    }
+
+    public void error(String plantilla, Object a0, Object a1) {
+        registrar(Nivel.ERROR, plantilla, 2, a0, a1, null, null);
+    }
+
+    public void error(String plantilla, Object a0, Object a1, Object a2) {
+        registrar(Nivel.ERROR, plantilla, 3, a0, a1, a2, null);
+    }
+
+    public void error(String plantilla, Object a0, Object a1, Object a2, Object a3) {
+        registrar(Nivel.ERROR, plantilla, 4, a0, a1, a2, a3);
+    }
+
+    public void error(String plantilla, Object... args) {
+        registrar(Nivel.ERROR, plantilla, args);
+    }
+}
@@ -0,0 +1,142 @@
+package simulacion;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import comun.Opciones;
+import ia.PoliticaAleatoria;
+import modelo.Batalla;
+import modelo.Catalogo;
+import modelo.Especie;
+import modelo.EstadoBatalla;
+import modelo.Instantanea;
+import modelo.Movimiento;
+
+/**
+ * Microbenchmark del cálculo de daño.
+ *
+ * Mide el tiempo y los bytes reservados por operación de cuatro caminos: resolver el
+ * multiplicador de tipos y estadísticas, tirar el daño de un movimiento contra un rival
+ * (lo que hace Batalla.atacar), aplicar un turno completo en EstadoBatalla (lo que hacen
+ * las simulaciones) y abrir una rama nueva desde una Instantanea (lo que cuesta cada
+ * posición guardada para deshacer o explorar). Cada medida se repite varias veces después de un calentamiento para
+ * que el JIT haya compilado el código; los bytes se miden con el contador por hilo de la JVM.
+ *
+ * Uso: java simulacion.BancoDano [opcion=valor ...]
+ *
+ *     operaciones=10000000   Operaciones por ronda
+ *     rondas=5               Rondas medidas de cada camino
+ */
+public class BancoDano {
+
+    private static final String USO = "Uso: java simulacion.BancoDano [operaciones=N] [rondas=N]";
+
+    /** Evita que el JIT elimine los resultados */
+    private static long sumidero;
+
+    public static void main(String[] args) {
+        try {
+            ejecutar(args);
+        } catch (IllegalArgumentException e) {
+            // Opciones mal escritas o números no válidos
+            System.err.println(e.getMessage());
+            System.err.println(USO);
+            System.exit(2);
+        }
+    }
+
+    private static void ejecutar(String[] args) {
+        Map<String, String> opciones = Opciones.leer(args, "operaciones", "rondas");
+        int operaciones = Integer.parseInt(opciones.getOrDefault("operaciones", "10000000"));
+        int rondas = Integer.parseInt(opciones.getOrDefault("rondas", "5"));
+
+        Especie charizard = Batalla.especieCharizard();
+        Especie lucario = Batalla.especieLucario();
+        Movimiento[] movimientos = Batalla.movimientosCharizard();
+        SplittableRandom rand = new SplittableRandom(1);
+
+        medir("multiplicador", operaciones, rondas, n -> {
+            double suma = 0;
+            for (int i = 0; i < n; i++) {
+                Movimiento m = movimientos[i & 3];
+                suma += charizard.multiplicador(m.getTipo(), lucario);
+            }
+            return (long) suma;
+        });
+
+        medir("tirada de daño", operaciones, rondas, n -> {
+            long suma = 0;
+            for (int i = 0; i < n; i++) {
+                Movimiento m = movimientos[i & 3];
+                suma += m.getDistribucion(charizard.multiplicador(m.getTipo(), lucario)).tirar(rand);
+            }
+            return suma;
+        });
+
+        medirTurnos("turno simulado", Batalla.estadoInicial(), operaciones, rondas, rand);
+        medirTurnos("turno sin efectos", Catalogo.activo().sinEfectos().estadoInicial(), operaciones, rondas, rand);
+
+        Instantanea raiz = Instantanea.de(Batalla.estadoInicial());
+        Instantanea[] actual = {raiz};
+        medir("rama instantánea", operaciones, rondas, n -> {
+            long suma = 0;
+            Instantanea i = actual[0];
+            for (int k = 0; k < n; k++) {
+                if (i.terminada()) i = raiz;
+                int mov = k & 3;
+                while (!i.puedeUsar(i.getTurno(), mov)) mov = (mov + 1) & 3;
+                i = i.aplicar(mov, rand);
+                suma += i.getVida(EstadoBatalla.LUCARIO);
+            }
+            actual[0] = i;
+            return suma;
+        });
+        System.out.println("(control " + sumidero + ")");
+    }
+
+    /**
+     * Mide turnos de partidas aleatorias desde un estado inicial, empezando otra al terminar.
+     */
+    private static void medirTurnos(String nombre, EstadoBatalla inicial, int operaciones, int rondas,
+                                    SplittableRandom rand) {
+        EstadoBatalla estado = inicial.copia();
+        medir(nombre, operaciones, rondas, n -> {
+            long suma = 0;
+            for (int i = 0; i < n; i++) {
+                if (estado.terminada()) estado.copiarDe(inicial);
+                estado.aplicar(PoliticaAleatoria.movimientoAleatorio(estado, rand), rand);
+                suma += estado.getVida(EstadoBatalla.LUCARIO);
+            }
+            return suma;
+        });
+    }
+
+    /**
+     * Operación medida: ejecuta n iteraciones y devuelve un valor que depende de todas.
+     */
+    private interface Operacion {
+        long ejecutar(int n);
+    }
+
+    private static void medir(String nombre, int operaciones, int rondas, Operacion op) {
+        com.sun.management.ThreadMXBean hilos = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().getId();
+
+        // Calentamiento
+        for (int i = 0; i < 3; i++) sumidero += op.ejecutar(operaciones / 10);
+
+        double mejorNs = Double.MAX_VALUE;
+        double peorBytes = 0;
+        for (int r = 0; r < rondas; r++) {
+            long bytesAntes = hilos.getThreadAllocatedBytes(id);
+            long inicio = System.nanoTime();
+            sumidero += op.ejecutar(operaciones);
+            long ns = System.nanoTime() - inicio;
+            long bytes = hilos.getThreadAllocatedBytes(id) - bytesAntes;
+            mejorNs = Math.min(mejorNs, (double) ns / operaciones);
+            peorBytes = Math.max(peorBytes, (double) bytes / operaciones);
+        }
+        System.out.printf("%-16s %8.2f ns/op  %8.4f bytes/op%n", nombre, mejorNs, peorBytes);
+    }
+}
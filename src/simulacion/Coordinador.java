@@ -0,0 +1,326 @@
+package simulacion;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import comun.Opciones;
+import modelo.Catalogo;
+
+/**
+ * Reparte una simulación entre varios procesos trabajadores de la misma máquina.
+ *
+ * La serie de batallas se divide en fragmentos (rango de batallas, semilla, políticas y
+ * vector de parámetros) que se mandan por sockets locales a procesos Trabajador, uno
+ * cada vez por trabajador. Cuando un trabajador termina uno recibe el siguiente, así que
+ * los procesos rápidos hacen más trabajo que los lentos. Los resultados se suman con
+ * EstadisticasSimulacion, que conserva los percentiles de duración.
+ *
+ * Si un trabajador se cae o no contesta a tiempo, su fragmento vuelve a la cola y lo
+ * juega otro; el proceso caído se relanza. Un fragmento da siempre el mismo resultado,
+ * así que el total es idéntico al de Consola con la misma semilla, con cualquier número
+ * de trabajadores y aunque alguno falle. Cada trabajador es una JVM independiente, sin
+ * nada compartido salvo el socket, y el rendimiento crece con los procesos mientras haya
+ * núcleos libres.
+ *
+ * Uso: java simulacion.Coordinador [opcion=valor ...]
+ *
+ *     batallas=100000       Batallas en total
+ *     trabajadores=N        Procesos que se lanzan (por defecto, los núcleos disponibles;
+ *                           con 0 se espera a trabajadores arrancados a mano)
+ *     fragmento=5000        Batallas por fragmento
+ *     charizard=voraz       Política de Charizard (como en Consola)
+ *     lucario=aleatorio     Política de Lucario
+ *     equipos=0             Miembros por equipo (1 - 6); 0 = batalla normal
+ *     semilla=1             Semilla de la serie
+ *     parametros=d,pp,...   Daño y PP de cada movimiento (ver AjustadorBalance); por defecto el catálogo activo
+ *     espera=60             Segundos que se espera el resultado de un fragmento antes de repartirlo otra vez
+ *     fallo=0               Probabilidad de que un trabajador se caiga en cada fragmento (para pruebas)
+ */
+public class Coordinador {
+
+    /** Relanzamientos permitidos por cada trabajador inicial */
+    private static final int RELANZAMIENTOS_POR_TRABAJADOR = 10;
+
+    private static final String USO = "Uso: java simulacion.Coordinador [batallas=N] [trabajadores=N] [fragmento=N] "
+            + "[charizard=politica] [lucario=politica] [equipos=0-6] [semilla=N] [parametros=d,pp,...] "
+            + "[espera=segundos] [fallo=0.0-1.0]";
+
+    private final LinkedBlockingDeque<Fragmento> pendientes = new LinkedBlockingDeque<>();
+    private final int esperaMs;
+
+    // Protegidos por this
+    private final boolean[] completados;
+    private int restantes;
+    private String error;
+    private final EstadisticasSimulacion total = new EstadisticasSimulacion();
+
+    private final List<Process> procesos = new CopyOnWriteArrayList<>();
+    private final AtomicInteger relanzamientos = new AtomicInteger();
+    private final AtomicInteger reenvios = new AtomicInteger();
+    private final AtomicInteger perdidos = new AtomicInteger();
+    private final AtomicInteger conexiones = new AtomicInteger();
+
+    /**
+     * @param fragmentos Fragmentos de la simulación, con ids de 0 a fragmentos.size() - 1
+     * @param esperaMs Tiempo máximo para recibir el resultado de un fragmento
+     */
+    public Coordinador(List<Fragmento> fragmentos, int esperaMs) {
+        this.completados = new boolean[fragmentos.size()];
+        this.restantes = fragmentos.size();
+        this.esperaMs = esperaMs;
+        for (Fragmento f : fragmentos) {
+            if (f.id < 0 || f.id >= fragmentos.size()) throw new IllegalArgumentException("Id no válido: " + f);
+            pendientes.add(f);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        try {
+            simular(args);
+        } catch (IllegalArgumentException e) {
+            // Opciones mal escritas, números no válidos, políticas desconocidas o un vector de otra longitud
+            System.err.println(e.getMessage());
+            System.err.println(USO);
+            System.exit(2);
+        }
+    }
+
+    private static void simular(String[] args) throws Exception {
+        Map<String, String> opciones = Opciones.leer(args, "batallas", "trabajadores", "fragmento", "charizard", "lucario",
+                "equipos", "semilla", "parametros", "espera", "fallo");
+        int batallas = Integer.parseInt(opciones.getOrDefault("batallas", "100000"));
+        int trabajadores = Integer.parseInt(opciones.getOrDefault("trabajadores",
+                Integer.toString(Runtime.getRuntime().availableProcessors())));
+        int tamano = Integer.parseInt(opciones.getOrDefault("fragmento", "5000"));
+        String charizard = opciones.getOrDefault("charizard", "voraz");
+        String lucario = opciones.getOrDefault("lucario", "aleatorio");
+        int equipos = Integer.parseInt(opciones.getOrDefault("equipos", "0"));
+        long semilla = Long.parseLong(opciones.getOrDefault("semilla", "1"));
+        int[] parametros = opciones.containsKey("parametros")
+                ? Arrays.stream(opciones.get("parametros").split(",")).mapToInt(v -> Integer.parseInt(v.trim())).toArray()
+                : new int[0];
+        int esperaMs = (int) (1000 * Double.parseDouble(opciones.getOrDefault("espera", "60")));
+        double fallo = Double.parseDouble(opciones.getOrDefault("fallo", "0"));
+
+        List<Fragmento> fragmentos = new ArrayList<>();
+        for (int desde = 0; desde < batallas; desde += tamano) {
+            fragmentos.add(new Fragmento(fragmentos.size(), desde, Math.min(batallas, desde + tamano), semilla,
+                    charizard, lucario, equipos, parametros));
+        }
+        // Se prueba la configuración aquí para no lanzar procesos que van a fallar todos igual
+        fragmentos.get(0).crearFabrica();
+
+        Coordinador coordinador = new Coordinador(fragmentos, esperaMs);
+        long inicio = System.nanoTime();
+        EstadisticasSimulacion e = coordinador.ejecutar(trabajadores, fallo);
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+
+        long n = e.getBatallas();
+        System.out.printf("%d batallas %s contra %s (%d contra %d), semilla %d%n", n, charizard, lucario,
+                Math.max(1, equipos), Math.max(1, equipos), semilla);
+        System.out.printf("%d fragmentos, %d conexiones de trabajadores, %d perdidas, %d fragmentos repetidos%n",
+                fragmentos.size(), coordinador.conexiones.get(), coordinador.perdidos.get(), coordinador.reenvios.get());
+        System.out.printf("Charizard %.1f%%, Lucario %.1f%%, empates %.1f%%, %.1f turnos de media%n",
+                100.0 * e.getVictorias(0) / n, 100.0 * e.getVictorias(1) / n, 100.0 * e.getVictorias(-1) / n,
+                e.getTurnosMedios());
+        System.out.printf("%.0f batallas/s, %.0f turnos/s en %.3f s%n", n / segundos, e.getTurnos() / segundos, segundos);
+        System.out.printf("Latencia por batalla (µs): p50 %.1f, p90 %.1f, p99 %.1f, p99.9 %.1f, máx %.1f%n",
+                e.percentilNs(0.50) / 1e3, e.percentilNs(0.90) / 1e3, e.percentilNs(0.99) / 1e3,
+                e.percentilNs(0.999) / 1e3, e.getMaxNs() / 1e3);
+    }
+
+
+    /**
+     * Lanza los trabajadores y espera a que todos los fragmentos tengan resultado.
+     *
+     * @param trabajadores Procesos que se lanzan; con 0 solo se espera a que se conecten otros
+     * @param fallo Probabilidad de fallo simulado que se pasa a los trabajadores
+     * @return Estadísticas de todos los fragmentos
+     * @throws IOException Si no se puede abrir el socket, lanzar los procesos o un fragmento da error
+     */
+    public EstadisticasSimulacion ejecutar(int trabajadores, double fallo) throws IOException, InterruptedException {
+        try (ServerSocket servidor = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            Thread aceptador = new Thread(() -> aceptar(servidor), "coordinador-aceptar");
+            aceptador.setDaemon(true);
+            aceptador.start();
+            if (trabajadores == 0) {
+                System.out.println("Esperando trabajadores en el puerto " + servidor.getLocalPort());
+            }
+            for (int i = 0; i < trabajadores; i++) {
+                lanzar(servidor.getLocalPort(), fallo, trabajadores * RELANZAMIENTOS_POR_TRABAJADOR);
+            }
+            synchronized (this) {
+                while (restantes > 0 && error == null) wait();
+            }
+        } finally {
+            // Los trabajadores reciben FIN y terminan solos; los que no lo hagan se cierran
+            for (Process p : procesos) {
+                if (!p.waitFor(5, TimeUnit.SECONDS)) p.destroyForcibly();
+            }
+        }
+        synchronized (this) {
+            if (error != null) throw new IOException(error);
+            return total;
+        }
+    }
+
+    private void aceptar(ServerSocket servidor) {
+        while (!servidor.isClosed()) {
+            try {
+                Socket socket = servidor.accept();
+                Thread hilo = new Thread(() -> atender(socket), "coordinador-" + conexiones.incrementAndGet());
+                hilo.setDaemon(true);
+                hilo.start();
+            } catch (IOException e) {
+                // Se ha cerrado el servidor
+            }
+        }
+    }
+
+    /**
+     * Manda fragmentos a un trabajador hasta que no quedan. Si la conexión se corta,
+     * el fragmento que tenía vuelve a la cola.
+     */
+    private void atender(Socket socket) {
+        Fragmento actual = null;
+        try (Socket s = socket) {
+            s.setTcpNoDelay(true);
+            s.setSoTimeout(esperaMs);
+            DataInputStream entrada = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+            DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+            Protocolo.leerHola(entrada);
+
+            while ((actual = siguiente()) != null) {
+                salida.writeByte(Protocolo.TRABAJO);
+                actual.escribir(salida);
+                salida.flush();
+
+                byte tipo = entrada.readByte();
+                long id = entrada.readLong();
+                if (id != actual.id) throw new IOException("Respuesta de otro fragmento: " + id);
+                if (tipo == Protocolo.ERROR) {
+                    fallar(actual + ": " + entrada.readUTF());
+                } else if (tipo == Protocolo.RESULTADO) {
+                    completar(actual, EstadisticasSimulacion.leer(entrada));
+                } else {
+                    throw new IOException("Mensaje inesperado: " + tipo);
+                }
+                actual = null;
+            }
+            salida.writeByte(Protocolo.FIN);
+            salida.flush();
+        } catch (IOException e) {
+            perdidos.incrementAndGet();
+            String motivo = e instanceof EOFException ? "conexión cerrada" : e.getMessage();
+            System.out.println("Coordinador: trabajador perdido (" + motivo + ")");
+            if (actual != null) reenviar(actual);
+        }
+    }
+
+    /**
+     * @return Siguiente fragmento sin resultado, o null si ya no queda ninguno
+     */
+    private Fragmento siguiente() {
+        while (true) {
+            synchronized (this) {
+                if (restantes == 0 || error != null) return null;
+            }
+            try {
+                Fragmento f = pendientes.poll(100, TimeUnit.MILLISECONDS);
+                if (f != null && !completado(f)) return f;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+
+    private synchronized boolean completado(Fragmento f) {
+        return completados[(int) f.id];
+    }
+
+    /**
+     * Suma el resultado de un fragmento. Si ya lo había entregado otro trabajador se ignora.
+     */
+    private synchronized void completar(Fragmento f, EstadisticasSimulacion resultado) {
+        if (completados[(int) f.id]) return;
+        completados[(int) f.id] = true;
+        total.combinar(resultado);
+        if (--restantes == 0) notifyAll();
+    }
+
+    private void reenviar(Fragmento f) {
+        if (completado(f)) return;
+        reenvios.incrementAndGet();
+        pendientes.addFirst(f);
+    }
+
+    private synchronized void fallar(String mensaje) {
+        if (error == null) error = mensaje;
+        notifyAll();
+    }
+
+    private synchronized boolean terminado() {
+        return restantes == 0 || error != null;
+    }
+
+    /**
+     * Lanza un proceso trabajador con la misma JVM, classpath y catálogo que este.
+     * Si el proceso muere antes de terminar la simulación se lanza otro.
+     */
+    private void lanzar(int puerto, double fallo, int maxRelanzamientos) throws IOException {
+        Process proceso = new ProcessBuilder(comando(puerto, fallo)).inheritIO().start();
+        procesos.add(proceso);
+        proceso.onExit().thenRun(() -> {
+            if (proceso.exitValue() == 0 || terminado()) return;
+            if (relanzamientos.incrementAndGet() > maxRelanzamientos) {
+                if (procesos.stream().noneMatch(Process::isAlive)) fallar("Se han caído todos los trabajadores");
+                return;
+            }
+            try {
+                lanzar(puerto, fallo, maxRelanzamientos);
+            } catch (IOException e) {
+                fallar("No se puede relanzar un trabajador: " + e.getMessage());
+            }
+        });
+    }
+
+    private static List<String> comando(int puerto, double fallo) {
+        List<String> comando = new ArrayList<>();
+        comando.add(ProcessHandle.current().info().command()
+                .orElse(Paths.get(System.getProperty("java.home"), "bin", "java").toString()));
+        String catalogo = System.getProperty(Catalogo.PROPIEDAD);
+        if (catalogo != null) comando.add("-D" + Catalogo.PROPIEDAD + "=" + catalogo);
+        String modulos = System.getProperty("jdk.module.path");
+        if (modulos != null) {
+            comando.add("--module-path");
+            comando.add(modulos);
+            comando.add("--module");
+            comando.add(Coordinador.class.getModule().getName() + "/" + Trabajador.class.getName());
+        } else {
+            comando.add("-cp");
+            comando.add(System.getProperty("java.class.path"));
+            comando.add(Trabajador.class.getName());
+        }
+        comando.add("host=" + InetAddress.getLoopbackAddress().getHostAddress());
+        comando.add("puerto=" + puerto);
+        comando.add("fallo=" + fallo);
+        return comando;
+    }
+}
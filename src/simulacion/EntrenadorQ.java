@@ -0,0 +1,227 @@
+package simulacion;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import comun.Opciones;
+import ia.CodificadorEstado;
+import ia.PoliticaAleatoria;
+import ia.TablaQ;
+import modelo.Batalla;
+import modelo.EstadoBatalla;
+
+/**
+ * Entrenador sin interfaz gráfica que aprende una tabla Q para ambos lados jugando
+ * partidas contra sí mismo (self-play) en paralelo.
+ *
+ * Cada hilo juega episodios completos con exploración epsilon-greedy y aplica
+ * Q-learning tras cada movimiento sobre la tabla compartida. El resultado se guarda
+ * periódicamente como punto de control (el entrenamiento se reanuda si existe) y al
+ * final se exporta la política compacta que carga el juego (PoliticaTabla).
+ *
+ * Uso: java simulacion.EntrenadorQ [opcion=valor ...]
+ *
+ *     episodios=2000000              Episodios de esta sesión
+ *     hilos=N                        Hilos de self-play (por defecto, los núcleos disponibles)
+ *     checkpoint=entrenamiento.ckpt  Punto de control; si existe, se reanuda desde él
+ *     politica=politica.bin          Fichero donde se exporta la política
+ */
+public class EntrenadorQ {
+
+    private static final String USO = "Uso: java simulacion.EntrenadorQ [episodios=N] [hilos=N] [checkpoint=fichero] "
+            + "[politica=fichero]";
+
+    private static final float ALFA = 0.1f;
+    private static final double EPSILON_INICIAL = 0.5;
+    private static final double EPSILON_FINAL = 0.05;
+
+    /** Episodios que reserva cada hilo de una vez */
+    private static final int LOTE = 256;
+
+    /** Partidas de cada evaluación contra la política aleatoria */
+    private static final int PARTIDAS_EVALUACION = 2000;
+
+    private static final long SEGUNDOS_ENTRE_INFORMES = 2;
+    private static final long SEGUNDOS_ENTRE_CHECKPOINTS = 30;
+
+    private final TablaQ tabla;
+    private final EstadoBatalla inicial;
+    private final long episodiosObjetivo;
+    private final AtomicLong pendientes;
+    private final AtomicLong hechos = new AtomicLong();
+
+    /**
+     * @param tabla Tabla a entrenar (nueva o cargada de un punto de control)
+     * @param inicial Estado inicial de cada episodio
+     * @param episodios Episodios a jugar en esta sesión
+     */
+    public EntrenadorQ(TablaQ tabla, EstadoBatalla inicial, long episodios) {
+        this.tabla = tabla;
+        this.inicial = inicial;
+        this.episodiosObjetivo = episodios;
+        this.pendientes = new AtomicLong(episodios);
+    }
+
+    public static void main(String[] args) throws Exception {
+        try {
+            ejecutar(args);
+        } catch (IllegalArgumentException e) {
+            // Opciones mal escritas o números no válidos
+            System.err.println(e.getMessage());
+            System.err.println(USO);
+            System.exit(2);
+        }
+    }
+
+    private static void ejecutar(String[] args) throws Exception {
+        Map<String, String> opciones = Opciones.leer(args, "episodios", "hilos", "checkpoint", "politica");
+        long episodios = Long.parseLong(opciones.getOrDefault("episodios", "2000000"));
+        int hilos = Integer.parseInt(opciones.getOrDefault("hilos",
+                Integer.toString(Runtime.getRuntime().availableProcessors())));
+        Path checkpoint = Paths.get(opciones.getOrDefault("checkpoint", "entrenamiento.ckpt"));
+        Path salida = Paths.get(opciones.getOrDefault("politica", "politica.bin"));
+
+        TablaQ tabla;
+        if (Files.exists(checkpoint)) {
+            tabla = TablaQ.cargarCheckpoint(checkpoint);
+            System.out.println("Reanudando desde " + checkpoint + " (" + tabla.getEpisodios() + " episodios previos)");
+        } else {
+            tabla = new TablaQ();
+        }
+
+        EntrenadorQ entrenador = new EntrenadorQ(tabla, Batalla.estadoInicial(), episodios);
+        entrenador.entrenar(hilos, checkpoint);
+        tabla.exportarPolitica(salida);
+        System.out.println("Política exportada en " + salida + " (" + Files.size(salida) + " bytes)");
+    }
+
+    /**
+     * Entrena con el número de hilos indicado, informando del rendimiento y guardando
+     * puntos de control periódicamente.
+     *
+     * @param hilos Número de hilos de self-play
+     * @param checkpoint Fichero del punto de control
+     * @throws IOException Si falla la escritura del punto de control
+     * @throws InterruptedException Si se interrumpe la espera
+     */
+    public void entrenar(int hilos, Path checkpoint) throws IOException, InterruptedException {
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        SplittableRandom semillas = new SplittableRandom();
+        for (int i = 0; i < hilos; i++) {
+            SplittableRandom rand = semillas.split();
+            ejecutor.execute(() -> trabajar(rand));
+        }
+        ejecutor.shutdown();
+
+        long inicio = System.nanoTime();
+        long ultimoInforme = inicio;
+        long ultimosHechos = 0;
+        long ultimoCheckpoint = inicio;
+        while (!ejecutor.awaitTermination(SEGUNDOS_ENTRE_INFORMES, TimeUnit.SECONDS)) {
+            long ahora = System.nanoTime();
+            long total = hechos.get();
+            double porSegundo = (total - ultimosHechos) * 1e9 / (ahora - ultimoInforme);
+            System.out.printf("%d/%d episodios, %.0f episodios/s (%.0f por hilo)%n",
+                    total, episodiosObjetivo, porSegundo, porSegundo / hilos);
+            ultimoInforme = ahora;
+            ultimosHechos = total;
+
+            if (ahora - ultimoCheckpoint >= TimeUnit.SECONDS.toNanos(SEGUNDOS_ENTRE_CHECKPOINTS)) {
+                tabla.guardarCheckpoint(checkpoint);
+                ultimoCheckpoint = ahora;
+                evaluar();
+            }
+        }
+
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        System.out.printf("Entrenamiento terminado: %d episodios en %.1f s, %.0f episodios/s con %d hilos%n",
+                hechos.get(), segundos, hechos.get() / segundos, hilos);
+        tabla.guardarCheckpoint(checkpoint);
+        evaluar();
+    }
+
+    /**
+     * Bucle de un hilo: reserva lotes de episodios hasta agotar los pendientes.
+     */
+    private void trabajar(SplittableRandom rand) {
+        EstadoBatalla estado = inicial.copia();
+        long restantes;
+        while ((restantes = pendientes.getAndAdd(-LOTE)) > 0) {
+            int lote = (int) Math.min(LOTE, restantes);
+            for (int i = 0; i < lote; i++) {
+                estado.copiarDe(inicial);
+                jugarEpisodio(estado, rand, epsilon());
+            }
+            hechos.addAndGet(lote);
+            tabla.sumarEpisodios(lote);
+        }
+    }
+
+    /**
+     * Exploración decreciente a lo largo de los episodios de la sesión.
+     */
+    private double epsilon() {
+        double progreso = Math.min(1.0, (double) hechos.get() / Math.max(1, episodiosObjetivo));
+        return EPSILON_INICIAL + (EPSILON_FINAL - EPSILON_INICIAL) * progreso;
+    }
+
+    /**
+     * Juega un episodio completo actualizando la tabla tras cada movimiento.
+     *
+     * El valor siguiente se toma desde el punto de vista de quien movió: si en el estado
+     * siguiente mueve el rival, su mejor valor cuenta en negativo (juego de suma cero).
+     */
+    private void jugarEpisodio(EstadoBatalla estado, SplittableRandom rand, double epsilon) {
+        while (!estado.terminada()) {
+            int lado = estado.getTurno();
+            int indice = CodificadorEstado.indice(estado);
+            int mov = rand.nextDouble() < epsilon
+                    ? PoliticaAleatoria.movimientoAleatorio(estado, rand)
+                    : tabla.mejorMovimiento(estado);
+            estado.aplicar(mov, rand);
+
+            float objetivo;
+            if (estado.terminada()) {
+                int ganador = estado.ganador();
+                objetivo = ganador < 0 ? 0f : (ganador == lado ? 1f : -1f);
+            } else {
+                float siguiente = tabla.mejorValor(estado);
+                objetivo = estado.getTurno() == lado ? siguiente : -siguiente;
+            }
+            tabla.actualizar(lado, indice, mov, objetivo, ALFA);
+        }
+    }
+
+    /**
+     * Juega la política voraz de la tabla contra la aleatoria en ambos lados e informa
+     * del porcentaje de victorias.
+     */
+    private void evaluar() {
+        SplittableRandom rand = new SplittableRandom(42);
+        EstadoBatalla estado = inicial.copia();
+        for (int ladoTabla = 0; ladoTabla < 2; ladoTabla++) {
+            int victorias = 0;
+            for (int i = 0; i < PARTIDAS_EVALUACION; i++) {
+                estado.copiarDe(inicial);
+                while (!estado.terminada()) {
+                    int mov = estado.getTurno() == ladoTabla
+                            ? tabla.mejorMovimiento(estado)
+                            : PoliticaAleatoria.movimientoAleatorio(estado, rand);
+                    estado.aplicar(mov, rand);
+                }
+                if (estado.ganador() == ladoTabla) victorias++;
+            }
+            System.out.printf("  Tabla como %s contra aleatorio: %.1f%% de victorias%n",
+                    ladoTabla == EstadoBatalla.CHARIZARD ? "Charizard" : "Lucario",
+                    100.0 * victorias / PARTIDAS_EVALUACION);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package simulacion;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tubería productor/consumidor que escribe bloques de trayectorias en ficheros rotativos.
+ *
+ * Los hilos de simulación piden un bloque libre, lo llenan y lo entregan; un único hilo
+ * escritor lo vuelca a disco y lo devuelve a la cola de libres. El número de bloques es
+ * fijo, así que la memoria está acotada y, si el disco no da abasto, los productores
+ * esperan a que se libere un bloque (contrapresión) en lugar de acumular datos.
+ *
+ * Formato de cada fichero: "PKTR" (4 bytes), versión (1 byte) y una secuencia de
+ * bloques, cada uno con su longitud (int), su número de trayectorias (int) y los datos.
+ * Un fichero se cierra y se abre el siguiente al superar el tamaño máximo, siempre en
+ * el límite de un bloque para que cada fichero se pueda leer por separado.
+ */
+public class EscritorTrayectorias implements Closeable {
+
+    static final byte[] MAGIA = {'P', 'K', 'T', 'R'};
+    /** Versión 2: turnos perdidos (BloqueTrayectorias.TURNO_PERDIDO) */
+    static final byte VERSION = 2;
+
+    private final Path directorio;
+    private final long maxBytesPorFichero;
+    private final BlockingQueue<BloqueTrayectorias> libres;
+    private final BlockingQueue<BloqueTrayectorias> llenos;
+    private final Thread hilo;
+
+    // Bloque vacío que indica al escritor que debe terminar
+    private final BloqueTrayectorias fin = new BloqueTrayectorias(0);
+
+    private FileChannel canal;
+    private int numFichero;
+    private long bytesFicheroActual;
+    private final ByteBuffer cabecera = ByteBuffer.allocate(8);
+    private volatile IOException error;
+
+    private final AtomicLong nanosEsperandoBloque = new AtomicLong();
+    private long bytesEscritos;
+    private long turnosEscritos;
+
+    /**
+     * @param directorio Directorio donde se crean los ficheros trayectorias-NNNNN.bin
+     * @param maxBytesPorFichero Tamaño a partir del cual se pasa al siguiente fichero
+     * @param numBloques Número de bloques en circulación (memoria máxima = numBloques * tamanoBloque)
+     * @param tamanoBloque Tamaño de cada bloque en bytes
+     * @throws IOException Si no se puede crear el directorio
+     */
+    public EscritorTrayectorias(Path directorio, long maxBytesPorFichero, int numBloques, int tamanoBloque) throws IOException {
+        this.directorio = Files.createDirectories(directorio);
+        this.maxBytesPorFichero = maxBytesPorFichero;
+        this.libres = new ArrayBlockingQueue<>(numBloques);
+        this.llenos = new ArrayBlockingQueue<>(numBloques + 1);
+        for (int i = 0; i < numBloques; i++) {
+            libres.add(new BloqueTrayectorias(tamanoBloque));
+        }
+        this.hilo = new Thread(this::escribir, "escritor-trayectorias");
+        this.hilo.start();
+    }
+
+    /**
+     * Obtiene un bloque vacío, esperando si todos están pendientes de escribir.
+     * @return Bloque listo para llenar
+     * @throws IOException Si el escritor ha fallado
+     * @throws InterruptedException Si se interrumpe la espera
+     */
+    BloqueTrayectorias pedirBloque() throws IOException, InterruptedException {
+        BloqueTrayectorias bloque = libres.poll();
+        if (bloque == null) {
+            long inicio = System.nanoTime();
+            while (bloque == null) {
+                comprobarError();
+                bloque = libres.poll(100, TimeUnit.MILLISECONDS);
+            }
+            nanosEsperandoBloque.addAndGet(System.nanoTime() - inicio);
+        }
+        bloque.vaciar();
+        return bloque;
+    }
+
+    /**
+     * Entrega un bloque lleno para que se escriba a disco.
+     * @param bloque Bloque con trayectorias completas
+     * @throws IOException Si el escritor ha fallado
+     * @throws InterruptedException Si se interrumpe la espera
+     */
+    void entregar(BloqueTrayectorias bloque) throws IOException, InterruptedException {
+        comprobarError();
+        if (bloque.trayectorias == 0) {
+            libres.put(bloque);
+        } else {
+            llenos.put(bloque);
+        }
+    }
+
+    /**
+     * Bucle del hilo escritor.
+     */
+    private void escribir() {
+        try {
+            while (true) {
+                BloqueTrayectorias bloque = llenos.take();
+                if (bloque == fin) break;
+                if (canal == null || bytesFicheroActual >= maxBytesPorFichero) rotar();
+
+                cabecera.clear();
+                cabecera.putInt(bloque.tamano).putInt(bloque.trayectorias).flip();
+                while (cabecera.hasRemaining()) canal.write(cabecera);
+                ByteBuffer datos = ByteBuffer.wrap(bloque.datos, 0, bloque.tamano);
+                while (datos.hasRemaining()) canal.write(datos);
+
+                bytesFicheroActual += 8 + bloque.tamano;
+                bytesEscritos += 8 + bloque.tamano;
+                turnosEscritos += bloque.turnos;
+                libres.put(bloque);
+            }
+            if (canal != null) canal.close();
+        } catch (IOException e) {
+            error = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void rotar() throws IOException {
+        if (canal != null) canal.close();
+        Path fichero = directorio.resolve(String.format("trayectorias-%05d.bin", numFichero++));
+        canal = FileChannel.open(fichero, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer inicio = ByteBuffer.allocate(MAGIA.length + 1);
+        inicio.put(MAGIA).put(VERSION).flip();
+        while (inicio.hasRemaining()) canal.write(inicio);
+        bytesFicheroActual = inicio.limit();
+        bytesEscritos += inicio.limit();
+    }
+
+    private void comprobarError() throws IOException {
+        if (error != null) throw new IOException("Error en el escritor de trayectorias", error);
+    }
+
+    /**
+     * Espera a que se escriban todos los bloques entregados y cierra el fichero actual.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            llenos.put(fin);
+            hilo.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        comprobarError();
+    }
+
+    /** @return Tiempo total que los productores han esperado por un bloque libre */
+    public long getNanosEsperandoBloque() {
+        return nanosEsperandoBloque.get();
+    }
+
+    /** @return Bytes escritos (válido tras close) */
+    public long getBytesEscritos() {
+        return bytesEscritos;
+    }
+
+    /** @return Turnos escritos (válido tras close) */
+    public long getTurnosEscritos() {
+        return turnosEscritos;
+    }
+
+    /** @return Número de ficheros creados (válido tras close) */
+    public int getNumFicheros() {
+        return numFichero;
+    }
+}
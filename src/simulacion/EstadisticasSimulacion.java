@@ -0,0 +1,158 @@
+package simulacion;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import metricas.Histograma;
+
+/**
+ * Resultados de una serie de batallas que se pueden sumar entre sí.
+ *
+ * Además de los contadores guarda la duración de las batallas en un histograma con las
+ * mismas cubetas logarítmicas que metricas.Histograma (error relativo menor del 3%).
+ * Así los resultados de cada fragmento, hilo o proceso se combinan sin perder los
+ * percentiles y el tamaño no depende del número de batallas: combinar es sumar arrays.
+ * Se serializa en binario con solo las cubetas que no están vacías.
+ *
+ * No es seguro para varios hilos; cada hilo llena el suyo y después se combinan.
+ */
+public final class EstadisticasSimulacion {
+
+    private static final int CUBETAS = Histograma.CUBETAS;
+
+    private final long[] resultados = new long[3];
+    private long batallas;
+    private long turnos;
+    private long sumaNs;
+    private long minNs = Long.MAX_VALUE;
+    private long maxNs;
+    private final long[] cubetas = new long[CUBETAS];
+
+    /**
+     * Añade una batalla.
+     *
+     * @param ganador Lado ganador o -1 si hay empate
+     * @param turnosBatalla Turnos que duró
+     * @param ns Duración en nanosegundos
+     */
+    public void registrar(int ganador, int turnosBatalla, long ns) {
+        resultados[ganador < 0 ? 2 : ganador]++;
+        batallas++;
+        turnos += turnosBatalla;
+        ns = Math.max(0, ns);
+        sumaNs += ns;
+        minNs = Math.min(minNs, ns);
+        maxNs = Math.max(maxNs, ns);
+        cubetas[Histograma.cubeta(ns)]++;
+    }
+
+    /**
+     * Suma otras estadísticas a estas. El resultado no depende del orden en que se combinen.
+     * @param otra Estadísticas a sumar (no se modifican)
+     */
+    public void combinar(EstadisticasSimulacion otra) {
+        for (int i = 0; i < 3; i++) resultados[i] += otra.resultados[i];
+        batallas += otra.batallas;
+        turnos += otra.turnos;
+        sumaNs += otra.sumaNs;
+        minNs = Math.min(minNs, otra.minNs);
+        maxNs = Math.max(maxNs, otra.maxNs);
+        for (int i = 0; i < CUBETAS; i++) cubetas[i] += otra.cubetas[i];
+    }
+
+    /**
+     * @param p Percentil entre 0.0 y 1.0
+     * @return Duración en ns por debajo de la que queda esa fracción de batallas (cota superior de su cubeta)
+     */
+    public long percentilNs(double p) {
+        if (batallas == 0) return 0;
+        long objetivo = Math.max(1, (long) Math.ceil(p * batallas));
+        long acumulado = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += cubetas[i];
+            if (acumulado >= objetivo) return Math.min(maxNs, Histograma.limiteSuperior(i));
+        }
+        return maxNs;
+    }
+
+    /**
+     * Escribe las estadísticas en binario: contadores y pares (cubeta, cuenta) de las cubetas usadas.
+     * @param salida Flujo de salida
+     */
+    public void escribir(DataOutput salida) throws IOException {
+        for (long r : resultados) salida.writeLong(r);
+        salida.writeLong(batallas);
+        salida.writeLong(turnos);
+        salida.writeLong(sumaNs);
+        salida.writeLong(minNs);
+        salida.writeLong(maxNs);
+        int usadas = 0;
+        for (long c : cubetas) {
+            if (c != 0) usadas++;
+        }
+        salida.writeShort(usadas);
+        for (int i = 0; i < CUBETAS; i++) {
+            if (cubetas[i] == 0) continue;
+            salida.writeShort(i);
+            salida.writeLong(cubetas[i]);
+        }
+    }
+
+    /**
+     * Lee unas estadísticas escritas con escribir.
+     * @param entrada Flujo de entrada
+     * @return Estadísticas nuevas
+     * @throws IOException Si el flujo se corta o los datos no son válidos
+     */
+    public static EstadisticasSimulacion leer(DataInput entrada) throws IOException {
+        EstadisticasSimulacion e = new EstadisticasSimulacion();
+        for (int i = 0; i < 3; i++) e.resultados[i] = entrada.readLong();
+        e.batallas = entrada.readLong();
+        e.turnos = entrada.readLong();
+        e.sumaNs = entrada.readLong();
+        e.minNs = entrada.readLong();
+        e.maxNs = entrada.readLong();
+        int usadas = entrada.readUnsignedShort();
+        for (int k = 0; k < usadas; k++) {
+            int i = entrada.readUnsignedShort();
+            if (i >= CUBETAS) throw new IOException("Cubeta fuera de rango: " + i);
+            e.cubetas[i] = entrada.readLong();
+        }
+        return e;
+    }
+
+    // Getters
+
+    /**
+     * @param lado EstadoBatalla.CHARIZARD, EstadoBatalla.LUCARIO o -1 para los empates
+     * @return Batallas que ganó ese lado o que acabaron en empate
+     */
+    public long getVictorias(int lado) {
+        return resultados[lado < 0 ? 2 : lado];
+    }
+
+    public long getBatallas() {
+        return batallas;
+    }
+
+    public long getTurnos() {
+        return turnos;
+    }
+
+    public double getTurnosMedios() {
+        return batallas == 0 ? 0 : (double) turnos / batallas;
+    }
+
+    public double getMediaNs() {
+        return batallas == 0 ? 0 : (double) sumaNs / batallas;
+    }
+
+    public long getMinNs() {
+        return batallas == 0 ? 0 : minNs;
+    }
+
+    public long getMaxNs() {
+        return maxNs;
+    }
+}
@@ -0,0 +1,119 @@
+package simulacion;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+import ia.Politica;
+import ia.PoliticaEquipo;
+import modelo.Catalogo;
+import modelo.Equipo;
+import modelo.EstadoBatalla;
+import modelo.EstadoEquipos;
+
+/**
+ * Batallas que se pueden jugar muchas veces seguidas desde la línea de comandos, compartidas
+ * por el modo consola y los trabajadores de la simulación distribuida.
+ *
+ * Cada batalla usa un generador derivado de la semilla y de su número (semillaPartida), así
+ * que la batalla k sale igual la juegue el hilo o el proceso que la juegue.
+ */
+public final class FabricaPartidas {
+
+    /**
+     * Una batalla que se puede jugar muchas veces seguidas. Cada hilo usa la suya.
+     */
+    public interface Partida {
+
+        /**
+         * Juega una batalla completa desde el principio.
+         * @param rand Generador de esta batalla
+         * @return Lado ganador o -1 si hay empate
+         */
+        int jugar(SplittableRandom rand);
+
+        /**
+         * @return Turnos de la última batalla jugada
+         */
+        int turnos();
+    }
+
+    private FabricaPartidas() {
+    }
+
+    /**
+     * Batalla normal con un catálogo y las políticas indicadas.
+     *
+     * @param catalogo Especies y movimientos de la batalla
+     * @param charizard Política de Charizard (ver Torneo.crearPolitica)
+     * @param lucario Política de Lucario
+     * @return Fábrica de partidas; las políticas se crean una vez y se comparten
+     * @throws IOException Si una política "tabla" no puede leer su fichero
+     */
+    public static Supplier<Partida> batalla(Catalogo catalogo, String charizard, String lucario) throws IOException {
+        EstadoBatalla inicial = catalogo.estadoInicial();
+        Politica[] politicas = {Torneo.crearPolitica(charizard), Torneo.crearPolitica(lucario)};
+        return () -> new Partida() {
+            private final EstadoBatalla estado = inicial.copia();
+            private int turnos;
+
+            @Override
+            public int jugar(SplittableRandom rand) {
+                estado.copiarDe(inicial);
+                turnos = 0;
+                while (!estado.terminada()) {
+                    estado.aplicar(politicas[estado.getTurno()].elegirMovimiento(estado, rand), rand);
+                    turnos++;
+                }
+                return estado.ganador();
+            }
+
+            @Override
+            public int turnos() {
+                return turnos;
+            }
+        };
+    }
+
+    /**
+     * Combate por equipos con los primeros miembros de los equipos de ejemplo.
+     *
+     * @param miembros Miembros por equipo (1 - 6)
+     * @param charizard Política del equipo de Charizard (ver SimuladorEquipos.crearPolitica)
+     * @param lucario Política del equipo de Lucario
+     * @return Fábrica de partidas
+     */
+    public static Supplier<Partida> equipos(int miembros, String charizard, String lucario) {
+        EstadoEquipos inicial = new EstadoEquipos(Equipo.porDefecto(EstadoBatalla.CHARIZARD).primeros(miembros),
+                Equipo.porDefecto(EstadoBatalla.LUCARIO).primeros(miembros));
+        PoliticaEquipo[] politicas = {SimuladorEquipos.crearPolitica(charizard), SimuladorEquipos.crearPolitica(lucario)};
+        return () -> new Partida() {
+            private final EstadoEquipos estado = inicial.copia();
+
+            @Override
+            public int jugar(SplittableRandom rand) {
+                estado.copiarDe(inicial);
+                return SimuladorEquipos.jugar(estado, politicas, rand);
+            }
+
+            @Override
+            public int turnos() {
+                return estado.getTurno();
+            }
+        };
+    }
+
+    /**
+     * Semilla propia de cada batalla (SplitMix64), independiente del reparto entre hilos o procesos.
+     *
+     * @param semilla Semilla de la serie de batallas
+     * @param k Número de la batalla dentro de la serie
+     * @return Semilla del generador de la batalla k
+     */
+    public static long semillaPartida(long semilla, long k) {
+        long z = semilla + (k + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
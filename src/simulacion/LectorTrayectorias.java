@@ -0,0 +1,140 @@
+package simulacion;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import comun.Opciones;
+
+/**
+ * Lee los ficheros escritos por GeneradorDatos y reconstruye cada turno.
+ *
+ * Uso: java simulacion.LectorTrayectorias [directorio=trayectorias] (muestra un resumen)
+ */
+public class LectorTrayectorias {
+
+    private static final String USO = "Uso: java simulacion.LectorTrayectorias [directorio=carpeta]";
+
+    /**
+     * Recibe cada turno reconstruido. Los arrays se reutilizan entre llamadas.
+     */
+    public interface Visitante {
+        /**
+         * @param vida Vida de cada lado antes del turno
+         * @param pp PP de cada movimiento, por lado, antes del turno
+         * @param lado Lado que mueve
+         * @param mov Movimiento usado, o -1 si perdió el turno sin gastar PP (dormido o paralizado)
+         * @param recompensa 0 en turnos intermedios; 1, -1 o 0 en el último según gane, pierda o empate quien mueve
+         * @param ultimo true si es el último turno de la trayectoria
+         */
+        void turno(int[] vida, int[][] pp, int lado, int mov, int recompensa, boolean ultimo);
+    }
+
+    /**
+     * Recorre todos los turnos de un fichero.
+     *
+     * @param fichero Fichero trayectorias-NNNNN.bin
+     * @param visitante Receptor de los turnos
+     * @throws IOException Si el fichero no es válido
+     */
+    public static void recorrer(Path fichero, Visitante visitante) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(fichero), 1 << 16))) {
+            byte[] magia = new byte[EscritorTrayectorias.MAGIA.length];
+            in.readFully(magia);
+            // La versión 1 es igual pero sin turnos perdidos
+            int version = in.readByte();
+            if (!Arrays.equals(magia, EscritorTrayectorias.MAGIA) || version < 1 || version > EscritorTrayectorias.VERSION) {
+                throw new IOException("No es un fichero de trayectorias: " + fichero);
+            }
+
+            int[] vida = new int[2];
+            int[][] pp = new int[2][];
+            while (true) {
+                int trayectorias;
+                try {
+                    in.readInt();
+                    trayectorias = in.readInt();
+                } catch (EOFException e) {
+                    return;
+                }
+                for (int t = 0; t < trayectorias; t++) {
+                    vida[0] = leerVarint(in);
+                    vida[1] = leerVarint(in);
+                    leerVarint(in); // lado que empieza (va también en cada turno)
+                    for (int lado = 0; lado < 2; lado++) {
+                        int n = leerVarint(in);
+                        if (pp[lado] == null || pp[lado].length != n) pp[lado] = new int[n];
+                        for (int i = 0; i < n; i++) pp[lado][i] = leerVarint(in);
+                    }
+                    int turnos = leerVarint(in);
+                    for (int i = 0; i < turnos; i++) {
+                        int cabecera = in.readUnsignedByte();
+                        int lado = cabecera >>> 7;
+                        int codigo = (cabecera >>> 5) & 3;
+                        int mov = cabecera & 0x1F;
+                        if (mov == BloqueTrayectorias.TURNO_PERDIDO) mov = -1;
+                        int recompensa = codigo == BloqueTrayectorias.RECOMPENSA_VICTORIA ? 1
+                                : codigo == BloqueTrayectorias.RECOMPENSA_DERROTA ? -1 : 0;
+                        visitante.turno(vida, pp, lado, mov, recompensa, i == turnos - 1);
+
+                        if (mov >= 0) pp[lado][mov]--;
+                        vida[0] += leerZigZag(in);
+                        vida[1] += leerZigZag(in);
+                    }
+                }
+            }
+        }
+    }
+
+    private static int leerVarint(DataInputStream in) throws IOException {
+        int valor = 0;
+        int desplazamiento = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            valor |= (b & 0x7F) << desplazamiento;
+            desplazamiento += 7;
+        } while ((b & 0x80) != 0);
+        return valor;
+    }
+
+    private static int leerZigZag(DataInputStream in) throws IOException {
+        int v = leerVarint(in);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    public static void main(String[] args) throws IOException {
+        try {
+            ejecutar(args);
+        } catch (IllegalArgumentException e) {
+            // Opciones mal escritas
+            System.err.println(e.getMessage());
+            System.err.println(USO);
+            System.exit(2);
+        }
+    }
+
+    private static void ejecutar(String[] args) throws IOException {
+        Path directorio = Paths.get(Opciones.leer(args, "directorio").getOrDefault("directorio", "trayectorias"));
+        long[] totales = new long[4]; // turnos, trayectorias, victorias Charizard, victorias Lucario
+        try (Stream<Path> ficheros = Files.list(directorio)) {
+            for (Path fichero : (Iterable<Path>) ficheros.filter(f -> f.toString().endsWith(".bin")).sorted()::iterator) {
+                recorrer(fichero, (vida, pp, lado, mov, recompensa, ultimo) -> {
+                    totales[0]++;
+                    if (ultimo) {
+                        totales[1]++;
+                        if (recompensa != 0) totales[2 + (recompensa > 0 ? lado : 1 - lado)]++;
+                    }
+                });
+            }
+        }
+        System.out.printf("%d trayectorias, %d turnos. Victorias: Charizard %d, Lucario %d%n",
+                totales[1], totales[0], totales[2], totales[3]);
+    }
+}
@@ -0,0 +1,364 @@
+package simulacion;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import comun.Opciones;
+import ia.OponenteMCTS;
+import ia.Politica;
+import ia.PoliticaAleatoria;
+import ia.PoliticaTabla;
+import ia.PoliticaVoraz;
+import modelo.Batalla;
+import modelo.EstadoBatalla;
+
+/**
+ * Torneo de todos contra todos entre políticas de combate.
+ *
+ * Cada par de políticas juega el número de partidas indicado con una en el puesto de
+ * Charizard y la otra en el de Lucario, y después al revés. Cada partida usa su propio
+ * generador aleatorio derivado de la semilla y de su posición en el torneo, así que los
+ * resultados son los mismos con cualquier número de hilos.
+ *
+ * Al final muestra la matriz de porcentajes de victoria y un ranking Elo (Bradley-Terry
+ * con ventaja de puesto) con intervalos de confianza del 95%.
+ *
+ * Uso: java simulacion.Torneo [opcion=valor ...]
+ *
+ *     partidas=2000       Partidas de cada par de políticas en cada puesto
+ *     hilos=N             Hilos de simulación (por defecto, los núcleos disponibles)
+ *     semilla=1           Semilla del torneo
+ *     politicas=a,b,...   Participantes: aleatorio, voraz, mcts[:playouts], tabla[:fichero]
+ *                         (por defecto aleatorio, voraz, mcts y, si existe politica.bin, tabla)
+ */
+public class Torneo {
+
+    private static final String USO = "Uso: java simulacion.Torneo [partidas=N] [hilos=N] [semilla=N] "
+            + "[politicas=politica,politica,...]";
+
+    /** Partidas que juega cada tarea del pool */
+    private static final int PARTIDAS_POR_TAREA = 500;
+
+    private final List<String> nombres = new ArrayList<>();
+    private final List<Politica> politicas = new ArrayList<>();
+    private final EstadoBatalla inicial;
+
+    /** resultados[i][j] = {victorias de i, victorias de j, empates} con i como Charizard y j como Lucario */
+    private long[][][] resultados;
+
+    /**
+     * @param inicial Estado inicial de todas las partidas
+     */
+    public Torneo(EstadoBatalla inicial) {
+        this.inicial = inicial;
+    }
+
+    /**
+     * Añade una política al torneo. Debe poder usarse desde varios hilos a la vez.
+     * @param nombre Nombre para la tabla de resultados
+     * @param politica Política participante
+     */
+    public void agregar(String nombre, Politica politica) {
+        nombres.add(nombre);
+        politicas.add(politica);
+    }
+
+    public static void main(String[] args) throws Exception {
+        try {
+            ejecutar(args);
+        } catch (IllegalArgumentException e) {
+            // Opciones mal escritas, números no válidos o políticas desconocidas
+            System.err.println(e.getMessage());
+            System.err.println(USO);
+            System.exit(2);
+        }
+    }
+
+    private static void ejecutar(String[] args) throws Exception {
+        Map<String, String> opciones = Opciones.leer(args, "partidas", "hilos", "semilla", "politicas");
+        int partidas = Integer.parseInt(opciones.getOrDefault("partidas", "2000"));
+        int hilos = Integer.parseInt(opciones.getOrDefault("hilos",
+                Integer.toString(Runtime.getRuntime().availableProcessors())));
+        long semilla = Long.parseLong(opciones.getOrDefault("semilla", "1"));
+
+        List<String> participantes = new ArrayList<>();
+        if (opciones.containsKey("politicas")) {
+            for (String nombre : opciones.get("politicas").split(",")) participantes.add(nombre.trim());
+        } else {
+            participantes.add("aleatorio");
+            participantes.add("voraz");
+            participantes.add("mcts");
+            if (Files.exists(Paths.get("politica.bin"))) participantes.add("tabla");
+        }
+
+        Torneo torneo = new Torneo(Batalla.estadoInicial());
+        for (String nombre : participantes) {
+            torneo.agregar(nombre, crearPolitica(nombre));
+        }
+
+        long inicio = System.nanoTime();
+        long batallas = torneo.jugar(partidas, hilos, semilla);
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+
+        torneo.imprimirMatriz();
+        torneo.imprimirElo();
+        System.out.printf("%d batallas en %.1f s: %.0f batallas/s con %d hilos (semilla %d)%n",
+                batallas, segundos, batallas / segundos, hilos, semilla);
+    }
+
+    /**
+     * Crea una política a partir de su nombre en la línea de comandos.
+     *
+     * @param descripcion aleatorio, voraz, mcts[:playouts] o tabla[:fichero]
+     * @return Política correspondiente
+     * @throws IOException Si no se puede cargar la tabla
+     */
+    public static Politica crearPolitica(String descripcion) throws IOException {
+        String[] partes = descripcion.split(":", 2);
+        switch (partes[0]) {
+            case "aleatorio":
+                return new PoliticaAleatoria();
+            case "voraz":
+                return new PoliticaVoraz();
+            case "mcts":
+                // Sin límite de tiempo y con playouts fijos, para que el resultado sea reproducible
+                long playouts = partes.length > 1 ? Long.parseLong(partes[1]) : 300;
+                return new OponenteMCTS(1, Long.MAX_VALUE, playouts, 0);
+            case "tabla":
+                return PoliticaTabla.cargar(Paths.get(partes.length > 1 ? partes[1] : "politica.bin"));
+            default:
+                throw new IllegalArgumentException("Política desconocida: " + descripcion);
+        }
+    }
+
+    /**
+     * Juega todos los emparejamientos en ambos puestos.
+     *
+     * @param partidas Partidas por emparejamiento y puesto
+     * @param hilos Número de hilos
+     * @param semilla Semilla del torneo
+     * @return Número total de batallas jugadas
+     * @throws Exception Si falla alguna partida
+     */
+    public long jugar(int partidas, int hilos, long semilla) throws Exception {
+        int n = politicas.size();
+        resultados = new long[n][n][3];
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        try {
+            List<Future<long[]>> tareas = new ArrayList<>();
+            List<int[]> posiciones = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    if (i == j) continue;
+                    for (int desde = 0; desde < partidas; desde += PARTIDAS_POR_TAREA) {
+                        int ci = i, lj = j, d = desde, hasta = Math.min(partidas, desde + PARTIDAS_POR_TAREA);
+                        tareas.add(ejecutor.submit(() -> jugarPartidas(ci, lj, d, hasta, semilla)));
+                        posiciones.add(new int[]{i, j});
+                    }
+                }
+            }
+            long total = 0;
+            for (int t = 0; t < tareas.size(); t++) {
+                long[] r = tareas.get(t).get();
+                long[] destino = resultados[posiciones.get(t)[0]][posiciones.get(t)[1]];
+                for (int k = 0; k < 3; k++) {
+                    destino[k] += r[k];
+                    total += r[k];
+                }
+            }
+            return total;
+        } finally {
+            ejecutor.shutdown();
+        }
+    }
+
+    /**
+     * Juega las partidas [desde, hasta) de un emparejamiento.
+     * @return {victorias de Charizard, victorias de Lucario, empates}
+     */
+    private long[] jugarPartidas(int charizard, int lucario, int desde, int hasta, long semilla) {
+        long[] r = new long[3];
+        EstadoBatalla estado = inicial.copia();
+        Politica[] lados = {politicas.get(charizard), politicas.get(lucario)};
+        for (int k = desde; k < hasta; k++) {
+            SplittableRandom rand = new SplittableRandom(mezclar(semilla, charizard, lucario, k));
+            estado.copiarDe(inicial);
+            while (!estado.terminada()) {
+                estado.aplicar(lados[estado.getTurno()].elegirMovimiento(estado, rand), rand);
+            }
+            int ganador = estado.ganador();
+            r[ganador < 0 ? 2 : ganador]++;
+        }
+        return r;
+    }
+
+    /**
+     * Semilla propia de cada partida, independiente del reparto entre hilos.
+     */
+    private static long mezclar(long semilla, int i, int j, int k) {
+        long h = semilla * 0x9E3779B97F4A7C15L + i;
+        h = h * 0x9E3779B97F4A7C15L + j;
+        h = h * 0x9E3779B97F4A7C15L + k;
+        return new SplittableRandom(h).nextLong();
+    }
+
+    /**
+     * Muestra el porcentaje de victorias de la política de cada fila (como Charizard)
+     * contra la de cada columna (como Lucario).
+     */
+    public void imprimirMatriz() {
+        int n = nombres.size();
+        System.out.println("Victorias de la fila (Charizard) contra la columna (Lucario):");
+        StringBuilder linea = new StringBuilder(String.format("%-12s", ""));
+        for (String nombre : nombres) linea.append(String.format("%12s", nombre));
+        System.out.println(linea);
+        for (int i = 0; i < n; i++) {
+            linea.setLength(0);
+            linea.append(String.format("%-12s", nombres.get(i)));
+            for (int j = 0; j < n; j++) {
+                if (i == j) {
+                    linea.append(String.format("%12s", "-"));
+                } else {
+                    long[] r = resultados[i][j];
+                    double puntos = r[0] + 0.5 * r[2];
+                    linea.append(String.format("%11.1f%%", 100 * puntos / (r[0] + r[1] + r[2])));
+                }
+            }
+            System.out.println(linea);
+        }
+    }
+
+    /**
+     * Calcula y muestra el ranking Elo con su intervalo de confianza del 95%.
+     */
+    public void imprimirElo() {
+        double[][] elo = calcularElo();
+        int n = nombres.size();
+        System.out.println("Elo (media 0, IC 95%):");
+        for (int i = 0; i < n; i++) {
+            System.out.printf("  %-12s %7.1f ± %.1f%n", nombres.get(i), elo[0][i], 1.96 * elo[1][i]);
+        }
+        System.out.printf("  Ventaja del puesto de Charizard: %.1f ± %.1f%n", elo[0][n], 1.96 * elo[1][n]);
+    }
+
+    /**
+     * Ajusta por máxima verosimilitud el modelo P(i gana a j) = 1 / (1 + 10^(-(Ri - Rj + V) / 400)),
+     * con i en el puesto de Charizard y V la ventaja de ese puesto. Los empates cuentan medio punto.
+     * Cada emparejamiento suma un empate virtual para que las puntuaciones sean finitas aunque
+     * una política gane todas sus partidas, y un prior muy débil fija el origen (el Elo solo es relativo).
+     *
+     * @return {puntuaciones (las n políticas y la ventaja V), errores estándar}, en puntos Elo
+     */
+    double[][] calcularElo() {
+        int n = nombres.size();
+        int p = n + 1;
+        double precisionPrior = 1e-6;
+        double empatesVirtuales = 1;
+        double[] theta = new double[p];
+        double[][] hessiana = new double[p][p];
+
+        for (int iter = 0; iter < 100; iter++) {
+            double[] gradiente = new double[p];
+            for (double[] fila : hessiana) Arrays.fill(fila, 0);
+            for (int k = 0; k < p; k++) {
+                gradiente[k] = -precisionPrior * theta[k];
+                hessiana[k][k] = -precisionPrior;
+            }
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    if (i == j) continue;
+                    long[] r = resultados[i][j];
+                    double partidas = r[0] + r[1] + r[2] + empatesVirtuales;
+                    double puntos = r[0] + 0.5 * (r[2] + empatesVirtuales);
+                    double prob = 1 / (1 + Math.exp(-(theta[i] - theta[j] + theta[n])));
+                    double g = puntos - partidas * prob;
+                    double h = partidas * prob * (1 - prob);
+                    int[] indices = {i, j, n};
+                    double[] signos = {1, -1, 1};
+                    for (int a = 0; a < 3; a++) {
+                        gradiente[indices[a]] += signos[a] * g;
+                        for (int b = 0; b < 3; b++) {
+                            hessiana[indices[a]][indices[b]] -= signos[a] * signos[b] * h;
+                        }
+                    }
+                }
+            }
+            double[] paso = resolver(hessiana, gradiente);
+            double cambio = 0;
+            for (int k = 0; k < p; k++) {
+                theta[k] -= paso[k];
+                cambio = Math.max(cambio, Math.abs(paso[k]));
+            }
+            if (cambio < 1e-10) break;
+        }
+
+        // Covarianza = inversa de la información de Fisher (-hessiana)
+        double[][] covarianza = new double[p][];
+        for (int k = 0; k < p; k++) {
+            double[] unitario = new double[p];
+            unitario[k] = -1;
+            covarianza[k] = resolver(hessiana, unitario);
+        }
+
+        // Las puntuaciones se centran en 0, así que su varianza es la del contraste (e_k - media)
+        double escala = 400 / Math.log(10);
+        double media = 0;
+        for (int i = 0; i < n; i++) media += theta[i] / n;
+        double[][] elo = new double[2][p];
+        for (int k = 0; k < p; k++) {
+            double[] contraste = new double[p];
+            if (k < n) {
+                for (int i = 0; i < n; i++) contraste[i] = -1.0 / n;
+            }
+            contraste[k] += 1;
+            double varianza = 0;
+            for (int a = 0; a < p; a++) {
+                for (int b = 0; b < p; b++) varianza += contraste[a] * covarianza[a][b] * contraste[b];
+            }
+            elo[0][k] = (theta[k] - (k < n ? media : 0)) * escala;
+            elo[1][k] = Math.sqrt(Math.max(0, varianza)) * escala;
+        }
+        return elo;
+    }
+
+    /**
+     * Resuelve el sistema a * x = b por eliminación gaussiana con pivote parcial.
+     */
+    private static double[] resolver(double[][] a, double[] b) {
+        int n = b.length;
+        double[][] m = new double[n][n + 1];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(a[i], 0, m[i], 0, n);
+            m[i][n] = b[i];
+        }
+        for (int c = 0; c < n; c++) {
+            int pivote = c;
+            for (int f = c + 1; f < n; f++) {
+                if (Math.abs(m[f][c]) > Math.abs(m[pivote][c])) pivote = f;
+            }
+            double[] t = m[c];
+            m[c] = m[pivote];
+            m[pivote] = t;
+            for (int f = c + 1; f < n; f++) {
+                double factor = m[f][c] / m[c][c];
+                for (int k = c; k <= n; k++) m[f][k] -= factor * m[c][k];
+            }
+        }
+        double[] x = new double[n];
+        for (int f = n - 1; f >= 0; f--) {
+            double suma = m[f][n];
+            for (int k = f + 1; k < n; k++) suma -= m[f][k] * x[k];
+            x[f] = suma / m[f][f];
+        }
+        return x;
+    }
+}
@@ -0,0 +1,146 @@
+package simulacion;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import comun.Opciones;
+import ia.MotorProbabilidad;
+import ia.MotorProbabilidad.ModeloJugador;
+import ia.MotorProbabilidad.Probabilidades;
+import ia.Politica;
+import ia.PoliticaAleatoria;
+import ia.PoliticaVoraz;
+import modelo.Catalogo;
+import modelo.EstadoBatalla;
+
+/**
+ * Comprueba el motor de probabilidad exacta contra simulaciones de Monte Carlo.
+ *
+ * Para cada combinación de modelos de juego calcula la probabilidad exacta de victoria
+ * de Charizard desde el estado inicial y la compara con la frecuencia observada en
+ * partidas simuladas, indicando si cae dentro del intervalo de confianza del 99.9%.
+ * Después mide el tiempo de precalentar la caché y el de cada consulta sobre estados
+ * reales de partidas. Los movimientos se usan sin sus efectos secundarios, que el motor
+ * no tiene en cuenta.
+ *
+ * Uso: java simulacion.ValidadorProbabilidad [opcion=valor ...]
+ *
+ *     partidas=200000   Partidas simuladas por combinación de modelos
+ *     semilla=1         Semilla de las simulaciones
+ */
+public class ValidadorProbabilidad {
+
+    private static final String USO = "Uso: java simulacion.ValidadorProbabilidad [partidas=N] [semilla=N]";
+
+    /** Valor z del intervalo de confianza del 99.9% */
+    private static final double Z = 3.29;
+
+    public static void main(String[] args) {
+        try {
+            ejecutar(args);
+        } catch (IllegalArgumentException e) {
+            // Opciones mal escritas o números no válidos
+            System.err.println(e.getMessage());
+            System.err.println(USO);
+            System.exit(2);
+        }
+    }
+
+    private static void ejecutar(String[] args) {
+        Map<String, String> opciones = Opciones.leer(args, "partidas", "semilla");
+        int partidas = Integer.parseInt(opciones.getOrDefault("partidas", "200000"));
+        long semilla = Long.parseLong(opciones.getOrDefault("semilla", "1"));
+        // El motor ignora las condiciones de estado: se comprueba sin efectos secundarios
+        EstadoBatalla inicial = Catalogo.activo().sinEfectos().estadoInicial();
+
+        boolean correcto = true;
+        for (ModeloJugador charizard : ModeloJugador.values()) {
+            for (ModeloJugador lucario : ModeloJugador.values()) {
+                long inicio = System.nanoTime();
+                MotorProbabilidad motor = new MotorProbabilidad(inicial, charizard, lucario);
+                motor.precalentar(inicial);
+                double msPrecalentar = (System.nanoTime() - inicio) / 1e6;
+                Probabilidades exacta = motor.analizar(inicial);
+
+                double[] observada = simular(inicial, politica(charizard), politica(lucario), partidas,
+                        new SplittableRandom(semilla));
+                boolean dentro = dentroIntervalo(exacta.victoriaCharizard, observada[0], partidas)
+                        && dentroIntervalo(exacta.empate, observada[2], partidas);
+                correcto &= dentro;
+
+                System.out.printf("%-9s vs %-9s exacta %.4f/%.4f/%.4f  simulada %.4f/%.4f/%.4f  %s  "
+                                + "(caché %d entradas en %.1f ms)%n",
+                        charizard, lucario, exacta.victoriaCharizard, exacta.victoriaLucario, exacta.empate,
+                        observada[0], observada[1], observada[2], dentro ? "OK" : "FUERA",
+                        motor.getEntradasCache(), msPrecalentar);
+            }
+        }
+
+        medirConsultas(inicial, semilla);
+        System.out.println(correcto ? "Todas las probabilidades coinciden con la simulación"
+                : "Hay probabilidades fuera del intervalo de confianza");
+    }
+
+    private static Politica politica(ModeloJugador modelo) {
+        return modelo == ModeloJugador.ALEATORIO ? new PoliticaAleatoria() : new PoliticaVoraz();
+    }
+
+    private static boolean dentroIntervalo(double exacta, double observada, int n) {
+        double error = Math.sqrt(Math.max(exacta * (1 - exacta), 1e-12) / n);
+        return Math.abs(observada - exacta) <= Z * error;
+    }
+
+    /**
+     * @return Frecuencias de {victoria de Charizard, victoria de Lucario, empate}
+     */
+    private static double[] simular(EstadoBatalla inicial, Politica charizard, Politica lucario,
+                                    int partidas, SplittableRandom rand) {
+        EstadoBatalla estado = inicial.copia();
+        long[] cuenta = new long[3];
+        for (int p = 0; p < partidas; p++) {
+            estado.copiarDe(inicial);
+            while (!estado.terminada()) {
+                Politica politica = estado.getTurno() == EstadoBatalla.CHARIZARD ? charizard : lucario;
+                estado.aplicar(politica.elegirMovimiento(estado, rand), rand);
+            }
+            int ganador = estado.ganador();
+            cuenta[ganador < 0 ? 2 : ganador]++;
+        }
+        return new double[]{cuenta[0] / (double) partidas, cuenta[1] / (double) partidas,
+                cuenta[2] / (double) partidas};
+    }
+
+    /**
+     * Mide el tiempo por consulta sobre los estados de partidas aleatorias, con la caché ya caliente.
+     */
+    private static void medirConsultas(EstadoBatalla inicial, long semilla) {
+        MotorProbabilidad motor = new MotorProbabilidad(inicial, ModeloJugador.ALEATORIO, ModeloJugador.ALEATORIO);
+        motor.precalentar(inicial);
+
+        List<EstadoBatalla> estados = new ArrayList<>();
+        SplittableRandom rand = new SplittableRandom(semilla);
+        while (estados.size() < 20000) {
+            EstadoBatalla estado = inicial.copia();
+            while (!estado.terminada()) {
+                estados.add(estado.copia());
+                estado.aplicar(PoliticaAleatoria.movimientoAleatorio(estado, rand), rand);
+            }
+        }
+
+        double suma = 0;
+        for (int ronda = 0; ronda < 5; ronda++) {
+            long inicio = System.nanoTime();
+            for (EstadoBatalla e : estados) suma += motor.analizar(e).victoriaCharizard;
+            long ns = System.nanoTime() - inicio;
+            System.out.printf("Ronda %d: %d consultas, %.2f µs/consulta%n",
+                    ronda, estados.size(), ns / 1e3 / estados.size());
+        }
+
+        long inicio = System.nanoTime();
+        for (int i = 0; i < 2000; i++) suma += motor.mejorMovimiento(estados.get(i));
+        System.out.printf("Movimiento sugerido: %.2f µs/consulta (control %.1f)%n",
+                (System.nanoTime() - inicio) / 1e3 / 2000, suma);
+    }
+}